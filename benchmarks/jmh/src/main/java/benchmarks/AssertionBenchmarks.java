@@ -0,0 +1,78 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import core.json.JsonExpectations;
+import core.json.SchemaRegistry;
+import core.json.SchemaResult;
+import io.restassured.path.json.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+/*
+ * Response assertions: GPath lookups as the tests write them, the same checks as one
+ * JsonExpectations pass, and schema validation with and without the result cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AssertionBenchmarks {
+
+    private static final String SCHEMA = "ExpectedSchema.json";
+
+    private static final JsonExpectations EXPECTATIONS = JsonExpectations.builder()
+            .expect("page", is(2))
+            .expect("data", hasSize(6))
+            .expect("data[0].id", is(7))
+            .expect("data[5].email", is("user12@reqres.in"))
+            .build();
+
+    private String body;
+    private byte[] bodyBytes;
+    private JsonNode tree;
+
+    @Setup
+    public void setUp() throws Exception {
+        body = Bodies.USERS_PAGE;
+        bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        tree = new ObjectMapper().readTree(bodyBytes);
+        SchemaRegistry.get().schema(SCHEMA);
+    }
+
+    @Benchmark
+    public boolean gpathAssertions() {
+        JsonPath json = JsonPath.from(body);
+        return json.getInt("page") == 2
+                && json.getList("data").size() == 6
+                && json.getInt("data[0].id") == 7
+                && "user12@reqres.in".equals(json.getString("data[5].email"));
+    }
+
+    @Benchmark
+    public List<String> jsonExpectations() {
+        return EXPECTATIONS.check(body);
+    }
+
+    @Benchmark
+    public ProcessingReport schemaValidation() throws Exception {
+        return SchemaRegistry.get().schema(SCHEMA).validate(tree);
+    }
+
+    @Benchmark
+    public SchemaResult schemaValidationCached() {
+        return SchemaRegistry.get().validate(SCHEMA, bodyBytes);
+    }
+}
@@ -0,0 +1,31 @@
+package benchmarks;
+
+/*
+ * Response bodies shaped like the reqres.in users page the tests call
+ */
+final class Bodies {
+
+    static final String USERS_PAGE = usersPage(6);
+
+    private Bodies() {
+    }
+
+    static String usersPage(int users) {
+        StringBuilder body = new StringBuilder(256 + users * 160);
+        body.append("{\"page\":2,\"per_page\":").append(users).append(",\"total\":12,\"total_pages\":2,\"data\":[");
+        for (int i = 0; i < users; i++) {
+            int id = 7 + i;
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"id\":").append(id)
+                    .append(",\"email\":\"user").append(id).append("@reqres.in\"")
+                    .append(",\"first_name\":\"First").append(id).append('"')
+                    .append(",\"last_name\":\"Last").append(id).append('"')
+                    .append(",\"avatar\":\"https://reqres.in/img/faces/").append(id).append("-image.jpg\"}");
+        }
+        body.append("],\"support\":{\"url\":\"https://reqres.in/#support-heading\",")
+                .append("\"text\":\"To keep ReqRes free, contributions towards server costs are appreciated!\"}}");
+        return body.toString();
+    }
+}
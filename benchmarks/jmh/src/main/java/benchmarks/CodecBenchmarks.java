@@ -0,0 +1,63 @@
+package benchmarks;
+
+import core.codec.Codecs;
+import io.restassured.path.json.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pojo.cityRequest;
+import pojo.postRequestBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * POJO serialization of postRequestBody through the cached codecs, next to the per call mapper
+ * RestAssured's own Jackson mapping builds
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmarks {
+
+    private postRequestBody body;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        cityRequest city = new cityRequest();
+        city.setName("Bangalore");
+        city.setTemperature("30");
+        body = new postRequestBody();
+        body.setName("morpheus");
+        body.setJob("leader");
+        body.setLanguages(Arrays.asList("Java", "Python"));
+        body.setCityRequestBody(Arrays.asList(city, city));
+        json = Codecs.toBytes(body);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() {
+        return Codecs.toBytes(body);
+    }
+
+    @Benchmark
+    public String serializeToString() {
+        return Codecs.toString(body);
+    }
+
+    @Benchmark
+    public postRequestBody deserialize() {
+        return Codecs.read(json, postRequestBody.class);
+    }
+
+    @Benchmark
+    public postRequestBody deserializeWithJsonPath() {
+        return JsonPath.from(new String(json, StandardCharsets.UTF_8)).getObject("$", postRequestBody.class);
+    }
+}
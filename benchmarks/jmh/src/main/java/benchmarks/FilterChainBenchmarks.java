@@ -0,0 +1,69 @@
+package benchmarks;
+
+import core.ApiClient;
+import core.HostRoutes;
+import core.coalesce.SingleFlightFilter;
+import core.json.SchemaFilter;
+import core.limit.LimitFilter;
+import core.metrics.TimingFilter;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import io.restassured.filter.Filter;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import utils.LastResponseFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * A full ApiClient request against the local stub server, with no filters and with the filter
+ * chain BaseTest installs plus schema validation. The difference is what the framework adds on
+ * top of RestAssured and the loopback round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FilterChainBenchmarks {
+
+    private static final String URL = "http://bench.test/api/users?page=2";
+
+    @Param({"none", "framework"})
+    public String chain;
+
+    private StubServer stub;
+    private List<Filter> filters;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = StubServer.start(0, request -> StubResponse.json(200, Bodies.USERS_PAGE));
+        HostRoutes.route("bench.test", "localhost", stub.port());
+        filters = "none".equals(chain) ? Collections.emptyList() : new ArrayList<>(Arrays.asList(
+                LastResponseFilter.INSTANCE, SingleFlightFilter.INSTANCE, LimitFilter.INSTANCE,
+                TimingFilter.INSTANCE, new SchemaFilter("ExpectedSchema.json")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        HostRoutes.remove("bench.test");
+        stub.close();
+    }
+
+    @Benchmark
+    public int get() {
+        Response response = ApiClient.given().filters(filters).get(URL);
+        return response.getStatusCode();
+    }
+}
@@ -0,0 +1,64 @@
+package benchmarks;
+
+import com.relevantcodes.extentreports.LogStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ExtentReport;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cost of ExtentReport log calls on the test thread, alone and with eight threads logging at
+ * once. Every iteration logs a fixed batch of 10000 entries and reports the time of the whole
+ * batch: a time based loop would queue events faster than the writer drains them. The report is
+ * written to a temp folder and rendered after every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, batchSize = 10_000)
+@Measurement(iterations = 20, batchSize = 10_000)
+public class ReportBenchmarks {
+
+    @Setup(Level.Iteration)
+    public void openReport() throws Exception {
+        Path folder = Files.createTempDirectory("jmh-report");
+        ExtentReport.initialize(folder.resolve("benchmark.html").toString());
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeReport() {
+        ExtentReport.close();
+    }
+
+    @State(Scope.Thread)
+    public static class TestOfThread {
+        @Setup(Level.Iteration)
+        public void startTest() {
+            ExtentReport.startTest("benchmark " + Thread.currentThread().getName(), "");
+        }
+    }
+
+    @Benchmark
+    public void log(TestOfThread test) {
+        ExtentReport.log(LogStatus.INFO, "Status code is 200");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void logFromEightThreads(TestOfThread test) {
+        ExtentReport.log(LogStatus.INFO, "Status code is 200");
+    }
+}
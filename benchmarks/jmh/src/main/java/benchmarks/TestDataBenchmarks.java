@@ -0,0 +1,52 @@
+package benchmarks;
+
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import utils.ConfigRegistry;
+import utils.JsonReader;
+import utils.PropertyReader;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Test data and config lookups of JsonReader and PropertyReader, the cached lookups every test
+ * makes and the full reload a changed file costs
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TestDataBenchmarks {
+
+    @Benchmark
+    public String jsonReaderGetTestData() throws Exception {
+        return JsonReader.getTestData("username");
+    }
+
+    @Benchmark
+    public JSONObject jsonReaderGetJsonData() throws Exception {
+        return JsonReader.getJsonData();
+    }
+
+    @Benchmark
+    public Object jsonReaderGetJsonArrayData() throws Exception {
+        return JsonReader.getJsonArrayData("languages", 1);
+    }
+
+    @Benchmark
+    public String propertyReaderLookup() {
+        return PropertyReader.propertyReader(ConfigRegistry.DEFAULT_CONFIG, "server");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String propertyReaderReload() {
+        ConfigRegistry registry = ConfigRegistry.forFile(ConfigRegistry.DEFAULT_CONFIG);
+        registry.reload();
+        return registry.get("server");
+    }
+}
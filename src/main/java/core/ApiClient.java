@@ -0,0 +1,101 @@
+package core;
+
+import core.codec.CodecObjectMapper;
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Entry point for every request of the framework, use ApiClient.given() instead of RestAssured.given().
+ * Requests get the global RestAssured settings (baseURI, filters, config) plus the shared
+ * keep-alive connection pool of ConnectionPool, so repeated calls to the same host reuse their
+ * TCP and TLS connections. HostRoutes can point any host at a local stub server. POJO bodies
+ * are written and read by the cached per type codecs of core.codec.Codecs.
+ *
+ * RestAssured's transport is Apache HttpClient 4, which speaks HTTP/1.1 only.
+ * Requests block their thread, AsyncClient sends many at once without blocking.
+ */
+public final class ApiClient {
+
+    private static final HttpClientConfig.HttpClientFactory POOLED_CLIENT_FACTORY = PooledHttpClient::new;
+
+    //RestAssured.config the pooled config was derived from, recomputed only when a test replaces it
+    private static volatile Derived derived = new Derived(null, null);
+
+    //extra filters for the requests of one thread, e.g. the iterations of a load run
+    private static final ThreadLocal<List<Filter>> THREAD_FILTERS = new ThreadLocal<>();
+
+    private ApiClient() {
+    }
+
+    public static RequestSpecification given() {
+        RequestSpecification request = RestAssured.given().config(config());
+        List<Filter> filters = THREAD_FILTERS.get();
+        return filters == null ? request : request.filters(filters);
+    }
+
+    /*
+     * Add filters to every request given() builds on the current thread, until the returned
+     * Runnable is run on that thread. Other threads and the global RestAssured filters are not touched.
+     */
+    public static Runnable filtersOnThread(List<Filter> filters) {
+        List<Filter> previous = THREAD_FILTERS.get();
+        List<Filter> combined = new ArrayList<>();
+        if (previous != null) {
+            combined.addAll(previous);
+        }
+        combined.addAll(filters);
+        THREAD_FILTERS.set(combined);
+        return () -> {
+            if (previous == null) {
+                THREAD_FILTERS.remove();
+            } else {
+                THREAD_FILTERS.set(previous);
+            }
+        };
+    }
+
+    /*
+     * Global RestAssured config with the pooled http client factory and the codec object mapper applied
+     */
+    public static RestAssuredConfig config() {
+        RestAssuredConfig global = RestAssured.config();
+        Derived current = derived;
+        if (current.source != global) {
+            RestAssuredConfig pooled = global.httpClient(global.getHttpClientConfig()
+                    .httpClientFactory(POOLED_CLIENT_FACTORY));
+            //cached per type codecs, unless a test brought its own mapper
+            if (global.getObjectMapperConfig().defaultObjectMapper() == null) {
+                pooled = pooled.objectMapperConfig(global.getObjectMapperConfig()
+                        .defaultObjectMapper(CodecObjectMapper.INSTANCE));
+            }
+            current = new Derived(global, pooled);
+            derived = current;
+        }
+        return current.config;
+    }
+
+    public static PoolMetrics poolMetrics() {
+        return ConnectionPool.get().metrics();
+    }
+
+    public static Map<String, PoolMetrics> poolMetricsByHost() {
+        return ConnectionPool.get().metricsByRoute();
+    }
+
+    private static final class Derived {
+        final RestAssuredConfig source;
+        final RestAssuredConfig config;
+
+        Derived(RestAssuredConfig source, RestAssuredConfig config) {
+            this.source = source;
+            this.config = config;
+        }
+    }
+}
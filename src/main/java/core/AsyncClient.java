@@ -0,0 +1,297 @@
+package core;
+
+import core.metrics.TimingFilter;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.conn.DefaultRoutePlanner;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.util.EntityUtils;
+import utils.ConfigRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Non-blocking requests for fan-out tests. Requests go out on the NIO reactor of Apache
+ * HttpAsyncClient, a few I/O threads serve every connection and each call returns a
+ * CompletableFuture right away, so N requests take about as long as the slowest of them.
+ *
+ * At most maxInFlight requests are on the wire at once, the others wait in a queue and start as
+ * earlier ones finish, so a fan-out of thousands of calls neither floods the server nor opens
+ * thousands of sockets. Every request has a timeout from the moment it starts, after which it is
+ * aborted and its future fails with a TimeoutException. Cancelling a future aborts its request.
+ *
+ * HostRoutes apply like for ApiClient and the total time of every request goes to the endpoint
+ * latency histograms. RestAssured filters do not run, the body is read into memory.
+ *
+ * List<AsyncResponse> pages = Fanout.map(Arrays.asList(1, 2),
+ *         page -> AsyncClient.shared().get("https://reqres.in/api/users?page=" + page).send()).join();
+ *
+ * Settings of shared() come from config.properties: async.maxInFlight, async.timeoutMillis, async.ioThreads
+ */
+public final class AsyncClient implements Closeable {
+
+    private static final AtomicLong THREAD_IDS = new AtomicLong();
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "async-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static AsyncClient shared;
+
+    private final CloseableHttpAsyncClient client;
+    private final int maxInFlight;
+    private final Duration timeout;
+    private final Queue<Pending> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private AsyncClient(int maxInFlight, Duration timeout, int ioThreads) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1, was " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.timeout = timeout;
+        int millis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+        client = HttpAsyncClients.custom()
+                .setDefaultIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(ioThreads).setSoKeepAlive(true)
+                        .setTcpNoDelay(true).build())
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(millis).setSocketTimeout(millis)
+                        .build())
+                //the window bounds the connections, one per request in flight
+                .setMaxConnTotal(maxInFlight)
+                .setMaxConnPerRoute(maxInFlight)
+                .setRoutePlanner(new HostRoutes.Planner(new DefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE)))
+                .addInterceptorLast(HostRoutes.FORWARDED_HEADERS)
+                .setThreadFactory(r -> {
+                    Thread thread = new Thread(r, "async-io-" + THREAD_IDS.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                .build();
+        client.start();
+    }
+
+    /*
+     * Client with its own connections, window and default timeout, close it when done
+     */
+    public static AsyncClient create(int maxInFlight, Duration timeout) {
+        return new AsyncClient(maxInFlight, timeout, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+    /*
+     * The client of the JVM, created on first use from config.properties, its I/O threads are daemons
+     */
+    public static synchronized AsyncClient shared() {
+        if (shared == null) {
+            ConfigRegistry config = ConfigRegistry.get();
+            shared = new AsyncClient(config.getInt("async.maxInFlight", 32),
+                    Duration.ofMillis(config.getLong("async.timeoutMillis", 30000)),
+                    config.getInt("async.ioThreads", 2));
+        }
+        return shared;
+    }
+
+    public AsyncRequest get(String url) {
+        return request("GET", url);
+    }
+
+    public AsyncRequest post(String url) {
+        return request("POST", url);
+    }
+
+    public AsyncRequest put(String url) {
+        return request("PUT", url);
+    }
+
+    public AsyncRequest patch(String url) {
+        return request("PATCH", url);
+    }
+
+    public AsyncRequest delete(String url) {
+        return request("DELETE", url);
+    }
+
+    public AsyncRequest request(String method, String url) {
+        return new AsyncRequest(this, method, url, timeout);
+    }
+
+    /*
+     * Requests on the wire right now, never more than maxInFlight
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /*
+     * Requests waiting for a free slot of the window
+     */
+    public int waiting() {
+        return waiting.size();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    public long timedOut() {
+        return timedOut.get();
+    }
+
+    CompletableFuture<AsyncResponse> execute(AsyncRequest request) {
+        Pending pending = new Pending(request);
+        waiting.offer(pending);
+        dispatch();
+        return pending.future;
+    }
+
+    /*
+     * Start waiting requests while the window has room. Callers publish their request before they
+     * look at the window and finishing requests free their slot before they look at the queue,
+     * so a request is never left waiting with a free slot.
+     */
+    private void dispatch() {
+        while (!waiting.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Pending next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            start(next);
+        }
+    }
+
+    private void start(Pending pending) {
+        //cancelled while waiting
+        if (pending.future.isDone()) {
+            release(pending);
+            return;
+        }
+        AsyncRequest request = pending.request;
+        HttpUriRequest http;
+        Future<HttpResponse> exchange;
+        try {
+            http = request.toHttpRequest();
+            exchange = send(pending, http);
+        } catch (RuntimeException e) {
+            //a malformed url or a closed client
+            pending.future.completeExceptionally(e);
+            release(pending);
+            return;
+        }
+        ScheduledFuture<?> timer = TIMER.schedule(() -> {
+            if (!pending.future.isDone()) {
+                timedOut.incrementAndGet();
+                pending.future.completeExceptionally(new TimeoutException(request.method + " " + request.url
+                        + " did not answer within " + request.timeout.toMillis() + " ms"));
+                exchange.cancel(true);
+            }
+        }, request.timeout.toMillis(), TimeUnit.MILLISECONDS);
+        pending.future.whenComplete((response, failure) -> {
+            timer.cancel(false);
+            if (pending.future.isCancelled()) {
+                exchange.cancel(true);
+            }
+            release(pending);
+        });
+    }
+
+    private Future<HttpResponse> send(Pending pending, HttpUriRequest http) {
+        AsyncRequest request = pending.request;
+        long startNanos = System.nanoTime();
+        return client.execute(http, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse result) {
+                long nanos = System.nanoTime() - startNanos;
+                try {
+                    byte[] body = result.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(result.getEntity());
+                    TimingFilter.record(request.method, http.getURI(), nanos);
+                    finish(pending, new AsyncResponse(request.method, http.getURI().toString(), result, body, nanos / 1e6),
+                            null);
+                } catch (IOException e) {
+                    finish(pending, null, new UncheckedIOException(e));
+                }
+            }
+
+            @Override
+            public void failed(Exception failure) {
+                finish(pending, null, failure);
+            }
+
+            @Override
+            public void cancelled() {
+                finish(pending, null, null);
+            }
+        });
+    }
+
+    private void finish(Pending pending, AsyncResponse response, Throwable failure) {
+        if (response != null) {
+            pending.future.complete(response);
+        } else if (failure != null) {
+            pending.future.completeExceptionally(failure);
+        } else {
+            pending.future.cancel(false);
+        }
+    }
+
+    //a request gives its slot back exactly once, whichever of response, timeout or cancel comes first
+    private void release(Pending pending) {
+        if (pending.released.compareAndSet(false, true)) {
+            inFlight.decrementAndGet();
+            dispatch();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Pending pending;
+        while ((pending = waiting.poll()) != null) {
+            pending.future.cancel(false);
+        }
+        client.close();
+        synchronized (AsyncClient.class) {
+            if (shared == this) {
+                shared = null;
+            }
+        }
+    }
+
+    private static final class Pending {
+        final AsyncRequest request;
+        final CompletableFuture<AsyncResponse> future = new CompletableFuture<>();
+        final AtomicBoolean released = new AtomicBoolean();
+
+        Pending(AsyncRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package core;
+
+import core.codec.Codecs;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * One request of an AsyncClient, built like a RestAssured request and sent with send()
+ *
+ * CompletableFuture<AsyncResponse> created = client.post("https://reqres.in/api/users")
+ *         .body(new User("morpheus", "leader"))
+ *         .timeout(Duration.ofSeconds(5))
+ *         .send();
+ */
+public final class AsyncRequest {
+
+    final String method;
+    final String url;
+    Duration timeout;
+    private final AsyncClient client;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final List<String[]> queryParams = new ArrayList<>();
+    private byte[] body;
+    private String contentType;
+
+    AsyncRequest(AsyncClient client, String method, String url, Duration timeout) {
+        this.client = client;
+        this.method = method;
+        this.url = url;
+        this.timeout = timeout;
+    }
+
+    public AsyncRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public AsyncRequest queryParam(String name, Object value) {
+        queryParams.add(new String[]{name, String.valueOf(value)});
+        return this;
+    }
+
+    public AsyncRequest contentType(String contentType) {
+        this.contentType = contentType;
+        return this;
+    }
+
+    /*
+     * Body as is, sent as JSON unless another content type was set
+     */
+    public AsyncRequest body(String body) {
+        return body(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public AsyncRequest body(byte[] body) {
+        this.body = body;
+        return this;
+    }
+
+    /*
+     * Pojo body written by the cached codecs, like ApiClient's object mapper
+     */
+    public AsyncRequest body(Object pojo) {
+        return body(Codecs.toBytes(pojo));
+    }
+
+    /*
+     * Time the request may take once it is on the wire, default the client's
+     */
+    public AsyncRequest timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /*
+     * Queue the request, it starts as soon as the client's window has room
+     */
+    public CompletableFuture<AsyncResponse> send() {
+        return client.execute(this);
+    }
+
+    HttpUriRequest toHttpRequest() {
+        RequestBuilder builder = RequestBuilder.create(method).setUri(url);
+        for (String[] param : queryParams) {
+            builder.addParameter(param[0], param[1]);
+        }
+        headers.forEach(builder::setHeader);
+        if (body != null) {
+            ContentType type = contentType != null ? ContentType.parse(contentType) : ContentType.APPLICATION_JSON;
+            builder.setEntity(new ByteArrayEntity(body, type));
+        }
+        return builder.build();
+    }
+}
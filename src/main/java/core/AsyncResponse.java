@@ -0,0 +1,86 @@
+package core;
+
+import core.codec.Codecs;
+import io.restassured.path.json.JsonPath;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Response of an AsyncClient request with its whole body in memory
+ */
+public final class AsyncResponse {
+
+    public final String method;
+    public final String url;
+    public final int statusCode;
+    //request start to last byte of the body
+    public final double millis;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final Charset charset;
+
+    AsyncResponse(String method, String url, HttpResponse response, byte[] body, double millis) {
+        this.method = method;
+        this.url = url;
+        this.statusCode = response.getStatusLine().getStatusCode();
+        this.millis = millis;
+        this.body = body;
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Header header : response.getAllHeaders()) {
+            headers.put(header.getName(), header.getValue());
+        }
+        this.headers = Collections.unmodifiableMap(headers);
+        Charset charset = null;
+        if (response.getEntity() != null) {
+            try {
+                ContentType type = ContentType.get(response.getEntity());
+                charset = type == null ? null : type.getCharset();
+            } catch (RuntimeException e) {
+                //unknown or malformed charset, fall back to UTF-8
+            }
+        }
+        this.charset = charset != null ? charset : StandardCharsets.UTF_8;
+    }
+
+    public String header(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> headers() {
+        return headers;
+    }
+
+    public byte[] asByteArray() {
+        return body;
+    }
+
+    public String asString() {
+        return new String(body, charset);
+    }
+
+    /*
+     * Body read into a pojo by the cached codecs
+     */
+    public <T> T as(Class<T> type) {
+        return Codecs.read(body, type);
+    }
+
+    /*
+     * Body for GPath lookups, e.g. jsonPath().getInt("total")
+     */
+    public JsonPath jsonPath() {
+        return new JsonPath(asString());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s -> %d in %.1f ms", method, url, statusCode, millis);
+    }
+}
@@ -2,28 +2,88 @@ package core;
 
 import com.relevantcodes.extentreports.ExtentReports;
 import com.relevantcodes.extentreports.LogStatus;
+import core.cache.ResponseCacheFilter;
+import core.coalesce.SingleFlightFilter;
+import core.distributed.Worker;
+import core.history.LatencyHistory;
+import core.history.Regression;
+import core.history.RunId;
+import core.limit.LimitFilter;
+import core.metrics.LatencyExporter;
+import core.replay.ServerMode;
+import core.metrics.LatencyRegistry;
+import core.metrics.TimingFilter;
+import core.schedule.TestMethod;
 import helper.BaseTestHelper;
+import io.restassured.RestAssured;
 import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
 import utils.ExtentReport;
+import utils.FailRetry;
+import utils.LastResponseFilter;
+import utils.RetryPolicy;
 
 
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 import java.security.Timestamp;
 
 public class BaseTest {
+    //timestamped folder of the current run, the html report and the latency files go here
+    public static String reportFolder;
+
     @BeforeSuite(alwaysRun = true)
     public void config() throws IOException {
+        //a distributed worker started the suite once for every method it runs
+        if (Worker.running()) {
+            return;
+        }
 
         //Create the path in which we will create folder to keep html reports
 
         String subfolderpath = System.getProperty("user.dir") + "/reports/" + BaseTestHelper.Timestamp();
+        startSuite(subfolderpath);
+    }
+
+    /*
+     * Report, filters and server mode of a suite whose report goes to folder
+     */
+    public static void startSuite(String folder) throws IOException {
         //create sub folder
-        BaseTestHelper.CreateFolder(subfolderpath);
-        ExtentReport.initialize(subfolderpath + "/" + "API_Execution_Automation.html");
+        BaseTestHelper.CreateFolder(folder);
+        reportFolder = folder;
+        ExtentReport.initialize(folder + "/" + "API_Execution_Automation.html");
+
+        //per endpoint connect, ttfb, download and total time of every request
+        TimingFilter.install();
+        //status codes for the retry policy, to tell 5xx and 429 failures from real ones
+        LastResponseFilter.install();
+        //per host rate and adaptive concurrency limits, so parallel suites do not get throttled
+        LimitFilter.install();
+        //opt in response cache for repeated GETs, http.cache.enabled in config.properties
+        ResponseCacheFilter.install();
+        //opt in sharing of identical GETs in flight, http.coalesce.enabled in config.properties
+        SingleFlightFilter.install();
+        //live, record or replay, from server.mode in config.properties
+        ServerMode.start();
+    }
+
+    /*
+     * Every test gets its own report entry on its own thread, named after the method.
+     * A test can still rename it with ExtentReport.startTest before it logs anything.
+     */
+    @BeforeMethod(alwaysRun = true)
+    public void startReportEntry(Method method) {
+        Test test = method.getAnnotation(Test.class);
+        ExtentReport.startTest(method.getName(), test == null ? "" : test.description());
     }
 
     @AfterMethod(alwaysRun = true)
@@ -32,31 +92,113 @@ public class BaseTest {
 
         if (result.getStatus() == ITestResult.SUCCESS) {
 
-            ExtentReport.extentlog.log(LogStatus.PASS, "Test Case : " + result.getName() + " is passed ");
+            ExtentReport.log(LogStatus.PASS, "Test Case : " + result.getName() + " is passed ");
 
         } else if (result.getStatus() == ITestResult.FAILURE) {
 
-            ExtentReport.extentlog.log(LogStatus.FAIL, "Test case : " + result.getName() + " is failed ");
+            ExtentReport.log(LogStatus.FAIL, "Test case : " + result.getName() + " is failed ");
 
-            ExtentReport.extentlog.log(LogStatus.FAIL, "Test case is failed due to:  " + result.getThrowable());
+            ExtentReport.log(LogStatus.FAIL, "Test case is failed due to:  " + result.getThrowable());
 
         } else if (result.getStatus() == ITestResult.SKIP) {
 
-            ExtentReport.extentlog.log(LogStatus.SKIP, "Test case is Skiped " + result.getName());
+            ExtentReport.log(LogStatus.SKIP, "Test case is Skiped " + result.getName());
 
         }
-        ExtentReport.extentreport.endTest(ExtentReport.extentlog);
+        //skipped tests did not run, their time says nothing about the method
+        if (result.getStatus() != ITestResult.SKIP) {
+            LatencyHistory.recordTest(TestMethod.key(result.getMethod().getRealClass(), result.getMethod().getMethodName()),
+                    result.getEndMillis() - result.getStartMillis());
+        }
+        Object retry = result.getAttribute(FailRetry.RETRY_ATTRIBUTE);
+        if (retry != null) {
+            ExtentReport.log(LogStatus.WARNING, retry.toString());
+        }
+        ExtentReport.endTest();
     }
 
     @AfterSuite(alwaysRun = true)
 
     public void endReport() {
+        if (Worker.running()) {
+            return;
+        }
+        finishSuite();
+    }
+
+    /*
+     * Summaries of the suite into the report, then the report is written and closed
+     */
+    public static void finishSuite() {
 
         //ExtentReport.extentreport.flush();
 
-        ExtentReport.extentreport.close();
+        //connection reuse of the shared http pool
+        for (PoolMetrics metrics : ApiClient.poolMetricsByHost().values()) {
+            ExtentReport.addSystemInfo("HTTP pool " + metrics.name, metrics.toString());
+        }
+        System.out.println("HTTP connection pool " + ApiClient.poolMetrics());
+
+        ExtentReport.addSystemInfo("Retries", RetryPolicy.summary());
+
+        for (Map.Entry<String, String> host : LimitFilter.INSTANCE.summary().entrySet()) {
+            ExtentReport.addSystemInfo("Host limit " + host.getKey(), host.getValue());
+        }
+
+        //endpoint latency histograms as a report node plus json and prometheus files
+        if (!LatencyRegistry.endpoints().isEmpty()) {
+            ExtentReport.startTest("Endpoint latency");
+            ExtentReport.log(LogStatus.INFO, LatencyExporter.htmlTable());
+            ExtentReport.endTest();
+            try {
+                LatencyExporter.export(Paths.get(reportFolder));
+            } catch (IOException e) {
+                System.out.println("Could not write the endpoint latency files: " + e);
+            }
+        }
+
+        //a distributed worker's run is part of the coordinator's run, which records it
+        if (!Worker.running() && LatencyHistory.enabled()) {
+            recordHistory();
+        }
+
+        if (RestAssured.filters().contains(ResponseCacheFilter.INSTANCE)) {
+            ExtentReport.addSystemInfo("HTTP cache", ResponseCacheFilter.INSTANCE.summary());
+        }
+        ExtentReport.addSystemInfo("Coalesced requests", SingleFlightFilter.INSTANCE.summary());
+        ExtentReport.addSystemInfo("Server mode", ServerMode.summary());
+        try {
+            ServerMode.stop();
+        } catch (IOException e) {
+            System.out.println("Could not close the recording: " + e);
+        }
+
+        //waits for the report writer to drain its queue
+        ExtentReport.close();
 
         //Logging.setinstanceNull();
 
     }
-}
\ No newline at end of file
+
+    /*
+     * Append the run to the latency history and report the series that got slower than in the runs before
+     */
+    private static void recordHistory() {
+        String runId = RunId.next();
+        ExtentReport.addSystemInfo("Run", runId);
+        try {
+            List<Regression> regressions = LatencyHistory.record(runId, LatencyRegistry.endpoints(), LatencyHistory.tests());
+            LatencyHistory.clearTests();
+            if (!regressions.isEmpty()) {
+                ExtentReport.startTest("Latency regressions", "Slower than the last runs in " + LatencyHistory.store().file());
+                ExtentReport.log(LogStatus.WARNING, LatencyHistory.htmlTable(regressions));
+                ExtentReport.endTest();
+                for (Regression regression : regressions) {
+                    System.out.println("Latency regression: " + regression);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Could not update the latency history: " + e);
+        }
+    }
+}
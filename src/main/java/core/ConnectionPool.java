@@ -0,0 +1,201 @@
+package core;
+
+import core.metrics.ExchangeTimings;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import utils.ConfigRegistry;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * One keep-alive connection pool shared by every request of the JVM.
+ * RestAssured needs a fresh AbstractHttpClient per request because it mutates the client
+ * (credentials, interceptors, params), so the clients are throw away objects and only the
+ * connection manager below is shared. Connections are pooled per route (scheme, host, port),
+ * idle ones are evicted by a daemon thread and all https connections come from one SSLContext
+ * so its client session cache lets TLS sessions resume instead of doing a full handshake.
+ *
+ * Settings are read from config.properties (see ConfigRegistry):
+ * http.pool.maxTotal, http.pool.maxPerRoute, http.pool.ttlSeconds, http.pool.idleEvictSeconds,
+ * http.tls.sessionCacheSize, http.tls.sessionTimeoutSeconds
+ *
+ * RestAssured 5's HttpClientFactory must return an AbstractHttpClient, so the pool is built on the
+ * deprecated DefaultHttpClient stack of HttpClient 4 (SchemeRegistry, ClientConnectionManager). Its
+ * types are written with their package instead of imported, imports of deprecated types warn on
+ * Java 8 whatever is suppressed.
+ */
+@SuppressWarnings("deprecation")
+public final class ConnectionPool {
+
+    private static final ConnectionPool INSTANCE = new ConnectionPool(ConfigRegistry.get());
+
+    private final TimedConnectionManager manager;
+    private final ScheduledExecutorService evictor;
+
+    private ConnectionPool(ConfigRegistry config) {
+        org.apache.http.conn.scheme.SchemeRegistry schemes = new org.apache.http.conn.scheme.SchemeRegistry();
+        schemes.register(new org.apache.http.conn.scheme.Scheme("http", 80,
+                org.apache.http.conn.scheme.PlainSocketFactory.getSocketFactory()));
+        schemes.register(new org.apache.http.conn.scheme.Scheme("https", 443,
+                new org.apache.http.conn.ssl.SSLSocketFactory(sslContext(config))));
+
+        manager = new TimedConnectionManager(schemes, config.getLong("http.pool.ttlSeconds", 300));
+        manager.setMaxTotal(config.getInt("http.pool.maxTotal", 200));
+        manager.setDefaultMaxPerRoute(config.getInt("http.pool.maxPerRoute", 20));
+
+        final long idleSeconds = config.getLong("http.pool.idleEvictSeconds", 30);
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "http-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            manager.closeExpiredConnections();
+            manager.closeIdleConnections(idleSeconds, TimeUnit.SECONDS);
+        }, idleSeconds, Math.max(1, idleSeconds / 2), TimeUnit.SECONDS);
+    }
+
+    public static ConnectionPool get() {
+        return INSTANCE;
+    }
+
+    org.apache.http.impl.conn.PoolingClientConnectionManager manager() {
+        return manager;
+    }
+
+    /*
+     * Raise or lower the connection limit of one host, e.g. setMaxPerRoute("https", "reqres.in", 443, 50)
+     */
+    public void setMaxPerRoute(String scheme, String host, int port, int max) {
+        manager.setMaxPerRoute(new HttpRoute(new HttpHost(host, port, scheme), null, "https".equals(scheme)), max);
+    }
+
+    /*
+     * Snapshot of the pool as a whole
+     */
+    public PoolMetrics metrics() {
+        PoolStats stats = manager.getTotalStats();
+        return new PoolMetrics("total", stats.getLeased(), stats.getAvailable(), stats.getPending(),
+                stats.getMax(), manager.total.leases.sum(), manager.total.waitNanos.sum(),
+                manager.total.maxWaitNanos.get());
+    }
+
+    /*
+     * Snapshot per route, keyed by scheme://host:port
+     */
+    public Map<String, PoolMetrics> metricsByRoute() {
+        Map<String, PoolMetrics> byRoute = new LinkedHashMap<>();
+        for (Map.Entry<HttpRoute, RouteCounters> entry : manager.byRoute.entrySet()) {
+            PoolStats stats = manager.getStats(entry.getKey());
+            String name = entry.getKey().getTargetHost().toURI();
+            RouteCounters counters = entry.getValue();
+            byRoute.put(name, new PoolMetrics(name, stats.getLeased(), stats.getAvailable(), stats.getPending(),
+                    stats.getMax(), counters.leases.sum(), counters.waitNanos.sum(), counters.maxWaitNanos.get()));
+        }
+        return Collections.unmodifiableMap(byRoute);
+    }
+
+    private static SSLContext sslContext(ConfigRegistry config) {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, null, null);
+            SSLSessionContext sessions = context.getClientSessionContext();
+            sessions.setSessionCacheSize(config.getInt("http.tls.sessionCacheSize", 1000));
+            sessions.setSessionTimeout(config.getInt("http.tls.sessionTimeoutSeconds", 86400));
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create the TLS context", e);
+        }
+    }
+
+    private static final class RouteCounters {
+        final LongAdder leases = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void record(long nanos) {
+            leases.increment();
+            waitNanos.add(nanos);
+            long max;
+            while (nanos > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, nanos)) {
+                //retry until the larger value is stored
+            }
+        }
+    }
+
+    /*
+     * Pooling manager that measures how long callers wait for a connection lease and how long
+     * new connections take to open, per exchange the times also go to ExchangeTimings
+     */
+    @SuppressWarnings("deprecation")
+    private static final class TimedConnectionManager extends org.apache.http.impl.conn.PoolingClientConnectionManager {
+        final RouteCounters total = new RouteCounters();
+        final Map<HttpRoute, RouteCounters> byRoute = new ConcurrentHashMap<>();
+
+        TimedConnectionManager(org.apache.http.conn.scheme.SchemeRegistry schemes, long ttlSeconds) {
+            super(schemes, ttlSeconds, TimeUnit.SECONDS, new SystemDefaultDnsResolver());
+        }
+
+        @Override
+        protected org.apache.http.conn.ClientConnectionOperator createConnectionOperator(
+                org.apache.http.conn.scheme.SchemeRegistry schemes) {
+            return new org.apache.http.impl.conn.DefaultClientConnectionOperator(schemes,
+                    new SystemDefaultDnsResolver()) {
+                @Override
+                public void openConnection(org.apache.http.conn.OperatedClientConnection conn, HttpHost target,
+                                           InetAddress local, HttpContext context,
+                                           org.apache.http.params.HttpParams params) throws IOException {
+                    long start = System.nanoTime();
+                    try {
+                        super.openConnection(conn, target, local, context, params);
+                    } finally {
+                        ExchangeTimings.addConnect(System.nanoTime() - start);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public org.apache.http.conn.ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            final org.apache.http.conn.ClientConnectionRequest request = super.requestConnection(route, state);
+            final RouteCounters counters = byRoute.computeIfAbsent(route, r -> new RouteCounters());
+            return new org.apache.http.conn.ClientConnectionRequest() {
+                @Override
+                public org.apache.http.conn.ManagedClientConnection getConnection(long timeout, TimeUnit unit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.getConnection(timeout, unit);
+                    } finally {
+                        long waited = System.nanoTime() - start;
+                        counters.record(waited);
+                        total.record(waited);
+                        ExchangeTimings.addLease(waited);
+                    }
+                }
+
+                @Override
+                public void abortRequest() {
+                    request.abortRequest();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * Combinators for many AsyncClient calls at once: start them all, then wait for all of them
+ *
+ * List<AsyncResponse> posts = Fanout.map(ids, id -> client.get("https://jsonplaceholder.typicode.com/posts/" + id).send())
+ *         .join();
+ * Fanout.assertAll(futures, response -> assertEquals(response.statusCode, 200), Duration.ofSeconds(30));
+ */
+public final class Fanout {
+
+    //failures listed in an aggregate assertion error, the rest are only counted
+    private static final int MAX_LISTED_FAILURES = 10;
+
+    private Fanout() {
+    }
+
+    /*
+     * Results in the order of the futures, fails with the first failure
+     */
+    public static <T> CompletableFuture<List<T>> all(Collection<? extends CompletableFuture<? extends T>> futures) {
+        List<CompletableFuture<? extends T>> list = new ArrayList<>(futures);
+        return CompletableFuture.allOf(list.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<T> results = new ArrayList<>(list.size());
+            for (CompletableFuture<? extends T> future : list) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+
+    /*
+     * One call per input, all started at once, results in the order of the inputs
+     */
+    public static <I, T> CompletableFuture<List<T>> map(Collection<I> inputs,
+                                                       Function<? super I, ? extends CompletableFuture<? extends T>> call) {
+        List<CompletableFuture<? extends T>> futures = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            futures.add(call.apply(input));
+        }
+        return all(futures);
+    }
+
+    /*
+     * Wait for a future, failures come back unwrapped
+     */
+    public static <T> T await(CompletableFuture<T> future, Duration timeout) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for async requests", e);
+        } catch (TimeoutException e) {
+            throw new AssertionError("Async requests did not finish within " + timeout.toMillis() + " ms", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    /*
+     * Wait for every response and run check on each, then fail once with every failed request or
+     * check instead of stopping at the first. Returns the responses for aggregate checks.
+     */
+    public static List<AsyncResponse> assertAll(Collection<? extends CompletableFuture<AsyncResponse>> futures,
+                                                Consumer<AsyncResponse> check, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<AsyncResponse> responses = new ArrayList<>(futures.size());
+        List<String> failures = new ArrayList<>();
+        int failed = 0;
+        int index = 0;
+        for (CompletableFuture<AsyncResponse> future : futures) {
+            String failure;
+            try {
+                AsyncResponse response = await(future, Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+                responses.add(response);
+                try {
+                    check.accept(response);
+                    failure = null;
+                } catch (AssertionError | RuntimeException e) {
+                    failure = response + ": " + e.getMessage();
+                }
+            } catch (AssertionError | RuntimeException e) {
+                responses.add(null);
+                failure = "request " + index + ": " + e;
+            }
+            if (failure != null && failed++ < MAX_LISTED_FAILURES) {
+                failures.add(failure);
+            }
+            index++;
+        }
+        if (failed > 0) {
+            throw new AssertionError(failed + " of " + futures.size() + " async requests failed, first failures:\n"
+                    + String.join("\n", failures));
+        }
+        return responses;
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return new CompletionException(failure);
+    }
+}
@@ -0,0 +1,237 @@
+package core;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+
+/*
+ * Uploads and downloads of files of any size with flat heap use. An upload streams the file from
+ * a FileChannel with chunked transfer encoding, a download writes the body through NIO channels
+ * to disk. Both hash the bytes with SHA-256 while they pass and time first byte and throughput,
+ * only one 64 KB buffer is ever in memory.
+ *
+ * Transfers use the shared connection pool and HostRoutes like ApiClient, but not the RestAssured
+ * filters: those would hold the whole body in memory.
+ *
+ * TransferResult sent = FileTransfer.upload("https://example.com/upload", Paths.get("build/artifact.zip"));
+ * TransferResult received = FileTransfer.download("https://example.com/artifact.zip", Paths.get("target/artifact.zip"));
+ */
+public final class FileTransfer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileTransfer() {
+    }
+
+    public static TransferResult upload(String url, Path file) throws IOException {
+        return upload("POST", url, file, "application/octet-stream", Collections.emptyMap());
+    }
+
+    /*
+     * Send the file as the body of method (POST or PUT) to url
+     */
+    public static TransferResult upload(String method, String url, Path file, String contentType,
+                                        Map<String, String> headers) throws IOException {
+        HttpEntityEnclosingRequestBase request = new HttpEntityEnclosingRequestBase() {
+            @Override
+            public String getMethod() {
+                return method;
+            }
+        };
+        request.setURI(URI.create(url));
+        headers.forEach(request::setHeader);
+        FileChannelEntity entity = new FileChannelEntity(file);
+        entity.setContentType(contentType);
+        entity.setChunked(true);
+        request.setEntity(entity);
+
+        PooledHttpClient client = new PooledHttpClient(false);
+        HttpResponse response = client.execute(request);
+        long headersNanos = System.nanoTime();
+        try {
+            String body = response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity());
+            return new TransferResult(response.getStatusLine().getStatusCode(), entity.bytes, hex(entity.digest),
+                    (headersNanos - entity.endNanos) / 1e6, (entity.endNanos - entity.startNanos) / 1e6, body);
+        } finally {
+            request.releaseConnection();
+        }
+    }
+
+    public static TransferResult download(String url, Path target) throws IOException {
+        return download(url, target, Collections.emptyMap());
+    }
+
+    /*
+     * GET url and write the body to target. The body goes to a temporary file next to target
+     * that replaces it only when the download completed with a 2xx status. Any other status
+     * leaves target alone and returns the status with the error body in responseBody.
+     */
+    public static TransferResult download(String url, Path target, Map<String, String> headers) throws IOException {
+        HttpGet request = new HttpGet(url);
+        headers.forEach(request::setHeader);
+        PooledHttpClient client = new PooledHttpClient(false);
+        long startNanos = System.nanoTime();
+        HttpResponse response = client.execute(request);
+        long headersNanos = System.nanoTime();
+        int status = response.getStatusLine().getStatusCode();
+        HttpEntity entity = response.getEntity();
+        if (status < 200 || status >= 300) {
+            try {
+                byte[] body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+                return new TransferResult(status, body.length, hex(sha256().digest(body)),
+                        (headersNanos - startNanos) / 1e6, (System.nanoTime() - headersNanos) / 1e6,
+                        new String(body, StandardCharsets.UTF_8));
+            } finally {
+                request.releaseConnection();
+            }
+        }
+        Path folder = target.toAbsolutePath().getParent();
+        Files.createDirectories(folder);
+        Path temp = Files.createTempFile(folder, target.getFileName().toString(), ".part");
+        boolean complete = false;
+        try {
+            MessageDigest digest = sha256();
+            long bytes = 0;
+            if (entity != null) {
+                try (InputStream in = entity.getContent();
+                     ReadableByteChannel source = Channels.newChannel(in);
+                     FileChannel sink = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                    while (source.read(buffer) >= 0) {
+                        buffer.flip();
+                        digest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                        while (buffer.hasRemaining()) {
+                            bytes += sink.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                }
+            }
+            long endNanos = System.nanoTime();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            complete = true;
+            return new TransferResult(status, bytes, hex(digest.digest()), (headersNanos - startNanos) / 1e6,
+                    (endNanos - headersNanos) / 1e6, "");
+        } finally {
+            if (!complete) {
+                //a half read body must not go back to the pool
+                request.abort();
+                Files.deleteIfExists(temp);
+            }
+            request.releaseConnection();
+        }
+    }
+
+    /*
+     * SHA-256 of a file, read through a FileChannel, to compare with a transfer result
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /*
+     * Request body read from the file each time it is written, so a retried request sends it
+     * again. Hashes and times the bytes of the last write.
+     */
+    private static final class FileChannelEntity extends AbstractHttpEntity {
+        private final Path file;
+        volatile long bytes;
+        volatile byte[] digest = new byte[0];
+        volatile long startNanos;
+        volatile long endNanos;
+
+        FileChannelEntity(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return Files.newInputStream(file);
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            MessageDigest hash = sha256();
+            long written = 0;
+            startNanos = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                int read;
+                while ((read = channel.read(buffer)) >= 0) {
+                    if (read == 0) {
+                        continue;
+                    }
+                    hash.update(buffer.array(), 0, buffer.position());
+                    out.write(buffer.array(), 0, buffer.position());
+                    written += buffer.position();
+                    buffer.clear();
+                }
+            }
+            out.flush();
+            endNanos = System.nanoTime();
+            bytes = written;
+            digest = hash.digest();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+}
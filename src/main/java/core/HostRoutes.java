@@ -0,0 +1,130 @@
+package core;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Sends requests for a public host to another address without touching the test code,
+ * e.g. every call to https://reqres.in goes to a stub server on http://localhost:8089.
+ * The request keeps its path and query, the original host and scheme travel in the
+ * X-Forwarded-Host and X-Forwarded-Proto headers.
+ */
+public final class HostRoutes {
+
+    public static final String ANY_HOST = "*";
+
+    //context attribute with the host a rerouted request was meant for
+    public static final String ORIGINAL_TARGET = "core.original.target";
+
+    private static final Map<String, HttpHost> ROUTES = new ConcurrentHashMap<>();
+    //catch-all of the current thread only, wins over the global routes
+    private static final ThreadLocal<HttpHost> THREAD_ROUTE = new ThreadLocal<>();
+
+    private HostRoutes() {
+    }
+
+    /*
+     * Send requests for host (or ANY_HOST) to plain http on targetHost:targetPort. Returns what
+     * undoes it: the host's previous route comes back, or the host is unrouted when it had none,
+     * unless somebody routed the host again in the meantime. Routes are global, callers undo or
+     * remove their own routes and never clear the others.
+     */
+    public static Runnable route(String host, String targetHost, int targetPort) {
+        String key = host.toLowerCase(Locale.ROOT);
+        HttpHost route = new HttpHost(targetHost, targetPort, "http");
+        HttpHost previous = ROUTES.put(key, route);
+        return () -> {
+            if (previous == null) {
+                ROUTES.remove(key, route);
+            } else {
+                ROUTES.replace(key, route, previous);
+            }
+        };
+    }
+
+    public static Runnable routeAll(String targetHost, int targetPort) {
+        return route(ANY_HOST, targetHost, targetPort);
+    }
+
+    /*
+     * Send every request of the current thread to plain http on targetHost:targetPort, until the
+     * returned Runnable is run on that thread. Requests of other threads keep their routes.
+     */
+    public static Runnable routeThread(String targetHost, int targetPort) {
+        HttpHost previous = THREAD_ROUTE.get();
+        THREAD_ROUTE.set(new HttpHost(targetHost, targetPort, "http"));
+        return () -> {
+            if (previous == null) {
+                THREAD_ROUTE.remove();
+            } else {
+                THREAD_ROUTE.set(previous);
+            }
+        };
+    }
+
+    public static void remove(String host) {
+        ROUTES.remove(host.toLowerCase(Locale.ROOT));
+    }
+
+    public static void clear() {
+        ROUTES.clear();
+    }
+
+    public static boolean isEmpty() {
+        return ROUTES.isEmpty();
+    }
+
+    static HttpHost lookup(String host) {
+        HttpHost thread = THREAD_ROUTE.get();
+        if (thread != null) {
+            return thread;
+        }
+        if (ROUTES.isEmpty()) {
+            return null;
+        }
+        HttpHost target = ROUTES.get(host.toLowerCase(Locale.ROOT));
+        return target != null ? target : ROUTES.get(ANY_HOST);
+    }
+
+    /*
+     * Route planner of the pooled clients, unrouted hosts take the normal direct route
+     */
+    static final class Planner implements HttpRoutePlanner {
+        private final HttpRoutePlanner direct;
+
+        Planner(HttpRoutePlanner direct) {
+            this.direct = direct;
+        }
+
+        @Override
+        public HttpRoute determineRoute(HttpHost target, HttpRequest request, HttpContext context)
+                throws HttpException {
+            HttpHost routed = target == null ? null : lookup(target.getHostName());
+            if (routed == null) {
+                return direct.determineRoute(target, request, context);
+            }
+            context.setAttribute(ORIGINAL_TARGET, target);
+            return new HttpRoute(routed);
+        }
+    }
+
+    /*
+     * Adds the forwarded headers to rerouted requests, runs after the route is known
+     */
+    static final HttpRequestInterceptor FORWARDED_HEADERS = (request, context) -> {
+        HttpHost original = (HttpHost) context.getAttribute(ORIGINAL_TARGET);
+        if (original != null) {
+            request.setHeader("X-Forwarded-Host", original.toHostString());
+            request.setHeader("X-Forwarded-Proto", original.getSchemeName());
+        }
+    };
+}
@@ -0,0 +1,44 @@
+package core;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Point in time view of a connection pool, either the whole pool or a single route
+ */
+public final class PoolMetrics {
+
+    public final String name;
+    public final int leased;
+    public final int idle;
+    public final int pending;
+    public final int max;
+    public final long leases;
+    public final long totalWaitNanos;
+    public final long maxWaitNanos;
+
+    PoolMetrics(String name, int leased, int idle, int pending, int max,
+                long leases, long totalWaitNanos, long maxWaitNanos) {
+        this.name = name;
+        this.leased = leased;
+        this.idle = idle;
+        this.pending = pending;
+        this.max = max;
+        this.leases = leases;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public double averageWaitMillis() {
+        return leases == 0 ? 0 : (double) totalWaitNanos / leases / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double maxWaitMillis() {
+        return (double) maxWaitNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: leased=%d idle=%d pending=%d max=%d leases=%d avgWait=%.3fms maxWait=%.3fms",
+                name, leased, idle, pending, max, leases, averageWaitMillis(), maxWaitMillis());
+    }
+}
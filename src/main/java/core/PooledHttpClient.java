@@ -0,0 +1,92 @@
+package core;
+
+import core.metrics.ExchangeTimings;
+import core.replay.ServerMode;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.conn.routing.HttpRoutePlanner;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.IOException;
+
+/*
+ * Per request client handed to RestAssured, every instance borrows connections from ConnectionPool.
+ * RestAssured installs its own proxy route planner on each client, that planner is wrapped so
+ * HostRoutes still decides where a host really goes. The deprecated base class is what
+ * RestAssured's HttpClientFactory requires, see ConnectionPool.
+ */
+@SuppressWarnings("deprecation")
+final class PooledHttpClient extends org.apache.http.impl.client.DefaultHttpClient {
+
+    /*
+     * RestAssured reads a body only when a test asks for it, an unread body would keep its pooled
+     * connection leased forever. Buffering the entity here reads it to the end, which hands the
+     * connection back to the pool before RestAssured sees the response.
+     */
+    private static final HttpResponseInterceptor BUFFER_ENTITY = (response, context) -> {
+        HttpEntity entity = response.getEntity();
+        if (entity != null && entity.isStreaming()) {
+            response.setEntity(new BufferedHttpEntity(entity));
+        }
+    };
+
+    PooledHttpClient() {
+        this(true);
+    }
+
+    /*
+     * Without buffering the caller streams the body and must read it to the end or abort,
+     * FileTransfer uses that for downloads larger than the heap
+     */
+    PooledHttpClient(boolean bufferEntities) {
+        super(ConnectionPool.get().manager());
+        addRequestInterceptor(HostRoutes.FORWARDED_HEADERS);
+        if (bufferEntities) {
+            addResponseInterceptor(BUFFER_ENTITY);
+            //sees the buffered body, saves the exchange when server.mode is record
+            addResponseInterceptor(ServerMode.RECORDER);
+        }
+    }
+
+    /*
+     * Stamps request sent and response head received for TimingFilter and the recorder
+     */
+    @Override
+    protected HttpRequestExecutor createRequestExecutor() {
+        return new HttpRequestExecutor() {
+            @Override
+            protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                    throws IOException, HttpException {
+                context.setAttribute(ServerMode.SENT_NANOS, System.nanoTime());
+                HttpResponse response = super.doSendRequest(request, conn, context);
+                ExchangeTimings.requestSent();
+                return response;
+            }
+
+            @Override
+            protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn,
+                                                     HttpContext context) throws HttpException, IOException {
+                HttpResponse response = super.doReceiveResponse(request, conn, context);
+                ExchangeTimings.headersReceived();
+                return response;
+            }
+        };
+    }
+
+    @Override
+    protected HttpRoutePlanner createHttpRoutePlanner() {
+        return new HostRoutes.Planner(super.createHttpRoutePlanner());
+    }
+
+    @Override
+    public synchronized void setRoutePlanner(HttpRoutePlanner routePlanner) {
+        super.setRoutePlanner(routePlanner instanceof HostRoutes.Planner
+                ? routePlanner : new HostRoutes.Planner(routePlanner));
+    }
+}
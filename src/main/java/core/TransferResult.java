@@ -0,0 +1,38 @@
+package core;
+
+/*
+ * Outcome of a FileTransfer: status, size and SHA-256 of the streamed body, time to first byte
+ * and throughput of the body. For an upload the body is the file sent and responseBody holds
+ * the (small) answer of the server, for a download responseBody is empty unless the status was
+ * not 2xx, then it holds the error body and nothing was written.
+ */
+public final class TransferResult {
+
+    public final int statusCode;
+    public final long bytes;
+    public final String sha256;
+    //request start to response head for a download, last byte sent to response head for an upload
+    public final double ttfbMillis;
+    public final double transferMillis;
+    public final String responseBody;
+
+    TransferResult(int statusCode, long bytes, String sha256, double ttfbMillis, double transferMillis,
+                   String responseBody) {
+        this.statusCode = statusCode;
+        this.bytes = bytes;
+        this.sha256 = sha256;
+        this.ttfbMillis = ttfbMillis;
+        this.transferMillis = transferMillis;
+        this.responseBody = responseBody;
+    }
+
+    public double megabytesPerSecond() {
+        return transferMillis <= 0 ? 0 : bytes / (1024.0 * 1024.0) / (transferMillis / 1000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("status %d, %d bytes in %.1f ms (%.1f MB/s), ttfb %.1f ms, sha256 %s",
+                statusCode, bytes, transferMillis, megabytesPerSecond(), ttfbMillis, sha256);
+    }
+}
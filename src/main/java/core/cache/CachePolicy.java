@@ -0,0 +1,169 @@
+package core.cache;
+
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * The parts of RFC 7234 a private cache needs: which GET responses may be stored, how long
+ * they are fresh (max-age, then Expires, then 10% of the time since Last-Modified) and how old
+ * they already are when they arrive (Date and Age).
+ */
+final class CachePolicy {
+
+    //status codes cacheable by default, RFC 7231 section 6.1
+    private static final List<Integer> CACHEABLE = Arrays.asList(200, 203, 204, 300, 301, 404, 405, 410, 414, 501);
+
+    //heuristic freshness is capped, RFC 7234 section 4.2.2 suggests 10% of the modification age
+    private static final long MAX_HEURISTIC_MILLIS = 24L * 60 * 60 * 1000;
+
+    private CachePolicy() {
+    }
+
+    /*
+     * Directives of a Cache-Control header, lower cased, valueless ones map to ""
+     */
+    static Map<String, String> directives(String cacheControl) {
+        if (cacheControl == null || cacheControl.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> directives = new HashMap<>();
+        for (String part : cacheControl.split(",")) {
+            String directive = part.trim();
+            if (directive.isEmpty()) {
+                continue;
+            }
+            int equals = directive.indexOf('=');
+            if (equals < 0) {
+                directives.put(directive.toLowerCase(Locale.ROOT), "");
+            } else {
+                directives.put(directive.substring(0, equals).trim().toLowerCase(Locale.ROOT),
+                        directive.substring(equals + 1).trim().replace("\"", ""));
+            }
+        }
+        return directives;
+    }
+
+    /*
+     * The response as a cache entry, or null when it must not be stored.
+     * requestMillis and responseMillis are the local clock before sending and after receiving.
+     */
+    static CachedResponse storable(Response response, Function<String, String> requestHeaders,
+                                   long requestMillis, long responseMillis) {
+        if (!CACHEABLE.contains(response.getStatusCode())) {
+            return null;
+        }
+        Map<String, String> control = directives(response.getHeader("Cache-Control"));
+        if (control.containsKey("no-store")) {
+            return null;
+        }
+        Map<String, String> vary = new LinkedHashMap<>();
+        String varyHeader = response.getHeader("Vary");
+        if (varyHeader != null) {
+            for (String name : varyHeader.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.equals("*")) {
+                    return null;
+                }
+                if (!trimmed.isEmpty()) {
+                    String value = requestHeaders.apply(trimmed);
+                    vary.put(trimmed, value == null ? "" : value);
+                }
+            }
+        }
+        long date = millis(response.getHeader("Date"), responseMillis);
+        long freshness = freshnessMillis(control, date, response.getHeader("Expires"), response.getHeader("Last-Modified"));
+        boolean revalidate = control.containsKey("no-cache");
+        boolean validators = response.getHeader("ETag") != null || response.getHeader("Last-Modified") != null;
+        //a response that is never fresh and cannot be revalidated is useless
+        if (freshness <= 0 && !validators) {
+            return null;
+        }
+        List<String[]> headers = new ArrayList<>();
+        for (Header header : response.getHeaders()) {
+            String name = header.getName().toLowerCase(Locale.ROOT);
+            if (!name.equals("content-length") && !name.equals("transfer-encoding") && !name.equals("connection")) {
+                headers.add(new String[]{header.getName(), header.getValue()});
+            }
+        }
+        return new CachedResponse(response.getStatusCode(), response.getStatusLine(),
+                Collections.unmodifiableList(headers), response.asByteArray(), responseMillis,
+                initialAgeMillis(response.getHeader("Age"), date, requestMillis, responseMillis), freshness,
+                revalidate, vary);
+    }
+
+    /*
+     * Entry after a 304: new headers, freshness and age, same body
+     */
+    static CachedResponse revalidated(CachedResponse cached, Response notModified, long requestMillis,
+                                      long responseMillis) {
+        List<String[]> headers = cached.mergeHeaders(notModified.getHeaders());
+        Map<String, String> control = directives(CachedResponse.header(headers, "Cache-Control"));
+        long date = millis(CachedResponse.header(headers, "Date"), responseMillis);
+        return new CachedResponse(cached.status, cached.statusLine, Collections.unmodifiableList(headers), cached.body,
+                responseMillis, initialAgeMillis(notModified.getHeader("Age"), date, requestMillis, responseMillis),
+                freshnessMillis(control, date, CachedResponse.header(headers, "Expires"),
+                        CachedResponse.header(headers, "Last-Modified")),
+                control.containsKey("no-cache"), cached.vary);
+    }
+
+    static long freshnessMillis(Map<String, String> control, long dateMillis, String expires, String lastModified) {
+        String maxAge = control.get("max-age");
+        if (maxAge != null) {
+            try {
+                return Long.parseLong(maxAge) * 1000;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        if (expires != null) {
+            //an invalid Expires, like "0", means already expired
+            long expiresMillis = millis(expires, Long.MIN_VALUE);
+            return expiresMillis == Long.MIN_VALUE ? 0 : Math.max(0, expiresMillis - dateMillis);
+        }
+        if (lastModified != null) {
+            long modified = millis(lastModified, Long.MIN_VALUE);
+            if (modified != Long.MIN_VALUE && modified < dateMillis) {
+                return Math.min(MAX_HEURISTIC_MILLIS, (dateMillis - modified) / 10);
+            }
+        }
+        return 0;
+    }
+
+    //RFC 7234 section 4.2.3
+    private static long initialAgeMillis(String age, long dateMillis, long requestMillis, long responseMillis) {
+        long apparent = Math.max(0, responseMillis - dateMillis);
+        long ageValue = 0;
+        if (age != null) {
+            try {
+                ageValue = Long.parseLong(age.trim()) * 1000;
+            } catch (NumberFormatException e) {
+                ageValue = 0;
+            }
+        }
+        return Math.max(apparent, ageValue + (responseMillis - requestMillis));
+    }
+
+    static long millis(String httpDate, long fallback) {
+        if (httpDate == null) {
+            return fallback;
+        }
+        try {
+            return ZonedDateTime.parse(httpDate.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+}
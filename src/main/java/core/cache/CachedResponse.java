@@ -0,0 +1,191 @@
+package core.cache;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Cookie;
+import io.restassured.http.Cookies;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * A stored GET response with what RFC 7234 needs to judge it: when it was received, its age at
+ * that moment and how long it stays fresh, plus its validators and the request headers it varies on.
+ */
+final class CachedResponse {
+
+    final int status;
+    final String statusLine;
+    final List<String[]> headers;
+    final byte[] body;
+    //local clock when the response arrived and the age it already had then, both in millis
+    final long responseMillis;
+    final long initialAgeMillis;
+    final long freshnessMillis;
+    final boolean mustRevalidate;
+    final Map<String, String> vary;
+
+    CachedResponse(int status, String statusLine, List<String[]> headers, byte[] body, long responseMillis,
+                   long initialAgeMillis, long freshnessMillis, boolean mustRevalidate, Map<String, String> vary) {
+        this.status = status;
+        this.statusLine = statusLine;
+        this.headers = headers;
+        this.body = body;
+        this.responseMillis = responseMillis;
+        this.initialAgeMillis = initialAgeMillis;
+        this.freshnessMillis = freshnessMillis;
+        this.mustRevalidate = mustRevalidate;
+        this.vary = vary;
+    }
+
+    long ageMillis(long nowMillis) {
+        return initialAgeMillis + Math.max(0, nowMillis - responseMillis);
+    }
+
+    boolean isFresh(long nowMillis) {
+        return !mustRevalidate && ageMillis(nowMillis) < freshnessMillis;
+    }
+
+    String header(String name) {
+        return header(headers, name);
+    }
+
+    static String header(List<String[]> headers, String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
+    boolean hasValidators() {
+        return header("ETag") != null || header("Last-Modified") != null;
+    }
+
+    long sizeBytes() {
+        long size = body.length + 64;
+        for (String[] header : headers) {
+            size += header[0].length() + header[1].length();
+        }
+        return size;
+    }
+
+    /*
+     * Headers of a 304 replace the stored ones of the same name, the body stays
+     */
+    List<String[]> mergeHeaders(Headers notModified) {
+        Map<String, List<String[]>> merged = new LinkedHashMap<>();
+        for (String[] header : headers) {
+            merged.computeIfAbsent(header[0].toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(header);
+        }
+        Map<String, List<String[]>> replaced = new LinkedHashMap<>();
+        for (Header header : notModified) {
+            String name = header.getName().toLowerCase(Locale.ROOT);
+            if (name.equals("content-length") || name.equals("transfer-encoding")) {
+                continue;
+            }
+            replaced.computeIfAbsent(name, k -> new ArrayList<>()).add(new String[]{header.getName(), header.getValue()});
+        }
+        merged.putAll(replaced);
+        List<String[]> result = new ArrayList<>();
+        for (List<String[]> values : merged.values()) {
+            result.addAll(values);
+        }
+        return result;
+    }
+
+    /*
+     * A fresh RestAssured response for the test, with an Age header like a shared cache would add
+     */
+    Response toResponse(long nowMillis) {
+        List<Header> list = new ArrayList<>(headers.size() + 1);
+        List<Cookie> cookies = new ArrayList<>();
+        String contentType = null;
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase("Age")) {
+                continue;
+            }
+            list.add(new Header(header[0], header[1]));
+            if (header[0].equalsIgnoreCase("Content-Type")) {
+                contentType = header[1];
+            } else if (header[0].equalsIgnoreCase("Set-Cookie")) {
+                Cookie cookie = cookie(header[1]);
+                if (cookie != null) {
+                    cookies.add(cookie);
+                }
+            }
+        }
+        list.add(new Header("Age", String.valueOf(ageMillis(nowMillis) / 1000)));
+        ResponseBuilder builder = new ResponseBuilder().setStatusCode(status).setStatusLine(statusLine)
+                .setHeaders(new Headers(list)).setCookies(new Cookies(cookies)).setBody(body);
+        if (contentType != null) {
+            builder.setContentType(contentType);
+        }
+        return builder.build();
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeShort(status);
+        out.writeUTF(statusLine);
+        out.writeLong(responseMillis);
+        out.writeLong(initialAgeMillis);
+        out.writeLong(freshnessMillis);
+        out.writeBoolean(mustRevalidate);
+        out.writeShort(headers.size());
+        for (String[] header : headers) {
+            out.writeUTF(header[0]);
+            out.writeUTF(header[1]);
+        }
+        out.writeShort(vary.size());
+        for (Map.Entry<String, String> entry : vary.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    static CachedResponse read(DataInputStream in) throws IOException {
+        int status = in.readUnsignedShort();
+        String statusLine = in.readUTF();
+        long responseMillis = in.readLong();
+        long initialAge = in.readLong();
+        long freshness = in.readLong();
+        boolean mustRevalidate = in.readBoolean();
+        int count = in.readUnsignedShort();
+        List<String[]> headers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            headers.add(new String[]{in.readUTF(), in.readUTF()});
+        }
+        int varyCount = in.readUnsignedShort();
+        Map<String, String> vary = new LinkedHashMap<>();
+        for (int i = 0; i < varyCount; i++) {
+            vary.put(in.readUTF(), in.readUTF());
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new CachedResponse(status, statusLine, Collections.unmodifiableList(headers), body, responseMillis,
+                initialAge, freshness, mustRevalidate, vary);
+    }
+
+    //name=value up to the first attribute, enough for tests reading cookie values
+    private static Cookie cookie(String setCookie) {
+        int end = setCookie.indexOf(';');
+        String pair = end < 0 ? setCookie : setCookie.substring(0, end);
+        int equals = pair.indexOf('=');
+        if (equals <= 0) {
+            return null;
+        }
+        return new Cookie.Builder(pair.substring(0, equals).trim(), pair.substring(equals + 1).trim()).build();
+    }
+}
@@ -0,0 +1,209 @@
+package core.cache;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.ConfigRegistry;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Private HTTP cache for GET requests. A fresh stored response is answered without the network;
+ * a stale one with an ETag or Last-Modified is revalidated with If-None-Match / If-Modified-Since
+ * and a 304 answers from the stored body. Freshness follows Cache-Control max-age and no-cache,
+ * Expires and heuristic freshness from Last-Modified; no-store and Vary: * are never stored.
+ * A successful POST, PUT, PATCH or DELETE drops the stored responses of its url.
+ *
+ * Entries are keyed by url plus the Authorization and Cookie headers and the headers named in
+ * http.cache.keyHeaders (server.matchHeaders when unset), so one user's response is never the
+ * answer to another user's request.
+ *
+ * Opt in for the whole suite with http.cache.enabled = true, or per request:
+ * given().filter(ResponseCacheFilter.INSTANCE).get("http://ergast.com/api/f1/2016/circuits.json");
+ *
+ * Settings in config.properties: http.cache.maxBytes, http.cache.diskFolder (empty for memory
+ * only), http.cache.diskMaxBytes
+ */
+public final class ResponseCacheFilter implements OrderedFilter {
+
+    public static final ResponseCacheFilter INSTANCE = new ResponseCacheFilter();
+
+    private final ResponseStore store;
+    private final List<String> keyHeaders = keyHeaders(ConfigRegistry.get());
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+
+    private ResponseCacheFilter() {
+        this(ConfigRegistry.get().getLong("http.cache.maxBytes", 64L * 1024 * 1024),
+                diskFolder(ConfigRegistry.get().get("http.cache.diskFolder", "")),
+                ConfigRegistry.get().getLong("http.cache.diskMaxBytes", 512L * 1024 * 1024));
+    }
+
+    /*
+     * A cache of its own, diskFolder null keeps it in memory only
+     */
+    public ResponseCacheFilter(long maxBytes, Path diskFolder, long diskMaxBytes) {
+        this.store = new ResponseStore(maxBytes, diskFolder, diskMaxBytes);
+    }
+
+    /*
+     * Add the filter to the global RestAssured filters once, when http.cache.enabled is true
+     */
+    public static synchronized void install() {
+        if (ConfigRegistry.get().getBoolean("http.cache.enabled", false) && !RestAssured.filters().contains(INSTANCE)) {
+            RestAssured.filters(INSTANCE);
+        }
+    }
+
+    //after LastResponseFilter so a cached answer still counts as the thread's last response
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE + 1;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String url = requestSpec.getURI();
+        if (!"GET".equalsIgnoreCase(requestSpec.getMethod())) {
+            Response response = ctx.next(requestSpec, responseSpec);
+            if (response.getStatusCode() < 400 && !"HEAD".equalsIgnoreCase(requestSpec.getMethod())
+                    && !"OPTIONS".equalsIgnoreCase(requestSpec.getMethod())) {
+                store.removeUrl(url);
+            }
+            return response;
+        }
+        Map<String, String> requestControl = CachePolicy.directives(requestSpec.getHeaders().getValue("Cache-Control"));
+        //the test asks for conditional or uncached behavior itself
+        if (requestControl.containsKey("no-store") || requestSpec.getHeaders().hasHeaderWithName("If-None-Match")
+                || requestSpec.getHeaders().hasHeaderWithName("If-Modified-Since")) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+
+        String key = key(url, requestSpec);
+        long now = System.currentTimeMillis();
+        CachedResponse cached = store.get(key);
+        if (cached != null && !varyMatches(cached, requestSpec)) {
+            cached = null;
+        }
+        if (cached != null && cached.isFresh(now) && !requestControl.containsKey("no-cache")) {
+            hits.increment();
+            return cached.toResponse(now);
+        }
+        if (cached != null && cached.hasValidators()) {
+            String etag = cached.header("ETag");
+            if (etag != null) {
+                requestSpec.header("If-None-Match", etag);
+            }
+            String lastModified = cached.header("Last-Modified");
+            if (lastModified != null) {
+                requestSpec.header("If-Modified-Since", lastModified);
+            }
+        }
+
+        long requestMillis = System.currentTimeMillis();
+        Response response = ctx.next(requestSpec, responseSpec);
+        long responseMillis = System.currentTimeMillis();
+        if (cached != null && response.getStatusCode() == 304) {
+            revalidations.increment();
+            CachedResponse updated = CachePolicy.revalidated(cached, response, requestMillis, responseMillis);
+            store.put(key, updated);
+            return updated.toResponse(responseMillis);
+        }
+        misses.increment();
+        CachedResponse storable = CachePolicy.storable(response,
+                name -> requestSpec.getHeaders().getValue(name), requestMillis, responseMillis);
+        if (storable != null) {
+            store.put(key, storable);
+        } else {
+            store.remove(key);
+        }
+        return response;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long revalidations() {
+        return revalidations.sum();
+    }
+
+    /*
+     * Drop every stored response and reset the counts
+     */
+    public void clear() {
+        store.clear();
+        hits.reset();
+        misses.reset();
+        revalidations.reset();
+    }
+
+    /*
+     * One line for the report, e.g. "12 hits, 3 misses, 2 revalidated (304), 3 stored"
+     */
+    public String summary() {
+        return hits.sum() + " hits, " + misses.sum() + " misses, " + revalidations.sum() + " revalidated (304), "
+                + store.size() + " stored";
+    }
+
+    private static Path diskFolder(String folder) {
+        return folder.trim().isEmpty() ? null : Paths.get(folder.trim());
+    }
+
+    /*
+     * The url alone for a request without any of the key headers, else the url followed by one
+     * line per key header it sends
+     */
+    private String key(String url, FilterableRequestSpecification requestSpec) {
+        StringBuilder key = new StringBuilder(url);
+        for (String name : keyHeaders) {
+            String value = requestSpec.getHeaders().getValue(name);
+            if (value != null) {
+                key.append(ResponseStore.KEY_SEPARATOR).append(name).append(": ").append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    private static List<String> keyHeaders(ConfigRegistry config) {
+        List<String> names = new ArrayList<>();
+        names.add("Authorization");
+        names.add("Cookie");
+        String configured = config.get("http.cache.keyHeaders", "");
+        if (configured.trim().isEmpty()) {
+            configured = config.get("server.matchHeaders", "");
+        }
+        for (String name : configured.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty() && names.stream().noneMatch(trimmed::equalsIgnoreCase)) {
+                names.add(trimmed);
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private static boolean varyMatches(CachedResponse cached, FilterableRequestSpecification requestSpec) {
+        for (Map.Entry<String, String> vary : cached.vary.entrySet()) {
+            String value = requestSpec.getHeaders().getValue(vary.getKey());
+            if (!vary.getValue().equals(value == null ? "" : value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
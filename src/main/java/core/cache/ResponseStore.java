@@ -0,0 +1,212 @@
+package core.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Cache entries by key, least recently used first out. A key is the url, followed by a line per
+ * request header it depends on (see ResponseCacheFilter). Memory holds up to maxBytes of entries;
+ * with a disk folder, entries pushed out of memory go to one file each and come back into
+ * memory when they are used again, up to diskMaxBytes on disk. All access is under one lock,
+ * a lookup is a map access and the expensive work of a miss happens outside of it.
+ */
+final class ResponseStore {
+
+    static final char KEY_SEPARATOR = '\n';
+
+    private final long maxBytes;
+    private final Path diskFolder;
+    private final long diskMaxBytes;
+
+    private final LinkedHashMap<String, CachedResponse> memory = new LinkedHashMap<>(64, 0.75f, true);
+    //url to size of its file, in access order as well
+    private final LinkedHashMap<String, Long> disk = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+
+    ResponseStore(long maxBytes, Path diskFolder, long diskMaxBytes) {
+        this.maxBytes = maxBytes;
+        this.diskFolder = diskFolder;
+        this.diskMaxBytes = diskMaxBytes;
+    }
+
+    CachedResponse get(String url) {
+        Long onDisk;
+        synchronized (this) {
+            CachedResponse cached = memory.get(url);
+            if (cached != null || diskFolder == null) {
+                return cached;
+            }
+            onDisk = disk.remove(url);
+            if (onDisk != null) {
+                diskBytes -= onDisk;
+            }
+        }
+        if (onDisk == null) {
+            return null;
+        }
+        CachedResponse cached = readFile(url);
+        if (cached != null) {
+            put(url, cached);
+        }
+        return cached;
+    }
+
+    void put(String url, CachedResponse response) {
+        long size = response.sizeBytes();
+        if (size > maxBytes) {
+            remove(url);
+            return;
+        }
+        Map<String, CachedResponse> evicted = new LinkedHashMap<>();
+        synchronized (this) {
+            CachedResponse previous = memory.put(url, response);
+            if (previous != null) {
+                memoryBytes -= previous.sizeBytes();
+            }
+            memoryBytes += size;
+            Iterator<Map.Entry<String, CachedResponse>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedResponse> entry = eldest.next();
+                memoryBytes -= entry.getValue().sizeBytes();
+                eldest.remove();
+                evicted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (diskFolder != null) {
+            for (Map.Entry<String, CachedResponse> entry : evicted.entrySet()) {
+                writeFile(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    void remove(String url) {
+        Long onDisk;
+        synchronized (this) {
+            CachedResponse previous = memory.remove(url);
+            if (previous != null) {
+                memoryBytes -= previous.sizeBytes();
+            }
+            onDisk = disk.remove(url);
+            if (onDisk != null) {
+                diskBytes -= onDisk;
+            }
+        }
+        if (onDisk != null) {
+            deleteFile(url);
+        }
+    }
+
+    /*
+     * Drop the entries of a url, whatever request headers they were stored for
+     */
+    void removeUrl(String url) {
+        List<String> keys = new ArrayList<>();
+        synchronized (this) {
+            for (String key : memory.keySet()) {
+                if (isOf(key, url)) {
+                    keys.add(key);
+                }
+            }
+            for (String key : disk.keySet()) {
+                if (isOf(key, url)) {
+                    keys.add(key);
+                }
+            }
+        }
+        for (String key : keys) {
+            remove(key);
+        }
+    }
+
+    synchronized void clear() {
+        memory.clear();
+        memoryBytes = 0;
+        for (String url : disk.keySet()) {
+            deleteFile(url);
+        }
+        disk.clear();
+        diskBytes = 0;
+    }
+
+    synchronized int size() {
+        return memory.size() + disk.size();
+    }
+
+    private static boolean isOf(String key, String url) {
+        return key.startsWith(url) && (key.length() == url.length() || key.charAt(url.length()) == KEY_SEPARATOR);
+    }
+
+    private void writeFile(String url, CachedResponse response) {
+        Path file = file(url);
+        try {
+            Files.createDirectories(diskFolder);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                response.write(out);
+            }
+            long size = Files.size(file);
+            Map<String, Long> dropped = new LinkedHashMap<>();
+            synchronized (this) {
+                Long previous = disk.put(url, size);
+                diskBytes += size - (previous == null ? 0 : previous);
+                Iterator<Map.Entry<String, Long>> eldest = disk.entrySet().iterator();
+                while (diskBytes > diskMaxBytes && eldest.hasNext()) {
+                    Map.Entry<String, Long> entry = eldest.next();
+                    diskBytes -= entry.getValue();
+                    eldest.remove();
+                    dropped.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (String droppedUrl : dropped.keySet()) {
+                deleteFile(droppedUrl);
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write cache entry " + file + ": " + e);
+        }
+    }
+
+    private CachedResponse readFile(String url) {
+        Path file = file(url);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return CachedResponse.read(in);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            deleteFile(url);
+        }
+    }
+
+    private void deleteFile(String url) {
+        try {
+            Files.deleteIfExists(file(url));
+        } catch (IOException e) {
+            System.out.println("Could not delete cache entry of " + url + ": " + e);
+        }
+    }
+
+    private Path file(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(64);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return diskFolder.resolve(name.append(".entry").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package core.coalesce;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.ConfigRegistry;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Identical GET and HEAD requests that are in flight at the same time go over the network once.
+ * The first caller sends the request, callers that arrive while it is running wait for it and
+ * get their own copy of its response, so nobody shares a Response object. Requests are identical
+ * when method, normalized url (lower case host, no default port, sorted query) and all headers
+ * match. Requests with a body and every other method always go out on their own.
+ *
+ * Any other request to a url, like a PUT or DELETE, ends the sharing of flights to that url (query
+ * ignored) when it starts and again when it is answered, so a GET sent after a write never gets
+ * the response of a GET that was sent before it. Off by default, opt in with
+ * http.coalesce.enabled = true.
+ *
+ * Runs inside ResponseCacheFilter and outside the rate limiter, a coalesced request neither
+ * takes a limiter slot nor counts as endpoint latency.
+ */
+public final class SingleFlightFilter implements OrderedFilter {
+
+    public static final SingleFlightFilter INSTANCE = new SingleFlightFilter();
+
+    private final ConcurrentHashMap<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+
+    private SingleFlightFilter() {
+    }
+
+    /*
+     * Add the filter to the global RestAssured filters once, when http.coalesce.enabled is true
+     */
+    public static synchronized void install() {
+        if (ConfigRegistry.get().getBoolean("http.coalesce.enabled", false) && !RestAssured.filters().contains(INSTANCE)) {
+            RestAssured.filters(INSTANCE);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE + 2;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String method = requestSpec.getMethod().toUpperCase(Locale.ROOT);
+        if (!(method.equals("GET") || method.equals("HEAD"))) {
+            String resource = resource(normalize(requestSpec.getURI()));
+            endFlights(resource);
+            try {
+                return ctx.next(requestSpec, responseSpec);
+            } finally {
+                endFlights(resource);
+            }
+        }
+        if (requestSpec.getBody() != null) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+        String key = key(method, requestSpec);
+        CompletableFuture<Response> mine = new CompletableFuture<>();
+        CompletableFuture<Response> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            saved.increment();
+            return copy(await(leader));
+        }
+        sent.increment();
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            //read the body before anyone else copies it
+            response.asByteArray();
+            mine.complete(response);
+            return response;
+        } catch (Throwable e) {
+            //RestAssured also throws undeclared checked exceptions like ConnectException
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /*
+     * Requests that went out
+     */
+    public long sent() {
+        return sent.sum();
+    }
+
+    /*
+     * Requests answered with the response of an identical one in flight
+     */
+    public long saved() {
+        return saved.sum();
+    }
+
+    public String summary() {
+        return sent.sum() + " sent, " + saved.sum() + " saved by sharing an identical request in flight";
+    }
+
+    //later callers start a new flight, the callers already waiting still get the old response
+    private void endFlights(String resource) {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        inFlight.keySet().removeIf(key -> {
+            int end = key.indexOf('\n');
+            return resource(key.substring(key.indexOf(' ') + 1, end < 0 ? key.length() : end)).equals(resource);
+        });
+    }
+
+    private static String resource(String url) {
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);
+    }
+
+    static String key(String method, FilterableRequestSpecification requestSpec) {
+        StringBuilder key = new StringBuilder(128).append(method).append(' ').append(normalize(requestSpec.getURI()));
+        List<String> headers = new ArrayList<>();
+        for (Header header : requestSpec.getHeaders()) {
+            headers.add(header.getName().toLowerCase(Locale.ROOT) + ":" + header.getValue());
+        }
+        Collections.sort(headers);
+        for (String header : headers) {
+            key.append('\n').append(header);
+        }
+        requestSpec.getCookies().forEach(cookie -> key.append("\ncookie:").append(cookie.getName())
+                .append('=').append(cookie.getValue()));
+        return key.toString();
+    }
+
+    static String normalize(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+        if (uri.getHost() == null) {
+            return url;
+        }
+        String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        boolean defaultPort = port == -1 || (scheme.equals("http") && port == 80) || (scheme.equals("https") && port == 443);
+        StringBuilder normalized = new StringBuilder(url.length()).append(scheme).append("://")
+                .append(uri.getHost().toLowerCase(Locale.ROOT));
+        if (!defaultPort) {
+            normalized.append(':').append(port);
+        }
+        normalized.append(uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            List<String> parameters = new ArrayList<>();
+            Collections.addAll(parameters, uri.getRawQuery().split("&"));
+            Collections.sort(parameters);
+            normalized.append('?').append(String.join("&", parameters));
+        }
+        return normalized.toString();
+    }
+
+    private static Response await(CompletableFuture<Response> leader) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return leader.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    //the same failure the leader got
+                    throw SingleFlightFilter.<RuntimeException>rethrow(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> T rethrow(Throwable failure) throws T {
+        throw (T) failure;
+    }
+
+    //every caller gets its own response, RestAssured responses keep parsing state
+    private static Response copy(Response response) {
+        return new ResponseBuilder().clone(response).build();
+    }
+}
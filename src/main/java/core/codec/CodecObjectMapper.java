@@ -0,0 +1,103 @@
+package core.codec;
+
+import io.restassured.RestAssured;
+import io.restassured.common.mapper.DataToDeserialize;
+import io.restassured.config.ObjectMapperConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.internal.mapping.ObjectMapping;
+import io.restassured.mapper.ObjectMapper;
+import io.restassured.mapper.ObjectMapperDeserializationContext;
+import io.restassured.mapper.ObjectMapperSerializationContext;
+import io.restassured.response.ResponseBodyData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/*
+ * RestAssured object mapper backed by Codecs, set as the default mapper by ApiClient.
+ * body(pojo) uses the writer cached for the pojo's class, response.as(Type) reads the body stream.
+ * Codecs only speak json: any other content type, e.g. application/xml, goes to the mapper
+ * RestAssured itself picks for that type, as if no default mapper was set.
+ */
+public final class CodecObjectMapper implements ObjectMapper {
+
+    public static final CodecObjectMapper INSTANCE = new CodecObjectMapper();
+
+    private CodecObjectMapper() {
+    }
+
+    /*
+     * RestAssured runs whatever a mapper returns for a json body through its own json encoder, which
+     * only passes Strings through untouched. Callers that want the bytes without a String in between
+     * use body(Codecs.toBytes(pojo)), byte[] bodies skip the mapper altogether.
+     */
+    @Override
+    public Object serialize(ObjectMapperSerializationContext context) {
+        if (!isJson(context.getContentType())) {
+            RestAssuredConfig config = RestAssured.config();
+            return ObjectMapping.serialize(context.getObjectToSerialize(), context.getContentType(),
+                    context.getCharset(), null, ownMappers(config), config.getEncoderConfig());
+        }
+        return Codecs.toString(context.getObjectToSerialize());
+    }
+
+    @Override
+    public Object deserialize(ObjectMapperDeserializationContext context) {
+        if (!isJson(context.getContentType())) {
+            return ObjectMapping.deserialize(new BodyData(context.getDataToDeserialize()), context.getType(),
+                    context.getContentType(), null, context.getCharset(), null, ownMappers(RestAssured.config()));
+        }
+        try (InputStream in = context.getDataToDeserialize().asInputStream()) {
+            return Codecs.read(in, context.getType());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the response as " + context.getType().getTypeName(), e);
+        }
+    }
+
+    //no content type is what RestAssured treats as json too, parameters like charset are ignored
+    static boolean isJson(String contentType) {
+        if (contentType == null || contentType.trim().isEmpty()) {
+            return true;
+        }
+        int parameters = contentType.indexOf(';');
+        String type = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+        return ContentType.JSON.matches(type) || type.endsWith("+json");
+    }
+
+    //the global mapper settings without this mapper, so RestAssured chooses by content type
+    private static ObjectMapperConfig ownMappers(RestAssuredConfig config) {
+        ObjectMapperConfig mappers = config.getObjectMapperConfig();
+        return mappers.defaultObjectMapper() == INSTANCE ? new ObjectMapperConfig() : mappers;
+    }
+
+    private static final class BodyData implements ResponseBodyData {
+        private final DataToDeserialize data;
+
+        BodyData(DataToDeserialize data) {
+            this.data = data;
+        }
+
+        @Override
+        public String asString() {
+            return data.asString();
+        }
+
+        @Override
+        public String asPrettyString() {
+            return data.asString();
+        }
+
+        @Override
+        public byte[] asByteArray() {
+            return data.asByteArray();
+        }
+
+        @Override
+        public InputStream asInputStream() {
+            return data.asInputStream();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package core.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import utils.ConfigRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * One Jackson mapper for the whole run plus a reader and a writer per type, built on first use.
+ * Readers and writers are immutable and thread safe, holding them per type skips the mapper's
+ * lookup and keeps the serializers of a POJO resolved for good. Bodies go to and come from byte
+ * streams directly, no String in between.
+ *
+ * Setting in config.properties: codec.failOnUnknownProperties (default false, responses carry
+ * server side fields like id and createdAt that the request POJO does not have)
+ */
+public final class Codecs {
+
+    private static final ObjectMapper MAPPER = newMapper();
+    private static final Map<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private Codecs() {
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectReader reader(Type type) {
+        ObjectReader reader = READERS.get(type);
+        if (reader == null) {
+            JavaType javaType = MAPPER.getTypeFactory().constructType(type);
+            reader = READERS.computeIfAbsent(type, t -> MAPPER.readerFor(javaType));
+        }
+        return reader;
+    }
+
+    public static ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = WRITERS.get(type);
+        if (writer == null) {
+            writer = WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+        }
+        return writer;
+    }
+
+    public static byte[] toBytes(Object value) {
+        try {
+            return writer(value.getClass()).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    public static String toString(Object value) {
+        try {
+            return writer(value.getClass()).writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    /*
+     * Serialize into out, which stays open
+     */
+    public static void write(Object value, OutputStream out) throws IOException {
+        writer(value.getClass()).writeValue(out, value);
+    }
+
+    public static <T> T read(byte[] json, Class<T> type) {
+        try {
+            return reader(type).readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + type.getName(), e);
+        }
+    }
+
+    /*
+     * Deserialize from in, which stays open
+     */
+    public static <T> T read(InputStream in, Type type) throws IOException {
+        return reader(type).readValue(in);
+    }
+
+    private static ObjectMapper newMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+                ConfigRegistry.get().getBoolean("codec.failOnUnknownProperties", false));
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        //callers own their streams
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        mapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+        return mapper;
+    }
+}
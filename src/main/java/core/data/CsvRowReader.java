@@ -0,0 +1,110 @@
+package core.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * RFC 4180 CSV with a header line: fields may be quoted, quoted fields may hold commas, line
+ * breaks and doubled quotes. Every value is a String, empty lines are skipped.
+ */
+final class CsvRowReader implements RowReader {
+
+    private final Reader in;
+    private final StringBuilder field = new StringBuilder(64);
+    private List<String> header;
+    private int pushedBack = -2;
+
+    CsvRowReader(Reader in) {
+        this.in = in;
+    }
+
+    @Override
+    public Map<String, Object> next() throws IOException {
+        if (header == null) {
+            header = record();
+            if (header == null) {
+                return null;
+            }
+        }
+        List<String> values = record();
+        if (values == null) {
+            return null;
+        }
+        Map<String, Object> row = new LinkedHashMap<>(header.size() * 2);
+        for (int i = 0; i < header.size(); i++) {
+            row.put(header.get(i), i < values.size() ? values.get(i) : "");
+        }
+        return row;
+    }
+
+    //the fields of the next non empty record, null at the end of the file
+    private List<String> record() throws IOException {
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return fields.isEmpty() && field.length() == 0 ? null : endRecord(fields);
+            }
+            if (c == '"' && field.length() == 0) {
+                quoted();
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int after = read();
+                    if (after != '\n') {
+                        pushedBack = after;
+                    }
+                }
+                if (fields.isEmpty() && field.length() == 0) {
+                    continue;
+                }
+                return endRecord(fields);
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private void quoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated quoted field: " + field);
+            }
+            if (c == '"') {
+                int after = read();
+                if (after != '"') {
+                    pushedBack = after;
+                    return;
+                }
+            }
+            field.append((char) c);
+        }
+    }
+
+    private List<String> endRecord(List<String> fields) {
+        fields.add(field.toString());
+        field.setLength(0);
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
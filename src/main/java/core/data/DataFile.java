@@ -0,0 +1,21 @@
+package core.data;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * The data file of a test that uses the "rows" data provider of DataRows, a file of
+ * resources/TestData or any path containing a "/"
+ *
+ * @Test(dataProvider = "rows", dataProviderClass = DataRows.class)
+ * @DataFile("users.jsonl")
+ * public void createUser(Map<String, Object> row) { ... }
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface DataFile {
+
+    String value();
+}
@@ -0,0 +1,196 @@
+package core.data;
+
+import org.testng.annotations.DataProvider;
+import utils.ConfigRegistry;
+import utils.Payloads;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+ * Rows of large data files streamed lazily, for data driven tests. JSON Lines (.jsonl, .ndjson),
+ * JSON array (.json) and CSV (.csv) files of resources/TestData are read one row at a time, every
+ * row is a Map of column name to value. The first test starts as soon as the first row is parsed.
+ *
+ * @Test(dataProvider = "rows", dataProviderClass = DataRows.class)
+ * @DataFile("users.jsonl")
+ * public void createUser(Map<String, Object> row) { ... }
+ *
+ * Sharding is deterministic by row number: worker i of n runs rows i, i + n, i + 2n ... Defaults
+ * come from data.shardIndex and data.shardCount, e.g. -Ddata.shardIndex=1 -Ddata.shardCount=4.
+ *
+ * Keep these data providers sequential: TestNG builds every invocation of a parallel data provider
+ * before it runs the first one, which loads the whole file. forEachParallel runs rows on a pool
+ * instead, with at most lookAhead rows parsed and waiting at any time.
+ */
+public final class DataRows {
+
+    private final Path path;
+    private final String format;
+    private int shardIndex;
+    private int shardCount;
+    private int lookAhead;
+
+    private DataRows(Path path) {
+        this.path = path;
+        this.format = format(path);
+        ConfigRegistry config = ConfigRegistry.get();
+        this.shardIndex = config.getInt("data.shardIndex", 0);
+        this.shardCount = config.getInt("data.shardCount", 1);
+        this.lookAhead = config.getInt("data.lookAhead", 256);
+        check();
+    }
+
+    /*
+     * A file of resources/TestData, or any path containing a "/"
+     */
+    public static DataRows of(String fileName) {
+        return new DataRows(fileName.contains("/") ? Paths.get(fileName)
+                : Paths.get(System.getProperty("user.dir"), Payloads.TEST_DATA_FOLDER, fileName));
+    }
+
+    /*
+     * Data provider of tests annotated with @DataFile
+     */
+    @DataProvider(name = "rows")
+    public static RowIterator rows(Method method) {
+        DataFile file = method.getAnnotation(DataFile.class);
+        if (file == null) {
+            throw new IllegalStateException(method.getName() + " uses the rows data provider without @DataFile");
+        }
+        return of(file.value()).iterator();
+    }
+
+    public DataRows shard(int index, int count) {
+        this.shardIndex = index;
+        this.shardCount = count;
+        check();
+        return this;
+    }
+
+    /*
+     * How many rows are parsed ahead of the tests
+     */
+    public DataRows lookAhead(int rows) {
+        this.lookAhead = rows;
+        check();
+        return this;
+    }
+
+    public RowIterator iterator() {
+        return new RowIterator(this);
+    }
+
+    /*
+     * Run action for every row of this shard on threads threads. Besides the rows parsed ahead, at
+     * most lookAhead rows are running or waiting for a thread at any time. Failing rows do not stop the others, an AssertionError
+     * with the first failures is thrown once every row ran.
+     */
+    public void forEachParallel(int threads, Consumer<Map<String, Object>> action) {
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "data-rows-worker-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore window = new Semaphore(Math.max(lookAhead, threads));
+        AtomicLong total = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<String> failures = new ArrayList<>();
+        try (RowIterator iterator = iterator()) {
+            while (iterator.hasNext()) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> row = (Map<String, Object>) iterator.next()[0];
+                long number = total.getAndIncrement();
+                window.acquireUninterruptibly();
+                pool.execute(() -> {
+                    try {
+                        action.accept(row);
+                    } catch (Throwable e) {
+                        failed.incrementAndGet();
+                        synchronized (failures) {
+                            if (failures.size() < 10) {
+                                failures.add("row " + number + " " + row + ": " + e);
+                            }
+                        }
+                    } finally {
+                        window.release();
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the rows of " + path, e);
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failed.get() > 0) {
+            throw new AssertionError(failed.get() + " of " + total.get() + " rows of " + path.getFileName()
+                    + " failed, first failures:\n" + String.join("\n", failures));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    int shardIndex() {
+        return shardIndex;
+    }
+
+    int shardCount() {
+        return shardCount;
+    }
+
+    int lookAhead() {
+        return lookAhead;
+    }
+
+    RowReader open() throws IOException {
+        if ("csv".equals(format)) {
+            return new CsvRowReader(new BufferedReader(
+                    new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), 64 * 1024));
+        }
+        return new JsonRowReader(new BufferedInputStream(Files.newInputStream(path), 64 * 1024));
+    }
+
+    private void check() {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Shard " + shardIndex + " of " + shardCount + " does not exist");
+        }
+        if (lookAhead < 1) {
+            throw new IllegalArgumentException("Look-ahead must be at least one row");
+        }
+    }
+
+    private static String format(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return "csv";
+        }
+        if (name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return "json";
+        }
+        throw new IllegalArgumentException("Unsupported data file " + path + ", use .jsonl, .ndjson, .json or .csv");
+    }
+}
@@ -0,0 +1,35 @@
+package core.data;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import core.codec.Codecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/*
+ * JSON Lines and JSON array files. Jackson's MappingIterator streams both: a root level array is
+ * unwrapped into its elements, otherwise it reads one root value after another. Only the current
+ * row is ever held in memory.
+ */
+final class JsonRowReader implements RowReader {
+
+    private final InputStream in;
+    private final MappingIterator<Map<String, Object>> rows;
+
+    JsonRowReader(InputStream in) throws IOException {
+        this.in = in;
+        this.rows = Codecs.mapper().readerFor(Map.class).readValues(in);
+    }
+
+    @Override
+    public Map<String, Object> next() throws IOException {
+        return rows.hasNextValue() ? rows.nextValue() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        rows.close();
+        in.close();
+    }
+}
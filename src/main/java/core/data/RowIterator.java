@@ -0,0 +1,112 @@
+package core.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Rows of a data file as TestNG parameter arrays, { Map<String, Object> row }. A reader thread
+ * started on the first hasNext parses ahead into a queue of lookAhead rows and waits while the
+ * queue is full, so parsing overlaps the tests and memory stays bounded however large the file is.
+ * Rows of other shards are parsed and dropped. The reader is a daemon thread, a consumer that
+ * stops early should close the iterator to end it.
+ */
+public final class RowIterator implements Iterator<Object[]>, Closeable {
+
+    private static final Object[] END = new Object[0];
+
+    private final DataRows rows;
+    private final BlockingQueue<Object[]> queue;
+    private final AtomicLong rowsRead = new AtomicLong();
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private Thread reader;
+    private Object[] next;
+
+    RowIterator(DataRows rows) {
+        this.rows = rows;
+        this.queue = new ArrayBlockingQueue<>(rows.lookAhead());
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            if (reader == null) {
+                reader = new Thread(this::read, "data-rows-" + rows.path().getFileName());
+                reader.setDaemon(true);
+                reader.start();
+            }
+            try {
+                next = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for rows of " + rows.path(), e);
+            }
+        }
+        if (next == END) {
+            if (failure != null) {
+                throw new UncheckedIOException("Could not read the rows of " + rows.path(), failure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Object[] row = next;
+        next = null;
+        return row;
+    }
+
+    /*
+     * Rows parsed so far, including the rows of other shards
+     */
+    public long rowsRead() {
+        return rowsRead.get();
+    }
+
+    /*
+     * Stop the reader thread, rows already queued are dropped
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    private void read() {
+        int shard = rows.shardIndex();
+        int shards = rows.shardCount();
+        try (RowReader in = rows.open()) {
+            Map<String, Object> row;
+            for (long index = 0; !closed && (row = in.next()) != null; index++) {
+                rowsRead.incrementAndGet();
+                if (index % shards == shard) {
+                    queue.put(new Object[]{row});
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e instanceof IOException ? (IOException) e : new IOException(e);
+        } catch (InterruptedException e) {
+            //closed
+            return;
+        }
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            //closed
+        }
+    }
+}
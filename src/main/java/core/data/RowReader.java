@@ -0,0 +1,16 @@
+package core.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/*
+ * Reads the rows of a data file one at a time
+ */
+interface RowReader extends Closeable {
+
+    /*
+     * The next row, null at the end of the file
+     */
+    Map<String, Object> next() throws IOException;
+}
@@ -0,0 +1,699 @@
+package core.distributed;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.relevantcodes.extentreports.LogStatus;
+import core.history.LatencyHistory;
+import core.history.Regression;
+import core.history.RunId;
+import core.metrics.EndpointLatency;
+import core.metrics.LatencyExporter;
+import core.schedule.MethodHistory;
+import core.schedule.ScheduleListener;
+import helper.BaseTestHelper;
+import org.HdrHistogram.Histogram;
+import org.testng.xml.Parser;
+import org.testng.xml.XmlSuite;
+import utils.ConfigRegistry;
+import utils.ExtentReport;
+import utils.ReportRenderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DataFormatException;
+
+/*
+ * Runs the test methods of a suite XML on several worker JVMs. Workers connect over a socket and
+ * pull one unit of work at a time (a method, or methods that depend on each other), longest
+ * first by the durations of earlier runs, so fast workers simply take more. Local workers are
+ * started as child processes; workers on other machines connect with
+ * "java core.distributed.Worker --coordinator <host>:<port> --index <n>".
+ *
+ * Every worker sends back its results, its endpoint latency histograms and its report event log.
+ * The coordinator merges them into one report in its own folder, adds up the histograms and
+ * feeds the measured durations into the schedule history.
+ *
+ * DistributedResult result = Coordinator.builder()
+ *         .suite(Paths.get("resources/TestSuites/ParallelExecution_Tests.xml"))
+ *         .localWorkers(4)
+ *         .build().run();
+ */
+public final class Coordinator {
+
+    public static final String REPORT_FILE = "API_Execution_Automation.html";
+
+    //a unit whose worker died is handed out once more before it counts as failed
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final Path suiteFile;
+    private final int localWorkers;
+    private final int remoteWorkers;
+    private final String bindAddress;
+    private final int port;
+    private final Path reportFolder;
+    private final List<String> jvmArgs;
+    private final Duration timeout;
+
+    private final Deque<WorkUnit> queue = new ArrayDeque<>();
+    private int inFlight;
+    private final Map<String, MethodResult> results = new ConcurrentHashMap<>();
+    private final Map<Integer, WorkerState> workers = new ConcurrentHashMap<>();
+    private final Map<String, EndpointLatency> latency = new TreeMap<>();
+    private CountDownLatch finished;
+    private volatile boolean stopped;
+
+    private Coordinator(Builder builder) {
+        this.suiteFile = builder.suiteFile;
+        this.localWorkers = builder.localWorkers;
+        this.remoteWorkers = builder.remoteWorkers;
+        this.bindAddress = builder.bindAddress;
+        this.port = builder.port;
+        this.reportFolder = builder.reportFolder != null ? builder.reportFolder
+                : Paths.get(System.getProperty("user.dir"), "reports", BaseTestHelper.Timestamp() + " distributed");
+        this.jvmArgs = new ArrayList<>(builder.jvmArgs);
+        this.timeout = builder.timeout;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public DistributedResult run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<XmlSuite> suites = new ArrayList<>(new Parser(suiteFile.toString()).parseToList());
+        ConfigRegistry config = ConfigRegistry.get();
+        MethodHistory history = MethodHistory.load(Paths.get(config.get("schedule.historyFile",
+                "test-history/method-durations.json")));
+        List<WorkUnit> units = WorkUnit.of(suites, history, config.getLong("schedule.defaultMillis", 1000));
+        synchronized (queue) {
+            queue.addAll(units);
+        }
+        Files.createDirectories(reportFolder);
+        finished = new CountDownLatch(localWorkers + remoteWorkers);
+
+        List<Process> processes = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName(bindAddress))) {
+            String suiteName = suites.get(0).getName();
+            List<String> listeners = listeners(suites);
+            Thread acceptor = new Thread(() -> accept(server, suiteName, listeners), "coordinator-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            for (int i = 0; i < localWorkers; i++) {
+                processes.add(launch(i, server));
+            }
+            if (!finished.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.out.println("Distributed run timed out after " + timeout + ", stopping the workers");
+                stopHandlers();
+            }
+        } finally {
+            for (Process process : processes) {
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+
+        synchronized (queue) {
+            for (WorkerState state : workers.values()) {
+                if (state.current != null) {
+                    fail(state.current, state.index, "timed out after " + timeout);
+                    state.current = null;
+                }
+            }
+            for (WorkUnit unit : queue) {
+                fail(unit, -1, "not run, no worker left");
+            }
+            queue.clear();
+        }
+        Map<String, Long> durations = new LinkedHashMap<>();
+        for (MethodResult result : results.values()) {
+            if (!MethodResult.SKIP.equals(result.status)) {
+                durations.put(result.key, result.millis);
+            }
+        }
+        history.record(durations);
+        try {
+            history.save();
+        } catch (IOException e) {
+            System.out.println("Could not save the test duration history: " + e);
+        }
+
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        List<String> summaries = new ArrayList<>();
+        List<WorkerState> states = new ArrayList<>(workers.values());
+        states.sort(Comparator.comparingInt(state -> state.index));
+        for (WorkerState state : states) {
+            summaries.add(state.summary(wallMillis));
+        }
+        Path report = reportFolder.resolve(REPORT_FILE);
+        writeReport(states, summaries, report);
+        return new DistributedResult(new TreeMap<>(results), summaries, report, wallMillis);
+    }
+
+    private void accept(ServerSocket server, String suiteName, List<String> listeners) {
+        while (finished.getCount() > 0) {
+            try {
+                Socket socket = server.accept();
+                Thread handler = new Thread(() -> handle(socket, suiteName, listeners), "coordinator-worker");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                //server closed
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket, String suiteName, List<String> listeners) {
+        WorkerState state = null;
+        WorkUnit current = null;
+        try (Socket connection = socket) {
+            connection.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            Wire.expect(Wire.HELLO, in.readByte());
+            state = state(in.readInt());
+            state.host = in.readUTF();
+            state.socket = connection;
+            state.handler = Thread.currentThread();
+            state.connected = true;
+            if (stopped) {
+                return;
+            }
+            out.writeByte(Wire.SUITE);
+            Wire.writeText(out, suiteName);
+            Wire.writeList(out, listeners);
+            out.flush();
+
+            while ((current = next(state)) != null) {
+                long sent = System.nanoTime();
+                out.writeByte(Wire.RUN);
+                out.writeInt(current.id);
+                Wire.writeText(out, current.className);
+                Wire.writeList(out, current.methods);
+                out.flush();
+                Wire.expect(Wire.RESULT, in.readByte());
+                in.readInt();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    String status = in.readUTF();
+                    long millis = in.readLong();
+                    int invocations = in.readInt();
+                    String message = in.readUTF();
+                    if (status.isEmpty()) {
+                        status = MethodResult.SKIP;
+                        message = message.isEmpty() ? "not reported by TestNG" : message;
+                    }
+                    results.put(key, new MethodResult(key, status, millis, invocations, state.index, message));
+                }
+                state.busyNanos += System.nanoTime() - sent;
+                state.units++;
+                state.methods += count;
+                complete(state);
+                current = null;
+            }
+            out.writeByte(Wire.STOP);
+            out.flush();
+
+            Wire.expect(Wire.LATENCY, in.readByte());
+            readLatency(in);
+            Wire.expect(Wire.EVENTS, in.readByte());
+            state.events = reportFolder.resolve("worker-" + state.index + "-" + ExtentReport.EVENT_LOG);
+            copy(in, in.readLong(), state.events);
+            Wire.expect(Wire.BYE, in.readByte());
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Lost worker " + (state == null ? "" : state.index + " ") + "on " + socket.getRemoteSocketAddress()
+                    + ": " + e);
+            //after a timeout the coordinator fails the unit itself, handing it out again would only race with that
+            if (current != null && !stopped) {
+                requeue(state, e);
+            }
+        } finally {
+            if (state != null) {
+                state.finish();
+            }
+        }
+    }
+
+    /*
+     * The next unit, null once the queue is empty and no other worker can hand a unit back
+     */
+    private WorkUnit next(WorkerState state) {
+        synchronized (queue) {
+            while (queue.isEmpty() && inFlight > 0) {
+                try {
+                    queue.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            WorkUnit unit = queue.pollFirst();
+            if (unit != null) {
+                unit.attempts++;
+                inFlight++;
+                state.current = unit;
+            }
+            return unit;
+        }
+    }
+
+    private void complete(WorkerState state) {
+        synchronized (queue) {
+            state.current = null;
+            inFlight--;
+            queue.notifyAll();
+        }
+    }
+
+    private void requeue(WorkerState state, Exception cause) {
+        synchronized (queue) {
+            WorkUnit unit = state.current;
+            state.current = null;
+            if (unit == null) {
+                return;
+            }
+            if (unit.attempts < MAX_ATTEMPTS) {
+                queue.addFirst(unit);
+            } else {
+                fail(unit, state.index, "worker died: " + cause);
+            }
+            inFlight--;
+            queue.notifyAll();
+        }
+    }
+
+    /*
+     * Close the connections of all workers and wait for their handlers, so no result arrives while
+     * the run is being summed up. The units they were running stay in WorkerState.current.
+     */
+    private void stopHandlers() throws InterruptedException {
+        stopped = true;
+        for (WorkerState state : workers.values()) {
+            state.disconnect();
+        }
+        for (WorkerState state : workers.values()) {
+            Thread handler = state.handler;
+            if (handler != null) {
+                handler.join(TimeUnit.SECONDS.toMillis(10));
+            }
+        }
+    }
+
+    private void fail(WorkUnit unit, int worker, String message) {
+        for (String key : unit.keys) {
+            results.put(key, new MethodResult(key, MethodResult.FAIL, 0, 0, worker, message));
+        }
+    }
+
+    private WorkerState state(int index) {
+        return workers.computeIfAbsent(index, WorkerState::new);
+    }
+
+    private Process launch(int index, ServerSocket server) throws IOException {
+        InetAddress address = server.getInetAddress();
+        String host = address.isAnyLocalAddress() ? "127.0.0.1" : address.getHostAddress();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), Worker.class.getName(),
+                "--coordinator", host + ":" + server.getLocalPort(), "--index", String.valueOf(index),
+                "--report", reportFolder.resolve("worker-" + index).toString()));
+        Process process = new ProcessBuilder(command)
+                .directory(new File(System.getProperty("user.dir")))
+                .redirectErrorStream(true)
+                .redirectOutput(reportFolder.resolve("worker-" + index + ".log").toFile())
+                .start();
+        WorkerState state = state(index);
+        Thread monitor = new Thread(() -> {
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                return;
+            }
+            //a worker that never connected has nobody else to count it as done
+            if (!state.connected) {
+                System.out.println("Worker " + index + " exited with " + process.exitValue() + " before connecting");
+                state.finish();
+            }
+        }, "coordinator-monitor-" + index);
+        monitor.setDaemon(true);
+        monitor.start();
+        return process;
+    }
+
+    private void readLatency(DataInputStream in) throws IOException {
+        int endpoints = in.readInt();
+        for (int i = 0; i < endpoints; i++) {
+            String method = in.readUTF();
+            String endpoint = in.readUTF();
+            EndpointLatency merged;
+            synchronized (latency) {
+                merged = latency.computeIfAbsent(endpoint + " " + method, k -> EndpointLatency.of(method, endpoint));
+            }
+            for (EndpointLatency.Phase phase : EndpointLatency.Phase.values()) {
+                byte[] encoded = Wire.readBytes(in);
+                try {
+                    merged.add(phase, Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0));
+                } catch (DataFormatException e) {
+                    throw new IOException("Unreadable latency histogram of " + method + " " + endpoint, e);
+                }
+            }
+        }
+    }
+
+    private static void copy(DataInputStream in, long length, Path target) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] chunk = new byte[64 * 1024];
+            long left = length;
+            while (left > 0) {
+                int read = in.read(chunk, 0, (int) Math.min(chunk.length, left));
+                if (read < 0) {
+                    throw new IOException("Event log cut off with " + left + " bytes left");
+                }
+                out.write(chunk, 0, read);
+                left -= read;
+            }
+        }
+    }
+
+    /*
+     * One event log out of the workers' logs: test ids are shifted so they stay unique, threads
+     * and system info are prefixed with the worker
+     */
+    private void writeReport(List<WorkerState> states, List<String> summaries, Path report) throws IOException {
+        Path events = reportFolder.resolve(ExtentReport.EVENT_LOG);
+        long nextId = 1;
+        try (BufferedWriter out = Files.newBufferedWriter(events, StandardCharsets.UTF_8)) {
+            info(out, "Suite", suiteFile.toString());
+            info(out, "Workers", workers.size() + " workers, " + results.size() + " methods");
+            for (int i = 0; i < states.size(); i++) {
+                info(out, "Worker " + states.get(i).index, summaries.get(i));
+            }
+            for (WorkerState state : states) {
+                if (state.events == null) {
+                    continue;
+                }
+                long maxId = 0;
+                try (BufferedReader in = Files.newBufferedReader(state.events, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        JsonObject event;
+                        try {
+                            event = JsonParser.parseString(line).getAsJsonObject();
+                        } catch (JsonParseException | IllegalStateException e) {
+                            continue;
+                        }
+                        if ("info".equals(event.get("e").getAsString())) {
+                            event.addProperty("k", "Worker " + state.index + " " + event.get("k").getAsString());
+                        } else {
+                            long id = event.get("id").getAsLong();
+                            maxId = Math.max(maxId, id);
+                            event.addProperty("id", nextId + id);
+                            if (event.has("thread")) {
+                                event.addProperty("thread", "worker-" + state.index + " " + event.get("thread").getAsString());
+                            }
+                        }
+                        out.write(event.toString());
+                        out.write('\n');
+                    }
+                }
+                nextId += maxId + 1;
+            }
+            List<EndpointLatency> endpoints = new ArrayList<>(latency.values());
+            if (LatencyHistory.enabled()) {
+                nextId = writeHistory(out, nextId, endpoints);
+            }
+            if (!endpoints.isEmpty()) {
+                long now = System.currentTimeMillis();
+                JsonObject start = event("start", nextId, now);
+                start.addProperty("name", "Endpoint latency");
+                start.addProperty("desc", "");
+                start.addProperty("thread", "coordinator");
+                JsonObject log = event("log", nextId, now);
+                log.addProperty("s", LogStatus.INFO.name());
+                log.addProperty("m", LatencyExporter.htmlTable(endpoints));
+                for (JsonObject event : Arrays.asList(start, log, event("end", nextId, now))) {
+                    out.write(event.toString());
+                    out.write('\n');
+                }
+                LatencyExporter.export(reportFolder, endpoints);
+            }
+        }
+        ReportRenderer.render(events, report, new File(System.getProperty("user.dir") + "/resources/extent-config.xml"));
+    }
+
+    /*
+     * Append the merged run to the latency history, regressions get their own report node.
+     * Returns the next free test id.
+     */
+    private long writeHistory(BufferedWriter out, long nextId, List<EndpointLatency> endpoints) throws IOException {
+        String runId = RunId.next();
+        info(out, "Run", runId);
+        Map<String, Histogram> tests = new TreeMap<>();
+        for (MethodResult result : results.values()) {
+            if (!MethodResult.SKIP.equals(result.status)) {
+                Histogram histogram = new Histogram(3);
+                histogram.recordValue(result.millis * 1000);
+                tests.put(result.key, histogram);
+            }
+        }
+        List<Regression> regressions;
+        try {
+            regressions = LatencyHistory.record(runId, endpoints, tests);
+        } catch (IOException e) {
+            System.out.println("Could not update the latency history: " + e);
+            return nextId;
+        }
+        if (regressions.isEmpty()) {
+            return nextId;
+        }
+        long now = System.currentTimeMillis();
+        JsonObject start = event("start", nextId, now);
+        start.addProperty("name", "Latency regressions");
+        start.addProperty("desc", "Slower than the last runs in " + LatencyHistory.store().file());
+        start.addProperty("thread", "coordinator");
+        JsonObject log = event("log", nextId, now);
+        log.addProperty("s", LogStatus.WARNING.name());
+        log.addProperty("m", LatencyHistory.htmlTable(regressions));
+        for (JsonObject event : Arrays.asList(start, log, event("end", nextId, now))) {
+            out.write(event.toString());
+            out.write('\n');
+        }
+        return nextId + 1;
+    }
+
+    private static void info(BufferedWriter out, String key, String value) throws IOException {
+        JsonObject info = new JsonObject();
+        info.addProperty("e", "info");
+        info.addProperty("k", key);
+        info.addProperty("v", value);
+        out.write(info.toString());
+        out.write('\n');
+    }
+
+    private static JsonObject event(String kind, long id, long millis) {
+        JsonObject event = new JsonObject();
+        event.addProperty("e", kind);
+        event.addProperty("id", id);
+        event.addProperty("ts", millis);
+        return event;
+    }
+
+    //listeners of the suite XMLs for the workers' TestNG runs, the schedule listener is the coordinator's job
+    private static List<String> listeners(List<XmlSuite> suites) {
+        Set<String> listeners = new LinkedHashSet<>();
+        for (XmlSuite suite : suites) {
+            listeners.addAll(suite.getListeners());
+        }
+        listeners.remove(ScheduleListener.class.getName());
+        return new ArrayList<>(listeners);
+    }
+
+    private final class WorkerState {
+        final int index;
+        final AtomicBoolean done = new AtomicBoolean();
+        volatile boolean connected;
+        volatile Socket socket;
+        volatile Thread handler;
+        //the unit out on this worker, guarded by the queue lock
+        WorkUnit current;
+        String host = "";
+        long busyNanos;
+        int units;
+        int methods;
+        Path events;
+
+        WorkerState(int index) {
+            this.index = index;
+        }
+
+        void finish() {
+            if (done.compareAndSet(false, true)) {
+                finished.countDown();
+            }
+        }
+
+        void disconnect() {
+            Socket connection = socket;
+            if (connection == null) {
+                return;
+            }
+            try {
+                connection.close();
+            } catch (IOException e) {
+                //the handler sees a closed socket either way
+            }
+        }
+
+        String summary(long wallMillis) {
+            return String.format("worker %d%s: %d methods in %d units, busy %.1f of %.1f s", index,
+                    host.isEmpty() ? "" : " on " + host, methods, units,
+                    busyNanos / 1e9, wallMillis / 1e3);
+        }
+    }
+
+    public static final class Builder {
+        private Path suiteFile;
+        private int localWorkers = Runtime.getRuntime().availableProcessors();
+        private int remoteWorkers;
+        private String bindAddress = "127.0.0.1";
+        private int port;
+        private Path reportFolder;
+        private final List<String> jvmArgs = new ArrayList<>();
+        private Duration timeout = Duration.ofHours(2);
+
+        public Builder suite(Path suiteFile) {
+            this.suiteFile = suiteFile;
+            return this;
+        }
+
+        /*
+         * Worker JVMs started on this machine
+         */
+        public Builder localWorkers(int workers) {
+            this.localWorkers = workers;
+            return this;
+        }
+
+        /*
+         * Workers started elsewhere that the run waits for, needs a port and a bind address they can reach
+         */
+        public Builder remoteWorkers(int workers) {
+            this.remoteWorkers = workers;
+            return this;
+        }
+
+        public Builder bindAddress(String address) {
+            this.bindAddress = address;
+            return this;
+        }
+
+        /*
+         * Port the workers connect to, 0 picks a free one
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder reportFolder(Path folder) {
+            this.reportFolder = folder;
+            return this;
+        }
+
+        /*
+         * Option for the local worker JVMs, e.g. "-Xmx512m" or "-Dserver.mode=replay"
+         */
+        public Builder jvmArg(String arg) {
+            jvmArgs.add(arg);
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public Coordinator build() {
+            if (suiteFile == null) {
+                throw new IllegalStateException("A suite XML is required");
+            }
+            if (localWorkers + remoteWorkers < 1) {
+                throw new IllegalStateException("At least one worker is required");
+            }
+            return new Coordinator(this);
+        }
+    }
+
+    /*
+     * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=core.distributed.Coordinator
+     *     -Dexec.args="--suite resources/TestSuites/ParallelExecution_Tests.xml --workers 4"
+     */
+    public static void main(String[] args) throws Exception {
+        Builder builder = builder();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--suite":
+                    builder.suite(Paths.get(args[++i]));
+                    break;
+                case "--workers":
+                    builder.localWorkers(Integer.parseInt(args[++i]));
+                    break;
+                case "--remote-workers":
+                    builder.remoteWorkers(Integer.parseInt(args[++i]));
+                    break;
+                case "--bind":
+                    builder.bindAddress(args[++i]);
+                    break;
+                case "--port":
+                    builder.port(Integer.parseInt(args[++i]));
+                    break;
+                case "--report":
+                    builder.reportFolder(Paths.get(args[++i]));
+                    break;
+                case "--jvm-arg":
+                    builder.jvmArg(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        DistributedResult result = builder.build().run();
+        System.out.println(result);
+        System.exit(result.passed() ? 0 : 1);
+    }
+}
@@ -0,0 +1,57 @@
+package core.distributed;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Results of a distributed run: every method with the worker it ran on, one line per worker and
+ * the merged report
+ */
+public final class DistributedResult {
+
+    public final Map<String, MethodResult> results;
+    public final List<String> workers;
+    public final Path report;
+    public final long wallMillis;
+
+    DistributedResult(Map<String, MethodResult> results, List<String> workers, Path report, long wallMillis) {
+        this.results = Collections.unmodifiableMap(results);
+        this.workers = Collections.unmodifiableList(workers);
+        this.report = report;
+        this.wallMillis = wallMillis;
+    }
+
+    public int count(String status) {
+        int count = 0;
+        for (MethodResult result : results.values()) {
+            if (result.status.equals(status)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean passed() {
+        return count(MethodResult.FAIL) == 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder()
+                .append(results.size()).append(" methods in ").append(wallMillis).append(" ms: ")
+                .append(count(MethodResult.PASS)).append(" passed, ")
+                .append(count(MethodResult.FAIL)).append(" failed, ")
+                .append(count(MethodResult.SKIP)).append(" skipped\n");
+        for (String worker : workers) {
+            text.append(worker).append('\n');
+        }
+        for (MethodResult result : results.values()) {
+            if (!MethodResult.PASS.equals(result.status)) {
+                text.append(result).append('\n');
+            }
+        }
+        return text.append("Report: ").append(report).toString();
+    }
+}
@@ -0,0 +1,34 @@
+package core.distributed;
+
+/*
+ * Outcome of one test method on a worker. A method with a data provider runs several
+ * invocations, it failed when any of them failed.
+ */
+public final class MethodResult {
+
+    public static final String PASS = "PASS";
+    public static final String FAIL = "FAIL";
+    public static final String SKIP = "SKIP";
+
+    public final String key;
+    public final String status;
+    public final long millis;
+    public final int invocations;
+    public final int worker;
+    public final String message;
+
+    MethodResult(String key, String status, long millis, int invocations, int worker, String message) {
+        this.key = key;
+        this.status = status;
+        this.millis = millis;
+        this.invocations = invocations;
+        this.worker = worker;
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return key + " " + status + " in " + millis + " ms on worker " + worker
+                + (message.isEmpty() ? "" : ": " + message);
+    }
+}
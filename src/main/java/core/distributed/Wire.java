@@ -0,0 +1,69 @@
+package core.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Messages between Coordinator and Worker, each a type byte followed by its fields
+ *
+ * worker:      HELLO index host, RESULT unit results, LATENCY histograms, EVENTS event log, BYE
+ * coordinator: SUITE name listeners, RUN unit class methods, STOP
+ */
+final class Wire {
+
+    static final byte HELLO = 1;
+    static final byte SUITE = 2;
+    static final byte RUN = 3;
+    static final byte STOP = 4;
+    static final byte RESULT = 5;
+    static final byte LATENCY = 6;
+    static final byte EVENTS = 7;
+    static final byte BYE = 8;
+
+    //writeUTF takes at most 64 KB, failure messages are cut well below that
+    private static final int MAX_TEXT = 8 * 1024;
+
+    private Wire() {
+    }
+
+    static void writeText(DataOutputStream out, String text) throws IOException {
+        String value = text == null ? "" : text;
+        out.writeUTF(value.length() > MAX_TEXT ? value.substring(0, MAX_TEXT) + "..." : value);
+    }
+
+    static void writeList(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeText(out, value);
+        }
+    }
+
+    static List<String> readList(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    static void expect(byte expected, byte actual) throws IOException {
+        if (expected != actual) {
+            throw new IOException("Expected message " + expected + " but got " + actual);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package core.distributed;
+
+import core.schedule.MethodHistory;
+import core.schedule.TestMethod;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlPackage;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Methods of one class that go to one worker together. Every method is its own unit unless it
+ * depends on others: methods linked by dependsOnMethods share a unit, and a class with
+ * dependsOnGroups stays in one piece, so TestNG on the worker sees every method it depends on.
+ */
+final class WorkUnit {
+
+    final int id;
+    final String className;
+    final List<String> methods;
+    final List<String> keys;
+    final long estimateMillis;
+    int attempts;
+
+    private WorkUnit(int id, String className, List<String> keys, long estimateMillis) {
+        this.id = id;
+        this.className = className;
+        this.keys = keys;
+        this.methods = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            methods.add(key.substring(key.indexOf('#') + 1));
+        }
+        this.estimateMillis = estimateMillis;
+    }
+
+    /*
+     * Units of every test of the suites, longest first by the measured durations
+     */
+    static List<WorkUnit> of(List<XmlSuite> suites, MethodHistory history, long defaultMillis) {
+        Map<String, List<TestMethod>> byClass = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (XmlSuite suite : suites) {
+            for (XmlTest test : suite.getTests()) {
+                List<XmlClass> classes = new ArrayList<>(test.getXmlClasses());
+                for (XmlPackage xmlPackage : test.getXmlPackages()) {
+                    classes.addAll(xmlPackage.getXmlClasses());
+                }
+                for (XmlClass xmlClass : classes) {
+                    Class<?> testClass = xmlClass.getSupportClass();
+                    Set<String> included = new HashSet<>();
+                    for (XmlInclude include : xmlClass.getIncludedMethods()) {
+                        included.add(include.getName());
+                    }
+                    Set<String> excluded = new HashSet<>(xmlClass.getExcludedMethods());
+                    for (TestMethod method : TestMethod.of(testClass)) {
+                        String name = method.key().substring(method.key().indexOf('#') + 1);
+                        if ((!included.isEmpty() && !included.contains(name)) || excluded.contains(name)
+                                || !seen.add(method.key())) {
+                            continue;
+                        }
+                        byClass.computeIfAbsent(testClass.getName(), k -> new ArrayList<>()).add(method);
+                    }
+                }
+            }
+        }
+        long typical = history.typicalMillis(defaultMillis);
+        List<WorkUnit> units = new ArrayList<>();
+        for (Map.Entry<String, List<TestMethod>> entry : byClass.entrySet()) {
+            for (List<String> keys : components(entry.getValue())) {
+                long estimate = 0;
+                for (String key : keys) {
+                    long known = history.millis(key);
+                    estimate += known < 0 ? typical : known;
+                }
+                units.add(new WorkUnit(units.size(), entry.getKey(), keys, estimate));
+            }
+        }
+        //longest first, so the last units handed out are short and the workers finish together
+        units.sort(Comparator.comparingLong((WorkUnit unit) -> unit.estimateMillis).reversed());
+        return units;
+    }
+
+    //methods of one class grouped by their dependencies
+    private static List<List<String>> components(List<TestMethod> methods) {
+        List<String> keys = new ArrayList<>();
+        for (TestMethod method : methods) {
+            if (!method.dependsOnGroups().isEmpty()) {
+                for (TestMethod each : methods) {
+                    keys.add(each.key());
+                }
+                return Collections.singletonList(keys);
+            }
+            keys.add(method.key());
+        }
+        Map<String, String> parent = new HashMap<>();
+        for (String key : keys) {
+            parent.put(key, key);
+        }
+        for (TestMethod method : methods) {
+            for (String dependency : method.dependsOnMethods()) {
+                if (parent.containsKey(dependency)) {
+                    parent.put(root(parent, method.key()), root(parent, dependency));
+                }
+            }
+        }
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(root(parent, key), k -> new ArrayList<>()).add(key);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static String root(Map<String, String> parent, String key) {
+        String root = key;
+        while (!parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+        return root;
+    }
+
+    @Override
+    public String toString() {
+        return className + " " + methods;
+    }
+}
@@ -0,0 +1,272 @@
+package core.distributed;
+
+import core.BaseTest;
+import core.metrics.EndpointLatency;
+import core.metrics.LatencyRegistry;
+import org.HdrHistogram.Histogram;
+import org.testng.ITestListener;
+import org.testng.ITestNGListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import utils.ExtentReport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * One JVM of a distributed run. Connects to the Coordinator, starts the suite once (report,
+ * filters, server mode of BaseTest), then asks for work until there is none left: every unit it
+ * gets runs as a small TestNG run of its own. At the end it sends its endpoint latency histograms
+ * and its report event log, which the coordinator merges into one report.
+ *
+ * java -cp <test classpath> core.distributed.Worker --coordinator 10.0.0.5:7070 --index 3
+ */
+public final class Worker {
+
+    private static volatile boolean running;
+
+    private final String host;
+    private final int port;
+    private final int index;
+    private final Path reportFolder;
+
+    Worker(String host, int port, int index, Path reportFolder) {
+        this.host = host;
+        this.port = port;
+        this.index = index;
+        this.reportFolder = reportFolder;
+    }
+
+    /*
+     * True inside a worker JVM, BaseTest then leaves the suite setup to the worker
+     */
+    public static boolean running() {
+        return running;
+    }
+
+    void run() throws Exception {
+        running = true;
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            BaseTest.startSuite(reportFolder.toString());
+
+            out.writeByte(Wire.HELLO);
+            out.writeInt(index);
+            Wire.writeText(out, InetAddress.getLocalHost().getHostName());
+            out.flush();
+            Wire.expect(Wire.SUITE, in.readByte());
+            String suiteName = in.readUTF();
+            List<Class<? extends ITestNGListener>> listeners = listenerClasses(Wire.readList(in));
+
+            while (true) {
+                byte message = in.readByte();
+                if (message == Wire.STOP) {
+                    break;
+                }
+                Wire.expect(Wire.RUN, message);
+                int unit = in.readInt();
+                String className = in.readUTF();
+                List<String> methods = Wire.readList(in);
+                Map<String, Outcome> outcomes = runUnit(suiteName, className, methods, listeners);
+
+                out.writeByte(Wire.RESULT);
+                out.writeInt(unit);
+                out.writeInt(outcomes.size());
+                for (Map.Entry<String, Outcome> outcome : outcomes.entrySet()) {
+                    Wire.writeText(out, outcome.getKey());
+                    Wire.writeText(out, outcome.getValue().status);
+                    out.writeLong(outcome.getValue().millis);
+                    out.writeInt(outcome.getValue().invocations);
+                    Wire.writeText(out, outcome.getValue().message);
+                }
+                out.flush();
+            }
+
+            sendLatency(out);
+            //the coordinator reports the merged latency, the worker's own report leaves it out
+            LatencyRegistry.clear();
+            BaseTest.finishSuite();
+            sendEvents(out);
+            out.writeByte(Wire.BYE);
+            out.flush();
+        } finally {
+            running = false;
+        }
+    }
+
+    private Map<String, Outcome> runUnit(String suiteName, String className, List<String> methods,
+                                         List<Class<? extends ITestNGListener>> listeners) {
+        XmlSuite suite = new XmlSuite();
+        suite.setName(suiteName);
+        XmlTest test = new XmlTest(suite);
+        test.setName("worker-" + index);
+        XmlClass xmlClass = new XmlClass(className);
+        List<XmlInclude> includes = new ArrayList<>();
+        for (String method : methods) {
+            includes.add(new XmlInclude(method));
+        }
+        xmlClass.setIncludedMethods(includes);
+        test.setXmlClasses(Collections.singletonList(xmlClass));
+
+        Collector collector = new Collector();
+        for (String method : methods) {
+            collector.outcomes.put(className + "#" + method, new Outcome());
+        }
+        TestNG testng = new TestNG(false);
+        testng.setVerbose(0);
+        testng.setXmlSuites(Collections.singletonList(suite));
+        testng.setListenerClasses(listeners);
+        testng.addListener(collector);
+        testng.run();
+        return collector.outcomes;
+    }
+
+    private static void sendLatency(DataOutputStream out) throws IOException {
+        List<EndpointLatency> endpoints = LatencyRegistry.endpoints();
+        out.writeByte(Wire.LATENCY);
+        out.writeInt(endpoints.size());
+        for (EndpointLatency endpoint : endpoints) {
+            Wire.writeText(out, endpoint.method());
+            Wire.writeText(out, endpoint.endpoint());
+            for (EndpointLatency.Phase phase : EndpointLatency.Phase.values()) {
+                Histogram histogram = endpoint.snapshot(phase);
+                ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+                int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+                Wire.writeBytes(out, Arrays.copyOf(buffer.array(), length));
+            }
+        }
+    }
+
+    private void sendEvents(DataOutputStream out) throws IOException {
+        Path events = reportFolder.resolve(ExtentReport.EVENT_LOG);
+        out.writeByte(Wire.EVENTS);
+        if (!Files.isRegularFile(events)) {
+            out.writeLong(0);
+            return;
+        }
+        out.writeLong(Files.size(events));
+        try (InputStream file = Files.newInputStream(events)) {
+            byte[] chunk = new byte[64 * 1024];
+            int read;
+            while ((read = file.read(chunk)) > 0) {
+                out.write(chunk, 0, read);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Class<? extends ITestNGListener>> listenerClasses(List<String> names) throws ClassNotFoundException {
+        List<Class<? extends ITestNGListener>> classes = new ArrayList<>();
+        for (String name : names) {
+            classes.add((Class<? extends ITestNGListener>) Class.forName(name));
+        }
+        return classes;
+    }
+
+    /*
+     * Final result of every method of a unit, attempts a retry analyzer repeated are left out
+     */
+    private static final class Collector implements ITestListener {
+        final Map<String, Outcome> outcomes = new LinkedHashMap<>();
+
+        @Override
+        public void onTestSuccess(ITestResult result) {
+            add(result, MethodResult.PASS);
+        }
+
+        @Override
+        public void onTestFailure(ITestResult result) {
+            add(result, MethodResult.FAIL);
+        }
+
+        @Override
+        public void onTestSkipped(ITestResult result) {
+            if (!result.wasRetried()) {
+                add(result, MethodResult.SKIP);
+            }
+        }
+
+        @Override
+        public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+            add(result, MethodResult.PASS);
+        }
+
+        private synchronized void add(ITestResult result, String status) {
+            String key = result.getTestClass().getRealClass().getName() + "#" + result.getMethod().getMethodName();
+            Outcome outcome = outcomes.computeIfAbsent(key, k -> new Outcome());
+            outcome.invocations++;
+            outcome.millis += result.getEndMillis() - result.getStartMillis();
+            //one failed invocation fails the method, one passed invocation beats skipped ones
+            if (outcome.status == null || MethodResult.FAIL.equals(status)
+                    || (MethodResult.PASS.equals(status) && MethodResult.SKIP.equals(outcome.status))) {
+                outcome.status = status;
+            }
+            if (result.getThrowable() != null && outcome.message.isEmpty()) {
+                outcome.message = result.getThrowable().toString();
+            }
+        }
+    }
+
+    private static final class Outcome {
+        //methods TestNG never reported, e.g. a failed configuration method, count as skipped
+        String status;
+        long millis;
+        int invocations;
+        String message = "";
+    }
+
+    /*
+     * --coordinator host:port --index n [--report folder]
+     */
+    public static void main(String[] args) throws Exception {
+        String coordinator = null;
+        int index = 0;
+        String report = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--coordinator":
+                    coordinator = args[++i];
+                    break;
+                case "--index":
+                    index = Integer.parseInt(args[++i]);
+                    break;
+                case "--report":
+                    report = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (coordinator == null) {
+            throw new IllegalArgumentException("--coordinator host:port is required");
+        }
+        int colon = coordinator.lastIndexOf(':');
+        Path folder = report != null ? Paths.get(report)
+                : Paths.get(System.getProperty("user.dir"), "reports", "worker-" + index + "-" + System.currentTimeMillis());
+        new Worker(coordinator.substring(0, colon), Integer.parseInt(coordinator.substring(colon + 1)), index, folder).run();
+        //RestAssured and the report leave non daemon threads behind
+        System.exit(0);
+    }
+}
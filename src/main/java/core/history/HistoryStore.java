@@ -0,0 +1,224 @@
+package core.history;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.DataFormatException;
+
+/*
+ * Latency of every run, appended to one JSON Lines file. A line holds one series of one run:
+ *
+ * {"run":"20240928T045819Z-3f2a","ts":1727499499000,"kind":"endpoint","key":"GET reqres.in/api/users",
+ *  "n":12,"p50":181.2,"p95":402.7,"p99":415.0,"max":415.0,"h":"HISTFAAAA..."}
+ *
+ * Times are milliseconds, h is the compressed HdrHistogram (microseconds) with the full
+ * distribution. The percentiles make the file usable by any time series tool without decoding
+ * histograms. Lines are only ever appended, under a file lock so parallel JVMs can share the file.
+ */
+public final class HistoryStore {
+
+    private final Path file;
+
+    public HistoryStore(Path file) {
+        this.file = file;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /*
+     * Append one line per series of a run
+     */
+    public void append(String runId, Series kind, Map<String, Histogram> series) throws IOException {
+        if (series.isEmpty()) {
+            return;
+        }
+        long millis = RunId.instant(runId).toEpochMilli();
+        StringBuilder lines = new StringBuilder(series.size() * 512);
+        for (Map.Entry<String, Histogram> entry : series.entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            JsonObject line = new JsonObject();
+            line.addProperty("run", runId);
+            line.addProperty("ts", millis);
+            line.addProperty("kind", kind.label());
+            line.addProperty("key", entry.getKey());
+            line.addProperty("n", histogram.getTotalCount());
+            line.addProperty("p50", millis(histogram.getValueAtPercentile(50)));
+            line.addProperty("p95", millis(histogram.getValueAtPercentile(95)));
+            line.addProperty("p99", millis(histogram.getValueAtPercentile(99)));
+            line.addProperty("max", millis(histogram.getMaxValue()));
+            line.addProperty("h", encode(histogram));
+            lines.append(line).append('\n');
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        //READ and APPEND do not go together, lines are written at the end of the locked file instead
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                //a run that died while appending leaves a line without its end, start a fresh one
+                long size = channel.size();
+                if (size > 0) {
+                    ByteBuffer last = ByteBuffer.allocate(1);
+                    channel.read(last, size - 1);
+                    if (last.get(0) != '\n') {
+                        lines.insert(0, '\n');
+                    }
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                long position = size;
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /*
+     * The run runId and up to baselineRuns earlier runs of every series of one kind, read in one
+     * streaming pass that keeps no more than that per series
+     */
+    public Map<String, SeriesHistory> read(Series kind, String runId, int baselineRuns) throws IOException {
+        Map<String, SeriesHistory> series = new LinkedHashMap<>();
+        if (!Files.isRegularFile(file)) {
+            return series;
+        }
+        String label = kind.label();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                JsonObject line;
+                try {
+                    line = JsonParser.parseString(text).getAsJsonObject();
+                } catch (JsonParseException | IllegalStateException e) {
+                    //a line cut off by a crashed run
+                    continue;
+                }
+                if (!label.equals(line.get("kind").getAsString())) {
+                    continue;
+                }
+                String run = line.get("run").getAsString();
+                //ids sort by time, later runs are not part of the baseline of runId
+                int order = run.compareTo(runId);
+                if (order > 0) {
+                    continue;
+                }
+                SeriesHistory history = series.computeIfAbsent(line.get("key").getAsString(), SeriesHistory::new);
+                Histogram histogram = decode(line.get("h").getAsString());
+                if (order == 0) {
+                    history.current.add(histogram);
+                } else {
+                    history.baseline.addLast(new RunHistogram(run, histogram));
+                    if (history.baseline.size() > baselineRuns) {
+                        history.baseline.removeFirst();
+                    }
+                }
+            }
+        }
+        return series;
+    }
+
+    /*
+     * Run ids in the file, oldest first
+     */
+    public List<String> runs() throws IOException {
+        TreeSet<String> runs = new TreeSet<>();
+        if (Files.isRegularFile(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    //every line starts with its run id, no need to parse the histogram
+                    int from = text.indexOf("\"run\":\"") + 7;
+                    int end = from < 7 ? -1 : text.indexOf('"', from);
+                    if (end > from) {
+                        runs.add(text.substring(from, end));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(runs);
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static Histogram decode(String encoded) throws IOException {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IOException("Unreadable histogram in the latency history", e);
+        }
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+
+    /*
+     * One series: its histogram in the run that is checked and in the runs before it
+     */
+    public static final class SeriesHistory {
+        public final String key;
+        public final Histogram current = new Histogram(3);
+        final Deque<RunHistogram> baseline = new ArrayDeque<>();
+
+        SeriesHistory(String key) {
+            this.key = key;
+        }
+
+        public int baselineRuns() {
+            return baseline.size();
+        }
+
+        /*
+         * All baseline runs in one histogram
+         */
+        public Histogram baseline() {
+            Histogram merged = new Histogram(3);
+            for (RunHistogram run : baseline) {
+                merged.add(run.histogram);
+            }
+            return merged;
+        }
+    }
+
+    static final class RunHistogram {
+        final String run;
+        final Histogram histogram;
+
+        RunHistogram(String run, Histogram histogram) {
+            this.run = run;
+            this.histogram = histogram;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package core.history;
+
+import core.metrics.EndpointLatency;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import utils.ConfigRegistry;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Latency across runs: the test method durations of this JVM plus the endpoint histograms of
+ * LatencyRegistry are appended to the history file under a new run id, then the run is compared
+ * with the runs before it. Turned on and tuned with the history.* keys of config.properties.
+ *
+ * String runId = RunId.next();
+ * List<Regression> regressions = LatencyHistory.record(runId, LatencyRegistry.endpoints(), LatencyHistory.tests());
+ */
+public final class LatencyHistory {
+
+    private static final ConcurrentMap<String, ConcurrentHistogram> TESTS = new ConcurrentHashMap<>();
+
+    private LatencyHistory() {
+    }
+
+    public static boolean enabled() {
+        return ConfigRegistry.get().getBoolean("history.enabled", true);
+    }
+
+    public static HistoryStore store() {
+        return new HistoryStore(Paths.get(ConfigRegistry.get().get("history.file", "test-history/latency-history.jsonl")));
+    }
+
+    /*
+     * Duration of one test method invocation
+     */
+    public static void recordTest(String key, long millis) {
+        ConcurrentHistogram histogram = TESTS.get(key);
+        if (histogram == null) {
+            histogram = TESTS.computeIfAbsent(key, k -> new ConcurrentHistogram(3));
+        }
+        histogram.recordValue(Math.max(0, millis) * 1000);
+    }
+
+    /*
+     * Copies of the test durations recorded so far, microseconds
+     */
+    public static Map<String, Histogram> tests() {
+        Map<String, Histogram> tests = new TreeMap<>();
+        for (Map.Entry<String, ConcurrentHistogram> entry : TESTS.entrySet()) {
+            tests.put(entry.getKey(), entry.getValue().copy());
+        }
+        return tests;
+    }
+
+    public static void clearTests() {
+        TESTS.clear();
+    }
+
+    /*
+     * Append a run to the history and return its regressions against the runs before it
+     */
+    public static List<Regression> record(String runId, Collection<EndpointLatency> endpoints,
+                                          Map<String, Histogram> tests) throws IOException {
+        Map<String, Histogram> totals = new TreeMap<>();
+        for (EndpointLatency endpoint : endpoints) {
+            totals.put(endpoint.key(), endpoint.snapshot(EndpointLatency.Phase.TOTAL));
+        }
+        HistoryStore store = store();
+        store.append(runId, Series.ENDPOINT, totals);
+        store.append(runId, Series.TEST, tests);
+        return RegressionDetector.fromConfig().detect(store, runId);
+    }
+
+    /*
+     * Regressions as a table for the report
+     */
+    public static String htmlTable(List<Regression> regressions) {
+        StringBuilder html = new StringBuilder(256 + regressions.size() * 256);
+        html.append("<table class='latency'><tr><th>Kind</th><th>Series</th><th>p50 ms</th><th>p95 ms</th><th>Samples</th><th>Test</th></tr>");
+        for (Regression regression : regressions) {
+            html.append("<tr><td>").append(regression.kind.label())
+                    .append("</td><td>").append(escape(regression.key))
+                    .append("</td><td>").append(String.format("%.1f &rarr; %.1f", regression.baselineP50, regression.currentP50))
+                    .append("</td><td>").append(String.format("%.1f &rarr; %.1f", regression.baselineP95, regression.currentP95))
+                    .append("</td><td>").append(regression.baselineCount).append(" / ").append(regression.currentCount)
+                    .append("</td><td>").append(Double.isNaN(regression.distance) ? "p50 over baseline p95"
+                            : String.format("KS %.3f &gt; %.3f", regression.distance, regression.criticalDistance))
+                    .append("</td></tr>");
+        }
+        return html.append("</table>").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
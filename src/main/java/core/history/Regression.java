@@ -0,0 +1,44 @@
+package core.history;
+
+/*
+ * A series that got slower than its baseline runs, times in milliseconds
+ */
+public final class Regression {
+
+    public final Series kind;
+    public final String key;
+    public final int baselineRuns;
+    public final long baselineCount;
+    public final long currentCount;
+    public final double baselineP50;
+    public final double baselineP95;
+    public final double currentP50;
+    public final double currentP95;
+    //Kolmogorov-Smirnov distance of the two distributions and the distance needed at the configured alpha,
+    //both NaN when there were too few samples to compare distributions
+    public final double distance;
+    public final double criticalDistance;
+
+    Regression(Series kind, String key, int baselineRuns, long baselineCount, long currentCount, double baselineP50,
+               double baselineP95, double currentP50, double currentP95, double distance, double criticalDistance) {
+        this.kind = kind;
+        this.key = key;
+        this.baselineRuns = baselineRuns;
+        this.baselineCount = baselineCount;
+        this.currentCount = currentCount;
+        this.baselineP50 = baselineP50;
+        this.baselineP95 = baselineP95;
+        this.currentP50 = currentP50;
+        this.currentP95 = currentP95;
+        this.distance = distance;
+        this.criticalDistance = criticalDistance;
+    }
+
+    @Override
+    public String toString() {
+        String test = Double.isNaN(distance) ? "median above baseline p95"
+                : String.format("KS distance %.3f > %.3f", distance, criticalDistance);
+        return String.format("%s %s p50 %.1f -> %.1f ms, p95 %.1f -> %.1f ms (%s, %d runs of baseline)",
+                kind.label(), key, baselineP50, currentP50, baselineP95, currentP95, test, baselineRuns);
+    }
+}
@@ -0,0 +1,135 @@
+package core.history;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import utils.ConfigRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Compares every series of a run with the same series in the runs before it (the baseline window).
+ *
+ * With at least minSamples values on both sides the whole distributions are compared: the two sample
+ * Kolmogorov-Smirnov distance has to exceed its critical value at alpha, so a shift is not noise, and
+ * the median or the p95 has to be minRatio times the baseline one, so a shift is big enough to care.
+ * Series with fewer values, like a test method that runs once per run, are flagged when their median
+ * is above minRatio times the baseline p95. Series with fewer than minBaselineRuns earlier runs are
+ * never flagged. Only slowdowns are reported.
+ */
+public final class RegressionDetector {
+
+    private final int baselineRuns;
+    private final int minBaselineRuns;
+    private final long minSamples;
+    private final double alpha;
+    private final double minRatio;
+
+    public RegressionDetector(int baselineRuns, int minBaselineRuns, long minSamples, double alpha, double minRatio) {
+        if (alpha <= 0 || alpha >= 1) {
+            throw new IllegalArgumentException("alpha must be between 0 and 1, was " + alpha);
+        }
+        this.baselineRuns = baselineRuns;
+        this.minBaselineRuns = minBaselineRuns;
+        this.minSamples = minSamples;
+        this.alpha = alpha;
+        this.minRatio = minRatio;
+    }
+
+    /*
+     * Detector with the history.* settings of config.properties
+     */
+    public static RegressionDetector fromConfig() {
+        ConfigRegistry config = ConfigRegistry.get();
+        return new RegressionDetector(config.getInt("history.baselineRuns", 10),
+                config.getInt("history.minBaselineRuns", 3),
+                config.getLong("history.minSamples", 20),
+                config.getDouble("history.alpha", 0.01),
+                config.getDouble("history.minRatio", 1.2));
+    }
+
+    /*
+     * Regressions of run runId against the runs before it in the store
+     */
+    public List<Regression> detect(HistoryStore store, String runId) throws IOException {
+        List<Regression> regressions = new ArrayList<>();
+        for (Series kind : Series.values()) {
+            for (HistoryStore.SeriesHistory series : store.read(kind, runId, baselineRuns).values()) {
+                Regression regression = compare(kind, series.key, series.baselineRuns(), series.baseline(), series.current);
+                if (regression != null) {
+                    regressions.add(regression);
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /*
+     * The regression of one series, null when it did not get slower
+     */
+    Regression compare(Series kind, String key, int runs, Histogram baseline, Histogram current) {
+        long m = baseline.getTotalCount();
+        long n = current.getTotalCount();
+        if (runs < minBaselineRuns || m == 0 || n == 0) {
+            return null;
+        }
+        double baselineP50 = baseline.getValueAtPercentile(50);
+        double baselineP95 = baseline.getValueAtPercentile(95);
+        double currentP50 = current.getValueAtPercentile(50);
+        double currentP95 = current.getValueAtPercentile(95);
+        double distance = Double.NaN;
+        double critical = Double.NaN;
+        boolean regressed;
+        if (n >= minSamples && m >= minSamples) {
+            distance = slowerDistance(baseline, current);
+            critical = Math.sqrt(-Math.log(alpha / 2) / 2) * Math.sqrt((double) (n + m) / ((double) n * m));
+            regressed = distance > critical
+                    && (currentP50 >= baselineP50 * minRatio || currentP95 >= baselineP95 * minRatio);
+        } else {
+            regressed = currentP50 > baselineP95 * minRatio;
+        }
+        if (!regressed) {
+            return null;
+        }
+        return new Regression(kind, key, runs, m, n, baselineP50 / 1000, baselineP95 / 1000,
+                currentP50 / 1000, currentP95 / 1000, distance, critical);
+    }
+
+    /*
+     * One sided Kolmogorov-Smirnov distance: how far the baseline CDF gets above the current one,
+     * i.e. how much more of the current values are slow. Both histograms are walked once in value order.
+     */
+    static double slowerDistance(Histogram baseline, Histogram current) {
+        List<long[]> a = buckets(baseline);
+        List<long[]> b = buckets(current);
+        double m = baseline.getTotalCount();
+        double n = current.getTotalCount();
+        long countA = 0;
+        long countB = 0;
+        double distance = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            long value = Math.min(i < a.size() ? a.get(i)[0] : Long.MAX_VALUE, j < b.size() ? b.get(j)[0] : Long.MAX_VALUE);
+            while (i < a.size() && a.get(i)[0] == value) {
+                countA += a.get(i++)[1];
+            }
+            while (j < b.size() && b.get(j)[0] == value) {
+                countB += b.get(j++)[1];
+            }
+            distance = Math.max(distance, countA / m - countB / n);
+        }
+        return distance;
+    }
+
+    //highest equivalent value and count of every non empty bucket, ascending
+    private static List<long[]> buckets(Histogram histogram) {
+        List<long[]> buckets = new ArrayList<>();
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            buckets.add(new long[]{histogram.highestEquivalentValue(value.getValueIteratedTo()),
+                    value.getCountAtValueIteratedTo()});
+        }
+        return buckets;
+    }
+}
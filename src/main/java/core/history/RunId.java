@@ -0,0 +1,37 @@
+package core.history;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Identifier of a run that sorts by start time as plain text: UTC time to the second plus a
+ * random suffix for runs started in the same second, e.g. 20240928T045819Z-3f2a
+ */
+public final class RunId {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private RunId() {
+    }
+
+    public static String next() {
+        return of(Instant.now());
+    }
+
+    /*
+     * Id of a run that started at start, e.g. to import older measurements
+     */
+    public static String of(Instant start) {
+        return FORMAT.format(start) + "-" + String.format("%04x", ThreadLocalRandom.current().nextInt(0x10000));
+    }
+
+    /*
+     * Start time of a run id
+     */
+    public static Instant instant(String runId) {
+        return FORMAT.parse(runId.substring(0, runId.indexOf('-')), Instant::from);
+    }
+}
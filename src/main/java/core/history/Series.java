@@ -0,0 +1,16 @@
+package core.history;
+
+/*
+ * What a history line measures: an endpoint's total request time or a test method's duration
+ */
+public enum Series {
+    ENDPOINT, TEST;
+
+    String label() {
+        return name().toLowerCase();
+    }
+
+    static Series of(String label) {
+        return valueOf(label.toUpperCase());
+    }
+}
@@ -0,0 +1,157 @@
+package core.json;
+
+import com.google.gson.stream.JsonReader;
+import io.restassured.response.Response;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import utils.SoftAssertionUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Json path expectations checked against a response in one pass. The paths are compiled once
+ * (JsonPathExpression) and merged into a PathTrie, the body is read once with a pull parser that
+ * only builds the parts the paths reach, then every matcher runs against that tree. Checking ten
+ * fields costs about one parse instead of ten GPath evaluations.
+ *
+ * Instances are immutable and thread-safe, a set of expectations can be a constant:
+ *
+ * JsonExpectations.builder()
+ *         .expect("data", hasSize(6))
+ *         .expect("data[0].id", is(7))
+ *         .expect("data[0].email", is("michael.lawson@reqres.in"))
+ *         .build()
+ *         .verify(response);
+ */
+public final class JsonExpectations {
+
+    private final List<Expectation> expectations;
+    private final PathTrie trie;
+
+    private JsonExpectations(List<Expectation> expectations) {
+        this.expectations = Collections.unmodifiableList(expectations);
+        List<JsonPathExpression> paths = new ArrayList<>(expectations.size());
+        for (Expectation expectation : expectations) {
+            paths.add(expectation.path);
+        }
+        this.trie = PathTrie.of(paths);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /*
+     * Throw one AssertionError listing every expectation the body does not meet
+     */
+    public void verify(Response response) {
+        fail(check(response));
+    }
+
+    public void verify(String body) {
+        fail(check(body));
+    }
+
+    /*
+     * Add every unmet expectation to the soft assertions of the current test
+     */
+    public void verifySoftly(Response response) {
+        for (String failure : check(response)) {
+            SoftAssertionUtil.fail(failure);
+        }
+    }
+
+    /*
+     * Failure messages, empty when the body meets every expectation
+     */
+    public List<String> check(Response response) {
+        byte[] body = response.asByteArray();
+        return check(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+    }
+
+    public List<String> check(String body) {
+        return check(new StringReader(body));
+    }
+
+    public List<String> check(InputStream body) {
+        return check(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    private List<String> check(Reader body) {
+        Object tree;
+        try (JsonReader reader = new JsonReader(body)) {
+            tree = JsonTreeReader.read(reader, trie);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the response body as json", e);
+        }
+        List<String> failures = null;
+        for (Expectation expectation : expectations) {
+            Object actual = expectation.path.evaluate(tree);
+            if (!expectation.matcher.matches(actual)) {
+                if (failures == null) {
+                    failures = new ArrayList<>();
+                }
+                failures.add(expectation.describe(actual));
+            }
+        }
+        return failures == null ? Collections.emptyList() : failures;
+    }
+
+    private static void fail(List<String> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        for (String failure : failures) {
+            message.append(failure).append('\n');
+        }
+        message.append(failures.size()).append(" expectation").append(failures.size() == 1 ? "" : "s")
+                .append(" failed.");
+        throw new AssertionError(message.toString());
+    }
+
+    private static final class Expectation {
+        final JsonPathExpression path;
+        final Matcher<?> matcher;
+
+        Expectation(JsonPathExpression path, Matcher<?> matcher) {
+            this.path = path;
+            this.matcher = matcher;
+        }
+
+        //same wording as RestAssured's body(path, matcher) failures
+        String describe(Object actual) {
+            StringDescription description = new StringDescription();
+            description.appendText("JSON path ").appendText(path.path()).appendText(" doesn't match.\nExpected: ")
+                    .appendDescriptionOf(matcher).appendText("\n  Actual: ");
+            matcher.describeMismatch(actual, description);
+            return description.toString();
+        }
+    }
+
+    public static final class Builder {
+        private final List<Expectation> expectations = new ArrayList<>();
+
+        public Builder expect(String path, Matcher<?> matcher) {
+            expectations.add(new Expectation(JsonPathExpression.compile(path), matcher));
+            return this;
+        }
+
+        public JsonExpectations build() {
+            if (expectations.isEmpty()) {
+                throw new IllegalStateException("At least one expectation is required");
+            }
+            return new JsonExpectations(new ArrayList<>(expectations));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package core.json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * A json path compiled once into steps and cached by its text. Covers the GPath subset the
+ * tests use: dotted names, [index] (negative counts from the end), ['quoted name'] and a
+ * trailing size(). A name applied to a list is applied to every element and gives the list of
+ * results, like GPath: "data.email" on {"data":[{"email":"a"},{"email":"b"}]} is ["a", "b"].
+ * The empty path or "$" is the whole body.
+ *
+ * Closures, wildcards and the other Groovy parts of GPath are rejected at compile time, keep
+ * RestAssured's body(path, matcher) for those.
+ */
+public final class JsonPathExpression {
+
+    //text to compiled path, the paths of a suite are a small fixed set
+    private static final Map<String, JsonPathExpression> CACHE = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED = 10_000;
+
+    private final String path;
+    private final List<Step> steps;
+
+    private JsonPathExpression(String path, List<Step> steps) {
+        this.path = path;
+        this.steps = steps;
+    }
+
+    public static JsonPathExpression compile(String path) {
+        JsonPathExpression compiled = CACHE.get(path);
+        if (compiled == null) {
+            compiled = new JsonPathExpression(path, Collections.unmodifiableList(parse(path)));
+            if (CACHE.size() < MAX_CACHED) {
+                CACHE.put(path, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    List<Step> steps() {
+        return steps;
+    }
+
+    /*
+     * Value at this path in a tree of Map, List, String, Number, Boolean and null,
+     * null when the path does not exist
+     */
+    public Object evaluate(Object root) {
+        Object value = root;
+        for (Step step : steps) {
+            value = step.apply(value);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static List<Step> parse(String path) {
+        List<Step> steps = new ArrayList<>();
+        String text = path.trim();
+        int i = text.startsWith("$") ? 1 : 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                if (i == 0 || i + 1 == text.length() || text.charAt(i + 1) == '.') {
+                    throw unsupported(path, "misplaced '.'");
+                }
+                i++;
+            } else if (c == '[') {
+                int close = text.indexOf(']', i);
+                if (close < 0) {
+                    throw unsupported(path, "unclosed '['");
+                }
+                String inside = text.substring(i + 1, close).trim();
+                if (inside.length() >= 2 && (inside.charAt(0) == '\'' || inside.charAt(0) == '"')
+                        && inside.charAt(inside.length() - 1) == inside.charAt(0)) {
+                    steps.add(new Step(Step.FIELD, inside.substring(1, inside.length() - 1), 0));
+                } else {
+                    try {
+                        steps.add(new Step(Step.INDEX, null, Integer.parseInt(inside)));
+                    } catch (NumberFormatException e) {
+                        throw unsupported(path, "index [" + inside + "]");
+                    }
+                }
+                i = close + 1;
+            } else {
+                int end = i;
+                while (end < text.length() && text.charAt(end) != '.' && text.charAt(end) != '[') {
+                    end++;
+                }
+                String name = text.substring(i, end);
+                if ("size()".equals(name)) {
+                    if (end != text.length()) {
+                        throw unsupported(path, "size() must be the last step");
+                    }
+                    steps.add(new Step(Step.SIZE, null, 0));
+                } else {
+                    for (int k = 0; k < name.length(); k++) {
+                        char n = name.charAt(k);
+                        if (!Character.isLetterOrDigit(n) && n != '_' && n != '-' && n != '$' && n != '@') {
+                            throw unsupported(path, "'" + name + "'");
+                        }
+                    }
+                    steps.add(new Step(Step.FIELD, name, 0));
+                }
+                i = end;
+            }
+        }
+        return steps;
+    }
+
+    private static IllegalArgumentException unsupported(String path, String part) {
+        return new IllegalArgumentException("Unsupported json path \"" + path + "\" (" + part + "), supported are "
+                + "dotted names, [index], ['name'] and a trailing size()");
+    }
+
+    static final class Step {
+        static final int FIELD = 0;
+        static final int INDEX = 1;
+        static final int SIZE = 2;
+
+        final int kind;
+        final String name;
+        final int index;
+
+        Step(int kind, String name, int index) {
+            this.kind = kind;
+            this.name = name;
+            this.index = index;
+        }
+
+        Object apply(Object value) {
+            switch (kind) {
+                case FIELD:
+                    if (value instanceof Map) {
+                        return ((Map<?, ?>) value).get(name);
+                    }
+                    if (value instanceof List) {
+                        List<?> list = (List<?>) value;
+                        List<Object> projected = new ArrayList<>(list.size());
+                        for (Object element : list) {
+                            projected.add(apply(element));
+                        }
+                        return projected;
+                    }
+                    return null;
+                case INDEX:
+                    if (value instanceof List) {
+                        List<?> list = (List<?>) value;
+                        int at = index < 0 ? list.size() + index : index;
+                        return at >= 0 && at < list.size() ? list.get(at) : null;
+                    }
+                    return null;
+                default:
+                    if (value instanceof List) {
+                        return ((List<?>) value).size();
+                    }
+                    if (value instanceof Map) {
+                        return ((Map<?, ?>) value).size();
+                    }
+                    if (value instanceof String) {
+                        return ((String) value).length();
+                    }
+                    return null;
+            }
+        }
+    }
+}
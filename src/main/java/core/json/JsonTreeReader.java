@@ -0,0 +1,130 @@
+package core.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Reads a body with gson's pull parser into Map, List, String, Number, Boolean and null values.
+ * Given a PathTrie it only builds what the paths can reach: other object fields are skipped
+ * unread and list elements nobody asks for become null placeholders that keep the positions.
+ *
+ * Numbers follow RestAssured's JsonPath defaults, so the same matchers work: Integer when the
+ * value fits, then Long and BigInteger, Float for decimals within float range, otherwise Double.
+ */
+final class JsonTreeReader {
+
+    private JsonTreeReader() {
+    }
+
+    static Object read(JsonReader reader, PathTrie trie) throws IOException {
+        reader.setLenient(true);
+        if (reader.peek() == JsonToken.END_DOCUMENT) {
+            return null;
+        }
+        return read(reader, Collections.singletonList(trie));
+    }
+
+    private static Object read(JsonReader reader, List<PathTrie> nodes) throws IOException {
+        if (PathTrie.anyWhole(nodes)) {
+            return readWhole(reader);
+        }
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    List<PathTrie> field = PathTrie.field(nodes, name);
+                    if (field == null) {
+                        reader.skipValue();
+                    } else {
+                        object.put(name, read(reader, field));
+                    }
+                }
+                reader.endObject();
+                return object;
+            case BEGIN_ARRAY:
+                List<Object> array = new ArrayList<>();
+                reader.beginArray();
+                for (int i = 0; reader.hasNext(); i++) {
+                    List<PathTrie> element = PathTrie.element(nodes, i);
+                    if (element.isEmpty()) {
+                        reader.skipValue();
+                        array.add(null);
+                    } else {
+                        array.add(read(reader, element));
+                    }
+                }
+                reader.endArray();
+                return array;
+            default:
+                return readScalar(reader);
+        }
+    }
+
+    static Object readWhole(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    object.put(reader.nextName(), readWhole(reader));
+                }
+                reader.endObject();
+                return object;
+            case BEGIN_ARRAY:
+                List<Object> array = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    array.add(readWhole(reader));
+                }
+                reader.endArray();
+                return array;
+            default:
+                return readScalar(reader);
+        }
+    }
+
+    private static Object readScalar(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return number(reader.nextString());
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                throw new IllegalStateException("Unexpected " + reader.peek() + " at " + reader.getPath());
+        }
+    }
+
+    static Number number(String literal) {
+        if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0) {
+            if (literal.length() <= 9) {
+                return Integer.parseInt(literal);
+            }
+            BigInteger value = new BigInteger(literal);
+            if (value.bitLength() < 32) {
+                return value.intValue();
+            }
+            return value.bitLength() < 64 ? (Number) value.longValue() : value;
+        }
+        double value = Double.parseDouble(literal);
+        if (Double.isInfinite(value)) {
+            return new BigDecimal(literal);
+        }
+        return Math.abs(value) <= Float.MAX_VALUE ? (Number) (float) value : value;
+    }
+}
@@ -0,0 +1,112 @@
+package core.json;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The compiled paths of one set of expectations merged into a tree of steps. JsonTreeReader
+ * uses it to keep only the parts of a body that some path can reach and to skip the rest
+ * without building it.
+ */
+final class PathTrie {
+
+    final Map<String, PathTrie> fields = new HashMap<>();
+    final Map<Integer, PathTrie> indexes = new HashMap<>();
+    final List<PathTrie> fromEnd = new ArrayList<>();
+    //a path ends here, the whole value is needed
+    boolean whole;
+    //the field steps applied to each element when this value is a list
+    private PathTrie projection;
+
+    static PathTrie of(List<JsonPathExpression> paths) {
+        PathTrie root = new PathTrie();
+        for (JsonPathExpression path : paths) {
+            PathTrie node = root;
+            for (JsonPathExpression.Step step : path.steps()) {
+                if (step.kind == JsonPathExpression.Step.SIZE) {
+                    break;
+                }
+                node = node.child(step);
+            }
+            node.whole = true;
+        }
+        root.freeze();
+        return root;
+    }
+
+    private PathTrie child(JsonPathExpression.Step step) {
+        if (step.kind == JsonPathExpression.Step.FIELD) {
+            return fields.computeIfAbsent(step.name, k -> new PathTrie());
+        }
+        if (step.index < 0) {
+            PathTrie node = new PathTrie();
+            fromEnd.add(node);
+            return node;
+        }
+        return indexes.computeIfAbsent(step.index, k -> new PathTrie());
+    }
+
+    private void freeze() {
+        for (PathTrie child : fields.values()) {
+            child.freeze();
+        }
+        for (PathTrie child : indexes.values()) {
+            child.freeze();
+        }
+        for (PathTrie child : fromEnd) {
+            child.freeze();
+        }
+        if (!fields.isEmpty()) {
+            projection = new PathTrie();
+            projection.fields.putAll(fields);
+            projection.projection = projection;
+        }
+    }
+
+    /*
+     * Nodes that apply to element i of a list matched by the given nodes
+     */
+    static List<PathTrie> element(List<PathTrie> nodes, int i) {
+        List<PathTrie> element = new ArrayList<>(2);
+        for (PathTrie node : nodes) {
+            PathTrie byIndex = node.indexes.get(i);
+            if (byIndex != null) {
+                element.add(byIndex);
+            }
+            //the length is unknown while streaming, so elements are kept for negative indexes
+            element.addAll(node.fromEnd);
+            if (node.projection != null) {
+                element.add(node.projection);
+            }
+        }
+        return element;
+    }
+
+    /*
+     * Nodes that apply to a field of an object matched by the given nodes
+     */
+    static List<PathTrie> field(List<PathTrie> nodes, String name) {
+        List<PathTrie> field = null;
+        for (PathTrie node : nodes) {
+            PathTrie child = node.fields.get(name);
+            if (child != null) {
+                if (field == null) {
+                    field = new ArrayList<>(2);
+                }
+                field.add(child);
+            }
+        }
+        return field;
+    }
+
+    static boolean anyWhole(List<PathTrie> nodes) {
+        for (PathTrie node : nodes) {
+            if (node.whole) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package core.json;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/*
+ * Validates every successful response of the requests it is added to against a schema of
+ * SchemaRegistry and throws an AssertionError for invalid bodies. With the validation cache
+ * this is cheap enough to run on every response of a load run:
+ *
+ * LoadRunner.builder().filter(SchemaFilter.forPath("/api/users", "ExpectedSchema.json"))
+ */
+public final class SchemaFilter implements Filter {
+
+    private final String pathPrefix;
+    private final String schema;
+
+    public SchemaFilter(String schema) {
+        this(null, schema);
+    }
+
+    private SchemaFilter(String pathPrefix, String schema) {
+        this.pathPrefix = pathPrefix;
+        this.schema = schema;
+        SchemaRegistry.get().schema(schema);
+    }
+
+    /*
+     * Only validate requests whose path starts with the prefix
+     */
+    public static SchemaFilter forPath(String pathPrefix, String schema) {
+        return new SchemaFilter(pathPrefix, schema);
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (response.getStatusCode() / 100 != 2 || (pathPrefix != null && !path(requestSpec).startsWith(pathPrefix))) {
+            return response;
+        }
+        byte[] body = response.asByteArray();
+        if (body.length == 0) {
+            return response;
+        }
+        SchemaResult result = SchemaRegistry.get().validate(schema, body);
+        if (!result.valid) {
+            throw new AssertionError(requestSpec.getMethod() + " " + requestSpec.getURI()
+                    + " does not match " + schema + ": " + result.message);
+        }
+        return response;
+    }
+
+    private static String path(FilterableRequestSpecification requestSpec) {
+        String uri = requestSpec.getURI();
+        int scheme = uri.indexOf("://");
+        int path = scheme < 0 ? 0 : uri.indexOf('/', scheme + 3);
+        return path < 0 ? "/" : uri.substring(path);
+    }
+}
@@ -0,0 +1,252 @@
+package core.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import utils.ConfigRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/*
+ * Json schemas of the resources folder, each compiled once and shared by every thread, with a
+ * cache of validation results keyed by schema and SHA-256 of the body. A body that was seen
+ * before is answered from the cache without parsing or validating it again, so the identical
+ * responses of a load run cost one hash each.
+ *
+ * given().get("https://reqres.in/api/users?page=2")
+ *         .then().body(SchemaRegistry.get().matchesSchema("ExpectedSchema.json"));
+ *
+ * The cache size comes from schema.cache.maxEntries in config.properties.
+ */
+public final class SchemaRegistry {
+
+    private static final SchemaRegistry INSTANCE = new SchemaRegistry(Paths.get(System.getProperty("user.dir"), "resources"),
+            ConfigRegistry.get().getInt("schema.cache.maxEntries", 10_000));
+
+    //the stream is drained after parsing for the hash, the parser must leave it open
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private final Path root;
+    private final int maxCached;
+    private final JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+    private final Map<String, JsonSchema> schemas = new ConcurrentHashMap<>();
+    private final Map<BodyKey, SchemaResult> results = new ConcurrentHashMap<>();
+    private final LongAdder validations = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+
+    SchemaRegistry(Path root, int maxCached) {
+        this.root = root;
+        this.maxCached = maxCached;
+    }
+
+    public static SchemaRegistry get() {
+        return INSTANCE;
+    }
+
+    /*
+     * The compiled schema of a file below resources/, e.g. "ExpectedSchema.json"
+     */
+    public JsonSchema schema(String name) {
+        return schemas.computeIfAbsent(name, this::compile);
+    }
+
+    /*
+     * Compile every json file below resources/ that declares a $schema, e.g. before a load run
+     */
+    public int preload() throws IOException {
+        int count = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".json"))::iterator) {
+                JsonNode json;
+                try {
+                    json = MAPPER.readTree(file.toFile());
+                } catch (IOException e) {
+                    continue;
+                }
+                if (json != null && json.has("$schema")) {
+                    schema(root.relativize(file).toString().replace('\\', '/'));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    public SchemaResult validate(String schema, byte[] body) {
+        BodyKey key = new BodyKey(schema, sha256(body));
+        SchemaResult cached = results.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        JsonNode json;
+        try {
+            json = MAPPER.readTree(body);
+        } catch (IOException e) {
+            return remember(key, SchemaResult.invalid("Body is not valid json: " + e.getMessage()));
+        }
+        return remember(key, validate(schema, json));
+    }
+
+    public SchemaResult validate(String schema, String body) {
+        return validate(schema, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Parse the body while it streams in and hash it on the way, the parsed tree is only
+     * validated when the hash was not seen before
+     */
+    public SchemaResult validate(String schema, InputStream body) throws IOException {
+        MessageDigest digest = newDigest();
+        JsonNode json;
+        try (DigestInputStream in = new DigestInputStream(body, digest)) {
+            try {
+                json = MAPPER.readTree(in);
+            } catch (IOException e) {
+                return SchemaResult.invalid("Body is not valid json: " + e.getMessage());
+            }
+            //read to the end so trailing whitespace is part of the hash like in validate(byte[])
+            byte[] rest = new byte[8192];
+            while (in.read(rest) >= 0) {
+                //draining
+            }
+        }
+        BodyKey key = new BodyKey(schema, digest.digest());
+        SchemaResult cached = results.get(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        return remember(key, validate(schema, json));
+    }
+
+    /*
+     * Hamcrest matcher for RestAssured's body(matcher), a drop-in for JsonSchemaValidator.matchesJsonSchema
+     */
+    public Matcher<Object> matchesSchema(String schema) {
+        schema(schema);
+        return new BaseMatcher<Object>() {
+            @Override
+            public boolean matches(Object actual) {
+                return result(actual).valid;
+            }
+
+            @Override
+            public void describeTo(Description description) {
+                description.appendText("a json body valid against ").appendText(schema);
+            }
+
+            @Override
+            public void describeMismatch(Object actual, Description description) {
+                description.appendText(result(actual).message);
+            }
+
+            private SchemaResult result(Object actual) {
+                if (actual instanceof byte[]) {
+                    return validate(schema, (byte[]) actual);
+                }
+                return validate(schema, String.valueOf(actual));
+            }
+        };
+    }
+
+    public long validations() {
+        return validations.sum();
+    }
+
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    private SchemaResult validate(String schema, JsonNode json) {
+        validations.increment();
+        try {
+            ProcessingReport report = schema(schema).validate(json);
+            return report.isSuccess() ? SchemaResult.VALID : SchemaResult.invalid(report.toString());
+        } catch (ProcessingException e) {
+            return SchemaResult.invalid("Could not validate against " + schema + ": " + e.getMessage());
+        }
+    }
+
+    private SchemaResult remember(BodyKey key, SchemaResult result) {
+        if (results.size() >= maxCached) {
+            //drop an arbitrary entry, cheaper than keeping an LRU order under contention
+            Iterator<BodyKey> oldest = results.keySet().iterator();
+            if (oldest.hasNext()) {
+                results.remove(oldest.next());
+            }
+        }
+        results.put(key, result);
+        return result;
+    }
+
+    private JsonSchema compile(String name) {
+        Path file = root.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No schema " + name + " in " + root);
+        }
+        try {
+            //by uri, so relative $ref to other schema files resolve
+            return factory.getJsonSchema(file.toUri().toString());
+        } catch (ProcessingException e) {
+            throw new IllegalStateException("Could not compile the schema " + file, e);
+        }
+    }
+
+    private static byte[] sha256(byte[] body) {
+        return newDigest().digest(body);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class BodyKey {
+        final String schema;
+        final byte[] hash;
+        final int hashCode;
+
+        BodyKey(String schema, byte[] hash) {
+            this.schema = schema;
+            this.hash = hash;
+            this.hashCode = 31 * schema.hashCode() + Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof BodyKey && ((BodyKey) other).schema.equals(schema)
+                    && Arrays.equals(((BodyKey) other).hash, hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
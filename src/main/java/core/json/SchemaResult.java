@@ -0,0 +1,26 @@
+package core.json;
+
+/*
+ * Outcome of validating one body against one schema
+ */
+public final class SchemaResult {
+
+    static final SchemaResult VALID = new SchemaResult(true, "valid");
+
+    public final boolean valid;
+    public final String message;
+
+    private SchemaResult(boolean valid, String message) {
+        this.valid = valid;
+        this.message = message;
+    }
+
+    static SchemaResult invalid(String message) {
+        return new SchemaResult(false, message);
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,65 @@
+package core.limit;
+
+/*
+ * Additive increase, multiplicative decrease limit on the requests a host gets at once.
+ * A 429, a 503, a timeout or a latency spike (smoothed latency above tolerance times the
+ * lowest latency seen) cuts the limit by backoffRatio, at most once per round trip so one
+ * burst of errors counts once. A success while the limit is actually used raises it by
+ * 1/limit, about one per round trip. The lowest latency decays slowly so the baseline follows
+ * a host that got slower for good.
+ */
+final class ConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_RTT_DECAY = 1.001;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+
+    private double limit;
+    private double smoothedRttNanos;
+    private double minRttNanos = Double.MAX_VALUE;
+    private long lastDecreaseNanos;
+    private long decreases;
+
+    ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized long decreases() {
+        return decreases;
+    }
+
+    /*
+     * A finished request: its round trip time, the requests in flight when it started and
+     * whether the host pushed back
+     */
+    synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        long now = System.nanoTime();
+        if (!dropped) {
+            minRttNanos = Math.min(minRttNanos * MIN_RTT_DECAY, rttNanos);
+            smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos
+                    : SMOOTHING * rttNanos + (1 - SMOOTHING) * smoothedRttNanos;
+        }
+        boolean overloaded = dropped || smoothedRttNanos > tolerance * minRttNanos;
+        if (overloaded) {
+            if (now - lastDecreaseNanos > smoothedRttNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+                decreases++;
+            }
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package core.limit;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Admission for one host: a request first waits out a pause of the host (the Retry-After of a
+ * 429), takes a token of the rate limit (when the host has one), then waits for a slot under the adaptive concurrency limit. Waiting threads queue in
+ * arrival order and only the head of the queue competes for a free slot, so nobody is starved
+ * and a release wakes exactly one thread.
+ */
+public final class HostLimiter {
+
+    //safety net against a missed wake up, a release normally unparks the head right away
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final String host;
+    private final TokenBucket bucket;
+    private final ConcurrencyLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    //System.nanoTime() until which nothing goes out, in the past when the host is not paused
+    private final AtomicLong pausedUntilNanos = new AtomicLong(System.nanoTime());
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+
+    HostLimiter(String host, TokenBucket bucket, ConcurrencyLimit limit) {
+        this.host = host;
+        this.bucket = bucket;
+        this.limit = limit;
+    }
+
+    /*
+     * Block until the request may go out, returns the number of requests in flight including this one
+     */
+    public int acquire() {
+        long start = System.nanoTime();
+        long pause;
+        while ((pause = pausedUntilNanos.get() - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, pause);
+        }
+        if (bucket != null) {
+            bucket.acquire();
+        }
+        int current;
+        if (!waiters.isEmpty() || (current = tryAcquire()) < 0) {
+            Thread me = Thread.currentThread();
+            waiters.add(me);
+            boolean interrupted = false;
+            while (waiters.peek() != me || (current = tryAcquire()) < 0) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+                interrupted |= Thread.interrupted();
+            }
+            waiters.remove();
+            //a raised limit may have room for the next one too
+            wakeHead();
+            if (interrupted) {
+                me.interrupt();
+            }
+        }
+        requests.increment();
+        waitedNanos.add(System.nanoTime() - start);
+        return current;
+    }
+
+    /*
+     * Give the slot back and feed the outcome into the limit
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        if (dropped) {
+            throttled.increment();
+        }
+        limit.onSample(rttNanos, inFlightAtStart, dropped);
+        wakeHead();
+    }
+
+    /*
+     * Hold back every request to the host, e.g. for the Retry-After of a 429
+     */
+    public void pause(long nanos) {
+        long until = System.nanoTime() + nanos;
+        pausedUntilNanos.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+        //the bucket starts spacing requests again from the end of the pause
+        if (bucket != null) {
+            bucket.pause(nanos);
+        }
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int limit() {
+        return limit.limit();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long throttled() {
+        return throttled.sum();
+    }
+
+    @Override
+    public String toString() {
+        long count = requests.sum();
+        return String.format("limit %d, %d requests, %d throttled, %d decreases, %.1f ms average wait",
+                limit.limit(), count, throttled.sum(), limit.decreases(),
+                count == 0 ? 0.0 : waitedNanos.sum() / 1e6 / count);
+    }
+
+    private int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.limit()) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void wakeHead() {
+        Thread head = waiters.peek();
+        if (head != null) {
+            LockSupport.unpark(head);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package core.limit;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import utils.ConfigRegistry;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Keeps every host under the load it can take. Each host gets its own HostLimiter: an optional
+ * token bucket for a fixed request rate and an adaptive concurrency limit that grows while
+ * responses come back fast and shrinks on 429, 503, failed requests and latency spikes. A 429
+ * with Retry-After also holds back the host's token bucket for that long.
+ *
+ * Runs just before TimingFilter, so time spent waiting for the limiter is not counted as
+ * endpoint latency.
+ *
+ * Settings in config.properties, per host with a "limit.<host>." prefix or for all hosts with
+ * "limit.default.": rps (0 for no rate limit), burst, initialConcurrency, minConcurrency,
+ * maxConcurrency, backoffRatio, latencyTolerance. limit.enabled switches the filter off.
+ */
+public final class LimitFilter implements OrderedFilter {
+
+    public static final LimitFilter INSTANCE = new LimitFilter();
+
+    private static final long MAX_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Map<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+
+    private LimitFilter() {
+    }
+
+    /*
+     * Add the filter to the global RestAssured filters once
+     */
+    public static synchronized void install() {
+        if (ConfigRegistry.get().getBoolean("limit.enabled", true) && !RestAssured.filters().contains(INSTANCE)) {
+            RestAssured.filters(INSTANCE);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 1;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        HostLimiter limiter = limiter(host(requestSpec.getURI()));
+        int inFlight = limiter.acquire();
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            int status = response.getStatusCode();
+            dropped = status == 429 || status == 503;
+            if (status == 429) {
+                long pause = retryAfterNanos(response.getHeader("Retry-After"));
+                if (pause > 0) {
+                    limiter.pause(pause);
+                }
+            }
+            return response;
+        } finally {
+            limiter.release(System.nanoTime() - start, inFlight, dropped);
+        }
+    }
+
+    /*
+     * The limiter of a host, created from config.properties on first use
+     */
+    public HostLimiter limiter(String host) {
+        return limiters.computeIfAbsent(host, LimitFilter::create);
+    }
+
+    /*
+     * Limiter state per host, for the report
+     */
+    public Map<String, String> summary() {
+        Map<String, String> summary = new TreeMap<>();
+        for (HostLimiter limiter : limiters.values()) {
+            summary.put(limiter.host(), limiter.toString());
+        }
+        return summary;
+    }
+
+    /*
+     * Forget all hosts, the next request starts from the configured values again
+     */
+    public void reset() {
+        limiters.clear();
+    }
+
+    static HostLimiter create(String host) {
+        ConfigRegistry.Snapshot config = ConfigRegistry.get().snapshot();
+        double rps = setting(config, host, "rps", 0);
+        TokenBucket bucket = rps > 0 ? new TokenBucket(rps, (int) setting(config, host, "burst", 10)) : null;
+        ConcurrencyLimit limit = new ConcurrencyLimit((int) setting(config, host, "initialConcurrency", 16),
+                (int) setting(config, host, "minConcurrency", 2), (int) setting(config, host, "maxConcurrency", 64),
+                setting(config, host, "backoffRatio", 0.9), setting(config, host, "latencyTolerance", 2.5));
+        return new HostLimiter(host, bucket, limit);
+    }
+
+    private static double setting(ConfigRegistry.Snapshot config, String host, String name, double fallback) {
+        String value = config.get("limit." + host + "." + name);
+        if (value == null) {
+            value = config.get("limit.default." + name);
+        }
+        return value == null ? fallback : Double.parseDouble(value.trim());
+    }
+
+    static String host(String uri) {
+        try {
+            String host = URI.create(uri).getHost();
+            return host == null ? "" : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    //delay seconds only, an http date is rare and the token bucket copes without it
+    static long retryAfterNanos(String retryAfter) {
+        if (retryAfter == null) {
+            return 0;
+        }
+        try {
+            return Math.min(MAX_PAUSE_NANOS, TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package core.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Token bucket kept as a single timestamp: the time at which the next request may be sent.
+ * Taking a token moves the timestamp one interval ahead with a compare and set, the caller then
+ * sleeps until its reserved slot. Callers are served in the order they reserved, nobody holds a
+ * lock while waiting, and a bucket that sat idle grants up to burst requests immediately.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong nextFreeNanos;
+
+    /*
+     * A bucket that refills ratePerSecond tokens per second and holds at most burst of them
+     */
+    TokenBucket(double ratePerSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+        this.nextFreeNanos = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /*
+     * Take one token, waiting for it when the bucket is empty. Returns the nanoseconds waited.
+     */
+    long acquire() {
+        long now = System.nanoTime();
+        long slot;
+        while (true) {
+            long next = nextFreeNanos.get();
+            //an idle bucket refills only up to its burst
+            slot = Math.max(next, now - burstNanos);
+            if (nextFreeNanos.compareAndSet(next, slot + intervalNanos)) {
+                break;
+            }
+        }
+        long wait;
+        while ((wait = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, wait);
+        }
+        return Math.max(0, slot - now);
+    }
+
+    /*
+     * Send nothing for the given time, used when the host answers 429 with a Retry-After
+     */
+    void pause(long nanos) {
+        long until = System.nanoTime() + nanos;
+        long next;
+        do {
+            next = nextFreeNanos.get();
+            if (next >= until) {
+                return;
+            }
+        } while (!nextFreeNanos.compareAndSet(next, until));
+    }
+}
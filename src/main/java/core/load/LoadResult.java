@@ -0,0 +1,56 @@
+package core.load;
+
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Results of a load run, printable as a table and writable as json
+ */
+public final class LoadResult {
+
+    public final long rampUpMillis;
+    public final long steadyStateMillis;
+    public final List<ScenarioResult> scenarios;
+
+    LoadResult(long rampUpMillis, long steadyStateMillis, List<ScenarioResult> scenarios) {
+        this.rampUpMillis = rampUpMillis;
+        this.steadyStateMillis = steadyStateMillis;
+        this.scenarios = Collections.unmodifiableList(scenarios);
+    }
+
+    public ScenarioResult scenario(String name) {
+        for (ScenarioResult scenario : scenarios) {
+            if (scenario.name.equals(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("No scenario named " + name);
+    }
+
+    public void writeJson(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(this, writer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%-45s %8s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "scenario", "target", "iters", "errors", "rps", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (ScenarioResult scenario : scenarios) {
+            table.append(scenario).append(System.lineSeparator());
+            if (!scenario.errorsByType.isEmpty()) {
+                table.append("    errors: ").append(scenario.errorsByType).append(System.lineSeparator());
+            }
+        }
+        return table.toString();
+    }
+}
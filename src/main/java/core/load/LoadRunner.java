@@ -0,0 +1,348 @@
+package core.load;
+
+import core.ApiClient;
+import core.HostRoutes;
+import core.stub.EchoHandler;
+import core.stub.StubHandler;
+import core.stub.StubServer;
+import io.restassured.filter.Filter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Runs @Test methods as load scenarios under an open arrival model: iterations start on a fixed
+ * schedule derived from the target rate, whether or not earlier ones have finished. The rate
+ * ramps up linearly to the target and then holds for the steady state phase.
+ *
+ * Every iteration runs on its own virtual thread when the JVM has them (Java 21+), otherwise on a
+ * pool of maxConcurrency platform threads. Response time is taken from the intended start, so
+ * waiting for a free thread or connection is part of the measured latency.
+ *
+ * The stub route and the extra filters of a run only apply to the iterations: they are set on
+ * the iteration's thread and reach the requests through ApiClient.given(), so tests running in
+ * the same JVM keep their hosts and filters.
+ *
+ * LoadResult result = LoadRunner.builder()
+ *         .scenario(LoadScenario.of(postUsers.class, "validatePostWithPojo", 50))
+ *         .rampUp(Duration.ofSeconds(10)).steadyState(Duration.ofMinutes(1))
+ *         .stub(new EchoHandler())
+ *         .build().run();
+ */
+public final class LoadRunner {
+
+    //highest latency the histograms track, one hour in microseconds
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final List<LoadScenario> scenarios;
+    private final Duration rampUp;
+    private final Duration steadyState;
+    private final Duration drainTimeout;
+    private final int maxConcurrency;
+    private final StubHandler stubHandler;
+    private final boolean quiet;
+    private final List<Filter> filters;
+
+    private LoadRunner(Builder builder) {
+        this.scenarios = new ArrayList<>(builder.scenarios);
+        this.rampUp = builder.rampUp;
+        this.steadyState = builder.steadyState;
+        this.drainTimeout = builder.drainTimeout;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.stubHandler = builder.stubHandler;
+        this.quiet = builder.quiet;
+        this.filters = new ArrayList<>(builder.filters);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public LoadResult run() throws IOException, InterruptedException {
+        StubServer stub = stubHandler != null ? StubServer.start(0, stubHandler) : null;
+        int stubPort = stub != null ? stub.port() : -1;
+        PrintStream stdout = System.out;
+        if (quiet) {
+            //tests print every response, under load the synchronized console would dominate latency
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+        }
+        ExecutorService executor = newExecutor(maxConcurrency);
+        try {
+            List<ScenarioRun> runs = new ArrayList<>();
+            long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+            for (LoadScenario scenario : scenarios) {
+                ScenarioRun run = new ScenarioRun(scenario, startNanos, executor, stubPort);
+                runs.add(run);
+                run.scheduler.start();
+            }
+            for (ScenarioRun run : runs) {
+                run.scheduler.join();
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+            List<ScenarioResult> results = new ArrayList<>();
+            for (ScenarioRun run : runs) {
+                results.add(run.result());
+            }
+            return new LoadResult(rampUp.toMillis(), steadyState.toMillis(), results);
+        } finally {
+            executor.shutdownNow();
+            System.setOut(stdout);
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    /*
+     * Virtual thread per iteration on Java 21+, looked up reflectively so the build stays on older JDKs
+     */
+    static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicLong threads = new AtomicLong();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "load-worker-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    /*
+     * Seconds from the start at which iteration n (0 based) is due: the cumulative arrivals grow as
+     * rps * t^2 / (2 * ramp) while ramping and by rps per second afterwards
+     */
+    static double arrivalSeconds(long n, double rps, double rampSeconds) {
+        double rampArrivals = rps * rampSeconds / 2;
+        if (rampSeconds > 0 && n < rampArrivals) {
+            return Math.sqrt(2 * n * rampSeconds / rps);
+        }
+        return rampSeconds + (n - rampArrivals) / rps;
+    }
+
+    private final class ScenarioRun {
+        final LoadScenario scenario;
+        final long startNanos;
+        final long steadyStartNanos;
+        final long endNanos;
+        final Recorder steady = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder iterations = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+        final Thread scheduler;
+        final int stubPort;
+
+        ScenarioRun(LoadScenario scenario, long startNanos, ExecutorService executor, int stubPort) {
+            this.scenario = scenario;
+            this.stubPort = stubPort;
+            this.startNanos = startNanos;
+            this.steadyStartNanos = startNanos + rampUp.toNanos();
+            this.endNanos = steadyStartNanos + steadyState.toNanos();
+            this.scheduler = new Thread(() -> schedule(executor), "load-scheduler-" + scenario.name());
+            scheduler.setDaemon(true);
+        }
+
+        private void schedule(ExecutorService executor) {
+            double rampSeconds = rampUp.toNanos() / 1e9;
+            for (long n = 0; ; n++) {
+                final long intendedNanos = startNanos + (long) (arrivalSeconds(n, scenario.targetRps(), rampSeconds) * 1e9);
+                if (intendedNanos >= endNanos) {
+                    return;
+                }
+                long wait;
+                while ((wait = intendedNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                executor.execute(() -> iterate(intendedNanos));
+            }
+        }
+
+        private void iterate(long intendedNanos) {
+            //pool threads run many iterations, so route and filters are undone after each one
+            Runnable unroute = stubPort < 0 ? null : HostRoutes.routeThread("localhost", stubPort);
+            Runnable unfilter = filters.isEmpty() ? null : ApiClient.filtersOnThread(filters);
+            try {
+                scenario.invoke();
+            } catch (Throwable failure) {
+                errors.increment();
+                errorsByType.computeIfAbsent(failure.getClass().getSimpleName(), k -> new LongAdder()).increment();
+            } finally {
+                if (unfilter != null) {
+                    unfilter.run();
+                }
+                if (unroute != null) {
+                    unroute.run();
+                }
+                iterations.increment();
+                if (intendedNanos >= steadyStartNanos) {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+                    steady.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                }
+            }
+        }
+
+        ScenarioResult result() {
+            Histogram histogram = steady.getIntervalHistogram();
+            Map<String, Long> byType = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> entry : errorsByType.entrySet()) {
+                byType.put(entry.getKey(), entry.getValue().sum());
+            }
+            return new ScenarioResult(scenario.name(), scenario.targetRps(), iterations.sum(), errors.sum(),
+                    steadyState.toNanos() / 1e9, histogram, byType);
+        }
+    }
+
+    public static final class Builder {
+        private final List<LoadScenario> scenarios = new ArrayList<>();
+        private Duration rampUp = Duration.ofSeconds(10);
+        private Duration steadyState = Duration.ofSeconds(60);
+        private Duration drainTimeout = Duration.ofSeconds(30);
+        private int maxConcurrency = 256;
+        private StubHandler stubHandler;
+        private boolean quiet;
+        private final List<Filter> filters = new ArrayList<>();
+
+        public Builder scenario(LoadScenario scenario) {
+            scenarios.add(scenario);
+            return this;
+        }
+
+        public Builder rampUp(Duration rampUp) {
+            this.rampUp = rampUp;
+            return this;
+        }
+
+        public Builder steadyState(Duration steadyState) {
+            this.steadyState = steadyState;
+            return this;
+        }
+
+        /*
+         * How long to wait for in flight iterations once the last one was started
+         */
+        public Builder drainTimeout(Duration drainTimeout) {
+            this.drainTimeout = drainTimeout;
+            return this;
+        }
+
+        /*
+         * Thread cap when virtual threads are not available
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /*
+         * Serve every host the scenarios call from a local stub server for the duration of the run
+         */
+        public Builder stub(StubHandler handler) {
+            this.stubHandler = handler;
+            return this;
+        }
+
+        /*
+         * Drop System.out while the load runs, the synchronized console can dominate latency.
+         * Off by default: System.out is global, so this also silences everything else in the JVM.
+         */
+        public Builder quiet(boolean quiet) {
+            this.quiet = quiet;
+            return this;
+        }
+
+        /*
+         * RestAssured filter applied to every request of the scenarios, e.g. a SchemaFilter that
+         * validates each response. Requests must be built with ApiClient.given().
+         */
+        public Builder filter(Filter filter) {
+            filters.add(filter);
+            return this;
+        }
+
+        public LoadRunner build() {
+            if (scenarios.isEmpty()) {
+                throw new IllegalStateException("At least one scenario is required");
+            }
+            if (steadyState.isZero() || steadyState.isNegative()) {
+                throw new IllegalStateException("Steady state must be longer than zero");
+            }
+            return new LoadRunner(this);
+        }
+    }
+
+    /*
+     * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=core.load.LoadRunner
+     *     -Dexec.args="--scenario userManagement.postUsers#validatePostWithPojo:50 --ramp 10 --steady 60 --stub --quiet"
+     */
+    public static void main(String[] args) throws Exception {
+        Builder builder = builder();
+        String output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scenario":
+                    builder.scenario(LoadScenario.parse(args[++i]));
+                    break;
+                case "--ramp":
+                    builder.rampUp(Duration.ofSeconds(Long.parseLong(args[++i])));
+                    break;
+                case "--steady":
+                    builder.steadyState(Duration.ofSeconds(Long.parseLong(args[++i])));
+                    break;
+                case "--max-concurrency":
+                    builder.maxConcurrency(Integer.parseInt(args[++i]));
+                    break;
+                case "--stub":
+                    builder.stub(new EchoHandler());
+                    break;
+                case "--quiet":
+                    builder.quiet(true);
+                    break;
+                case "--out":
+                    output = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        LoadResult result = builder.build().run();
+        System.out.println(result);
+        if (output != null) {
+            result.writeJson(Paths.get(output));
+        }
+    }
+}
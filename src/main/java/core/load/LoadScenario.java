@@ -0,0 +1,82 @@
+package core.load;
+
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/*
+ * An existing @Test method replayed as a load scenario at a target arrival rate.
+ * The test class is instantiated once and the method is invoked concurrently, a scenario
+ * iteration fails when the method throws, exactly like the functional test would.
+ */
+public final class LoadScenario {
+
+    private final String name;
+    private final Object instance;
+    private final Method method;
+    private final double targetRps;
+
+    private LoadScenario(String name, Object instance, Method method, double targetRps) {
+        this.name = name;
+        this.instance = instance;
+        this.method = method;
+        this.targetRps = targetRps;
+    }
+
+    public static LoadScenario of(Class<?> testClass, String methodName, double targetRps) {
+        Method method;
+        try {
+            method = testClass.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(testClass.getName() + "#" + methodName
+                    + " must be a public method without parameters", e);
+        }
+        if (!method.isAnnotationPresent(Test.class)) {
+            throw new IllegalArgumentException(testClass.getName() + "#" + methodName + " is not a @Test method");
+        }
+        if (targetRps <= 0) {
+            throw new IllegalArgumentException("Target rps must be positive: " + targetRps);
+        }
+        Object instance;
+        try {
+            instance = testClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create " + testClass.getName(), e);
+        }
+        return new LoadScenario(testClass.getSimpleName() + "." + methodName, instance, method, targetRps);
+    }
+
+    /*
+     * Parse "userManagement.postUsers#validatePostWithPojo:50" (class#method:rps)
+     */
+    public static LoadScenario parse(String spec) {
+        int hash = spec.indexOf('#');
+        int colon = spec.lastIndexOf(':');
+        if (hash < 0 || colon < hash) {
+            throw new IllegalArgumentException("Scenario must look like package.Class#method:rps, got " + spec);
+        }
+        try {
+            Class<?> testClass = Class.forName(spec.substring(0, hash));
+            return of(testClass, spec.substring(hash + 1, colon), Double.parseDouble(spec.substring(colon + 1)));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown test class in " + spec, e);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public double targetRps() {
+        return targetRps;
+    }
+
+    void invoke() throws Throwable {
+        try {
+            method.invoke(instance);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
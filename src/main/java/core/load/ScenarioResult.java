@@ -0,0 +1,55 @@
+package core.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.Map;
+
+/*
+ * Outcome of one scenario. Latencies are in milliseconds and measured from the intended start
+ * of each iteration, so time spent queued behind a slow iteration counts (no coordinated omission).
+ * Percentiles and throughput cover the steady state phase only.
+ */
+public final class ScenarioResult {
+
+    public final String name;
+    public final double targetRps;
+    public final long iterations;
+    public final long errors;
+    public final double errorRate;
+    public final double throughputRps;
+    public final double meanMillis;
+    public final double p50Millis;
+    public final double p95Millis;
+    public final double p99Millis;
+    public final double p999Millis;
+    public final double maxMillis;
+    public final Map<String, Long> errorsByType;
+    //steady state response time histogram in microseconds, kept for merging and regression checks
+    public final transient Histogram histogram;
+
+    ScenarioResult(String name, double targetRps, long iterations, long errors, double steadySeconds,
+                   Histogram histogram, Map<String, Long> errorsByType) {
+        this.name = name;
+        this.targetRps = targetRps;
+        this.iterations = iterations;
+        this.errors = errors;
+        this.errorRate = iterations == 0 ? 0 : (double) errors / iterations;
+        this.throughputRps = steadySeconds <= 0 ? 0 : histogram.getTotalCount() / steadySeconds;
+        this.meanMillis = histogram.getMean() / 1000.0;
+        this.p50Millis = histogram.getValueAtPercentile(50) / 1000.0;
+        this.p95Millis = histogram.getValueAtPercentile(95) / 1000.0;
+        this.p99Millis = histogram.getValueAtPercentile(99) / 1000.0;
+        this.p999Millis = histogram.getValueAtPercentile(99.9) / 1000.0;
+        this.maxMillis = histogram.getMaxValue() / 1000.0;
+        this.errorsByType = Collections.unmodifiableMap(errorsByType);
+        this.histogram = histogram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-45s %8.1f %9d %7.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name, targetRps, iterations, errorRate * 100, throughputRps,
+                p50Millis, p95Millis, p99Millis, p999Millis, maxMillis);
+    }
+}
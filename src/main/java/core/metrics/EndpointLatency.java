@@ -0,0 +1,68 @@
+package core.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/*
+ * Latency histograms of one endpoint (method plus url template), values in microseconds.
+ * Recording is wait-free so any number of test threads can record at the same time.
+ */
+public final class EndpointLatency {
+
+    public enum Phase {
+        CONNECT, TTFB, DOWNLOAD, TOTAL
+    }
+
+    private final String method;
+    private final String endpoint;
+    private final ConcurrentHistogram[] histograms = new ConcurrentHistogram[Phase.values().length];
+
+    /*
+     * Histograms outside of LatencyRegistry, e.g. to merge the recordings of other JVMs
+     */
+    public static EndpointLatency of(String method, String endpoint) {
+        return new EndpointLatency(method, endpoint);
+    }
+
+    EndpointLatency(String method, String endpoint) {
+        this.method = method;
+        this.endpoint = endpoint;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new ConcurrentHistogram(3);
+        }
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    public String key() {
+        return method + " " + endpoint;
+    }
+
+    void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].recordValue(Math.max(0, nanos / 1000));
+    }
+
+    /*
+     * Add the values of a histogram recorded elsewhere
+     */
+    public void add(Phase phase, Histogram histogram) {
+        histograms[phase.ordinal()].add(histogram);
+    }
+
+    /*
+     * Stable copy of a phase histogram for reporting
+     */
+    public Histogram snapshot(Phase phase) {
+        return histograms[phase.ordinal()].copy();
+    }
+
+    public long count() {
+        return histograms[Phase.TOTAL.ordinal()].getTotalCount();
+    }
+}
@@ -0,0 +1,74 @@
+package core.metrics;
+
+/*
+ * Phase timestamps of the http exchange running on the current thread.
+ * TimingFilter starts a recording, the pooled http client stamps the phases as it goes
+ * (lease, connect, request sent, response head received) and the filter reads them back.
+ * One instance per thread is reused, so recording allocates nothing.
+ */
+public final class ExchangeTimings {
+
+    private static final ThreadLocal<ExchangeTimings> CURRENT = ThreadLocal.withInitial(ExchangeTimings::new);
+
+    private boolean active;
+    long startNanos;
+    long leaseNanos;
+    long connectNanos;
+    long requestSentNanos;
+    long headersReceivedNanos;
+
+    private ExchangeTimings() {
+    }
+
+    static ExchangeTimings begin() {
+        ExchangeTimings timings = CURRENT.get();
+        timings.active = true;
+        timings.startNanos = System.nanoTime();
+        timings.leaseNanos = 0;
+        timings.connectNanos = 0;
+        timings.requestSentNanos = 0;
+        timings.headersReceivedNanos = 0;
+        return timings;
+    }
+
+    void end() {
+        active = false;
+    }
+
+    /*
+     * Time spent waiting for a pooled connection
+     */
+    public static void addLease(long nanos) {
+        ExchangeTimings timings = CURRENT.get();
+        if (timings.active) {
+            timings.leaseNanos += nanos;
+        }
+    }
+
+    /*
+     * Time spent opening a new connection (DNS, TCP and TLS), zero when a kept alive one was reused
+     */
+    public static void addConnect(long nanos) {
+        ExchangeTimings timings = CURRENT.get();
+        if (timings.active) {
+            timings.connectNanos += nanos;
+        }
+    }
+
+    public static void requestSent() {
+        ExchangeTimings timings = CURRENT.get();
+        if (timings.active) {
+            timings.requestSentNanos = System.nanoTime();
+        }
+    }
+
+    /*
+     * Stamped for every response head, with redirects or auth challenges the last one wins
+     */
+    public static void headersReceived() {
+        ExchangeTimings timings = CURRENT.get();
+        if (timings.active) {
+            timings.headersReceivedNanos = System.nanoTime();
+        }
+    }
+}
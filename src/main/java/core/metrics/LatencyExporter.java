@@ -0,0 +1,149 @@
+package core.metrics;
+
+import com.google.gson.stream.JsonWriter;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Writes the endpoint latencies of LatencyRegistry as json, Prometheus text and an html table
+ */
+public final class LatencyExporter {
+
+    public static final String JSON_FILE = "endpoint-latency.json";
+    public static final String PROMETHEUS_FILE = "endpoint-latency.prom";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99, 0.999};
+
+    private LatencyExporter() {
+    }
+
+    /*
+     * Write both machine readable files into the report folder
+     */
+    public static void export(Path folder) throws IOException {
+        export(folder, LatencyRegistry.endpoints());
+    }
+
+    /*
+     * Same for endpoints from elsewhere, e.g. the merged histograms of distributed workers
+     */
+    public static void export(Path folder, List<EndpointLatency> endpoints) throws IOException {
+        Files.createDirectories(folder);
+        writeJson(endpoints, folder.resolve(JSON_FILE));
+        writePrometheus(endpoints, folder.resolve(PROMETHEUS_FILE));
+    }
+
+    static void writeJson(List<EndpointLatency> endpoints, Path file) throws IOException {
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            json.setIndent("  ");
+            json.beginArray();
+            for (EndpointLatency endpoint : endpoints) {
+                json.beginObject();
+                json.name("method").value(endpoint.method());
+                json.name("endpoint").value(endpoint.endpoint());
+                json.name("count").value(endpoint.count());
+                for (EndpointLatency.Phase phase : EndpointLatency.Phase.values()) {
+                    Histogram histogram = endpoint.snapshot(phase);
+                    json.name(phase.name().toLowerCase(Locale.ROOT)).beginObject();
+                    json.name("count").value(histogram.getTotalCount());
+                    json.name("meanMs").value(millis(histogram.getMean()));
+                    for (double quantile : QUANTILES) {
+                        json.name("p" + percentileLabel(quantile) + "Ms")
+                                .value(millis(histogram.getValueAtPercentile(quantile * 100)));
+                    }
+                    json.name("maxMs").value(millis(histogram.getMaxValue()));
+                    json.endObject();
+                }
+                json.endObject();
+            }
+            json.endArray();
+        }
+    }
+
+    /*
+     * One summary per phase: api_request_<phase>_seconds{method,endpoint,quantile}, _sum and _count
+     */
+    static void writePrometheus(List<EndpointLatency> endpoints, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (EndpointLatency.Phase phase : EndpointLatency.Phase.values()) {
+                String metric = "api_request_" + phase.name().toLowerCase(Locale.ROOT) + "_seconds";
+                out.write("# HELP " + metric + " " + phase.name().toLowerCase(Locale.ROOT)
+                        + " time of http exchanges per endpoint\n");
+                out.write("# TYPE " + metric + " summary\n");
+                for (EndpointLatency endpoint : endpoints) {
+                    Histogram histogram = endpoint.snapshot(phase);
+                    String labels = "method=\"" + escape(endpoint.method()) + "\",endpoint=\""
+                            + escape(endpoint.endpoint()) + "\"";
+                    for (double quantile : QUANTILES) {
+                        out.write(metric + "{" + labels + ",quantile=\"" + quantile + "\"} "
+                                + seconds(histogram.getValueAtPercentile(quantile * 100)) + "\n");
+                    }
+                    out.write(metric + "_sum{" + labels + "} "
+                            + seconds(histogram.getMean() * histogram.getTotalCount()) + "\n");
+                    out.write(metric + "_count{" + labels + "} " + histogram.getTotalCount() + "\n");
+                }
+            }
+        }
+    }
+
+    /*
+     * Table of total and ttfb percentiles for the html report
+     */
+    public static String htmlTable() {
+        return htmlTable(LatencyRegistry.endpoints());
+    }
+
+    public static String htmlTable(List<EndpointLatency> endpoints) {
+        StringBuilder html = new StringBuilder("<table class='latency'><tr><th>Endpoint</th><th>Count</th>"
+                + "<th>Connect p95</th><th>TTFB p50</th><th>TTFB p95</th><th>Total p50</th><th>Total p95</th>"
+                + "<th>Total p99</th><th>Total max</th></tr>");
+        for (EndpointLatency endpoint : endpoints) {
+            Histogram total = endpoint.snapshot(EndpointLatency.Phase.TOTAL);
+            Histogram ttfb = endpoint.snapshot(EndpointLatency.Phase.TTFB);
+            Histogram connect = endpoint.snapshot(EndpointLatency.Phase.CONNECT);
+            html.append("<tr><td>").append(escapeHtml(endpoint.key())).append("</td><td>")
+                    .append(total.getTotalCount()).append("</td>");
+            cell(html, connect.getValueAtPercentile(95));
+            cell(html, ttfb.getValueAtPercentile(50));
+            cell(html, ttfb.getValueAtPercentile(95));
+            cell(html, total.getValueAtPercentile(50));
+            cell(html, total.getValueAtPercentile(95));
+            cell(html, total.getValueAtPercentile(99));
+            cell(html, total.getMaxValue());
+            html.append("</tr>");
+        }
+        return html.append("</table>").toString();
+    }
+
+    private static void cell(StringBuilder html, double micros) {
+        html.append("<td>").append(String.format(Locale.ROOT, "%.1f ms", millis(micros))).append("</td>");
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+
+    private static String seconds(double micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    private static String percentileLabel(double quantile) {
+        String label = String.format(Locale.ROOT, "%s", quantile * 100);
+        return label.endsWith(".0") ? label.substring(0, label.length() - 2) : label;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String escapeHtml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,40 @@
+package core.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * All endpoint latencies recorded by TimingFilter in this JVM
+ */
+public final class LatencyRegistry {
+
+    private static final ConcurrentMap<String, EndpointLatency> ENDPOINTS = new ConcurrentHashMap<>();
+
+    private LatencyRegistry() {
+    }
+
+    static EndpointLatency endpoint(String method, String endpoint) {
+        String key = method + " " + endpoint;
+        EndpointLatency latency = ENDPOINTS.get(key);
+        if (latency == null) {
+            latency = ENDPOINTS.computeIfAbsent(key, k -> new EndpointLatency(method, endpoint));
+        }
+        return latency;
+    }
+
+    /*
+     * Endpoints sorted by template, then method
+     */
+    public static List<EndpointLatency> endpoints() {
+        List<EndpointLatency> endpoints = new ArrayList<>(ENDPOINTS.values());
+        endpoints.sort(Comparator.comparing(EndpointLatency::endpoint).thenComparing(EndpointLatency::method));
+        return endpoints;
+    }
+
+    public static void clear() {
+        ENDPOINTS.clear();
+    }
+}
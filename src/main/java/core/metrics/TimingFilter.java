@@ -0,0 +1,125 @@
+package core.metrics;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Records connect, time to first byte, download and total time of every exchange into
+ * per endpoint histograms of LatencyRegistry. The endpoint is the method plus host and url
+ * template: path params keep their {name} and numeric or id like segments become {id},
+ * so GET reqres.in/api/users/2 and /api/users/3 share "GET reqres.in/api/users/{id}".
+ *
+ * Runs last in the filter chain, closest to the network.
+ */
+public final class TimingFilter implements OrderedFilter {
+
+    public static final TimingFilter INSTANCE = new TimingFilter();
+
+    //raw path to template, the set of paths of a suite is small
+    private static final Map<String, String> TEMPLATES = new ConcurrentHashMap<>();
+    private static final int MAX_TEMPLATES = 10_000;
+
+    private TimingFilter() {
+    }
+
+    /*
+     * Add the filter to the global RestAssured filters once
+     */
+    public static synchronized void install() {
+        if (!RestAssured.filters().contains(INSTANCE)) {
+            RestAssured.filters(INSTANCE);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        ExchangeTimings timings = ExchangeTimings.begin();
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            long end = System.nanoTime();
+            EndpointLatency latency = LatencyRegistry.endpoint(requestSpec.getMethod(), endpoint(requestSpec));
+            latency.record(EndpointLatency.Phase.TOTAL, end - timings.startNanos);
+            latency.record(EndpointLatency.Phase.CONNECT, timings.connectNanos);
+            if (timings.headersReceivedNanos != 0) {
+                latency.record(EndpointLatency.Phase.TTFB, timings.headersReceivedNanos
+                        - (timings.requestSentNanos != 0 ? timings.requestSentNanos : timings.startNanos));
+                latency.record(EndpointLatency.Phase.DOWNLOAD, end - timings.headersReceivedNanos);
+            }
+            return response;
+        } finally {
+            timings.end();
+        }
+    }
+
+    /*
+     * Total time of a request that did not go through RestAssured, e.g. one of core.AsyncClient
+     */
+    public static void record(String method, URI uri, long totalNanos) {
+        String host = uri.getHost();
+        String path = uri.getRawPath();
+        LatencyRegistry.endpoint(method, (host == null ? "" : host) + template(path == null ? "" : path))
+                .record(EndpointLatency.Phase.TOTAL, totalNanos);
+    }
+
+    static String endpoint(FilterableRequestSpecification requestSpec) {
+        String host;
+        try {
+            host = URI.create(requestSpec.getURI()).getHost();
+        } catch (IllegalArgumentException e) {
+            host = null;
+        }
+        return (host == null ? "" : host) + template(requestSpec.getUserDefinedPath());
+    }
+
+    static String template(String path) {
+        String template = TEMPLATES.get(path);
+        if (template == null) {
+            template = normalize(path);
+            if (TEMPLATES.size() < MAX_TEMPLATES) {
+                TEMPLATES.put(path, template);
+            }
+        }
+        return template;
+    }
+
+    private static String normalize(String path) {
+        String[] segments = path.split("/", -1);
+        StringBuilder template = new StringBuilder(path.length());
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) {
+                template.append('/');
+            }
+            template.append(isIdentifier(segments[i]) ? "{id}" : segments[i]);
+        }
+        return template.toString();
+    }
+
+    //all digits, a uuid or a long hex string
+    private static boolean isIdentifier(String segment) {
+        if (segment.isEmpty() || segment.startsWith("{")) {
+            return false;
+        }
+        boolean digits = true;
+        boolean hex = true;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            digits &= c >= '0' && c <= '9';
+            hex &= (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '-';
+        }
+        return digits || (hex && segment.length() >= 16);
+    }
+}
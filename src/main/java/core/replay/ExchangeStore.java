@@ -0,0 +1,214 @@
+package core.replay;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Recorded exchanges in two append-only files of a folder:
+ * exchanges.dat holds the records one after the other (int length, then method, url, status,
+ * latency, headers and body), exchanges.idx holds one fixed size entry per record (32 byte
+ * match key, 8 byte offset into exchanges.dat). Opening a store for replay reads only the
+ * small index and maps the data file, a record is decoded when it is first served. A data file
+ * over 2 GB is mapped in several segments that each start at a record, one buffer can only
+ * address Integer.MAX_VALUE bytes.
+ *
+ * A request recorded several times is replayed in the recorded order, the last answer repeats
+ * once the sequence is used up, so a GET before and after a POST keeps its two answers.
+ */
+public final class ExchangeStore implements Closeable {
+
+    public static final String DATA_FILE = "exchanges.dat";
+    public static final String INDEX_FILE = "exchanges.idx";
+
+    private static final int INDEX_ENTRY = MatchKey.LENGTH + Long.BYTES;
+
+    //record mode
+    private final DataOutputStream data;
+    private final OutputStream index;
+    private long offset;
+
+    //replay mode, mapped segments by the data file offset they start at
+    private final TreeMap<Long, MappedByteBuffer> segments;
+    private final Map<String, Sequence> sequences;
+
+    private ExchangeStore(DataOutputStream data, OutputStream index, TreeMap<Long, MappedByteBuffer> segments,
+                          Map<String, Sequence> sequences) {
+        this.data = data;
+        this.index = index;
+        this.segments = segments;
+        this.sequences = sequences;
+    }
+
+    /*
+     * Start an empty store for recording, an earlier recording in the folder is replaced
+     */
+    public static ExchangeStore create(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        OutputStream data = Files.newOutputStream(folder.resolve(DATA_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream index = Files.newOutputStream(folder.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new ExchangeStore(new DataOutputStream(new BufferedOutputStream(data, 64 * 1024)),
+                new BufferedOutputStream(index), null, null);
+    }
+
+    /*
+     * Open a recording for replay
+     */
+    public static ExchangeStore open(Path folder) throws IOException {
+        Map<String, Sequence> sequences = new HashMap<>();
+        byte[] entries = Files.readAllBytes(folder.resolve(INDEX_FILE));
+        ByteBuffer buffer = ByteBuffer.wrap(entries);
+        byte[] key = new byte[MatchKey.LENGTH];
+        //a torn last entry of a killed recording is ignored
+        while (buffer.remaining() >= INDEX_ENTRY) {
+            buffer.get(key);
+            sequences.computeIfAbsent(MatchKey.hex(key), k -> new Sequence()).offsets.add(buffer.getLong());
+        }
+        TreeMap<Long, MappedByteBuffer> segments;
+        try (FileChannel channel = FileChannel.open(folder.resolve(DATA_FILE), StandardOpenOption.READ)) {
+            segments = map(channel, sequences);
+        }
+        return new ExchangeStore(null, null, segments, sequences);
+    }
+
+    /*
+     * Records are written back to back, so a record ends where the next one starts. A segment
+     * is closed before the first record that would reach past Integer.MAX_VALUE bytes into it.
+     */
+    private static TreeMap<Long, MappedByteBuffer> map(FileChannel channel, Map<String, Sequence> sequences)
+            throws IOException {
+        List<Long> starts = new ArrayList<>();
+        for (Sequence sequence : sequences.values()) {
+            starts.addAll(sequence.offsets);
+        }
+        Collections.sort(starts);
+        long size = channel.size();
+        TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+        long segmentStart = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            long end = i + 1 < starts.size() ? starts.get(i + 1) : size;
+            if (end - segmentStart > Integer.MAX_VALUE && start > segmentStart) {
+                segments.put(segmentStart, channel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                        Math.min(start - segmentStart, Integer.MAX_VALUE)));
+                segmentStart = start;
+            }
+        }
+        //a torn tail of a killed recording may reach past the last record, it is never read
+        segments.put(segmentStart, channel.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                Math.min(size - segmentStart, Integer.MAX_VALUE)));
+        return segments;
+    }
+
+    /*
+     * Add an exchange, the data is written before its index entry so the index never points
+     * past the end of the data
+     */
+    public synchronized void append(byte[] key, RecordedExchange exchange) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + exchange.body.length);
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeUTF(exchange.method);
+        record.writeUTF(exchange.url);
+        record.writeShort(exchange.status);
+        record.writeInt(exchange.latencyMillis);
+        record.writeShort(exchange.headers.size());
+        for (String[] header : exchange.headers) {
+            record.writeUTF(header[0]);
+            record.writeUTF(header[1]);
+        }
+        record.writeInt(exchange.body.length);
+        record.write(exchange.body);
+        data.writeInt(bytes.size());
+        bytes.writeTo(data);
+        data.flush();
+        index.write(ByteBuffer.allocate(INDEX_ENTRY).put(key).putLong(offset).array());
+        index.flush();
+        offset += Integer.BYTES + bytes.size();
+    }
+
+    /*
+     * Next recorded answer for the key, null when the request was never recorded
+     */
+    public RecordedExchange next(byte[] key) {
+        Sequence sequence = sequences.get(MatchKey.hex(key));
+        if (sequence == null) {
+            return null;
+        }
+        int position = Math.min(sequence.served.getAndIncrement(), sequence.offsets.size() - 1);
+        return read(sequence.offsets.get(position));
+    }
+
+    public int size() {
+        int size = 0;
+        for (Sequence sequence : sequences.values()) {
+            size += sequence.offsets.size();
+        }
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (data != null) {
+            data.close();
+            index.close();
+        }
+    }
+
+    private RecordedExchange read(long position) {
+        Map.Entry<Long, MappedByteBuffer> segment = segments.floorEntry(position);
+        ByteBuffer record = segment.getValue().duplicate();
+        byte[] bytes;
+        try {
+            record.position((int) (position - segment.getKey()));
+            bytes = new byte[record.getInt()];
+            record.get(bytes);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IllegalStateException("Truncated recording at offset " + position, e);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            String method = in.readUTF();
+            String url = in.readUTF();
+            int status = in.readUnsignedShort();
+            int latency = in.readInt();
+            int count = in.readUnsignedShort();
+            List<String[]> headers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                headers.add(new String[]{in.readUTF(), in.readUTF()});
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new RecordedExchange(method, url, status, latency, Collections.unmodifiableList(headers), body);
+        } catch (EOFException e) {
+            throw new IllegalStateException("Truncated recording at offset " + position, e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable recording at offset " + position, e);
+        }
+    }
+
+    private static final class Sequence {
+        final List<Long> offsets = new ArrayList<>(1);
+        final AtomicInteger served = new AtomicInteger();
+    }
+}
@@ -0,0 +1,47 @@
+package core.replay;
+
+import java.util.Locale;
+
+/*
+ * How long replayed responses are held back:
+ * "none" answers at once, "recorded" waits what the real service took, "scaled:0.5" waits a
+ * fraction of it and "fixed:50" waits 50 ms for every response.
+ */
+public final class LatencyProfile {
+
+    public static final LatencyProfile NONE = new LatencyProfile(0, 0);
+
+    private final double factor;
+    private final long fixedMillis;
+
+    private LatencyProfile(double factor, long fixedMillis) {
+        this.factor = factor;
+        this.fixedMillis = fixedMillis;
+    }
+
+    public static LatencyProfile parse(String profile) {
+        String value = profile == null ? "none" : profile.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (value.isEmpty() || value.equals("none")) {
+                return NONE;
+            }
+            if (value.equals("recorded")) {
+                return new LatencyProfile(1, 0);
+            }
+            if (value.startsWith("scaled:")) {
+                return new LatencyProfile(Double.parseDouble(value.substring("scaled:".length())), 0);
+            }
+            if (value.startsWith("fixed:")) {
+                return new LatencyProfile(0, Long.parseLong(value.substring("fixed:".length())));
+            }
+        } catch (NumberFormatException e) {
+            //reported below
+        }
+        throw new IllegalArgumentException("Unknown replay latency profile '" + profile
+                + "', expected none, recorded, scaled:<factor> or fixed:<millis>");
+    }
+
+    public long delayMillis(int recordedMillis) {
+        return fixedMillis + Math.round(factor * recordedMillis);
+    }
+}
@@ -0,0 +1,76 @@
+package core.replay;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/*
+ * What a recorded exchange is looked up by: SHA-256 over method, scheme, host without default
+ * port, path, query parameters in sorted order, the configured match headers and the SHA-256
+ * of the request body. Recording and replay compute it from the same wire request, so both
+ * sides agree byte for byte.
+ */
+final class MatchKey {
+
+    static final int LENGTH = 32;
+
+    //marks a key of a request whose body could not be read again, e.g. a streamed upload
+    private static final byte[] ANY_BODY = "*".getBytes(StandardCharsets.UTF_8);
+
+    private MatchKey() {
+    }
+
+    /*
+     * target is path and query as on the request line, headers looks up a request header by name.
+     * A null body matches any body.
+     */
+    static byte[] of(String method, String scheme, String host, String target, List<String> matchHeaders,
+                     Function<String, String> headers, byte[] body) {
+        MessageDigest digest = sha256();
+        StringBuilder canonical = new StringBuilder(128)
+                .append(method.toUpperCase(Locale.ROOT)).append('\n')
+                .append(scheme.toLowerCase(Locale.ROOT)).append("://").append(host(scheme, host));
+        int query = target.indexOf('?');
+        canonical.append(query < 0 ? target : target.substring(0, query)).append('\n');
+        if (query >= 0) {
+            String[] parameters = target.substring(query + 1).split("&");
+            Arrays.sort(parameters);
+            canonical.append(String.join("&", parameters));
+        }
+        canonical.append('\n');
+        for (String name : matchHeaders) {
+            String value = headers.apply(name);
+            canonical.append(name.toLowerCase(Locale.ROOT)).append(':').append(value == null ? "" : value).append('\n');
+        }
+        digest.update(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(body == null ? ANY_BODY : sha256().digest(body));
+        return digest.digest();
+    }
+
+    static String hex(byte[] key) {
+        StringBuilder hex = new StringBuilder(key.length * 2);
+        for (byte b : key) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    //reqres.in and reqres.in:443 are the same host for https
+    private static String host(String scheme, String host) {
+        String lower = host.toLowerCase(Locale.ROOT);
+        String defaultPort = "https".equalsIgnoreCase(scheme) ? ":443" : ":80";
+        return lower.endsWith(defaultPort) ? lower.substring(0, lower.length() - defaultPort.length()) : lower;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
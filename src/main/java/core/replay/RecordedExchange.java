@@ -0,0 +1,26 @@
+package core.replay;
+
+import java.util.List;
+
+/*
+ * One response as it came off the wire, with the request line it answered and how long it took
+ */
+public final class RecordedExchange {
+
+    public final String method;
+    public final String url;
+    public final int status;
+    public final int latencyMillis;
+    public final List<String[]> headers;
+    public final byte[] body;
+
+    public RecordedExchange(String method, String url, int status, int latencyMillis, List<String[]> headers,
+                            byte[] body) {
+        this.method = method;
+        this.url = url;
+        this.status = status;
+        this.latencyMillis = latencyMillis;
+        this.headers = headers;
+        this.body = body;
+    }
+}
@@ -0,0 +1,75 @@
+package core.replay;
+
+import core.stub.StubHandler;
+import core.stub.StubRequest;
+import core.stub.StubResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Stub handler that answers every request from an ExchangeStore. A request that was never
+ * recorded gets a 404 with X-Replay-Miss, so a test fails on it instead of silently passing.
+ * Misses are counted for the run summary, the first few distinct ones are kept as examples.
+ */
+public final class ReplayHandler implements StubHandler {
+
+    private static final int MISS_EXAMPLES = 5;
+
+    private final ExchangeStore store;
+    private final List<String> matchHeaders;
+    private final LatencyProfile latency;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ConcurrentHashMap<String, Boolean> missed = new ConcurrentHashMap<>();
+
+    public ReplayHandler(ExchangeStore store, List<String> matchHeaders, LatencyProfile latency) {
+        this.store = store;
+        this.matchHeaders = matchHeaders;
+        this.latency = latency;
+    }
+
+    @Override
+    public StubResponse handle(StubRequest request) {
+        String scheme = request.header("X-Forwarded-Proto");
+        String host = request.originalHost();
+        RecordedExchange exchange = store.next(MatchKey.of(request.method(), scheme == null ? "http" : scheme,
+                host == null ? "" : host, request.target(), matchHeaders, request::header, request.body()));
+        if (exchange == null) {
+            //recorded from a body that could not be read twice, e.g. a streamed upload
+            exchange = store.next(MatchKey.of(request.method(), scheme == null ? "http" : scheme,
+                    host == null ? "" : host, request.target(), matchHeaders, request::header, null));
+        }
+        if (exchange == null) {
+            misses.increment();
+            if (missed.size() < MISS_EXAMPLES) {
+                missed.putIfAbsent(request.method() + " " + host + request.target(), Boolean.TRUE);
+            }
+            return StubResponse.json(404, "{\"error\":\"not recorded\"}").withHeader("X-Replay-Miss", "true");
+        }
+        hits.increment();
+        StubResponse response = StubResponse.status(exchange.status).withBody(exchange.body);
+        for (String[] header : exchange.headers) {
+            response = response.withHeader(header[0], header[1]);
+        }
+        long delay = latency.delayMillis(exchange.latencyMillis);
+        return delay > 0 ? response.withDelay(delay) : response;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /*
+     * Up to five of the distinct requests that were not recorded, e.g. "GET reqres.in/api/users/2"
+     */
+    public List<String> missedRequests() {
+        return new ArrayList<>(missed.keySet());
+    }
+}
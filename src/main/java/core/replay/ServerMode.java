@@ -0,0 +1,220 @@
+package core.replay;
+
+import core.HostRoutes;
+import core.stub.StubServer;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.util.EntityUtils;
+import utils.ConfigRegistry;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Where requests really go, switched with server.mode next to the server entries of
+ * config.properties:
+ * live   - to the real services (default)
+ * record - to the real services, every exchange is also saved into the recording folder
+ * replay - every host is answered from the recording by a stub server on localhost, nothing
+ *          leaves the machine
+ *
+ * server.mode = replay
+ * server.recordings = recordings
+ * server.matchHeaders = Content-Type,Authorization
+ * server.replayLatency = none
+ *
+ * Recording happens in the pooled http client after the response body is buffered, so the
+ * saved request and response are exactly what went over the wire.
+ */
+public final class ServerMode {
+
+    public enum Mode { LIVE, RECORD, REPLAY }
+
+    //context attribute with the System.nanoTime() the request went out, set by the pooled client
+    public static final String SENT_NANOS = "core.replay.sent";
+
+    //connection level headers the stub server writes itself
+    private static final List<String> HOP_BY_HOP = Arrays.asList("connection", "keep-alive", "transfer-encoding",
+            "content-length", "proxy-connection", "upgrade");
+
+    private static volatile Recording recording;
+    private static StubServer replayServer;
+    private static Runnable replayRoute;
+    private static ReplayHandler replayHandler;
+    private static ExchangeStore replayStore;
+    private static Mode mode = Mode.LIVE;
+
+    /*
+     * Saves the exchange of every response while recording, does nothing otherwise
+     */
+    public static final HttpResponseInterceptor RECORDER = (response, context) -> {
+        Recording current = recording;
+        if (current == null) {
+            return;
+        }
+        HttpRequest request = (HttpRequest) context.getAttribute(HttpCoreContext.HTTP_REQUEST);
+        HttpHost target = (HttpHost) context.getAttribute(HostRoutes.ORIGINAL_TARGET);
+        if (target == null) {
+            target = (HttpHost) context.getAttribute(HttpCoreContext.HTTP_TARGET_HOST);
+        }
+        if (request == null || target == null) {
+            return;
+        }
+        Long sent = (Long) context.getAttribute(SENT_NANOS);
+        int latency = sent == null ? 0 : (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent);
+        byte[] requestBody = new byte[0];
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            requestBody = entity == null ? requestBody : entity.isRepeatable() ? EntityUtils.toByteArray(entity) : null;
+        }
+        HttpEntity entity = response.getEntity();
+        byte[] body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+        List<String[]> headers = new ArrayList<>();
+        for (Header header : response.getAllHeaders()) {
+            if (!HOP_BY_HOP.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                headers.add(new String[]{header.getName(), header.getValue()});
+            }
+        }
+        String method = request.getRequestLine().getMethod();
+        String path = relative(request.getRequestLine().getUri());
+        byte[] key = MatchKey.of(method, target.getSchemeName(), target.toHostString(), path, current.matchHeaders,
+                name -> {
+                    Header header = request.getFirstHeader(name);
+                    return header == null ? null : header.getValue();
+                }, requestBody);
+        current.store.append(key, new RecordedExchange(method, target.toURI() + path,
+                response.getStatusLine().getStatusCode(), latency, headers, body));
+        current.recorded.increment();
+    };
+
+    private ServerMode() {
+    }
+
+    /*
+     * Switch to the mode of config.properties, called once per suite by BaseTest
+     */
+    public static synchronized void start() throws IOException {
+        ConfigRegistry.Snapshot config = ConfigRegistry.get().snapshot();
+        Mode configured = Mode.valueOf(config.get("server.mode", "live").trim().toUpperCase(Locale.ROOT));
+        if (configured == mode) {
+            return;
+        }
+        Path folder = Paths.get(config.get("server.recordings", "recordings"));
+        List<String> matchHeaders = matchHeaders(config.get("server.matchHeaders", "Content-Type,Authorization"));
+        if (configured == Mode.RECORD) {
+            record(folder, matchHeaders);
+        } else if (configured == Mode.REPLAY) {
+            replay(folder, matchHeaders, LatencyProfile.parse(config.get("server.replayLatency", "none")));
+        }
+    }
+
+    /*
+     * Save every exchange from now on into a new recording in folder
+     */
+    public static synchronized void record(Path folder, List<String> matchHeaders) throws IOException {
+        stop();
+        recording = new Recording(ExchangeStore.create(folder), matchHeaders);
+        mode = Mode.RECORD;
+        System.out.println("Recording exchanges to " + folder.toAbsolutePath());
+    }
+
+    /*
+     * Answer every host from the recording in folder
+     */
+    public static synchronized void replay(Path folder, List<String> matchHeaders, LatencyProfile latency)
+            throws IOException {
+        stop();
+        replayStore = ExchangeStore.open(folder);
+        replayHandler = new ReplayHandler(replayStore, matchHeaders, latency);
+        replayServer = StubServer.start(0, replayHandler);
+        replayRoute = HostRoutes.routeAll("localhost", replayServer.port());
+        mode = Mode.REPLAY;
+        System.out.println("Replaying " + replayStore.size() + " exchanges from " + folder.toAbsolutePath()
+                + " on " + replayServer.baseUrl());
+    }
+
+    /*
+     * Back to live, closes the recording or the replay server
+     */
+    public static synchronized void stop() throws IOException {
+        Recording current = recording;
+        recording = null;
+        if (current != null) {
+            current.store.close();
+        }
+        if (replayServer != null) {
+            replayRoute.run();
+            replayRoute = null;
+            replayServer.close();
+            replayStore.close();
+            replayServer = null;
+            replayStore = null;
+        }
+        mode = Mode.LIVE;
+    }
+
+    public static synchronized Mode mode() {
+        return mode;
+    }
+
+    /*
+     * One line for the report, e.g. "replay, 42 served, 0 not recorded"
+     */
+    public static synchronized String summary() {
+        switch (mode) {
+            case RECORD:
+                return "record, " + recording.recorded.sum() + " exchanges saved";
+            case REPLAY:
+                List<String> missed = replayHandler.missedRequests();
+                return "replay, " + replayHandler.hits() + " served, " + replayHandler.misses() + " not recorded"
+                        + (missed.isEmpty() ? "" : " (" + String.join(", ", missed) + ")");
+            default:
+                return "live";
+        }
+    }
+
+    static List<String> matchHeaders(String names) {
+        List<String> headers = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty()) {
+                headers.add(name.trim());
+            }
+        }
+        return Collections.unmodifiableList(headers);
+    }
+
+    //a request line through a proxy carries the absolute url
+    private static String relative(String uri) {
+        if (uri.startsWith("/")) {
+            return uri;
+        }
+        URI parsed = URI.create(uri);
+        String path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" : parsed.getRawPath();
+        return parsed.getRawQuery() == null ? path : path + "?" + parsed.getRawQuery();
+    }
+
+    private static final class Recording {
+        final ExchangeStore store;
+        final List<String> matchHeaders;
+        final LongAdder recorded = new LongAdder();
+
+        Recording(ExchangeStore store, List<String> matchHeaders) {
+            this.store = store;
+            this.matchHeaders = matchHeaders;
+        }
+    }
+}
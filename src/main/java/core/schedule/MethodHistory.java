@@ -0,0 +1,104 @@
+package core.schedule;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Observed duration of every test method ("package.Class#method"), smoothed over runs and kept
+ * in a small json file. A method's duration is the total of all its invocations in a run, so
+ * data driven methods weigh what they really cost.
+ */
+public final class MethodHistory {
+
+    //weight of the newest run in the smoothed duration
+    private static final double SMOOTHING = 0.5;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Path file;
+    private final Map<String, Long> millis;
+
+    private MethodHistory(Path file, Map<String, Long> millis) {
+        this.file = file;
+        this.millis = millis;
+    }
+
+    /*
+     * Load the history file, empty when it does not exist yet or cannot be read
+     */
+    public static MethodHistory load(Path file) {
+        Map<String, Long> millis = new TreeMap<>();
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                Map<String, Long> read = GSON.fromJson(reader, new TypeToken<Map<String, Long>>() {
+                }.getType());
+                if (read != null) {
+                    millis.putAll(read);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Ignoring unreadable test duration history " + file + ": " + e);
+            }
+        }
+        return new MethodHistory(file, millis);
+    }
+
+    /*
+     * Smoothed duration in milliseconds, or -1 for a method that never ran
+     */
+    public long millis(String method) {
+        Long known = millis.get(method);
+        return known == null ? -1 : known;
+    }
+
+    public int size() {
+        return millis.size();
+    }
+
+    /*
+     * Duration to assume for methods without history: the median of the known ones
+     */
+    public long typicalMillis(long fallback) {
+        if (millis.isEmpty()) {
+            return fallback;
+        }
+        List<Long> sorted = new ArrayList<>(millis.values());
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    public void record(Map<String, Long> observed) {
+        for (Map.Entry<String, Long> entry : observed.entrySet()) {
+            Long previous = millis.get(entry.getKey());
+            long next = previous == null ? entry.getValue()
+                    : Math.round(SMOOTHING * entry.getValue() + (1 - SMOOTHING) * previous);
+            millis.put(entry.getKey(), next);
+        }
+    }
+
+    /*
+     * Write through a temporary file so an interrupted run never leaves half a history
+     */
+    public void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "durations", ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            GSON.toJson(millis, writer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
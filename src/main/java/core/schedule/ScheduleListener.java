@@ -0,0 +1,229 @@
+package core.schedule;
+
+import org.testng.IAlterSuiteListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import utils.ConfigRegistry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Sizes and orders parallel suites from measured durations.
+ * The suite keeps the parallel mode it declares, only its thread count is set: for
+ * parallel="methods" to the smallest pool SchedulePlan predicts to be within 5% of the best, after
+ * merging the tests of the suite into one <test> when that changes nothing (no parameters, no
+ * group filters); for parallel="tests", "classes" or "instances" to that pool but at most one
+ * thread per test or class. A suite without parallel mode is left alone unless
+ * schedule.parallelMethods = true switches it to methods, which is only safe when its tests share
+ * no global state such as RestAssured.baseURI. The method interceptor then hands TestNG the
+ * methods longest chain first; TestNG still enforces dependsOnMethods and dependsOnGroups. Every
+ * run feeds its durations back into the history.
+ *
+ * <listeners>
+ *     <listener class-name="core.schedule.ScheduleListener"/>
+ * </listeners>
+ *
+ * Settings in config.properties: schedule.enabled, schedule.parallelMethods, schedule.historyFile,
+ * schedule.maxWorkers, schedule.defaultMillis
+ */
+public class ScheduleListener implements IAlterSuiteListener, IMethodInterceptor, ITestListener, ISuiteListener {
+
+    private final Map<String, SchedulePlan> plans = new ConcurrentHashMap<>();
+    private final Map<String, Long> observed = new ConcurrentHashMap<>();
+    private MethodHistory history;
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        ConfigRegistry config = ConfigRegistry.get();
+        if (!config.getBoolean("schedule.enabled", true)) {
+            return;
+        }
+        history = MethodHistory.load(historyFile());
+        boolean parallelMethods = config.getBoolean("schedule.parallelMethods", false);
+        for (XmlSuite suite : suites) {
+            XmlSuite.ParallelMode mode = suite.getParallel() == null ? null
+                    : XmlSuite.ParallelMode.skipDeprecatedValues(suite.getParallel());
+            //ParallelMode.isParallel() is false for tests, so compare with none instead
+            if (mode == null || mode == XmlSuite.ParallelMode.NONE) {
+                if (!parallelMethods) {
+                    continue;
+                }
+                mode = XmlSuite.ParallelMode.METHODS;
+            }
+            if (mode == XmlSuite.ParallelMode.METHODS) {
+                mergeTests(suite);
+            }
+            List<TestMethod> methods = new ArrayList<>();
+            for (XmlTest test : suite.getTests()) {
+                methods.addAll(methods(test));
+            }
+            if (methods.isEmpty()) {
+                continue;
+            }
+            SchedulePlan plan = SchedulePlan.of(methods, history, config.getInt("schedule.maxWorkers", 32),
+                    config.getLong("schedule.defaultMillis", 1000));
+            int threads = Math.min(plan.workers(), units(suite, mode));
+            suite.setParallel(mode);
+            suite.setThreadCount(threads);
+            if (mode == XmlSuite.ParallelMode.METHODS) {
+                for (XmlTest test : suite.getTests()) {
+                    test.setParallel(mode);
+                    test.setThreadCount(threads);
+                }
+            }
+            System.out.println("Scheduled suite '" + suite.getName() + "' parallel by " + mode + " on " + threads
+                    + " threads: " + plan);
+        }
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+        observed.clear();
+    }
+
+    /*
+     * Longest remaining chain first, ties keep the order TestNG chose
+     */
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (history == null) {
+            return methods;
+        }
+        SchedulePlan plan = plans.computeIfAbsent(context.getName(), name -> {
+            List<TestMethod> resolved = new ArrayList<>();
+            for (IMethodInstance method : methods) {
+                resolved.add(TestMethod.of(method.getMethod()));
+            }
+            //priorities do not depend on the pool size
+            return SchedulePlan.of(resolved, history, 1, ConfigRegistry.get().getLong("schedule.defaultMillis", 1000));
+        });
+        List<IMethodInstance> ordered = new ArrayList<>(methods);
+        ordered.sort(Comparator.comparingLong((IMethodInstance method) -> -plan.priority(
+                TestMethod.key(method.getMethod().getRealClass(), method.getMethod().getMethodName()))));
+        return ordered;
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        plans.clear();
+        if (history == null || observed.isEmpty()) {
+            return;
+        }
+        history.record(observed);
+        try {
+            history.save();
+        } catch (IOException e) {
+            System.out.println("Could not save the test duration history: " + e);
+        }
+    }
+
+    //skipped tests did not run, their time says nothing about the method
+    private void record(ITestResult result) {
+        String key = TestMethod.key(result.getMethod().getRealClass(), result.getMethod().getMethodName());
+        observed.merge(key, Math.max(0, result.getEndMillis() - result.getStartMillis()), Long::sum);
+    }
+
+    static Path historyFile() {
+        return Paths.get(ConfigRegistry.get().get("schedule.historyFile", "test-history/method-durations.json"));
+    }
+
+    /*
+     * One <test> lets the pool pick from every method of the suite instead of finishing one
+     * <test> before the next starts. Only done when the tests differ in nothing but their classes.
+     */
+    static void mergeTests(XmlSuite suite) {
+        List<XmlTest> tests = suite.getTests();
+        if (tests.size() < 2) {
+            return;
+        }
+        for (XmlTest test : tests) {
+            if (!test.getLocalParameters().isEmpty() || !test.getIncludedGroups().isEmpty()
+                    || !test.getExcludedGroups().isEmpty() || !test.getXmlPackages().isEmpty()) {
+                return;
+            }
+        }
+        XmlTest merged = tests.get(0);
+        Map<String, XmlClass> classes = new LinkedHashMap<>();
+        for (XmlTest test : tests) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                if (classes.containsKey(xmlClass.getName())) {
+                    //the same class twice would only be run twice by TestNG, keep that behavior
+                    return;
+                }
+                classes.put(xmlClass.getName(), xmlClass);
+            }
+        }
+        merged.setXmlClasses(new ArrayList<>(classes.values()));
+        tests.subList(1, tests.size()).clear();
+        merged.setName(suite.getName());
+    }
+
+    //what runs in parallel under the mode, more threads than that would only sit idle
+    private static int units(XmlSuite suite, XmlSuite.ParallelMode mode) {
+        if (mode == XmlSuite.ParallelMode.TESTS) {
+            return Math.max(1, suite.getTests().size());
+        }
+        if (mode == XmlSuite.ParallelMode.METHODS) {
+            return Integer.MAX_VALUE;
+        }
+        int classes = 0;
+        for (XmlTest test : suite.getTests()) {
+            classes += test.getXmlClasses().size();
+        }
+        return Math.max(1, classes);
+    }
+
+    private static List<TestMethod> methods(XmlTest test) {
+        List<TestMethod> methods = new ArrayList<>();
+        for (XmlClass xmlClass : test.getXmlClasses()) {
+            Class<?> testClass = xmlClass.getSupportClass();
+            if (testClass == null) {
+                continue;
+            }
+            Set<String> included = new HashSet<>();
+            for (XmlInclude include : xmlClass.getIncludedMethods()) {
+                included.add(TestMethod.key(testClass, include.getName()));
+            }
+            for (TestMethod method : TestMethod.of(testClass)) {
+                if (included.isEmpty() || included.contains(method.key)) {
+                    methods.add(method);
+                }
+            }
+        }
+        return methods;
+    }
+}
@@ -0,0 +1,205 @@
+package core.schedule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/*
+ * Longest processing time first over the method dependency graph.
+ * Every method's priority is its bottom level: its own duration plus the longest chain of
+ * methods that wait for it. A free worker always takes the ready method with the highest
+ * priority, so long methods and long chains start first and short ones fill the gaps at the
+ * end. The plan simulates this for every pool size and takes the smallest pool that gets
+ * within 5% of the best predicted suite time.
+ */
+public final class SchedulePlan {
+
+    private static final double GOOD_ENOUGH = 1.05;
+
+    private final Map<String, Node> nodes;
+    private final int workers;
+    private final long predictedMillis;
+    private final long totalMillis;
+    private final long criticalPathMillis;
+    private final int withoutHistory;
+
+    private SchedulePlan(Map<String, Node> nodes, int workers, long predictedMillis, long totalMillis,
+                         long criticalPathMillis, int withoutHistory) {
+        this.nodes = nodes;
+        this.workers = workers;
+        this.predictedMillis = predictedMillis;
+        this.totalMillis = totalMillis;
+        this.criticalPathMillis = criticalPathMillis;
+        this.withoutHistory = withoutHistory;
+    }
+
+    /*
+     * Plan the methods with durations from history, methods that never ran are assumed to take
+     * as long as a typical method
+     */
+    public static SchedulePlan of(Collection<TestMethod> methods, MethodHistory history, int maxWorkers,
+                                  long defaultMillis) {
+        long typical = history.typicalMillis(defaultMillis);
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        int withoutHistory = 0;
+        for (TestMethod method : methods) {
+            long millis = history.millis(method.key);
+            if (millis < 0) {
+                millis = typical;
+                withoutHistory++;
+            }
+            nodes.put(method.key, new Node(method, millis));
+        }
+        link(nodes);
+        long total = 0;
+        long critical = 0;
+        for (Node node : nodes.values()) {
+            total += node.millis;
+            critical = Math.max(critical, bottomLevel(node, new HashSet<>()));
+        }
+
+        int limit = Math.max(1, Math.min(maxWorkers, nodes.size()));
+        long[] makespan = new long[limit + 1];
+        long best = Long.MAX_VALUE;
+        for (int n = 1; n <= limit; n++) {
+            makespan[n] = simulate(nodes.values(), n);
+            best = Math.min(best, makespan[n]);
+        }
+        int workers = 1;
+        while (workers < limit && makespan[workers] > best * GOOD_ENOUGH) {
+            workers++;
+        }
+        return new SchedulePlan(nodes, workers, makespan[workers], total, critical, withoutHistory);
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public long predictedMillis() {
+        return predictedMillis;
+    }
+
+    /*
+     * Higher runs first, 0 for methods that are not part of the plan
+     */
+    public long priority(String key) {
+        Node node = nodes.get(key);
+        return node == null ? 0 : node.bottomLevel;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d methods, %.1f s of work, %d workers, predicted %.1f s "
+                        + "(critical path %.1f s, %d methods without history)",
+                nodes.size(), totalMillis / 1000.0, workers, predictedMillis / 1000.0,
+                criticalPathMillis / 1000.0, withoutHistory);
+    }
+
+    private static void link(Map<String, Node> nodes) {
+        Map<String, List<Node>> byGroup = new HashMap<>();
+        for (Node node : nodes.values()) {
+            for (String group : node.method.groups) {
+                byGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(node);
+            }
+        }
+        for (Node node : nodes.values()) {
+            Set<Node> before = new HashSet<>();
+            for (String dependency : node.method.dependsOnMethods) {
+                Node other = nodes.get(dependency);
+                if (other != null) {
+                    before.add(other);
+                }
+            }
+            for (String group : node.method.dependsOnGroups) {
+                before.addAll(byGroup.getOrDefault(group, Collections.emptyList()));
+            }
+            before.remove(node);
+            for (Node other : before) {
+                other.successors.add(node);
+                node.predecessors++;
+            }
+        }
+    }
+
+    //own duration plus the longest chain after it, cycles are cut (TestNG rejects them anyway)
+    private static long bottomLevel(Node node, Set<Node> visiting) {
+        if (node.bottomLevel >= 0) {
+            return node.bottomLevel;
+        }
+        if (!visiting.add(node)) {
+            return 0;
+        }
+        long after = 0;
+        for (Node successor : node.successors) {
+            after = Math.max(after, bottomLevel(successor, visiting));
+        }
+        visiting.remove(node);
+        node.bottomLevel = node.millis + after;
+        return node.bottomLevel;
+    }
+
+    /*
+     * Predicted suite time with n workers taking the ready method of highest priority
+     */
+    static long simulate(Collection<Node> nodes, int n) {
+        Map<Node, Integer> waiting = new HashMap<>();
+        PriorityQueue<Node> ready = new PriorityQueue<>(Comparator.comparingLong((Node node) -> -node.bottomLevel));
+        for (Node node : nodes) {
+            waiting.put(node, node.predecessors);
+            if (node.predecessors == 0) {
+                ready.add(node);
+            }
+        }
+        //running methods by finish time
+        PriorityQueue<long[]> running = new PriorityQueue<>(Comparator.comparingLong((long[] r) -> r[0]));
+        List<Node> index = new ArrayList<>(nodes);
+        Map<Node, Integer> position = new HashMap<>();
+        for (int i = 0; i < index.size(); i++) {
+            position.put(index.get(i), i);
+        }
+        long now = 0;
+        int done = 0;
+        while (done < index.size()) {
+            while (running.size() < n && !ready.isEmpty()) {
+                Node next = ready.poll();
+                running.add(new long[]{now + next.millis, position.get(next)});
+            }
+            long[] finished = running.poll();
+            if (finished == null) {
+                //only a dependency cycle is left
+                break;
+            }
+            now = finished[0];
+            done++;
+            for (Node successor : index.get((int) finished[1]).successors) {
+                int left = waiting.merge(successor, -1, Integer::sum);
+                if (left == 0) {
+                    ready.add(successor);
+                }
+            }
+        }
+        return now;
+    }
+
+    static final class Node {
+        final TestMethod method;
+        final long millis;
+        final List<Node> successors = new ArrayList<>();
+        int predecessors;
+        long bottomLevel = -1;
+
+        Node(TestMethod method, long millis) {
+            this.method = method;
+            this.millis = millis;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package core.schedule;
+
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * A test method as the scheduler sees it: key "package.Class#method", groups and dependencies
+ */
+public final class TestMethod {
+
+    final String key;
+    final Set<String> groups;
+    final List<String> dependsOnMethods;
+    final List<String> dependsOnGroups;
+
+    TestMethod(String key, Set<String> groups, List<String> dependsOnMethods, List<String> dependsOnGroups) {
+        this.key = key;
+        this.groups = groups;
+        this.dependsOnMethods = dependsOnMethods;
+        this.dependsOnGroups = dependsOnGroups;
+    }
+
+    /*
+     * "package.Class#method"
+     */
+    public String key() {
+        return key;
+    }
+
+    /*
+     * Keys of the methods this one depends on
+     */
+    public List<String> dependsOnMethods() {
+        return dependsOnMethods;
+    }
+
+    public List<String> dependsOnGroups() {
+        return dependsOnGroups;
+    }
+
+    public static String key(Class<?> testClass, String method) {
+        return testClass.getName() + "#" + method;
+    }
+
+    /*
+     * A method TestNG already resolved, dependencies are "package.Class.method" there
+     */
+    public static TestMethod of(ITestNGMethod method) {
+        List<String> dependsOnMethods = new ArrayList<>();
+        for (String dependency : method.getMethodsDependedUpon()) {
+            dependsOnMethods.add(qualify(method.getRealClass(), dependency));
+        }
+        return new TestMethod(key(method.getRealClass(), method.getMethodName()),
+                new LinkedHashSet<>(Arrays.asList(method.getGroups())), dependsOnMethods,
+                Arrays.asList(method.getGroupsDependedUpon()));
+    }
+
+    /*
+     * Enabled @Test methods of a class, with a class level @Test making every public method a test
+     */
+    public static List<TestMethod> of(Class<?> testClass) {
+        Test classTest = testClass.getAnnotation(Test.class);
+        List<TestMethod> methods = new ArrayList<>();
+        for (Method method : testClass.getMethods()) {
+            if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            Test test = method.getAnnotation(Test.class);
+            if (test == null && (classTest == null || method.getDeclaringClass() != testClass)) {
+                continue;
+            }
+            if ((test != null && !test.enabled()) || (classTest != null && !classTest.enabled())) {
+                continue;
+            }
+            Set<String> groups = new LinkedHashSet<>();
+            List<String> dependsOnMethods = new ArrayList<>();
+            List<String> dependsOnGroups = new ArrayList<>();
+            for (Test annotation : test == null ? Collections.singletonList(classTest) : Arrays.asList(classTest, test)) {
+                if (annotation == null) {
+                    continue;
+                }
+                groups.addAll(Arrays.asList(annotation.groups()));
+                dependsOnGroups.addAll(Arrays.asList(annotation.dependsOnGroups()));
+                for (String dependency : annotation.dependsOnMethods()) {
+                    dependsOnMethods.add(qualify(testClass, dependency));
+                }
+            }
+            methods.add(new TestMethod(key(testClass, method.getName()), groups, dependsOnMethods, dependsOnGroups));
+        }
+        return methods;
+    }
+
+    private static String qualify(Class<?> testClass, String dependency) {
+        int dot = dependency.lastIndexOf('.');
+        return dot < 0 ? key(testClass, dependency)
+                : dependency.substring(0, dot) + "#" + dependency.substring(dot + 1);
+    }
+}
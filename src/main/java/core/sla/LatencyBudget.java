@@ -0,0 +1,167 @@
+package core.sla;
+
+import utils.ConfigRegistry;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Response time budget of an endpoint: the highest allowed percentiles in milliseconds, measured
+ * over samples calls after warmup calls that are not counted. Budgets are immutable, every method
+ * returns a new one, so they can be kept in constants.
+ *
+ * LatencyBudget.inline().p95(300).samples(50)     inline
+ * LatencyBudget.named("users.list")               from sla.users.list.* in config.properties
+ * LatencyBudget.named("users.list").p95(300)      inline values, config.properties overrides them
+ *
+ * sla.users.list.p95 = 300
+ * sla.users.list.samples = 50
+ */
+public final class LatencyBudget {
+
+    //percentile names of the config keys, max is the 100th percentile
+    private static final String[] NAMES = {"p50", "p90", "p95", "p99", "max"};
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 100};
+
+    private final String name;
+    private final TreeMap<Double, Double> limits;
+    //0 means not set, the config default applies
+    private final int samples;
+    private final int warmup;
+
+    private LatencyBudget(String name, TreeMap<Double, Double> limits, int samples, int warmup) {
+        this.name = name;
+        this.limits = limits;
+        this.samples = samples;
+        this.warmup = warmup;
+    }
+
+    /*
+     * Budget whose limits and sample counts come from sla.<name>.* in config.properties
+     */
+    public static LatencyBudget named(String name) {
+        return new LatencyBudget(name, new TreeMap<>(), 0, -1);
+    }
+
+    /*
+     * Budget without a name, set only by its own methods and the sla.default.* keys
+     */
+    public static LatencyBudget inline() {
+        return named(null);
+    }
+
+    /*
+     * Budget for any percentile, e.g. percentile(99.9, 1500)
+     */
+    public LatencyBudget percentile(double percentile, double millis) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be above 0 and at most 100, was " + percentile);
+        }
+        TreeMap<Double, Double> copy = new TreeMap<>(limits);
+        copy.put(percentile, millis);
+        return new LatencyBudget(name, copy, samples, warmup);
+    }
+
+    public LatencyBudget p50(double millis) {
+        return percentile(50, millis);
+    }
+
+    public LatencyBudget p90(double millis) {
+        return percentile(90, millis);
+    }
+
+    public LatencyBudget p95(double millis) {
+        return percentile(95, millis);
+    }
+
+    public LatencyBudget p99(double millis) {
+        return percentile(99, millis);
+    }
+
+    public LatencyBudget max(double millis) {
+        return percentile(100, millis);
+    }
+
+    /*
+     * Calls that are measured, default sla.default.samples
+     */
+    public LatencyBudget samples(int samples) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("At least one sample is needed, was " + samples);
+        }
+        return new LatencyBudget(name, limits, samples, warmup);
+    }
+
+    /*
+     * Calls made first and not measured, for connection setup and server caches, default sla.default.warmup
+     */
+    public LatencyBudget warmup(int warmup) {
+        return new LatencyBudget(name, limits, samples, Math.max(0, warmup));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /*
+     * The budget with config.properties applied: the sla.<name>.* keys of a named budget, then the defaults
+     */
+    LatencyBudget resolve(ConfigRegistry config) {
+        TreeMap<Double, Double> resolved = new TreeMap<>(limits);
+        int resolvedSamples = samples;
+        int resolvedWarmup = warmup;
+        if (name != null) {
+            String prefix = "sla." + name + ".";
+            for (int i = 0; i < NAMES.length; i++) {
+                String value = config.get(prefix + NAMES[i]);
+                if (value != null) {
+                    resolved.put(PERCENTILES[i], Double.parseDouble(value.trim()));
+                }
+            }
+            resolvedSamples = config.getInt(prefix + "samples", resolvedSamples);
+            resolvedWarmup = config.getInt(prefix + "warmup", resolvedWarmup);
+            if (resolved.isEmpty()) {
+                throw new IllegalStateException("No latency budget " + name + ", add " + prefix + "p95 = <millis> to config.properties");
+            }
+        }
+        if (resolvedSamples < 1) {
+            resolvedSamples = config.getInt("sla.default.samples", 30);
+        }
+        if (resolvedWarmup < 0) {
+            resolvedWarmup = config.getInt("sla.default.warmup", 3);
+        }
+        return new LatencyBudget(name, resolved, resolvedSamples, Math.max(0, resolvedWarmup));
+    }
+
+    int samples() {
+        return samples;
+    }
+
+    int warmup() {
+        return warmup;
+    }
+
+    /*
+     * Percentile to highest allowed milliseconds, ascending
+     */
+    Map<Double, Double> limits() {
+        return limits;
+    }
+
+    static String percentileName(double percentile) {
+        if (percentile == 100) {
+            return "max";
+        }
+        return percentile == Math.rint(percentile) ? "p" + (long) percentile : "p" + percentile;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<Double, Double> limit : limits.entrySet()) {
+            text.append(text.length() == 0 ? "" : ", ").append(percentileName(limit.getKey())).append(" <= ")
+                    .append(limit.getValue()).append(" ms");
+        }
+        return (name == null ? "" : name + ": ") + text;
+    }
+}
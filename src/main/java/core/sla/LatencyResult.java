@@ -0,0 +1,119 @@
+package core.sla;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Measured response times of one ResponseTime check, values in microseconds, and the limits it broke
+ */
+public final class LatencyResult {
+
+    //bars of the text histogram in the summary
+    private static final int BUCKETS = 10;
+    private static final int BAR_WIDTH = 30;
+
+    private final String label;
+    private final LatencyBudget budget;
+    private final Histogram histogram;
+    private final Map<Integer, Long> statuses;
+    private final List<String> breaches;
+
+    LatencyResult(String label, LatencyBudget budget, Histogram histogram, Map<Integer, Long> statuses,
+                  List<String> breaches) {
+        this.label = label;
+        this.budget = budget;
+        this.histogram = histogram;
+        this.statuses = Collections.unmodifiableMap(statuses);
+        this.breaches = Collections.unmodifiableList(breaches);
+    }
+
+    public boolean passed() {
+        return breaches.isEmpty();
+    }
+
+    /*
+     * Broken limits and unexpected status codes, empty when the check passed
+     */
+    public List<String> breaches() {
+        return breaches;
+    }
+
+    public Histogram histogram() {
+        return histogram;
+    }
+
+    /*
+     * Status code to number of measured calls that returned it
+     */
+    public Map<Integer, Long> statuses() {
+        return statuses;
+    }
+
+    public double percentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /*
+     * One line: label, samples and the usual percentiles
+     */
+    public String line() {
+        return String.format("%s %d samples (%d warm-up): min %.1f p50 %.1f p90 %.1f p95 %.1f p99 %.1f max %.1f ms",
+                label, histogram.getTotalCount(), budget.warmup(), histogram.getMinValue() / 1000.0,
+                percentileMillis(50), percentileMillis(90), percentileMillis(95), percentileMillis(99),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    /*
+     * Breaches, percentiles, status codes and a text histogram of the measured calls
+     */
+    public String summary() {
+        StringBuilder text = new StringBuilder(1024);
+        text.append(passed() ? label + " is within its latency budget" : label + " breached its latency budget")
+                .append(" (").append(budget).append(")\n");
+        for (String breach : breaches) {
+            text.append("  ").append(breach).append('\n');
+        }
+        text.append("  ").append(line()).append('\n');
+        text.append("  status");
+        for (Map.Entry<Integer, Long> status : statuses.entrySet()) {
+            text.append(' ').append(status.getKey()).append(" x").append(status.getValue());
+        }
+        text.append('\n');
+        long min = histogram.getMinValue();
+        long max = histogram.getMaxValue();
+        long width = Math.max(1, (max - min + BUCKETS) / BUCKETS);
+        long highest = 1;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            long from = min + i * width;
+            counts[i] = histogram.getCountBetweenValues(from, from + width - 1);
+            highest = Math.max(highest, counts[i]);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            long from = min + i * width;
+            if (from > max) {
+                break;
+            }
+            int bar = (int) Math.round(counts[i] * (double) BAR_WIDTH / highest);
+            text.append(String.format("  %8.1f - %8.1f ms |%-" + BAR_WIDTH + "s| %d%n", from / 1000.0,
+                    (from + width) / 1000.0, repeat('#', bar), counts[i]));
+        }
+        return text.toString();
+    }
+
+    private static String repeat(char c, int times) {
+        StringBuilder text = new StringBuilder(times);
+        for (int i = 0; i < times; i++) {
+            text.append(c);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
@@ -0,0 +1,138 @@
+package core.sla;
+
+import com.relevantcodes.extentreports.LogStatus;
+import core.StatusCode;
+import io.restassured.response.Response;
+import org.HdrHistogram.Histogram;
+import utils.ConfigRegistry;
+import utils.ExtentReport;
+import utils.SoftAssertionUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/*
+ * Response time check of a call, next to its status code check. The call is made warmup times
+ * without measuring, then samples times measured from just before the request to the returned
+ * response. Every measured call must return the expected status and the measured percentiles
+ * must stay within the budget. A breach fails with the percentiles and a histogram of the calls.
+ *
+ * ResponseTime.of(() -> given().get("https://reqres.in/api/users?page=2"))
+ *         .as("GET /api/users")
+ *         .expect(StatusCode.SUCCESS)
+ *         .within(LatencyBudget.inline().p95(300).samples(50))
+ *         .verify();
+ *
+ * With sla.enabled = false the call is made once, only its status is checked.
+ */
+public final class ResponseTime {
+
+    private final Supplier<Response> call;
+    private String label;
+    private int expectedStatus;
+    private LatencyBudget budget;
+
+    private ResponseTime(Supplier<Response> call) {
+        this.call = call;
+    }
+
+    public static ResponseTime of(Supplier<Response> call) {
+        return new ResponseTime(call);
+    }
+
+    /*
+     * Name of the call in failures and in the report, default the budget name
+     */
+    public ResponseTime as(String label) {
+        this.label = label;
+        return this;
+    }
+
+    /*
+     * Status every call must return, default any 2xx
+     */
+    public ResponseTime expect(StatusCode status) {
+        this.expectedStatus = status.code;
+        return this;
+    }
+
+    public ResponseTime within(LatencyBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /*
+     * Measure and fail the test with an AssertionError when the budget is breached
+     */
+    public LatencyResult verify() {
+        LatencyResult result = measure();
+        if (!result.passed()) {
+            throw new AssertionError(result.summary());
+        }
+        return result;
+    }
+
+    /*
+     * Measure and collect a breach as a soft assertion, see SoftAssertionUtil.assertAll
+     */
+    public LatencyResult verifySoft() {
+        LatencyResult result = measure();
+        SoftAssertionUtil.assertTrue(result.passed(), result::summary);
+        return result;
+    }
+
+    /*
+     * Make the calls and compare them with the budget without failing anything
+     */
+    public LatencyResult measure() {
+        if (budget == null) {
+            throw new IllegalStateException("No latency budget, call within(...) first");
+        }
+        ConfigRegistry config = ConfigRegistry.get();
+        LatencyBudget resolved = budget.resolve(config);
+        boolean enforced = config.getBoolean("sla.enabled", true);
+        String name = label != null ? label : resolved.name() != null ? resolved.name() : "response time";
+
+        Histogram histogram = new Histogram(3);
+        Map<Integer, Long> statuses = new TreeMap<>();
+        int warmup = enforced ? resolved.warmup() : 0;
+        int samples = enforced ? resolved.samples() : 1;
+        for (int i = 0; i < warmup + samples; i++) {
+            long start = System.nanoTime();
+            Response response = call.get();
+            long micros = (System.nanoTime() - start) / 1000;
+            if (i >= warmup) {
+                histogram.recordValue(Math.max(0, micros));
+                statuses.merge(response.getStatusCode(), 1L, Long::sum);
+            }
+        }
+
+        List<String> breaches = new ArrayList<>();
+        for (Map.Entry<Integer, Long> status : statuses.entrySet()) {
+            if (!expected(status.getKey())) {
+                breaches.add("status " + status.getKey() + " in " + status.getValue() + " of " + samples
+                        + " calls, expected " + (expectedStatus == 0 ? "2xx" : String.valueOf(expectedStatus)));
+            }
+        }
+        if (enforced) {
+            for (Map.Entry<Double, Double> limit : resolved.limits().entrySet()) {
+                double measured = histogram.getValueAtPercentile(limit.getKey()) / 1000.0;
+                if (measured > limit.getValue()) {
+                    breaches.add(String.format("%s %.1f ms > %.1f ms", LatencyBudget.percentileName(limit.getKey()),
+                            measured, limit.getValue()));
+                }
+            }
+        }
+        LatencyResult result = new LatencyResult(name, resolved, histogram, statuses, breaches);
+        ExtentReport.log(result.passed() ? LogStatus.INFO : LogStatus.FAIL, result.passed() ? result.line()
+                : "<pre>" + result.summary().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;") + "</pre>");
+        return result;
+    }
+
+    private boolean expected(int status) {
+        return expectedStatus == 0 ? status >= 200 && status < 300 : status == expectedStatus;
+    }
+}
@@ -0,0 +1,10 @@
+package core.stub;
+
+/*
+ * Produces the response of the stub server for one request.
+ * Handlers run on the selector thread of the server, so they must not block.
+ */
+public interface StubHandler {
+
+    StubResponse handle(StubRequest request);
+}
@@ -0,0 +1,76 @@
+package core.stub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Request received by the stub server, header names are case insensitive
+ */
+public final class StubRequest {
+
+    private final String method;
+    private final String target;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    StubRequest(String method, String target, TreeMap<String, List<String>> headers, byte[] body) {
+        this.method = method;
+        this.target = target;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    /*
+     * Path and query exactly as sent on the request line
+     */
+    public String target() {
+        return target;
+    }
+
+    public String path() {
+        int query = target.indexOf('?');
+        return query < 0 ? target : target.substring(0, query);
+    }
+
+    public String query() {
+        int query = target.indexOf('?');
+        return query < 0 ? "" : target.substring(query + 1);
+    }
+
+    public Map<String, List<String>> headers() {
+        return headers;
+    }
+
+    public String header(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /*
+     * Host the client meant to call, a rerouted request carries it in X-Forwarded-Host
+     */
+    public String originalHost() {
+        String forwarded = header("X-Forwarded-Host");
+        return forwarded != null ? forwarded : header("Host");
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    public String bodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + target;
+    }
+}
@@ -0,0 +1,72 @@
+package core.stub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Response of the stub server, built with the static factories and the with* methods
+ */
+public final class StubResponse {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int status;
+    private final List<String[]> headers;
+    private final byte[] body;
+    private final long delayMillis;
+
+    private StubResponse(int status, List<String[]> headers, byte[] body, long delayMillis) {
+        this.status = status;
+        this.headers = headers;
+        this.body = body;
+        this.delayMillis = delayMillis;
+    }
+
+    public static StubResponse status(int status) {
+        return new StubResponse(status, Collections.<String[]>emptyList(), EMPTY, 0);
+    }
+
+    public static StubResponse json(int status, String json) {
+        return status(status).withHeader("Content-Type", "application/json; charset=utf-8")
+                .withBody(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static StubResponse notFound() {
+        return json(404, "{}");
+    }
+
+    public StubResponse withHeader(String name, String value) {
+        List<String[]> copy = new ArrayList<>(headers);
+        copy.add(new String[]{name, value});
+        return new StubResponse(status, Collections.unmodifiableList(copy), body, delayMillis);
+    }
+
+    public StubResponse withBody(byte[] body) {
+        return new StubResponse(status, headers, body, delayMillis);
+    }
+
+    /*
+     * Hold the response back, used to simulate server latency
+     */
+    public StubResponse withDelay(long delayMillis) {
+        return new StubResponse(status, headers, body, delayMillis);
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public List<String[]> headers() {
+        return headers;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    public long delayMillis() {
+        return delayMillis;
+    }
+}
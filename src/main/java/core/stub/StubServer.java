@@ -0,0 +1,506 @@
+package core.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Embedded HTTP/1.1 server on localhost for running tests without the network.
+ * One selector thread serves every connection with non blocking channels; keep-alive,
+ * pipelining, Content-Length and chunked request bodies are supported. Requests are matched
+ * against the routes in the order they were added, the first route whose method and path
+ * prefix match gets the request, otherwise the fallback handler answers.
+ *
+ * StubServer server = StubServer.start(0, new EchoHandler());
+ * Runnable restore = HostRoutes.routeAll("localhost", server.port());
+ */
+public final class StubServer implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+    private static final long CHUNK_SIZE = -1;
+    private static final long CHUNK_CRLF = -2;
+    private static final long TRAILERS = -3;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Thread selectorThread;
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService delayTimer;
+    private final AtomicLong requests = new AtomicLong();
+    private volatile StubHandler fallback;
+    private volatile boolean running = true;
+
+    private StubServer(int port, StubHandler fallback) throws IOException {
+        this.fallback = fallback;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("localhost", port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.delayTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stub-server-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.selectorThread = new Thread(this::run, "stub-server-" + port());
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /*
+     * Start a server on localhost, port 0 picks a free port
+     */
+    public static StubServer start(int port, StubHandler fallback) throws IOException {
+        return new StubServer(port, fallback);
+    }
+
+    public static StubServer start(int port) throws IOException {
+        return start(port, request -> StubResponse.notFound());
+    }
+
+    public int port() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + port();
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public StubServer route(String method, String pathPrefix, StubHandler handler) {
+        routes.add(new Route(method == null ? null : method.toUpperCase(Locale.ROOT), pathPrefix, handler));
+        return this;
+    }
+
+    public StubServer fallback(StubHandler handler) {
+        this.fallback = handler;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delayTimer.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(1000);
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        closeQuietly(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Stub server stopped: " + e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException ignored) {
+                //already closing
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            //nothing left to release
+        }
+    }
+
+    private StubResponse dispatch(StubRequest request) {
+        requests.incrementAndGet();
+        String path = request.path();
+        for (Route route : routes) {
+            if ((route.method == null || route.method.equals(request.method())) && path.startsWith(route.pathPrefix)) {
+                return route.handler.handle(request);
+            }
+        }
+        return fallback.handle(request);
+    }
+
+    private static final class Route {
+        final String method;
+        final String pathPrefix;
+        final StubHandler handler;
+
+        Route(String method, String pathPrefix, StubHandler handler) {
+            this.method = method;
+            this.pathPrefix = pathPrefix;
+            this.handler = handler;
+        }
+    }
+
+    /*
+     * Per connection parser state, touched only by the selector thread
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final Queue<ByteBuffer> out = new ArrayDeque<>();
+        //responses not yet written, kept in request order so pipelined requests stay ordered
+        private final Queue<Pending> pending = new ArrayDeque<>();
+
+        //request being parsed, null while waiting for a request head
+        private String method;
+        private String target;
+        private TreeMap<String, List<String>> headers;
+        private boolean keepAlive;
+        private long contentLength;
+        private boolean chunked;
+        private long chunkRemaining = CHUNK_SIZE;
+        private ByteArrayOutputStream body;
+        private boolean closeAfterWrite;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read() throws IOException {
+            if (!in.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            int read = channel.read(in);
+            if (read < 0) {
+                closeQuietly(key);
+                return;
+            }
+            in.flip();
+            try {
+                while (parse()) {
+                    //one complete request handled per iteration
+                }
+            } finally {
+                in.compact();
+            }
+        }
+
+        /*
+         * Consume as much of the input as possible, true when a full request was handled
+         */
+        private boolean parse() throws IOException {
+            if (method == null && !parseHead()) {
+                return false;
+            }
+            if (chunked ? !parseChunks() : !parseFixedBody()) {
+                return false;
+            }
+            StubRequest request = new StubRequest(method, target, headers, body.toByteArray());
+            boolean keep = keepAlive;
+            method = null;
+            body = null;
+            respond(request, keep);
+            return true;
+        }
+
+        private boolean parseHead() throws IOException {
+            int end = indexOfHeadEnd();
+            if (end < 0) {
+                if (in.remaining() > MAX_HEAD_SIZE) {
+                    throw new IOException("Request head too large");
+                }
+                return false;
+            }
+            byte[] head = new byte[end - in.position()];
+            in.get(head);
+            in.position(in.position() + 4);
+            String[] lines = new String(head, StandardCharsets.ISO_8859_1).split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            if (requestLine.length < 3) {
+                throw new IOException("Malformed request line: " + lines[0]);
+            }
+            method = requestLine[0];
+            target = requestLine[1];
+            headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon > 0) {
+                    headers.computeIfAbsent(lines[i].substring(0, colon).trim(), k -> new ArrayList<>(1))
+                            .add(lines[i].substring(colon + 1).trim());
+                }
+            }
+            String connection = first("Connection");
+            keepAlive = requestLine[2].endsWith("1.1")
+                    ? !"close".equalsIgnoreCase(connection)
+                    : "keep-alive".equalsIgnoreCase(connection);
+            String encoding = first("Transfer-Encoding");
+            chunked = encoding != null && encoding.toLowerCase(Locale.ROOT).contains("chunked");
+            String length = first("Content-Length");
+            contentLength = chunked || length == null ? 0 : Long.parseLong(length);
+            chunkRemaining = CHUNK_SIZE;
+            body = new ByteArrayOutputStream((int) Math.min(contentLength, READ_BUFFER_SIZE));
+            if ("100-continue".equalsIgnoreCase(first("Expect"))) {
+                out.add(ByteBuffer.wrap("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1)));
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+            return true;
+        }
+
+        private boolean parseFixedBody() {
+            int take = (int) Math.min(contentLength - body.size(), in.remaining());
+            if (take > 0) {
+                body.write(in.array(), in.arrayOffset() + in.position(), take);
+                in.position(in.position() + take);
+            }
+            return body.size() >= contentLength;
+        }
+
+        /*
+         * chunkRemaining is the state of the chunked decoder: bytes left in the current chunk,
+         * CHUNK_SIZE while a size line is expected, CHUNK_CRLF after chunk data, TRAILERS after the last chunk
+         */
+        private boolean parseChunks() throws IOException {
+            while (true) {
+                if (chunkRemaining == CHUNK_CRLF) {
+                    if (in.remaining() < 2) {
+                        return false;
+                    }
+                    in.position(in.position() + 2);
+                    chunkRemaining = CHUNK_SIZE;
+                }
+                if (chunkRemaining == CHUNK_SIZE) {
+                    int lineEnd = indexOfCrlf(in.position());
+                    if (lineEnd < 0) {
+                        return false;
+                    }
+                    String sizeLine = new String(in.array(), in.arrayOffset() + in.position(),
+                            lineEnd - in.position(), StandardCharsets.ISO_8859_1);
+                    int extension = sizeLine.indexOf(';');
+                    long size = Long.parseLong((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+                    in.position(lineEnd + 2);
+                    chunkRemaining = size == 0 ? TRAILERS : size;
+                }
+                if (chunkRemaining == TRAILERS) {
+                    //skip trailers up to the empty line
+                    int lineEnd;
+                    while ((lineEnd = indexOfCrlf(in.position())) >= 0) {
+                        boolean empty = lineEnd == in.position();
+                        in.position(lineEnd + 2);
+                        if (empty) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                int take = (int) Math.min(chunkRemaining, in.remaining());
+                body.write(in.array(), in.arrayOffset() + in.position(), take);
+                in.position(in.position() + take);
+                chunkRemaining -= take;
+                if (chunkRemaining > 0) {
+                    return false;
+                }
+                chunkRemaining = CHUNK_CRLF;
+            }
+        }
+
+        private String first(String name) {
+            List<String> values = headers.get(name);
+            return values == null ? null : values.get(0);
+        }
+
+        private int indexOfHeadEnd() {
+            int limit = in.limit() - 3;
+            byte[] array = in.array();
+            int offset = in.arrayOffset();
+            for (int i = in.position(); i < limit; i++) {
+                if (array[offset + i] == '\r' && array[offset + i + 1] == '\n'
+                        && array[offset + i + 2] == '\r' && array[offset + i + 3] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOfCrlf(int from) {
+            byte[] array = in.array();
+            int offset = in.arrayOffset();
+            for (int i = from; i < in.limit() - 1; i++) {
+                if (array[offset + i] == '\r' && array[offset + i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void respond(StubRequest request, boolean keep) {
+            StubResponse response;
+            try {
+                response = dispatch(request);
+            } catch (RuntimeException e) {
+                response = StubResponse.json(500, "{\"error\":\"" + e.getClass().getSimpleName() + "\"}");
+            }
+            final Pending slot = new Pending(encode(request, response, keep), keep);
+            pending.add(slot);
+            if (response.delayMillis() > 0) {
+                delayTimer.schedule(() -> {
+                    selectorTasks.add(() -> {
+                        slot.ready = true;
+                        flushReady();
+                    });
+                    selector.wakeup();
+                }, response.delayMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                slot.ready = true;
+                flushReady();
+            }
+        }
+
+        private void flushReady() {
+            if (!key.isValid()) {
+                return;
+            }
+            while (!pending.isEmpty() && pending.peek().ready) {
+                Pending next = pending.poll();
+                out.add(next.bytes);
+                if (!next.keepAlive) {
+                    closeAfterWrite = true;
+                    pending.clear();
+                    break;
+                }
+            }
+            if (!out.isEmpty()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        void write() throws IOException {
+            while (!out.isEmpty()) {
+                ByteBuffer buffer = out.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                out.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (closeAfterWrite) {
+                closeQuietly(key);
+            }
+        }
+
+        private ByteBuffer encode(StubRequest request, StubResponse response, boolean keep) {
+            StringBuilder head = new StringBuilder(256)
+                    .append("HTTP/1.1 ").append(response.status()).append(' ')
+                    .append(reason(response.status())).append("\r\n");
+            boolean hasLength = false;
+            for (String[] header : response.headers()) {
+                hasLength |= "Content-Length".equalsIgnoreCase(header[0]);
+                head.append(header[0]).append(": ").append(header[1]).append("\r\n");
+            }
+            byte[] payload = "HEAD".equals(request.method()) ? new byte[0] : response.body();
+            if (!hasLength) {
+                head.append("Content-Length: ").append(response.body().length).append("\r\n");
+            }
+            head.append("Connection: ").append(keep ? "keep-alive" : "close").append("\r\n\r\n");
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+            ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + payload.length);
+            buffer.put(headBytes).put(payload).flip();
+            return buffer;
+        }
+    }
+
+    private static final class Pending {
+        final ByteBuffer bytes;
+        final boolean keepAlive;
+        boolean ready;
+
+        Pending(ByteBuffer bytes, boolean keepAlive) {
+            this.bytes = bytes;
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 100: return "Continue";
+            case 200: return "OK";
+            case 201: return "Created";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 404: return "Not Found";
+            case 429: return "Too Many Requests";
+            case 500: return "Internal Server Error";
+            case 503: return "Service Unavailable";
+            default: return "Status";
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Layered configuration loaded once per properties file.
+ * Precedence, highest first: system property (-Dkey=value), environment variable, properties file.
+ * The environment variable for a key is the key upper cased with "." and "-" replaced by "_",
+ * so "server" is overridden by SERVER and "http.pool.maxTotal" by HTTP_POOL_MAXTOTAL.
+ *
+ * Reads go to an immutable snapshot held in a volatile field, so they never lock and a group of
+ * reads from one snapshot() is always consistent. A daemon thread watches the file and system
+ * properties and swaps in a new snapshot when either changes.
+ */
+public final class ConfigRegistry {
+
+    public static final String DEFAULT_CONFIG = "config.properties";
+
+    private static final long WATCH_INTERVAL_MILLIS = 1000;
+
+    private static final Map<Path, ConfigRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService WATCHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "config-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        WATCHER.scheduleWithFixedDelay(ConfigRegistry::refreshAll,
+                WATCH_INTERVAL_MILLIS, WATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private final Path path;
+    private volatile Snapshot snapshot;
+
+    private ConfigRegistry(Path path) {
+        this.path = path;
+        this.snapshot = new Snapshot(lastModified(), readFile(), systemProperties(), System.getenv());
+    }
+
+    /*
+     * Return the registry of config.properties
+     */
+    public static ConfigRegistry get() {
+        return forFile(DEFAULT_CONFIG);
+    }
+
+    /*
+     * Return the shared registry of a properties file, one registry per file
+     */
+    public static ConfigRegistry forFile(String filePath) {
+        Path key = Paths.get(filePath).toAbsolutePath().normalize();
+        return REGISTRIES.computeIfAbsent(key, ConfigRegistry::new);
+    }
+
+    /*
+     * Return the current snapshot, use it when several keys must come from the same version
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public String get(String key) {
+        return snapshot.get(key);
+    }
+
+    public String get(String key, String defaultValue) {
+        return snapshot.get(key, defaultValue);
+    }
+
+    public String require(String key) {
+        return snapshot.require(key);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return snapshot.getInt(key, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        return snapshot.getLong(key, defaultValue);
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        return snapshot.getDouble(key, defaultValue);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return snapshot.getBoolean(key, defaultValue);
+    }
+
+    /*
+     * Re-read the file and system properties now instead of waiting for the watcher
+     */
+    public void reload() {
+        synchronized (this) {
+            snapshot = new Snapshot(lastModified(), readFile(), systemProperties(), System.getenv());
+        }
+    }
+
+    private static void refreshAll() {
+        for (ConfigRegistry registry : REGISTRIES.values()) {
+            try {
+                registry.refresh();
+            } catch (RuntimeException e) {
+                //keep the last good snapshot, a half written file is picked up on the next tick
+                System.out.println("Config reload failed for " + registry.path + ": " + e);
+            }
+        }
+    }
+
+    private void refresh() {
+        synchronized (this) {
+            Snapshot current = snapshot;
+            long mtime = lastModified();
+            Map<String, String> system = systemProperties();
+            if (mtime != current.fileModified) {
+                snapshot = new Snapshot(mtime, readFile(), system, System.getenv());
+            } else if (!system.equals(current.system)) {
+                snapshot = new Snapshot(mtime, current.file, system, System.getenv());
+            }
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private Map<String, String> readFile() {
+        Properties prop = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            prop.load(input);
+        } catch (NoSuchFileException e) {
+            System.out.println("Config file not found: " + path);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String name : prop.stringPropertyNames()) {
+            values.put(name, prop.getProperty(name));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    private static Map<String, String> systemProperties() {
+        Properties properties = System.getProperties();
+        Map<String, String> values = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            values.put(name, properties.getProperty(name));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    static String environmentName(String key) {
+        return key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+    }
+
+    /*
+     * One immutable version of the layered configuration
+     */
+    public static final class Snapshot {
+        final long fileModified;
+        final Map<String, String> file;
+        final Map<String, String> system;
+        private final Map<String, String> environment;
+        //keys of the file resolved through all layers up front, the common lookups are a single map get
+        private final Map<String, String> resolved;
+
+        Snapshot(long fileModified, Map<String, String> file, Map<String, String> system,
+                 Map<String, String> environment) {
+            this.fileModified = fileModified;
+            this.file = file;
+            this.system = system;
+            this.environment = environment;
+            Map<String, String> values = new HashMap<>();
+            for (Map.Entry<String, String> entry : file.entrySet()) {
+                values.put(entry.getKey(), resolve(entry.getKey(), entry.getValue()));
+            }
+            this.resolved = Collections.unmodifiableMap(values);
+        }
+
+        public String get(String key) {
+            String value = resolved.get(key);
+            if (value != null) {
+                return value;
+            }
+            return resolve(key, null);
+        }
+
+        public String get(String key, String defaultValue) {
+            String value = get(key);
+            return value == null ? defaultValue : value;
+        }
+
+        public String require(String key) {
+            String value = get(key);
+            if (value == null) {
+                throw new IllegalStateException("Missing configuration value for '" + key + "'");
+            }
+            return value;
+        }
+
+        public int getInt(String key, int defaultValue) {
+            String value = get(key);
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        }
+
+        public long getLong(String key, long defaultValue) {
+            String value = get(key);
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        }
+
+        public double getDouble(String key, double defaultValue) {
+            String value = get(key);
+            return value == null ? defaultValue : Double.parseDouble(value.trim());
+        }
+
+        public boolean getBoolean(String key, boolean defaultValue) {
+            String value = get(key);
+            return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+        }
+
+        /*
+         * Return every file key with its resolved value
+         */
+        public Map<String, String> asMap() {
+            return resolved;
+        }
+
+        private String resolve(String key, String fileValue) {
+            String value = system.get(key);
+            if (value != null) {
+                return value;
+            }
+            value = environment.get(environmentName(key));
+            if (value != null) {
+                return value;
+            }
+            return fileValue;
+        }
+    }
+}
@@ -1,28 +1,104 @@
 package utils;
 
-import com.relevantcodes.extentreports.ExtentReports;
-import com.relevantcodes.extentreports.ExtentTest;
+import com.relevantcodes.extentreports.LogStatus;
 
-import java.io.File;
+import java.nio.file.Paths;
 
+/*
+ * Report of the suite, safe for parallel suites and keeping no test data in memory.
+ * Every test thread has its own test context, log calls only put an event on a lock-free queue
+ * and return, a background writer appends the events to events.jsonl next to the html report
+ * and ReportRenderer turns the log into html at close, see ReportSession.
+ *
+ * A run that dies before close still leaves its event log, the shutdown hook renders it when the
+ * JVM exits normally and "java utils.ReportRenderer <report folder>" renders it after a hard crash.
+ *
+ * ExtentReport.startTest("verifyStatusCodeDelete", "Validate 204 status code for DELETE Method");
+ * ExtentReport.log(LogStatus.INFO, "deleted user 2");
+ * ExtentReport.endTest();
+ */
 public class ExtentReport {
-    public static ExtentReports extentreport = null;
-    public static ExtentTest extentlog;
 
-    public static void initialize(String extentConfigXmlpath) {
+    public static final String EVENT_LOG = "events.jsonl";
 
-        if (extentreport == null) {
+    //the suite's session, null until initialize and after close
+    private static volatile ReportSession session;
 
-            extentreport = new ExtentReports(extentConfigXmlpath, true);
+    public static synchronized void initialize(String extentConfigXmlpath) {
 
-            extentreport.addSystemInfo("Host Name", System.getProperty("user.name"));
+        if (session == null) {
 
-            extentreport.addSystemInfo("Environment", "QA");
+            session = ReportSession.open(Paths.get(extentConfigXmlpath));
 
-            extentreport.addSystemInfo("OS", "Mac OS X");
+            addSystemInfo("Host Name", System.getProperty("user.name"));
 
-            extentreport.loadConfig(new File(System.getProperty("user.dir") + "/resources/extent-config.xml"));
+            addSystemInfo("Environment", "QA");
 
+            addSystemInfo("OS", "Mac OS X");
         }
     }
-}
\ No newline at end of file
+
+    /*
+     * Start the test of the current thread. A test started by BaseTest that has not logged
+     * anything yet is renamed instead, so tests can still give themselves a name and description.
+     */
+    public static void startTest(String name, String description) {
+        ReportSession current = session;
+        if (current != null) {
+            current.startTest(name, description);
+        }
+    }
+
+    public static void startTest(String name) {
+        startTest(name, "");
+    }
+
+    public static void log(LogStatus status, String details) {
+        ReportSession current = session;
+        if (current != null) {
+            current.log(status, details);
+        }
+    }
+
+    /*
+     * End the test of the current thread, does nothing when no test was started
+     */
+    public static void endTest() {
+        ReportSession current = session;
+        if (current != null) {
+            current.endTest();
+        }
+    }
+
+    public static void addSystemInfo(String key, String value) {
+        ReportSession current = session;
+        if (current != null) {
+            current.addSystemInfo(key, value);
+        }
+    }
+
+    /*
+     * Ask the writer to flush the event log and render the html with everything logged so far,
+     * returns immediately
+     */
+    public static void flush() {
+        ReportSession current = session;
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    /*
+     * Write the remaining events, render the report and stop the writer. Blocks until done.
+     */
+    public static void close() {
+        ReportSession current;
+        synchronized (ExtentReport.class) {
+            current = session;
+            session = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+}
@@ -3,17 +3,38 @@ package utils;
 import org.testng.IRetryAnalyzer;
 import org.testng.ITestResult;
 
+/*
+ * Retries a failed test only when RetryPolicy calls the failure transient, after the policy's
+ * backoff and while the suite retry budget lasts. The decision is kept on the test result
+ * (attribute "retry") so BaseTest can put it in the report.
+ */
 public class FailRetry implements IRetryAnalyzer {
 
+    public static final String RETRY_ATTRIBUTE = "retry";
+
     private int retryCount = 0;
-    private static final int maxRetryCount = 2;
 
     @Override
     public boolean retry(ITestResult result) {
-        if (retryCount < maxRetryCount) {
-            retryCount++;
-            return true;
+        FailureCategory category = RetryPolicy.classify(result);
+        long delay = RetryPolicy.delayMillis(category, retryCount + 1);
+        if (delay < 0) {
+            return false;
+        }
+        if (!RetryPolicy.acquireBudget()) {
+            result.setAttribute(RETRY_ATTRIBUTE, category + " failure not retried, the suite retry budget is used up");
+            return false;
+        }
+        retryCount++;
+        result.setAttribute(RETRY_ATTRIBUTE, "Retry " + retryCount + " after " + category + " failure, waited "
+                + delay + " ms");
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
-        return false;
+        RetryPolicy.recordRetry(category, delay);
+        return true;
     }
-}
\ No newline at end of file
+}
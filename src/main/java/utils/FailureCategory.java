@@ -0,0 +1,20 @@
+package utils;
+
+/*
+ * Why a test failed, as far as retrying is concerned. Only the transient categories are retried.
+ */
+public enum FailureCategory {
+    CONNECT_TIMEOUT(true),
+    READ_TIMEOUT(true),
+    CONNECTION_ERROR(true),
+    SERVER_ERROR(true),
+    THROTTLED(true),
+    ASSERTION(false),
+    OTHER(false);
+
+    public final boolean transientFailure;
+
+    FailureCategory(boolean transientFailure) {
+        this.transientFailure = transientFailure;
+    }
+}
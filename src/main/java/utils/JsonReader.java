@@ -1,13 +1,11 @@
 package utils;
 
-import org.apache.commons.io.FileUtils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class JsonReader {
 
@@ -15,34 +13,57 @@ public class JsonReader {
     //takes the input as key and givethe output as value
     //calling method
     public static String getTestData(String key) throws IOException, ParseException {
-        String testDataValue;
-        return testDataValue = (String) getJsonData().get(key);//input is the key
-
+        try {
+            return (String) TestDataStore.testData().get(key);//input is the key
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
     }
-//Create a method as  getJsonData() with return type as JsonObject
-    // logic is written in below method and it is call in getTestData
-    public static JSONObject getJsonData() throws ParseException, IOException {
-
-        //pass the path of the testdata.json file
-        File filename = new File("resources//TestData//testdata.json");
-        //convert json file into string
-        String json = FileUtils.readFileToString(filename, "UTF-8");
-        //parse the string into object
-        Object obj = new JSONParser().parse(json);
-        //give jsonobject so that I can return it to the function everytime it get called
-        JSONObject jsonObject = (JSONObject) obj;
-        return jsonObject;
 
+    //Create a method as  getJsonData() with return type as JsonObject
+    // the file is parsed once by TestDataStore, every call gets its own copy
+    public static JSONObject getJsonData() throws ParseException, IOException {
+        try {
+            return TestDataStore.testData().rootAsJsonObject();
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
     }
-//to read array data
+
+    //to read array data
     public static JSONArray getJsonArray(String key) throws IOException, ParseException {
-        JSONObject jsonObject = getJsonData();
-        JSONArray jsonArray = (JSONArray) jsonObject.get(key);
-        return jsonArray;
+        try {
+            return TestDataStore.testData().arrayAsJsonArray(key);
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
     }
 
     public static Object getJsonArrayData(String key, int index) throws IOException, ParseException {
-        JSONArray languages = getJsonArray(key);
-        return languages.get(index);
+        try {
+            //pointer lookup, no copy of the array is made
+            TestDataStore store = TestDataStore.testData();
+            String pointer = "/" + key + "/" + index;
+            if (store.contains(pointer)) {
+                return store.get(pointer);
+            }
+            //missing key or index fails the same way the old array lookup did
+            return getJsonArray(key).get(index);
+        } catch (RuntimeException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /*
+     * Keep the checked exceptions callers of the old file based methods expect
+     */
+    private static RuntimeException unwrap(RuntimeException e) throws IOException, ParseException {
+        if (e instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) e).getCause();
+        }
+        if (e.getCause() instanceof ParseException) {
+            throw (ParseException) e.getCause();
+        }
+        return e;
     }
 }
@@ -0,0 +1,57 @@
+package utils;
+
+import io.restassured.RestAssured;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/*
+ * Remembers status code, Retry-After and time of the last response on each thread, so a failed
+ * assertion on a 503 or 429 can be told apart from a real assertion failure (see RetryPolicy)
+ */
+public final class LastResponseFilter implements OrderedFilter {
+
+    public static final LastResponseFilter INSTANCE = new LastResponseFilter();
+
+    private static final ThreadLocal<LastResponse> LAST = ThreadLocal.withInitial(LastResponse::new);
+
+    private LastResponseFilter() {
+    }
+
+    /*
+     * Add the filter to the global RestAssured filters once
+     */
+    public static synchronized void install() {
+        if (!RestAssured.filters().contains(INSTANCE)) {
+            RestAssured.filters(INSTANCE);
+        }
+    }
+
+    static LastResponse last() {
+        return LAST.get();
+    }
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        LastResponse last = LAST.get();
+        last.statusCode = response.getStatusCode();
+        last.retryAfter = response.getHeader("Retry-After");
+        last.millis = System.currentTimeMillis();
+        return response;
+    }
+
+    static final class LastResponse {
+        int statusCode;
+        String retryAfter;
+        long millis;
+    }
+}
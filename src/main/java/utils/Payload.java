@@ -0,0 +1,118 @@
+package utils;
+
+import io.restassured.specification.RequestSpecification;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/*
+ * An immutable request body loaded once from disk. Small files are held as one byte array that
+ * RestAssured sends as is, large ones stay memory mapped and are streamed from the mapping.
+ * The shared bytes never leave this class: applyTo() sets them as a body, buffer() and stream()
+ * are read-only views and bytes() is a copy.
+ */
+public final class Payload {
+
+    private final Path path;
+    private final byte[] array;
+    private final ByteBuffer mapped;
+    private volatile PayloadTemplate template;
+
+    Payload(Path path, byte[] array, ByteBuffer mapped) {
+        this.path = path;
+        this.array = array;
+        this.mapped = mapped;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int size() {
+        return array != null ? array.length : mapped.capacity();
+    }
+
+    public boolean isMapped() {
+        return mapped != null;
+    }
+
+    /*
+     * A copy of the bytes, for callers that need an array of their own. Requests use applyTo().
+     */
+    public byte[] bytes() {
+        if (array != null) {
+            return array.clone();
+        }
+        byte[] copy = new byte[mapped.capacity()];
+        mapped.duplicate().get(copy);
+        return copy;
+    }
+
+    /*
+     * Read-only view of the bytes, no copy
+     */
+    public ByteBuffer buffer() {
+        return array != null ? ByteBuffer.wrap(array).asReadOnlyBuffer() : mapped.asReadOnlyBuffer();
+    }
+
+    /*
+     * Stream over the bytes, no copy
+     */
+    public InputStream stream() {
+        return new ByteBufferInputStream(buffer());
+    }
+
+    public String asString() {
+        return StandardCharsets.UTF_8.decode(buffer()).toString();
+    }
+
+    /*
+     * Set the body of a request: the shared array of a small payload, a stream over the mapping
+     * of a large one. RestAssured only reads either, the file is not opened again.
+     */
+    public RequestSpecification applyTo(RequestSpecification request) {
+        return array != null ? request.body(array) : request.body(stream());
+    }
+
+    /*
+     * The payload compiled as a template with ${name} placeholders, compiled on first use
+     */
+    public PayloadTemplate template() {
+        PayloadTemplate compiled = template;
+        if (compiled == null) {
+            compiled = PayloadTemplate.compile(asString(), path.toString().endsWith(".json"));
+            template = compiled;
+        }
+        return compiled;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A request body with ${name} placeholders, split once into literal byte segments and
+ * placeholders. Rendering copies the literal segments and the encoded values into a per thread
+ * buffer that is reused across requests, only the finished body is allocated. In a json
+ * template a placeholder inside a string literal gets its value escaped for json.
+ *
+ * {"name": "${name}", "job": "${job}"}
+ */
+public final class PayloadTemplate {
+
+    //a buffer that grew beyond this for a huge body is not kept for the next render
+    private static final int MAX_POOLED_BYTES = 1024 * 1024;
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private final List<Object> segments;
+    private final List<String> names;
+
+    private PayloadTemplate(List<Object> segments, List<String> names) {
+        this.segments = segments;
+        this.names = names;
+    }
+
+    public static PayloadTemplate compile(String text, boolean json) {
+        List<Object> segments = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean inString = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '$' && i + 1 < text.length() && text.charAt(i + 1) == '{') {
+                int end = text.indexOf('}', i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed placeholder at offset " + i);
+                }
+                if (literal.length() > 0) {
+                    segments.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+                    literal.setLength(0);
+                }
+                String name = text.substring(i + 2, end).trim();
+                segments.add(new Placeholder(name, json && inString));
+                if (!names.contains(name)) {
+                    names.add(name);
+                }
+                i = end;
+                continue;
+            }
+            if (json && c == '"') {
+                inString = !inString;
+            } else if (json && inString && c == '\\' && i + 1 < text.length()) {
+                literal.append(c);
+                c = text.charAt(++i);
+            }
+            literal.append(c);
+        }
+        if (literal.length() > 0) {
+            segments.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return new PayloadTemplate(Collections.unmodifiableList(segments), Collections.unmodifiableList(names));
+    }
+
+    /*
+     * Placeholder names in order of first appearance
+     */
+    public List<String> names() {
+        return names;
+    }
+
+    /*
+     * The body with every placeholder replaced by String.valueOf of its value
+     */
+    public byte[] render(Map<String, ?> values) {
+        Buffer buffer = BUFFERS.get();
+        buffer.length = 0;
+        for (Object segment : segments) {
+            if (segment instanceof byte[]) {
+                buffer.append((byte[]) segment);
+                continue;
+            }
+            Placeholder placeholder = (Placeholder) segment;
+            if (!values.containsKey(placeholder.name)) {
+                throw new IllegalArgumentException("No value for placeholder ${" + placeholder.name + "}");
+            }
+            String value = String.valueOf(values.get(placeholder.name));
+            buffer.append((placeholder.jsonString ? escape(value) : value).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] body = Arrays.copyOf(buffer.bytes, buffer.length);
+        if (buffer.bytes.length > MAX_POOLED_BYTES) {
+            BUFFERS.remove();
+        }
+        return body;
+    }
+
+    public String renderToString(Map<String, ?> values) {
+        return new String(render(values), StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = null;
+            if (c == '"' || c == '\\') {
+                replacement = "\\" + c;
+            } else if (c < 0x20) {
+                replacement = String.format("\\u%04x", (int) c);
+            }
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (escaped != null) {
+                escaped.append(replacement != null ? replacement : String.valueOf(c));
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    private static final class Placeholder {
+        final String name;
+        final boolean jsonString;
+
+        Placeholder(String name, boolean jsonString) {
+            this.name = name;
+            this.jsonString = jsonString;
+        }
+    }
+
+    private static final class Buffer {
+        byte[] bytes = new byte[1024];
+        int length;
+
+        void append(byte[] segment) {
+            if (length + segment.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + segment.length));
+            }
+            System.arraycopy(segment, 0, bytes, length, segment.length);
+            length += segment.length;
+        }
+    }
+}
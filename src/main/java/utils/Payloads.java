@@ -0,0 +1,61 @@
+package utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Request bodies of resources/TestData, each file read once per run and shared by every request.
+ * Files from payload.mmapThresholdBytes (config.properties, default 1 MB) up are memory mapped
+ * instead of read onto the heap. The file channel is closed right after loading, a mapping
+ * stays valid without it.
+ *
+ * Payloads.get("postRequestBody.json").applyTo(given()).post("/api/users")
+ * given().body(Payloads.template("postUserTemplate.json").render(values))
+ */
+public final class Payloads {
+
+    public static final String TEST_DATA_FOLDER = "resources/TestData";
+
+    private static final Map<Path, Payload> PAYLOADS = new ConcurrentHashMap<>();
+
+    private Payloads() {
+    }
+
+    /*
+     * A file of resources/TestData, or any path containing a "/"
+     */
+    public static Payload get(String fileName) {
+        Path path = fileName.contains("/") ? Paths.get(fileName)
+                : Paths.get(System.getProperty("user.dir"), TEST_DATA_FOLDER, fileName);
+        return PAYLOADS.computeIfAbsent(path.toAbsolutePath().normalize(), Payloads::load);
+    }
+
+    public static PayloadTemplate template(String fileName) {
+        return get(fileName).template();
+    }
+
+    private static Payload load(Path path) {
+        long threshold = ConfigRegistry.get().getLong("payload.mmapThresholdBytes", 1024 * 1024);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= threshold) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return new Payload(path, null, mapped);
+            }
+            return new Payload(path, Files.readAllBytes(path), null);
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("Payload file not found: " + path, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load payload " + path, e);
+        }
+    }
+}
@@ -1,30 +1,12 @@
 package utils;
 
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
-
 public class PropertyReader {
 
+    /*
+     * Fetch the value of a key, the file is loaded once by ConfigRegistry and
+     * a system property or environment variable with the same key wins over the file
+     */
     public static String propertyReader(String filePath, String key) {
-        String value = null;
-        //Inputstream is required while loading into properties
-
-        try (InputStream input = new FileInputStream(filePath)) {
-
-            // object creation for Property class
-            Properties prop = new Properties();
-
-            // load a properties file
-            prop.load(input);
-
-            //getProperty will fetch the value according to the key
-            value = prop.getProperty(key);
-
-        } catch (IOException ex) {
-            ex.printStackTrace();
-        }
-        return value;
+        return ConfigRegistry.forFile(filePath).get(key);
     }
 }
@@ -0,0 +1,365 @@
+package utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Builds the html report from the JSON lines event log of ExtentReport in one streaming pass.
+ * Tests are written to numbered pages as soon as their end event is read, so only the tests that
+ * were running at the same time are held in memory, whatever the size of the run. The report file
+ * itself becomes an index with the totals, the system info and links to the pages.
+ *
+ * The log is read up to its last complete line and tests without an end event are shown as
+ * incomplete, so the log of a crashed run still gives a usable partial report:
+ * java -cp ... utils.ReportRenderer "reports/<timestamp>"
+ */
+public final class ReportRenderer {
+
+    public static final int PAGE_SIZE = 250;
+
+    //from most to least severe, a test takes the most severe status it logged
+    enum Status {FATAL, FAIL, ERROR, WARNING, SKIP, PASS, INFO, UNKNOWN, INCOMPLETE}
+
+    private static final String STYLE = "body{font-family:sans-serif;margin:0 2em;color:#333}"
+            + "table{border-collapse:collapse;margin:.5em 0}td,th{border:1px solid #ddd;padding:3px 8px;text-align:left}"
+            + ".test{border:1px solid #ddd;margin:.6em 0;padding:.3em .8em}.test h3{margin:.3em 0;font-size:1em}"
+            + ".FATAL,.FAIL,.ERROR{color:#c62828}.WARNING{color:#ef6c00}.SKIP{color:#757575}.PASS{color:#2e7d32}"
+            + ".INFO,.UNKNOWN{color:#1565c0}.INCOMPLETE{color:#6a1b9a}.nav a{margin-right:1em}.meta{color:#888}";
+
+    private ReportRenderer() {
+    }
+
+    /*
+     * Render the event log into the html report, configured by extent-config.xml
+     */
+    public static void render(Path eventLog, Path htmlReport, File extentConfig) throws IOException {
+        Config config = Config.load(extentConfig);
+        String baseName = htmlReport.getFileName().toString().replaceFirst("\\.html?$", "");
+        Map<Long, TestSection> open = new LinkedHashMap<>();
+        Map<String, String> systemInfo = new LinkedHashMap<>();
+        List<PageSummary> pages = new ArrayList<>();
+        Map<Status, Integer> totals = new EnumMap<>(Status.class);
+        PageWriter page = null;
+        long firstMillis = Long.MAX_VALUE;
+        long lastMillis = Long.MIN_VALUE;
+
+        try (BufferedReader reader = Files.newBufferedReader(eventLog, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonObject event;
+                try {
+                    event = JsonParser.parseString(line).getAsJsonObject();
+                } catch (JsonParseException | IllegalStateException e) {
+                    //the last line of a crashed run can be cut off
+                    continue;
+                }
+                String kind = event.get("e").getAsString();
+                if ("info".equals(kind)) {
+                    systemInfo.put(text(event, "k"), text(event, "v"));
+                    continue;
+                }
+                long id = event.get("id").getAsLong();
+                long millis = event.get("ts").getAsLong();
+                firstMillis = Math.min(firstMillis, millis);
+                lastMillis = Math.max(lastMillis, millis);
+                if ("start".equals(kind)) {
+                    open.put(id, new TestSection(text(event, "name"), text(event, "desc"),
+                            text(event, "thread"), millis));
+                    continue;
+                }
+                TestSection test = open.get(id);
+                if (test == null) {
+                    continue;
+                }
+                if ("log".equals(kind)) {
+                    test.log(millis, Status.valueOf(event.get("s").getAsString()), text(event, "m"), config);
+                } else if ("end".equals(kind)) {
+                    open.remove(id);
+                    test.endMillis = millis;
+                    page = write(test, test.status(), page, pages, totals, htmlReport, baseName, config);
+                }
+            }
+        }
+        for (Iterator<TestSection> it = open.values().iterator(); it.hasNext(); ) {
+            page = write(it.next(), Status.INCOMPLETE, page, pages, totals, htmlReport, baseName, config);
+            it.remove();
+        }
+        if (page != null) {
+            page.close(pages.size());
+        }
+        writeIndex(htmlReport, baseName, config, systemInfo, pages, totals, firstMillis, lastMillis);
+    }
+
+    private static PageWriter write(TestSection test, Status status, PageWriter page, List<PageSummary> pages,
+                                    Map<Status, Integer> totals, Path htmlReport, String baseName,
+                                    Config config) throws IOException {
+        if (page == null || page.summary.tests == PAGE_SIZE) {
+            if (page != null) {
+                page.close(-1);
+            }
+            PageSummary summary = new PageSummary(pages.size() + 1, baseName + "-" + (pages.size() + 1) + ".html");
+            pages.add(summary);
+            page = new PageWriter(htmlReport.resolveSibling(summary.file), summary, baseName, config);
+        }
+        page.write(test, status, config);
+        totals.merge(status, 1, Integer::sum);
+        return page;
+    }
+
+    private static void writeIndex(Path htmlReport, String baseName, Config config, Map<String, String> systemInfo,
+                                   List<PageSummary> pages, Map<Status, Integer> totals,
+                                   long firstMillis, long lastMillis) throws IOException {
+        try (Writer out = Files.newBufferedWriter(htmlReport, StandardCharsets.UTF_8)) {
+            header(out, config);
+            out.write("<h1>" + escape(config.reportName) + "</h1><p class='meta'>" + escape(config.reportHeadline));
+            if (firstMillis <= lastMillis) {
+                out.write(" &middot; " + config.format(firstMillis) + " to " + config.format(lastMillis));
+            }
+            out.write("</p><h2>Summary</h2><table><tr><th>Status</th><th>Tests</th></tr>");
+            int total = 0;
+            for (Map.Entry<Status, Integer> entry : totals.entrySet()) {
+                total += entry.getValue();
+                out.write("<tr><td class='" + entry.getKey() + "'>" + entry.getKey() + "</td><td>"
+                        + entry.getValue() + "</td></tr>");
+            }
+            out.write("<tr><th>Total</th><th>" + total + "</th></tr></table>");
+            out.write("<h2>Pages</h2><table><tr><th>Page</th><th>Tests</th><th>Failed</th></tr>");
+            for (PageSummary page : pages) {
+                out.write("<tr><td><a href='" + escape(page.file) + "'>" + page.number + "</a></td><td>"
+                        + page.tests + "</td><td" + (page.failed > 0 ? " class='FAIL'" : "") + ">"
+                        + page.failed + "</td></tr>");
+            }
+            out.write("</table><h2>System info</h2><table>");
+            for (Map.Entry<String, String> entry : systemInfo.entrySet()) {
+                out.write("<tr><td>" + escape(entry.getKey()) + "</td><td>" + escape(entry.getValue()) + "</td></tr>");
+            }
+            out.write("</table></body></html>");
+        }
+    }
+
+    private static void header(Writer out, Config config) throws IOException {
+        out.write("<!DOCTYPE html><html><head><meta charset='UTF-8'><title>" + escape(config.documentTitle)
+                + "</title><style>" + STYLE + config.styles + "</style></head><body>");
+    }
+
+    //a text field of an event, missing and null ones (as older logs wrote null details) are empty
+    private static String text(JsonObject event, String name) {
+        JsonElement value = event.get(name);
+        return value == null || value.isJsonNull() ? "" : value.getAsString();
+    }
+
+    /*
+     * Append value as a quoted JSON string, null as an empty one
+     */
+    static void appendJsonString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("\"\"");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("'", "&#39;");
+    }
+
+    /*
+     * A test being read, its rows are kept until the end event arrives
+     */
+    private static final class TestSection {
+        final String name;
+        final String description;
+        final String thread;
+        final long startMillis;
+        long endMillis;
+        Status worst;
+        final StringBuilder rows = new StringBuilder();
+
+        TestSection(String name, String description, String thread, long startMillis) {
+            this.name = name;
+            this.description = description;
+            this.thread = thread;
+            this.startMillis = startMillis;
+        }
+
+        void log(long millis, Status status, String details, Config config) {
+            if (worst == null || status.ordinal() < worst.ordinal()) {
+                worst = status;
+            }
+            //details are html, as they were in the Extent report
+            rows.append("<tr><td>").append(config.formatTime(millis)).append("</td><td class='").append(status)
+                    .append("'>").append(status).append("</td><td>").append(details).append("</td></tr>");
+        }
+
+        Status status() {
+            return worst == null ? Status.UNKNOWN : worst;
+        }
+    }
+
+    private static final class PageSummary {
+        final int number;
+        final String file;
+        int tests;
+        int failed;
+
+        PageSummary(int number, String file) {
+            this.number = number;
+            this.file = file;
+        }
+    }
+
+    private static final class PageWriter {
+        final Writer out;
+        final PageSummary summary;
+        final String baseName;
+
+        PageWriter(Path file, PageSummary summary, String baseName, Config config) throws IOException {
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            this.summary = summary;
+            this.baseName = baseName;
+            header(out, config);
+            out.write("<h1>" + escape(config.reportName) + " &middot; page " + summary.number + "</h1>");
+        }
+
+        void write(TestSection test, Status status, Config config) throws IOException {
+            summary.tests++;
+            if (status.ordinal() <= Status.ERROR.ordinal() || status == Status.INCOMPLETE) {
+                summary.failed++;
+            }
+            out.write("<div class='test'><h3><span class='" + status + "'>" + status + "</span> "
+                    + escape(test.name) + "</h3><div class='meta'>");
+            if (!test.description.isEmpty()) {
+                out.write(escape(test.description) + " &middot; ");
+            }
+            out.write(escape(test.thread) + " &middot; " + config.format(test.startMillis));
+            if (test.endMillis > 0) {
+                out.write(" &middot; " + (test.endMillis - test.startMillis) + " ms");
+            }
+            out.write("</div><table>");
+            out.append(test.rows);
+            out.write("</table></div>");
+        }
+
+        //last page number when this is the last page, -1 when another one follows
+        void close(int lastPage) throws IOException {
+            out.write("<p class='nav'><a href='" + escape(baseName) + ".html'>Summary</a>");
+            if (summary.number > 1) {
+                out.write("<a href='" + escape(baseName) + "-" + (summary.number - 1) + ".html'>Previous</a>");
+            }
+            if (lastPage != summary.number) {
+                out.write("<a href='" + escape(baseName) + "-" + (summary.number + 1) + ".html'>Next</a>");
+            }
+            out.write("</p></body></html>");
+            out.close();
+        }
+    }
+
+    /*
+     * The parts of extent-config.xml the html uses
+     */
+    private static final class Config {
+        String documentTitle = "API Automation";
+        String reportName = "API Automation";
+        String reportHeadline = "";
+        String styles = "";
+        SimpleDateFormat dateTime = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        SimpleDateFormat time = new SimpleDateFormat("HH:mm:ss");
+
+        static Config load(File file) {
+            Config config = new Config();
+            if (file == null || !file.isFile()) {
+                return config;
+            }
+            try {
+                Document xml = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+                config.documentTitle = text(xml, "documentTitle", config.documentTitle);
+                config.reportName = text(xml, "reportName", config.reportName);
+                config.reportHeadline = text(xml, "reportHeadline", config.reportHeadline);
+                config.styles = text(xml, "styles", config.styles);
+                String timeFormat = text(xml, "timeFormat", "HH:mm:ss");
+                config.time = new SimpleDateFormat(timeFormat);
+                config.dateTime = new SimpleDateFormat(text(xml, "dateFormat", "yyyy-MM-dd") + " " + timeFormat);
+            } catch (Exception e) {
+                System.out.println("Could not read " + file + ", using default report settings: " + e);
+            }
+            return config;
+        }
+
+        private static String text(Document xml, String tag, String fallback) {
+            NodeList nodes = xml.getElementsByTagName(tag);
+            return nodes.getLength() == 0 ? fallback : nodes.item(0).getTextContent().trim();
+        }
+
+        String format(long millis) {
+            return dateTime.format(new Date(millis));
+        }
+
+        String formatTime(long millis) {
+            return time.format(new Date(millis));
+        }
+    }
+
+    /*
+     * Render the report of a run that did not finish: pass the report folder or the html file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: ReportRenderer <report folder or html report>");
+            return;
+        }
+        Path target = Paths.get(args[0]);
+        Path html = Files.isDirectory(target) ? target.resolve("API_Execution_Automation.html") : target;
+        render(html.resolveSibling(ExtentReport.EVENT_LOG), html,
+                new File(System.getProperty("user.dir") + "/resources/extent-config.xml"));
+        System.out.println("Report written to " + html);
+    }
+}
@@ -0,0 +1,330 @@
+package utils;
+
+import com.relevantcodes.extentreports.LogStatus;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * One report: its event log, its writer thread and the current test of every thread.
+ * Log calls only put an event on a lock-free queue and return. The writer thread drains the queue
+ * and appends the events as JSON lines to events.jsonl next to the html report, flushing whenever
+ * the queue runs empty. At close ReportRenderer turns the log into the html report in one
+ * streaming pass.
+ *
+ * The suite's session is behind the static ExtentReport API. Code that needs a report of its own,
+ * like a test of the report itself, opens another session and closes only that one.
+ *
+ * ReportSession report = ReportSession.open(Paths.get("target/report/report.html"));
+ * report.startTest("verifyStatusCodeDelete", "Validate 204 status code for DELETE Method");
+ * report.log(LogStatus.INFO, "deleted user 2");
+ * report.endTest();
+ * report.close();
+ */
+public final class ReportSession {
+
+    //how long the writer sleeps when the queue is empty, producers wake it up earlier
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final ThreadLocal<TestContext> current = new ThreadLocal<>();
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private final AtomicLong testIds = new AtomicLong();
+    private final Path htmlReport;
+    private final Path eventLog;
+    private final BufferedWriter out;
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+    private Thread shutdownHook;
+
+    private ReportSession(Path htmlReport) {
+        this.htmlReport = htmlReport;
+        this.eventLog = htmlReport.resolveSibling(ExtentReport.EVENT_LOG);
+        try {
+            Files.createDirectories(htmlReport.toAbsolutePath().getParent());
+            out = Files.newBufferedWriter(eventLog, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the report event log " + eventLog, e);
+        }
+        writer = new Thread(this::drain, "extent-writer");
+        writer.setDaemon(true);
+        shutdownHook = new Thread(this::close, "extent-shutdown");
+    }
+
+    /*
+     * Start a report whose html goes to htmlReport and its event log next to it. A session that
+     * exits without reaching close is rendered by a shutdown hook when the JVM exits normally.
+     */
+    public static ReportSession open(Path htmlReport) {
+        ReportSession session = new ReportSession(htmlReport);
+        session.writer.start();
+        Runtime.getRuntime().addShutdownHook(session.shutdownHook);
+        return session;
+    }
+
+    public Path htmlReport() {
+        return htmlReport;
+    }
+
+    /*
+     * Start the test of the current thread. A test started by BaseTest that has not logged
+     * anything yet is renamed instead, so tests can still give themselves a name and description.
+     */
+    public void startTest(String name, String description) {
+        TestContext context = current.get();
+        if (context != null && !context.published) {
+            context.name = name;
+            context.description = description;
+            return;
+        }
+        if (context != null) {
+            endTest();
+        }
+        current.set(new TestContext(name, description));
+    }
+
+    public void log(LogStatus status, String details) {
+        offer(new Event(Event.LOG, context(), status, null, details));
+    }
+
+    /*
+     * End the test of the current thread, does nothing when no test was started
+     */
+    public void endTest() {
+        TestContext context = current.get();
+        if (context == null) {
+            return;
+        }
+        current.remove();
+        context.published = true;
+        offer(new Event(Event.END, context, null, null, null));
+    }
+
+    public void addSystemInfo(String key, String value) {
+        offer(new Event(Event.SYSTEM_INFO, null, null, key, value));
+    }
+
+    /*
+     * Ask the writer to flush the event log and render the html with everything logged so far,
+     * returns immediately
+     */
+    public void flush() {
+        offer(new Event(Event.FLUSH, null, null, null, null));
+    }
+
+    /*
+     * Write the remaining events, render the report and stop the writer. Blocks until done,
+     * later calls return right away.
+     */
+    public void close() {
+        TestContext context = current.get();
+        if (context != null && context.published) {
+            endTest();
+        }
+        current.remove();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        events.offer(new Event(Event.CLOSE, null, null, null, null));
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    //the current thread's test, started on first use when nobody named it
+    private TestContext context() {
+        TestContext context = current.get();
+        if (context == null) {
+            context = new TestContext(Thread.currentThread().getName(), "");
+            current.set(context);
+        }
+        context.published = true;
+        return context;
+    }
+
+    private void offer(Event event) {
+        if (closed) {
+            return;
+        }
+        events.offer(event);
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /*
+     * Writer loop, the only code that touches the event log
+     */
+    private void drain() {
+        while (true) {
+            Event event = events.poll();
+            if (event == null) {
+                flushLog();
+                writerParked = true;
+                if (events.isEmpty()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+                continue;
+            }
+            try {
+                if (write(event)) {
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                //a broken entry must not stop the report of everybody else
+                System.out.println("Could not write report entry: " + e);
+            }
+        }
+    }
+
+    //returns true once the report is closed
+    private boolean write(Event event) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        switch (event.kind) {
+            case Event.LOG:
+                startIfNeeded(event.context);
+                line.append("{\"e\":\"log\",\"id\":").append(event.context.id)
+                        .append(",\"ts\":").append(event.timestamp).append(",\"s\":\"").append(event.status.name())
+                        .append("\",\"m\":");
+                ReportRenderer.appendJsonString(line, event.details);
+                break;
+            case Event.END:
+                startIfNeeded(event.context);
+                line.append("{\"e\":\"end\",\"id\":").append(event.context.id).append(",\"ts\":").append(event.timestamp);
+                break;
+            case Event.SYSTEM_INFO:
+                line.append("{\"e\":\"info\",\"k\":");
+                ReportRenderer.appendJsonString(line, event.key);
+                line.append(",\"v\":");
+                ReportRenderer.appendJsonString(line, event.details);
+                break;
+            case Event.FLUSH:
+                out.flush();
+                render();
+                return false;
+            default:
+                finish();
+                return true;
+        }
+        out.append(line).append("}\n");
+        return false;
+    }
+
+    //the start line is written with the first event, so a test renamed before logging keeps its new name
+    private void startIfNeeded(TestContext context) throws IOException {
+        if (context.id != 0) {
+            return;
+        }
+        context.id = testIds.incrementAndGet();
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"e\":\"start\",\"id\":").append(context.id).append(",\"ts\":").append(context.startMillis)
+                .append(",\"name\":");
+        ReportRenderer.appendJsonString(line, context.name);
+        line.append(",\"desc\":");
+        ReportRenderer.appendJsonString(line, context.description);
+        line.append(",\"thread\":");
+        ReportRenderer.appendJsonString(line, context.thread);
+        out.append(line).append("}\n");
+    }
+
+    private void flushLog() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Could not flush the report event log: " + e);
+        }
+    }
+
+    private void render() {
+        try {
+            ReportRenderer.render(eventLog, htmlReport,
+                    new File(System.getProperty("user.dir") + "/resources/extent-config.xml"));
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not render the report " + htmlReport + ": " + e);
+        }
+    }
+
+    private void finish() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.out.println("Could not close the report event log: " + e);
+        }
+        render();
+        synchronized (this) {
+            if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    //already shutting down
+                }
+            }
+            shutdownHook = null;
+        }
+    }
+
+    /*
+     * One test of one thread. Name and description are written by the test thread before the
+     * first event is queued and only read by the writer afterwards.
+     */
+    private static final class TestContext {
+        final long startMillis = System.currentTimeMillis();
+        final String thread = Thread.currentThread().getName();
+        String name;
+        String description;
+        boolean published;
+        //assigned by the writer thread when the test is first written
+        long id;
+
+        TestContext(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+    }
+
+    private static final class Event {
+        static final int LOG = 0;
+        static final int END = 1;
+        static final int SYSTEM_INFO = 2;
+        static final int FLUSH = 3;
+        static final int CLOSE = 4;
+
+        final int kind;
+        final TestContext context;
+        final LogStatus status;
+        final String key;
+        final String details;
+        final long timestamp = System.currentTimeMillis();
+
+        Event(int kind, TestContext context, LogStatus status, String key, String details) {
+            this.kind = kind;
+            this.context = context;
+            this.status = status;
+            this.key = key;
+            this.details = details;
+        }
+    }
+}
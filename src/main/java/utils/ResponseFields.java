@@ -0,0 +1,67 @@
+package utils;
+
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+
+import java.util.Map;
+
+/*
+ * Soft checks of many fields of one response: the body is parsed once and every failed field
+ * is collected by the thread's SoftAssertCollector, messages are only built for failures.
+ *
+ * SoftAssertionUtil.fields(response)
+ *         .statusCode(200)
+ *         .field("data.id", 2)
+ *         .field("data.first_name", "Janet")
+ *         .notNull("support.url");
+ * SoftAssertionUtil.assertAll();
+ */
+public final class ResponseFields {
+
+    private final Response response;
+    private final SoftAssertCollector collector;
+    private JsonPath json;
+
+    ResponseFields(Response response, SoftAssertCollector collector) {
+        this.response = response;
+        this.collector = collector;
+    }
+
+    public ResponseFields statusCode(int expected) {
+        int actual = response.getStatusCode();
+        collector.checkEquals(actual, expected, () -> "status code");
+        return this;
+    }
+
+    public ResponseFields field(String path, Object expected) {
+        Object actual = json().get(path);
+        if (!ValueMatch.equal(actual, expected)) {
+            collector.fail(path + " expected [" + expected + "] but found [" + actual + "]");
+        }
+        return this;
+    }
+
+    public ResponseFields notNull(String path) {
+        if (json().get(path) == null) {
+            collector.fail(path + " expected a value but found null");
+        }
+        return this;
+    }
+
+    /*
+     * Check every path of the map against its expected value
+     */
+    public ResponseFields fields(Map<String, ?> expected) {
+        for (Map.Entry<String, ?> entry : expected.entrySet()) {
+            field(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    private JsonPath json() {
+        if (json == null) {
+            json = response.jsonPath();
+        }
+        return json;
+    }
+}
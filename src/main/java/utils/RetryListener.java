@@ -1,12 +1,14 @@
 package utils;
 
 import org.testng.IAnnotationTransformer;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.annotations.ITestAnnotation;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 
-public class RetryListener implements IAnnotationTransformer {
+public class RetryListener implements IAnnotationTransformer, ISuiteListener {
 
     @Override
     public void transform(ITestAnnotation testannotation, Class testClass,
@@ -20,4 +22,18 @@ public class RetryListener implements IAnnotationTransformer {
 //        }
 
     }
-}
\ No newline at end of file
+
+    /*
+     * Fresh retry budget per suite, and status codes of responses are tracked to classify failures
+     */
+    @Override
+    public void onStart(ISuite suite) {
+        RetryPolicy.reset();
+        LastResponseFilter.install();
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        System.out.println("Retries: " + RetryPolicy.summary());
+    }
+}
@@ -0,0 +1,199 @@
+package utils;
+
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.testng.ITestResult;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Decides whether and when a failed test is retried.
+ * Failures are sorted into categories (FailureCategory): timeouts, refused or reset connections,
+ * 5xx and 429 responses are transient and retried, assertion failures and everything else are
+ * not. Transient failures wait an exponential backoff with jitter (a random wait between half
+ * and all of the doubled step) before the retry, a 429 waits for its Retry-After instead.
+ * All retries of a suite share one budget, so a broken environment cannot multiply the suite time.
+ *
+ * Settings in config.properties: retry.maxRetries (per test), retry.baseDelayMillis,
+ * retry.maxDelayMillis, retry.maxRetryAfterSeconds, retry.budget (per suite)
+ */
+public final class RetryPolicy {
+
+    private static final AtomicInteger BUDGET_USED = new AtomicInteger();
+    private static final Map<FailureCategory, LongAdder> RETRIES = new EnumMap<>(FailureCategory.class);
+    private static final LongAdder BACKOFF_MILLIS = new LongAdder();
+    private static final LongAdder DENIED_BY_BUDGET = new LongAdder();
+
+    static {
+        for (FailureCategory category : FailureCategory.values()) {
+            RETRIES.put(category, new LongAdder());
+        }
+    }
+
+    private RetryPolicy() {
+    }
+
+    /*
+     * Category of a failed test: from the exception first, then from the last response the
+     * test thread received while the test ran
+     */
+    public static FailureCategory classify(ITestResult result) {
+        FailureCategory category = classify(result.getThrowable());
+        if (category != FailureCategory.ASSERTION) {
+            return category;
+        }
+        LastResponseFilter.LastResponse last = LastResponseFilter.last();
+        if (last.millis >= result.getStartMillis()) {
+            if (last.statusCode == 429) {
+                return FailureCategory.THROTTLED;
+            }
+            if (last.statusCode >= 500) {
+                return FailureCategory.SERVER_ERROR;
+            }
+        }
+        return FailureCategory.ASSERTION;
+    }
+
+    public static FailureCategory classify(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectTimeoutException) {
+                return FailureCategory.CONNECT_TIMEOUT;
+            }
+            if (cause instanceof SocketTimeoutException) {
+                String message = String.valueOf(cause.getMessage());
+                return message.contains("connect") ? FailureCategory.CONNECT_TIMEOUT : FailureCategory.READ_TIMEOUT;
+            }
+            if (cause instanceof HttpHostConnectException || cause instanceof ConnectException
+                    || cause instanceof NoHttpResponseException || cause instanceof SocketException) {
+                return FailureCategory.CONNECTION_ERROR;
+            }
+            if (cause instanceof UnknownHostException) {
+                return FailureCategory.OTHER;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return failure instanceof AssertionError ? FailureCategory.ASSERTION : FailureCategory.OTHER;
+    }
+
+    /*
+     * Milliseconds to wait before retry number attempt (1 based), -1 when the failure must not be retried
+     */
+    static long delayMillis(FailureCategory category, int attempt) {
+        ConfigRegistry.Snapshot config = ConfigRegistry.get().snapshot();
+        if (!category.transientFailure || attempt > config.getInt("retry.maxRetries", 2)) {
+            return -1;
+        }
+        if (category == FailureCategory.THROTTLED) {
+            long retryAfter = retryAfterMillis(LastResponseFilter.last().retryAfter, System.currentTimeMillis());
+            if (retryAfter >= 0) {
+                long max = config.getLong("retry.maxRetryAfterSeconds", 30) * 1000;
+                //a server asking for a longer pause than we are willing to wait is not retried
+                return retryAfter <= max ? retryAfter : -1;
+            }
+        }
+        long base = config.getLong("retry.baseDelayMillis", 500);
+        long cap = config.getLong("retry.maxDelayMillis", 10_000);
+        long exponential = Math.min(cap, base << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(exponential / 2, exponential + 1);
+    }
+
+    /*
+     * Retry-After as delta seconds or http date, -1 when missing or unreadable
+     */
+    static long retryAfterMillis(String retryAfter, long nowMillis) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0, at - nowMillis);
+            } catch (DateTimeParseException unreadable) {
+                return -1;
+            }
+        }
+    }
+
+    /*
+     * Take one retry from the suite budget
+     */
+    static boolean acquireBudget() {
+        int budget = ConfigRegistry.get().getInt("retry.budget", 20);
+        while (true) {
+            int used = BUDGET_USED.get();
+            if (used >= budget) {
+                DENIED_BY_BUDGET.increment();
+                return false;
+            }
+            if (BUDGET_USED.compareAndSet(used, used + 1)) {
+                return true;
+            }
+        }
+    }
+
+    static void recordRetry(FailureCategory category, long backoffMillis) {
+        RETRIES.get(category).increment();
+        BACKOFF_MILLIS.add(backoffMillis);
+    }
+
+    /*
+     * Start a new suite with the full budget and empty counters
+     */
+    public static void reset() {
+        BUDGET_USED.set(0);
+        DENIED_BY_BUDGET.reset();
+        BACKOFF_MILLIS.reset();
+        for (LongAdder retries : RETRIES.values()) {
+            retries.reset();
+        }
+    }
+
+    public static long retries() {
+        long total = 0;
+        for (LongAdder retries : RETRIES.values()) {
+            total += retries.sum();
+        }
+        return total;
+    }
+
+    public static long backoffMillis() {
+        return BACKOFF_MILLIS.sum();
+    }
+
+    /*
+     * One line for the report, e.g. "3 retries (SERVER_ERROR=2, THROTTLED=1), 2.4 s backing off, budget 3/20"
+     */
+    public static String summary() {
+        StringBuilder byCategory = new StringBuilder();
+        for (Map.Entry<FailureCategory, LongAdder> entry : RETRIES.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                byCategory.append(byCategory.length() == 0 ? " (" : ", ").append(entry.getKey()).append('=').append(count);
+            }
+        }
+        if (byCategory.length() > 0) {
+            byCategory.append(')');
+        }
+        String summary = retries() + " retries" + byCategory + String.format(", %.1f s backing off, budget %d/%d",
+                backoffMillis() / 1000.0, BUDGET_USED.get(), ConfigRegistry.get().getInt("retry.budget", 20));
+        long denied = DENIED_BY_BUDGET.sum();
+        return denied == 0 ? summary : summary + ", " + denied + " not retried for lack of budget";
+    }
+}
@@ -0,0 +1,130 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/*
+ * Failures of the soft assertions of one test. An instance belongs to one thread (see
+ * SoftAssertionUtil), so it needs no locking. Passing checks allocate nothing: the failure list
+ * is created on the first failure and messages given as a Supplier are only built when a check fails.
+ */
+public final class SoftAssertCollector {
+
+    private List<String> failures;
+
+    SoftAssertCollector() {
+    }
+
+    public boolean check(boolean condition, String message) {
+        if (!condition) {
+            add(message);
+        }
+        return condition;
+    }
+
+    public boolean check(boolean condition, Supplier<String> message) {
+        if (!condition) {
+            add(message.get());
+        }
+        return condition;
+    }
+
+    public boolean checkEquals(Object actual, Object expected, String message) {
+        if (!ValueMatch.equal(actual, expected)) {
+            add(mismatch(message, actual, expected));
+            return false;
+        }
+        return true;
+    }
+
+    public boolean checkEquals(Object actual, Object expected, Supplier<String> message) {
+        if (!ValueMatch.equal(actual, expected)) {
+            add(mismatch(message.get(), actual, expected));
+            return false;
+        }
+        return true;
+    }
+
+    public boolean checkEquals(long actual, long expected, Supplier<String> message) {
+        if (actual != expected) {
+            add(mismatch(message.get(), actual, expected));
+            return false;
+        }
+        return true;
+    }
+
+    public boolean checkNotEquals(Object actual, Object expected, String message) {
+        if (ValueMatch.equal(actual, expected)) {
+            add(message + " did not expect [" + expected + "] but found [" + actual + "]");
+            return false;
+        }
+        return true;
+    }
+
+    public boolean checkNotEquals(Object actual, Object expected, Supplier<String> message) {
+        if (ValueMatch.equal(actual, expected)) {
+            add(message.get() + " did not expect [" + expected + "] but found [" + actual + "]");
+            return false;
+        }
+        return true;
+    }
+
+    public void fail(String message) {
+        add(message);
+    }
+
+    public boolean hasFailures() {
+        return failures != null && !failures.isEmpty();
+    }
+
+    public int failureCount() {
+        return failures == null ? 0 : failures.size();
+    }
+
+    public List<String> failures() {
+        return failures == null ? new ArrayList<>() : new ArrayList<>(failures);
+    }
+
+    /*
+     * Throw one AssertionError listing every failure collected so far, then start over
+     */
+    public void assertAll() {
+        AssertionError error = toError();
+        reset();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public void reset() {
+        if (failures != null) {
+            failures.clear();
+        }
+    }
+
+    //null when nothing failed
+    AssertionError toError() {
+        if (!hasFailures()) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder("The following asserts failed:");
+        for (int i = 0; i < failures.size(); i++) {
+            message.append(i == 0 ? "\n\t" : ",\n\t").append(failures.get(i));
+        }
+        return new AssertionError(message.toString());
+    }
+
+    private void add(String message) {
+        if (failures == null) {
+            failures = new ArrayList<>();
+        }
+        failures.add(Objects.toString(message, ""));
+    }
+
+    private static String mismatch(String message, Object actual, Object expected) {
+        return (message == null || message.isEmpty() ? "" : message + " ")
+                + "expected [" + expected + "] but found [" + actual + "]";
+    }
+}
@@ -0,0 +1,37 @@
+package utils;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+
+/*
+ * Gives every test method a clean soft assertion collector, so nothing carries over to the next
+ * test on the thread. Registered for every TestNG run through META-INF/services/org.testng.ITestNGListener,
+ * so by default it never changes a result. With softAssert.failUnasserted = true in
+ * config.properties a passed test that collected failures without calling assertAll is failed
+ * with them.
+ */
+public class SoftAssertListener implements IInvokedMethodListener {
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            SoftAssertionUtil.collector().reset();
+        }
+    }
+
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!method.isTestMethod()) {
+            return;
+        }
+        SoftAssertCollector collector = SoftAssertionUtil.collector();
+        AssertionError error = collector.toError();
+        collector.reset();
+        if (error != null && testResult.getStatus() == ITestResult.SUCCESS
+                && ConfigRegistry.get().getBoolean("softAssert.failUnasserted", false)) {
+            testResult.setStatus(ITestResult.FAILURE);
+            testResult.setThrowable(error);
+        }
+    }
+}
@@ -1,60 +1,78 @@
 package utils;
 
-import org.testng.asserts.SoftAssert;
+import io.restassured.response.Response;
 
+import java.util.function.Supplier;
+
+/*
+ * Soft assertions collected per test and per thread. Every thread has its own collector, so
+ * parallel tests never see each other's failures, and SoftAssertListener resets it around every
+ * test method, so failures never leak into the next test. Failures not reported by assertAll are
+ * dropped, unless softAssert.failUnasserted = true. assertAll fails the test with every
+ * collected failure. The Supplier overloads build their message only when the check fails.
+ */
 public class SoftAssertionUtil {
 
-//    private SoftAssert softAssert;
-//    public SoftAssertionUtil() {
-//        SoftAssert soft=new SoftAssert();
-//    }
-    private static SoftAssert softAssertInstance;
+    private static final ThreadLocal<SoftAssertCollector> COLLECTOR = ThreadLocal.withInitial(SoftAssertCollector::new);
 
     private SoftAssertionUtil() {}
 
-    public static SoftAssert getInstance() {
-        if (softAssertInstance == null) {
-            softAssertInstance = new SoftAssert();
-        }
-        return softAssertInstance;
+    /*
+     * The collector of the current thread
+     */
+    public static SoftAssertCollector collector() {
+        return COLLECTOR.get();
     }
 
     public static void assertTrue(boolean condition, String message) {
-      //  public void assertTrue(boolean condition, String message) {
-        try {
-           // softAssert().assertTrue(condition, message);
-            getInstance().assertTrue(condition, message);
-        } catch (AssertionError e) {
-            getInstance().fail(message);
-        }
+        COLLECTOR.get().check(condition, message);
+    }
+
+    public static void assertTrue(boolean condition, Supplier<String> message) {
+        COLLECTOR.get().check(condition, message);
+    }
+
+    public static void assertFalse(boolean condition, String message) {
+        COLLECTOR.get().check(!condition, message);
+    }
+
+    public static void assertFalse(boolean condition, Supplier<String> message) {
+        COLLECTOR.get().check(!condition, message);
     }
 
     public static void assertEquals(Object actual, Object expected, String message) {
-        try {
-            getInstance().assertEquals(actual, expected, message);
-        } catch (AssertionError e) {
-            getInstance().fail(message);
-        }
+        COLLECTOR.get().checkEquals(actual, expected, message);
     }
 
+    public static void assertEquals(Object actual, Object expected, Supplier<String> message) {
+        COLLECTOR.get().checkEquals(actual, expected, message);
+    }
+
+    //primitive overload, status codes and counts are not boxed
+    public static void assertEquals(long actual, long expected, Supplier<String> message) {
+        COLLECTOR.get().checkEquals(actual, expected, message);
+    }
+
+    public static void assertNotEquals(Object actual, Object expected, String message) {
+        COLLECTOR.get().checkNotEquals(actual, expected, message);
+    }
+
+    public static void assertNotEquals(Object actual, Object expected, Supplier<String> message) {
+        COLLECTOR.get().checkNotEquals(actual, expected, message);
+    }
 
-    public void assertNotEquals(Object actual, Object expected, String message) {
-        try {
-            getInstance().assertNotEquals(actual, expected, message);
-        } catch (AssertionError e) {
-            getInstance().fail(message);
-        }
+    public static void fail(String message) {
+        COLLECTOR.get().fail(message);
     }
 
-    public void assertFalse(boolean condition, String message) {
-        try {
-            getInstance().assertFalse(condition, message);
-        } catch (AssertionError e) {
-            getInstance().fail(message);
-        }
+    /*
+     * Soft checks of many fields of one response, see ResponseFields
+     */
+    public static ResponseFields fields(Response response) {
+        return new ResponseFields(response, COLLECTOR.get());
     }
 
     public static void assertAll() {
-        getInstance().assertAll();
+        COLLECTOR.get().assertAll();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,266 @@
+package utils;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Parsed-once view of a json test data file.
+ * The file is parsed into an immutable tree plus a flat index of every JSON pointer ("/contact/0"),
+ * so lookups never touch the disk. The file is re-parsed only when its last modified time changes.
+ */
+public final class TestDataStore {
+
+    public static final String DEFAULT_TEST_DATA = "resources/TestData/testdata.json";
+
+    //how often the file modification time is checked, a stat per lookup would still be a syscall
+    private static final long MTIME_CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final Map<Path, TestDataStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final Object reloadLock = new Object();
+    private volatile Snapshot snapshot;
+    private volatile long nextCheckNanos;
+
+    private TestDataStore(Path path) {
+        this.path = path;
+    }
+
+    /*
+     * Return the shared store of testdata.json
+     */
+    public static TestDataStore testData() {
+        return forFile(DEFAULT_TEST_DATA);
+    }
+
+    /*
+     * Return the shared store of any json file, one store per file
+     */
+    public static TestDataStore forFile(String filePath) {
+        Path key = Paths.get(filePath).toAbsolutePath().normalize();
+        return STORES.computeIfAbsent(key, TestDataStore::new);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    //---- typed accessors, a key without leading "/" is a top level key, otherwise a JSON pointer
+
+    public Object get(String keyOrPointer) {
+        return snapshot().index.get(toPointer(keyOrPointer));
+    }
+
+    public boolean contains(String keyOrPointer) {
+        return snapshot().index.containsKey(toPointer(keyOrPointer));
+    }
+
+    public String getString(String keyOrPointer) {
+        Object value = get(keyOrPointer);
+        return value == null ? null : value.toString();
+    }
+
+    public int getInt(String keyOrPointer) {
+        return require(keyOrPointer, Number.class).intValue();
+    }
+
+    public long getLong(String keyOrPointer) {
+        return require(keyOrPointer, Number.class).longValue();
+    }
+
+    public double getDouble(String keyOrPointer) {
+        return require(keyOrPointer, Number.class).doubleValue();
+    }
+
+    public boolean getBoolean(String keyOrPointer) {
+        return require(keyOrPointer, Boolean.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Object> getList(String keyOrPointer) {
+        return require(keyOrPointer, List.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getMap(String keyOrPointer) {
+        return require(keyOrPointer, Map.class);
+    }
+
+    public List<String> getStringList(String keyOrPointer) {
+        List<Object> values = getList(keyOrPointer);
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object value : values) {
+            strings.add(value == null ? null : value.toString());
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    /*
+     * Return the whole immutable tree
+     */
+    public Map<String, Object> root() {
+        return snapshot().root;
+    }
+
+    //---- json-simple copies for the JsonReader facade, callers are free to mutate them
+
+    JSONObject rootAsJsonObject() {
+        return (JSONObject) toJsonSimple(root());
+    }
+
+    JSONArray arrayAsJsonArray(String key) {
+        Object value = get(key);
+        return value == null ? null : (JSONArray) toJsonSimple(value);
+    }
+
+    private <T> T require(String keyOrPointer, Class<T> type) {
+        Object value = get(keyOrPointer);
+        if (!type.isInstance(value)) {
+            throw new IllegalArgumentException("Test data '" + keyOrPointer + "' in " + path
+                    + " is not a " + type.getSimpleName() + ": " + value);
+        }
+        return type.cast(value);
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current != null && now - nextCheckNanos < 0) {
+            return current;
+        }
+        long mtime = lastModified();
+        if (current != null && current.lastModified == mtime) {
+            nextCheckNanos = now + MTIME_CHECK_INTERVAL_NANOS;
+            return current;
+        }
+        synchronized (reloadLock) {
+            current = snapshot;
+            if (current == null || current.lastModified != mtime) {
+                current = load(mtime);
+                snapshot = current;
+            }
+            nextCheckNanos = now + MTIME_CHECK_INTERVAL_NANOS;
+            return current;
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException("Test data file not found: " + path, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Snapshot load(long mtime) {
+        Object parsed;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            parsed = new JSONParser().parse(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Test data file is not valid json: " + path, e);
+        }
+        if (!(parsed instanceof JSONObject)) {
+            throw new IllegalStateException("Test data file must contain a json object: " + path);
+        }
+        Map<String, Object> index = new HashMap<>();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> root = (Map<String, Object>) freeze(parsed, "", index);
+        return new Snapshot(mtime, root, Collections.unmodifiableMap(index));
+    }
+
+    /*
+     * Copy the parsed json-simple tree into unmodifiable collections and index every node by its pointer
+     */
+    private static Object freeze(Object node, String pointer, Map<String, Object> index) {
+        Object frozen;
+        if (node instanceof Map) {
+            Map<?, ?> source = (Map<?, ?>) node;
+            Map<String, Object> copy = new LinkedHashMap<>(source.size() * 2);
+            for (Map.Entry<?, ?> entry : source.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                copy.put(key, freeze(entry.getValue(), pointer + "/" + escape(key), index));
+            }
+            frozen = Collections.unmodifiableMap(copy);
+        } else if (node instanceof List) {
+            List<?> source = (List<?>) node;
+            List<Object> copy = new ArrayList<>(source.size());
+            for (int i = 0; i < source.size(); i++) {
+                copy.add(freeze(source.get(i), pointer + "/" + i, index));
+            }
+            frozen = Collections.unmodifiableList(copy);
+        } else {
+            frozen = node;
+        }
+        index.put(pointer, frozen);
+        return frozen;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toJsonSimple(Object node) {
+        if (node instanceof Map) {
+            JSONObject copy = new JSONObject();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) node).entrySet()) {
+                copy.put(entry.getKey(), toJsonSimple(entry.getValue()));
+            }
+            return copy;
+        }
+        if (node instanceof List) {
+            JSONArray copy = new JSONArray();
+            for (Object item : (List<Object>) node) {
+                copy.add(toJsonSimple(item));
+            }
+            return copy;
+        }
+        return node;
+    }
+
+    private static String toPointer(String keyOrPointer) {
+        if (keyOrPointer.isEmpty() || keyOrPointer.charAt(0) == '/') {
+            return keyOrPointer;
+        }
+        return "/" + escape(keyOrPointer);
+    }
+
+    //RFC 6901 escaping of "~" and "/" inside a key
+    private static String escape(String key) {
+        if (key.indexOf('~') < 0 && key.indexOf('/') < 0) {
+            return key;
+        }
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static final class Snapshot {
+        final long lastModified;
+        final Map<String, Object> root;
+        final Map<String, Object> index;
+
+        Snapshot(long lastModified, Map<String, Object> root, Map<String, Object> index) {
+            this.lastModified = lastModified;
+            this.root = root;
+            this.index = index;
+        }
+    }
+}
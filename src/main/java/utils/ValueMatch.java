@@ -0,0 +1,40 @@
+package utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Objects;
+
+/*
+ * Equality for values read from json: numbers compare by value, so an expected 2L matches the
+ * Integer 2 and 1.5 matches the Float 1.5f that RestAssured's JsonPath returns
+ */
+final class ValueMatch {
+
+    private ValueMatch() {
+    }
+
+    static boolean equal(Object actual, Object expected) {
+        if (actual instanceof Number && expected instanceof Number) {
+            return equalNumbers((Number) actual, (Number) expected);
+        }
+        return Objects.equals(actual, expected);
+    }
+
+    private static boolean equalNumbers(Number actual, Number expected) {
+        if (integral(actual) && integral(expected)) {
+            return actual.longValue() == expected.longValue();
+        }
+        if (actual instanceof BigDecimal || expected instanceof BigDecimal
+                || actual instanceof BigInteger || expected instanceof BigInteger) {
+            return new BigDecimal(actual.toString()).compareTo(new BigDecimal(expected.toString())) == 0;
+        }
+        if (actual instanceof Float || expected instanceof Float) {
+            return actual.floatValue() == expected.floatValue();
+        }
+        return actual.doubleValue() == expected.doubleValue();
+    }
+
+    private static boolean integral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+}
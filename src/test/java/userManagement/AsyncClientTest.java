@@ -0,0 +1,127 @@
+package userManagement;
+
+import core.AsyncClient;
+import core.AsyncResponse;
+import core.Fanout;
+import core.HostRoutes;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class AsyncClientTest {
+
+    private static final int DELAY_MILLIS = 300;
+
+    @Test(description = "A fan-out of slow requests takes about as long as one of them, results keep their order")
+    public void fanOutTakesTheSlowestRequest() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(200,
+                "{\"id\":" + request.path().substring(request.path().lastIndexOf('/') + 1) + "}").withDelay(DELAY_MILLIS));
+             AsyncClient client = AsyncClient.create(32, Duration.ofSeconds(10))) {
+            HostRoutes.route("async.test", "localhost", stub.port());
+            List<Integer> ids = IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toList());
+
+            long start = System.nanoTime();
+            List<AsyncResponse> responses = Fanout.map(ids,
+                    id -> client.get("http://async.test/posts/" + id).send()).get();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(millis < DELAY_MILLIS * 5, "20 requests took " + millis + " ms");
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(responses.get(i).statusCode, 200);
+                assertEquals(responses.get(i).jsonPath().getInt("id"), (int) ids.get(i));
+            }
+            assertEquals(client.inFlight(), 0);
+        } finally {
+            HostRoutes.remove("async.test");
+        }
+    }
+
+    @Test(description = "No more than maxInFlight requests are on the wire, the others wait for a slot")
+    public void windowBoundsRequestsInFlight() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            return StubResponse.json(201, "{}").withDelay(200);
+        });
+             AsyncClient client = AsyncClient.create(4, Duration.ofSeconds(10))) {
+            HostRoutes.route("async.test", "localhost", stub.port());
+            long start = System.nanoTime();
+            List<CompletableFuture<AsyncResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                futures.add(client.post("http://async.test/api/users").body("{\"name\":\"neo\"}").send());
+            }
+            int highest = 0;
+            int mostWaiting = 0;
+            while (!futures.stream().allMatch(CompletableFuture::isDone)) {
+                highest = Math.max(highest, client.inFlight());
+                mostWaiting = Math.max(mostWaiting, client.waiting());
+                Thread.sleep(5);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            Fanout.assertAll(futures, response -> assertEquals(response.statusCode, 201), Duration.ofSeconds(5));
+            assertEquals(requests.get(), 12);
+            assertTrue(highest <= 4, highest + " requests in flight");
+            assertTrue(mostWaiting > 0);
+            //three waves of four
+            assertTrue(millis >= 3 * 200, "12 requests took " + millis + " ms");
+        } finally {
+            HostRoutes.remove("async.test");
+        }
+    }
+
+    @Test(description = "A request over its timeout fails with a TimeoutException and gives its slot back")
+    public void timeoutAbortsTheRequest() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(200, "{}").withDelay(2000));
+             AsyncClient client = AsyncClient.create(1, Duration.ofSeconds(10))) {
+            HostRoutes.route("async.test", "localhost", stub.port());
+            CompletableFuture<AsyncResponse> slow = client.get("http://async.test/slow").timeout(Duration.ofMillis(150)).send();
+            try {
+                Fanout.await(slow, Duration.ofSeconds(5));
+                fail("the request should have timed out");
+            } catch (RuntimeException e) {
+                assertTrue(e.getCause() instanceof TimeoutException, e.toString());
+                assertTrue(e.toString().contains("did not answer within 150 ms"), e.toString());
+            }
+            assertEquals(client.timedOut(), 1);
+            assertEquals(client.inFlight(), 0);
+        } finally {
+            HostRoutes.remove("async.test");
+        }
+    }
+
+    @Test(description = "assertAll checks every response and lists all failures at once")
+    public void assertAllAggregatesFailures() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> request.path().endsWith("0")
+                ? StubResponse.notFound() : StubResponse.json(200, "{}"));
+             AsyncClient client = AsyncClient.create(8, Duration.ofSeconds(10))) {
+            HostRoutes.route("async.test", "localhost", stub.port());
+            List<CompletableFuture<AsyncResponse>> futures = new ArrayList<>();
+            for (int i = 1; i <= 30; i++) {
+                futures.add(client.get("http://async.test/users/" + i).send());
+            }
+            try {
+                Fanout.assertAll(futures, response -> assertEquals(response.statusCode, 200), Duration.ofSeconds(10));
+                fail("three requests returned 404");
+            } catch (AssertionError e) {
+                assertTrue(e.getMessage().startsWith("3 of 30 async requests failed"), e.getMessage());
+                assertTrue(e.getMessage().contains("GET http://async.test/users/20 -> 404"), e.getMessage());
+            }
+        } finally {
+            HostRoutes.remove("async.test");
+        }
+    }
+}
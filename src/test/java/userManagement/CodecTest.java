@@ -0,0 +1,85 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.codec.Codecs;
+import core.stub.EchoHandler;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+import pojo.postRequestBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class CodecTest {
+
+    @Test(description = "Readers and writers are built once per type and round trip a pojo")
+    public void codecsAreCachedPerType() {
+        assertSame(Codecs.writer(postRequestBody.class), Codecs.writer(postRequestBody.class));
+        assertSame(Codecs.reader(postRequestBody.class), Codecs.reader(postRequestBody.class));
+
+        postRequestBody body = body();
+        byte[] json = Codecs.toBytes(body);
+        postRequestBody read = Codecs.read(json, postRequestBody.class);
+        assertEquals(read.getName(), "morpheus");
+        assertEquals(read.getLanguages(), Arrays.asList("Java", "Python"));
+    }
+
+    @Test(description = "Pojo bodies are sent and read back through the cached codecs, extra server fields are ignored")
+    public void pojoRoundTripThroughTheApi() throws Exception {
+        try (StubServer stub = StubServer.start(0, new EchoHandler())) {
+            HostRoutes.route("codec.test", "localhost", stub.port());
+            Response response = given().contentType(ContentType.JSON).body(body())
+                    .post("http://codec.test/api/users");
+
+            assertEquals(response.getStatusCode(), 201);
+            assertTrue(response.jsonPath().getString("createdAt") != null);
+            postRequestBody echoed = response.as(postRequestBody.class);
+            assertEquals(echoed.getJob(), "leader");
+            assertEquals(echoed.getLanguages(), Arrays.asList("Java", "Python"));
+
+            //bytes straight from the cached writer skip the mapper
+            postRequestBody fromBytes = given().contentType(ContentType.JSON).body(Codecs.toBytes(body()))
+                    .post("http://codec.test/api/users").as(postRequestBody.class);
+            assertEquals(fromBytes.getName(), "morpheus");
+        } finally {
+            HostRoutes.remove("codec.test");
+        }
+    }
+
+    @Test(description = "Xml bodies and responses go to RestAssured's own mappers instead of the json codecs")
+    public void xmlIsLeftToRestAssured() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.status(200)
+                .withHeader("Content-Type", "application/xml").withBody("<user><name>morpheus</name></user>".getBytes(StandardCharsets.UTF_8)))) {
+            HostRoutes.route("codec.test", "localhost", stub.port());
+            //without JAXB on the classpath RestAssured has no xml mapper, json is never sent instead
+            RuntimeException write = expectThrows(RuntimeException.class, () -> given().contentType(ContentType.XML)
+                    .body(body()).post("http://codec.test/api/users"));
+            assertTrue(write.getMessage().contains("XML"), write.getMessage());
+
+            Response response = given().get("http://codec.test/api/users/2");
+            RuntimeException read = expectThrows(RuntimeException.class, () -> response.as(postRequestBody.class));
+            assertTrue(read.getMessage().contains("XML"), read.getMessage());
+        } finally {
+            HostRoutes.remove("codec.test");
+        }
+    }
+
+    private static postRequestBody body() {
+        postRequestBody body = new postRequestBody();
+        body.setName("morpheus");
+        body.setJob("leader");
+        List<String> languages = Arrays.asList("Java", "Python");
+        body.setLanguages(languages);
+        return body;
+    }
+}
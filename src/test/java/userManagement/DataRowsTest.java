@@ -0,0 +1,132 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.data.DataFile;
+import core.data.DataRows;
+import core.data.RowIterator;
+import core.stub.EchoHandler;
+import core.stub.StubServer;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class DataRowsTest {
+
+    @Test(description = "JSON Lines, JSON array and CSV files stream the same rows")
+    public void formatsReadAlike() throws Exception {
+        Path folder = Files.createTempDirectory("rows");
+        Path jsonl = Files.write(folder.resolve("users.jsonl"), Arrays.asList(
+                "{\"name\":\"morpheus\",\"job\":\"leader\"}", "", "{\"name\":\"neo\",\"job\":\"the one, really\"}"));
+        Path json = Files.write(folder.resolve("users.json"), Arrays.asList(
+                "[", "{\"name\":\"morpheus\",\"job\":\"leader\"},", "{\"name\":\"neo\",\"job\":\"the one, really\"}", "]"));
+        Path csv = Files.write(folder.resolve("users.csv"), Arrays.asList(
+                "name,job", "morpheus,leader", "", "neo,\"the one, really\""));
+
+        for (Path file : Arrays.asList(jsonl, json, csv)) {
+            List<Map<String, Object>> rows = read(DataRows.of(file.toString()).iterator());
+            assertEquals(rows.size(), 2, file.toString());
+            assertEquals(rows.get(0).get("name"), "morpheus");
+            assertEquals(rows.get(1).get("job"), "the one, really", file.toString());
+        }
+    }
+
+    @Test(description = "Shards split the rows by row number, every row lands in exactly one shard")
+    public void shardsPartitionTheRows() throws Exception {
+        Path file = generate(100);
+        Set<Object> seen = new HashSet<>();
+        for (int shard = 0; shard < 4; shard++) {
+            List<Map<String, Object>> rows = read(DataRows.of(file.toString()).shard(shard, 4).iterator());
+            assertEquals(rows.size(), 25);
+            assertEquals(rows.get(0).get("id"), shard);
+            for (Map<String, Object> row : rows) {
+                assertTrue(seen.add(row.get("id")), "row in two shards: " + row);
+            }
+        }
+        assertEquals(seen.size(), 100);
+    }
+
+    @Test(description = "The first row is available at once and parsing never runs far ahead of the tests")
+    public void rowsAreStreamedWithBoundedLookAhead() throws Exception {
+        Path file = generate(200_000);
+        try (RowIterator rows = DataRows.of(file.toString()).lookAhead(64).iterator()) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(rows.hasNext());
+                rows.next();
+            }
+            Thread.sleep(200);
+            //10 taken, 64 queued, one waiting to be queued
+            assertTrue(rows.rowsRead() <= 10 + 64 + 1, "rows read ahead: " + rows.rowsRead());
+        }
+    }
+
+    @Test(description = "Rows run in parallel, failing rows are reported together once all rows ran")
+    public void forEachParallelRunsEveryRow() throws Exception {
+        Path file = generate(1000);
+        AtomicInteger ran = new AtomicInteger();
+        DataRows.of(file.toString()).lookAhead(16).forEachParallel(8, row -> ran.incrementAndGet());
+        assertEquals(ran.get(), 1000);
+
+        try {
+            DataRows.of(file.toString()).forEachParallel(4, row -> {
+                if (((Number) row.get("id")).intValue() % 100 == 0) {
+                    throw new AssertionError("bad row");
+                }
+            });
+            fail("failing rows were not reported");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().startsWith("10 of 1000 rows"), e.getMessage());
+        }
+    }
+
+    @Test(dataProvider = "rows", dataProviderClass = DataRows.class,
+            description = "Every row of users.jsonl is posted and echoed back")
+    @DataFile("users.jsonl")
+    public void createUserFromRow(Map<String, Object> row) throws Exception {
+        try (StubServer stub = StubServer.start(0, new EchoHandler())) {
+            HostRoutes.route("rows.test", "localhost", stub.port());
+            Response response = given().contentType(ContentType.JSON).body(row).post("http://rows.test/api/users");
+            assertEquals(response.getStatusCode(), 201);
+            assertEquals(response.jsonPath().getString("name"), row.get("name"));
+            assertFalse(response.jsonPath().getString("job").isEmpty());
+        } finally {
+            HostRoutes.remove("rows.test");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> read(RowIterator iterator) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        while (iterator.hasNext()) {
+            rows.add((Map<String, Object>) iterator.next()[0]);
+        }
+        return rows;
+    }
+
+    private static Path generate(int rows) throws Exception {
+        Path file = Files.createTempFile("rows", ".jsonl");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                out.write("{\"id\":" + i + ",\"name\":\"user" + i + "\",\"job\":\"job" + i + "\"}\n");
+            }
+        }
+        return file;
+    }
+}
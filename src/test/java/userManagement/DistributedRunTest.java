@@ -0,0 +1,133 @@
+package userManagement;
+
+import core.distributed.Coordinator;
+import core.distributed.DistributedResult;
+import core.distributed.MethodResult;
+import core.metrics.LatencyExporter;
+import org.testng.annotations.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class DistributedRunTest {
+
+    @Test(description = "A unit still running on a worker when the run times out counts as failed")
+    public void timeoutFailsUnitsInFlight() throws Exception {
+        Path folder = Files.createTempDirectory("distributed");
+        Path suite = Files.write(folder.resolve("suite.xml"), Arrays.asList(
+                "<!DOCTYPE suite SYSTEM \"https://testng.org/testng-1.0.dtd\" >",
+                "<suite name=\"Distributed\">",
+                "  <test name=\"Sample\">",
+                "    <classes>",
+                "      <class name=\"userManagement.DistributedSample\"/>",
+                "    </classes>",
+                "  </test>",
+                "</suite>"), StandardCharsets.UTF_8);
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        //a remote worker that takes its first unit and never answers
+        Thread hanging = new Thread(() -> {
+            for (int attempt = 0; attempt < 50; attempt++) {
+                try (Socket socket = new Socket("127.0.0.1", port)) {
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    out.writeByte(1);
+                    out.writeInt(0);
+                    out.writeUTF("hanging");
+                    out.flush();
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    while (in.read() >= 0) {
+                        //swallow SUITE and RUN until the coordinator hangs up
+                    }
+                    return;
+                } catch (Exception e) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }, "hanging-worker");
+        hanging.setDaemon(true);
+        hanging.start();
+
+        DistributedResult result = Coordinator.builder()
+                .suite(suite)
+                .localWorkers(0)
+                .remoteWorkers(1)
+                .port(port)
+                .reportFolder(folder.resolve("report"))
+                .timeout(Duration.ofSeconds(3))
+                .build().run();
+
+        assertFalse(result.passed(), result.toString());
+        assertEquals(result.results.size(), 7, result.toString());
+        int timedOut = 0;
+        for (MethodResult method : result.results.values()) {
+            assertEquals(method.status, MethodResult.FAIL, method.toString());
+            if (method.message.startsWith("timed out")) {
+                timedOut++;
+            }
+        }
+        assertTrue(timedOut >= 1, result.toString());
+    }
+
+    @Test(description = "Three worker JVMs on localhost share the methods of a suite and report into one merged report")
+    public void suiteRunsOnSeveralWorkers() throws Exception {
+        Path folder = Files.createTempDirectory("distributed");
+        Path suite = Files.write(folder.resolve("suite.xml"), Arrays.asList(
+                "<!DOCTYPE suite SYSTEM \"https://testng.org/testng-1.0.dtd\" >",
+                "<suite name=\"Distributed\">",
+                "  <test name=\"Sample\">",
+                "    <classes>",
+                "      <class name=\"userManagement.DistributedSample\"/>",
+                "    </classes>",
+                "  </test>",
+                "</suite>"), StandardCharsets.UTF_8);
+
+        DistributedResult result = Coordinator.builder()
+                .suite(suite)
+                .localWorkers(3)
+                .reportFolder(folder.resolve("report"))
+                .timeout(Duration.ofMinutes(3))
+                .build().run();
+
+        assertEquals(result.results.size(), 7, result.toString());
+        assertTrue(result.passed(), result.toString());
+        assertEquals(result.results.get("userManagement.DistributedSample#getPage").invocations, 3);
+        //dependent methods travel together
+        assertEquals(result.results.get("userManagement.DistributedSample#readUser").worker,
+                result.results.get("userManagement.DistributedSample#createUser").worker);
+        Set<Integer> busyWorkers = new HashSet<>();
+        for (MethodResult method : result.results.values()) {
+            busyWorkers.add(method.worker);
+        }
+        assertTrue(busyWorkers.size() >= 2, result.toString());
+
+        Path reportFolder = folder.resolve("report");
+        String events = new String(Files.readAllBytes(reportFolder.resolve("events.jsonl")), StandardCharsets.UTF_8);
+        for (String method : Arrays.asList("slowest", "slow", "medium", "fast", "createUser", "readUser", "getPage")) {
+            assertTrue(events.contains("\"name\":\"" + method + "\""), "no report entry of " + method);
+        }
+        assertTrue(events.contains("\"thread\":\"worker-"));
+        assertTrue(Files.exists(result.report));
+        String latency = new String(Files.readAllBytes(reportFolder.resolve(LatencyExporter.JSON_FILE)),
+                StandardCharsets.UTF_8);
+        assertTrue(latency.contains("\"count\": 3"), latency);
+    }
+}
@@ -0,0 +1,58 @@
+package userManagement;
+
+import core.BaseTest;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+
+/*
+ * Methods for DistributedRunTest to spread over worker JVMs, not part of the regular suite
+ */
+public class DistributedSample extends BaseTest {
+
+    @Test
+    public void slowest() throws InterruptedException {
+        Thread.sleep(900);
+    }
+
+    @Test
+    public void slow() throws InterruptedException {
+        Thread.sleep(700);
+    }
+
+    @Test
+    public void medium() throws InterruptedException {
+        Thread.sleep(500);
+    }
+
+    @Test
+    public void fast() throws InterruptedException {
+        Thread.sleep(300);
+    }
+
+    @Test
+    public void createUser() throws InterruptedException {
+        Thread.sleep(200);
+    }
+
+    @Test(dependsOnMethods = "createUser")
+    public void readUser() throws InterruptedException {
+        Thread.sleep(200);
+    }
+
+    @DataProvider(name = "pages")
+    public Object[][] pages() {
+        return new Object[][]{{1}, {2}, {3}};
+    }
+
+    @Test(dataProvider = "pages")
+    public void getPage(int page) throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(200, "{\"page\":" + page + "}"))) {
+            assertEquals(given().get(stub.baseUrl() + "/api/users?page=" + page).jsonPath().getInt("page"), page);
+        }
+    }
+}
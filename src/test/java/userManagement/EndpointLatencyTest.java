@@ -0,0 +1,51 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.metrics.EndpointLatency;
+import core.metrics.LatencyExporter;
+import core.metrics.LatencyRegistry;
+import core.metrics.TimingFilter;
+import core.stub.EchoHandler;
+import core.stub.StubServer;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class EndpointLatencyTest {
+
+    @Test(description = "Requests to the same url template share one endpoint histogram and are exported")
+    public void recordsLatencyPerEndpoint() throws Exception {
+        TimingFilter.install();
+        LatencyRegistry.clear();
+        try (StubServer stub = StubServer.start(0, new EchoHandler())) {
+            HostRoutes.route("reqres.in", "localhost", stub.port());
+            for (int id = 1; id <= 5; id++) {
+                given().delete("https://reqres.in/api/users/" + id).then().statusCode(204);
+            }
+            given().get("https://reqres.in/api/users?page=2").then().statusCode(200);
+        } finally {
+            HostRoutes.remove("reqres.in");
+        }
+
+        assertEquals(LatencyRegistry.endpoints().size(), 2);
+        //sorted by endpoint, then method
+        EndpointLatency delete = LatencyRegistry.endpoints().get(1);
+        assertEquals(delete.key(), "DELETE reqres.in/api/users/{id}");
+        assertEquals(delete.count(), 5);
+        assertEquals(delete.snapshot(EndpointLatency.Phase.TTFB).getTotalCount(), 5);
+
+        Path folder = Files.createTempDirectory("latency");
+        LatencyExporter.export(folder);
+        String prometheus = new String(Files.readAllBytes(folder.resolve(LatencyExporter.PROMETHEUS_FILE)),
+                StandardCharsets.UTF_8);
+        assertTrue(prometheus.contains(
+                "api_request_total_seconds_count{method=\"DELETE\",endpoint=\"reqres.in/api/users/{id}\"} 5"));
+        assertTrue(Files.size(folder.resolve(LatencyExporter.JSON_FILE)) > 0);
+    }
+}
@@ -0,0 +1,107 @@
+package userManagement;
+
+import core.FileTransfer;
+import core.HostRoutes;
+import core.TransferResult;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class FileTransferTest {
+
+    private static final int SIZE = 8 * 1024 * 1024 + 17;
+
+    @AfterMethod(alwaysRun = true)
+    public void removeRoutes() {
+        HostRoutes.remove("files.test");
+    }
+
+    @Test(description = "An upload is streamed chunked and hashed on the way")
+    public void uploadStreamsTheFile() throws Exception {
+        Path file = Files.createTempFile("upload", ".bin");
+        Files.write(file, randomBytes());
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(201,
+                "{\"size\":" + request.body().length + ",\"sha256\":\"" + sha256(request.body())
+                        + "\",\"encoding\":\"" + request.header("Transfer-Encoding") + "\"}"))) {
+            HostRoutes.route("files.test", "localhost", stub.port());
+            TransferResult result = FileTransfer.upload("https://files.test/upload", file);
+            System.out.println("Upload " + result);
+
+            assertEquals(result.statusCode, 201);
+            assertEquals(result.bytes, SIZE);
+            assertEquals(result.sha256, FileTransfer.sha256(file));
+            assertTrue(result.responseBody.contains("\"size\":" + SIZE));
+            assertTrue(result.responseBody.contains(result.sha256));
+            assertTrue(result.responseBody.contains("chunked"));
+            assertTrue(result.megabytesPerSecond() > 0);
+        }
+    }
+
+    @Test(description = "A download goes straight to disk with its checksum and timings")
+    public void downloadWritesToDisk() throws Exception {
+        byte[] content = randomBytes();
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.status(200)
+                .withHeader("Content-Type", "application/octet-stream").withBody(content))) {
+            HostRoutes.route("files.test", "localhost", stub.port());
+            Path target = Files.createTempDirectory("download").resolve("artifact.bin");
+            TransferResult result = FileTransfer.download("https://files.test/artifact.bin", target);
+            System.out.println("Download " + result);
+
+            assertEquals(result.statusCode, 200);
+            assertEquals(result.bytes, SIZE);
+            assertEquals(Files.size(target), SIZE);
+            assertEquals(result.sha256, sha256(content));
+            assertEquals(FileTransfer.sha256(target), result.sha256);
+            assertTrue(result.ttfbMillis >= 0);
+            //only the finished file is left behind
+            try (Stream<Path> files = Files.list(target.getParent())) {
+                assertEquals(files.count(), 1);
+            }
+        }
+    }
+
+    @Test(description = "An error status keeps the existing file and returns the error body")
+    public void failedDownloadLeavesTargetAlone() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(404, "{\"error\":\"not found\"}"))) {
+            HostRoutes.route("files.test", "localhost", stub.port());
+            Path target = Files.createTempDirectory("download").resolve("artifact.bin");
+            Files.write(target, new byte[]{1, 2, 3});
+            TransferResult result = FileTransfer.download("https://files.test/missing.bin", target);
+
+            assertEquals(result.statusCode, 404);
+            assertEquals(result.responseBody, "{\"error\":\"not found\"}");
+            assertEquals(Files.readAllBytes(target), new byte[]{1, 2, 3});
+            try (Stream<Path> files = Files.list(target.getParent())) {
+                assertEquals(files.count(), 1);
+            }
+        }
+    }
+
+    private static byte[] randomBytes() {
+        byte[] bytes = new byte[SIZE];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
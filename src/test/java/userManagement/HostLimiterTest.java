@@ -0,0 +1,123 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.limit.HostLimiter;
+import core.limit.LimitFilter;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.testng.annotations.Test;
+import utils.ConfigRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class HostLimiterTest {
+
+    @Test(description = "Throttled responses cut the limit, fast responses under load raise it again")
+    public void limitFollowsTheHost() {
+        HostLimiter limiter = LimitFilter.INSTANCE.limiter("aimd.limit.test");
+        int initial = limiter.limit();
+        for (int i = 0; i < 5; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(1), limiter.acquire(), true);
+        }
+        int throttled = limiter.limit();
+        assertTrue(throttled < initial, "limit " + throttled + " after 429s");
+        assertEquals(limiter.throttled(), 5);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire();
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(1), throttled, false);
+        }
+        assertTrue(limiter.limit() > throttled, "limit " + limiter.limit() + " after fast responses");
+    }
+
+    @Test(description = "Many threads never put more requests in flight than the host's limit")
+    public void concurrencyStaysUnderTheLimit() throws Exception {
+        System.setProperty("limit.capped.limit.test.initialConcurrency", "4");
+        System.setProperty("limit.capped.limit.test.maxConcurrency", "4");
+        ConfigRegistry.get().reload();
+        try {
+            HostLimiter limiter = LimitFilter.INSTANCE.limiter("capped.limit.test");
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger highest = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 32; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        int inFlight = limiter.acquire();
+                        highest.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            return;
+                        } finally {
+                            running.decrementAndGet();
+                            limiter.release(TimeUnit.MILLISECONDS.toNanos(1), inFlight, false);
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(highest.get() <= 4, highest.get() + " requests at once");
+            assertEquals(limiter.requests(), 320);
+            assertEquals(limiter.inFlight(), 0);
+        } finally {
+            System.clearProperty("limit.capped.limit.test.initialConcurrency");
+            System.clearProperty("limit.capped.limit.test.maxConcurrency");
+            ConfigRegistry.get().reload();
+        }
+    }
+
+    @Test(description = "A pause holds back requests of a host without a rate limit too")
+    public void pauseWithoutRateLimit() {
+        HostLimiter limiter = LimitFilter.INSTANCE.limiter("paused.limit.test");
+        limiter.pause(TimeUnit.MILLISECONDS.toNanos(300));
+        long start = System.nanoTime();
+        limiter.release(0, limiter.acquire(), false);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis >= 250, "waited " + waitedMillis + " ms");
+    }
+
+    @Test(description = "The token bucket spaces requests by the configured rate after the burst")
+    public void rateLimitSpacesRequests() {
+        System.setProperty("limit.rated.limit.test.rps", "50");
+        System.setProperty("limit.rated.limit.test.burst", "1");
+        ConfigRegistry.get().reload();
+        try {
+            HostLimiter limiter = LimitFilter.INSTANCE.limiter("rated.limit.test");
+            long start = System.nanoTime();
+            for (int i = 0; i < 26; i++) {
+                limiter.release(0, limiter.acquire(), false);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(millis >= 480, "26 requests at 50 rps took " + millis + " ms");
+        } finally {
+            System.clearProperty("limit.rated.limit.test.rps");
+            System.clearProperty("limit.rated.limit.test.burst");
+            ConfigRegistry.get().reload();
+        }
+    }
+
+    @Test(description = "Through RestAssured a 503 from the host counts as throttled")
+    public void filterSeesThrottledResponses() throws IOException {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.status(503))) {
+            HostRoutes.route("filter.limit.test", "localhost", stub.port());
+            given().filter(LimitFilter.INSTANCE).get("http://filter.limit.test/api/users").then().statusCode(503);
+            assertEquals(LimitFilter.INSTANCE.limiter("filter.limit.test").throttled(), 1);
+            assertEquals(LimitFilter.INSTANCE.limiter("filter.limit.test").inFlight(), 0);
+        } finally {
+            HostRoutes.remove("filter.limit.test");
+        }
+    }
+}
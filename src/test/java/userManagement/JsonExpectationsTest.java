@@ -0,0 +1,78 @@
+package userManagement;
+
+import core.json.JsonExpectations;
+import core.json.JsonPathExpression;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class JsonExpectationsTest {
+
+    private static final String PAGE = "{\"page\":2,\"per_page\":2,\"total\":12,"
+            + "\"data\":[{\"id\":7,\"email\":\"michael.lawson@reqres.in\",\"first_name\":\"Michael\",\"score\":1.5},"
+            + "{\"id\":8,\"email\":\"lindsay.ferguson@reqres.in\",\"first_name\":\"Lindsay\",\"score\":2.25}],"
+            + "\"support\":{\"url\":\"https://reqres.in/#support-heading\",\"text\":\"To keep ReqRes free\"}}";
+
+    @Test(description = "Paths are compiled once and evaluate like GPath on the pruned tree")
+    public void evaluatesCompiledPaths() {
+        assertSame(JsonPathExpression.compile("data[0].id"), JsonPathExpression.compile("data[0].id"));
+        JsonExpectations.builder()
+                .expect("page", is(2))
+                .expect("data", hasSize(2))
+                .expect("data.size()", is(2))
+                .expect("data[0].id", is(7))
+                .expect("data[-1].first_name", is("Lindsay"))
+                .expect("data.email", contains("michael.lawson@reqres.in", "lindsay.ferguson@reqres.in"))
+                .expect("data[1].score", is(2.25f))
+                .expect("['support'].url", is("https://reqres.in/#support-heading"))
+                .expect("data[5].id", nullValue())
+                .build()
+                .verify(PAGE);
+        JsonExpectations.builder().expect("", hasSize(3)).build().verify("[{\"a\":1},{\"a\":2},{}]");
+    }
+
+    @Test(description = "Every failed expectation is reported at once")
+    public void reportsAllFailures() {
+        JsonExpectations expectations = JsonExpectations.builder()
+                .expect("data[0].id", is(8))
+                .expect("data[0].first_name", is("Michael"))
+                .expect("support.text", is("free"))
+                .build();
+        List<String> failures = expectations.check(PAGE);
+        assertEquals(failures.size(), 2);
+        assertTrue(failures.get(0).startsWith("JSON path data[0].id doesn't match."));
+        AssertionError error = expectThrows(AssertionError.class, () -> expectations.verify(PAGE));
+        assertTrue(error.getMessage().endsWith("2 expectations failed."));
+    }
+
+    @Test(description = "Groovy-only GPath is rejected when compiling")
+    public void rejectsUnsupportedPaths() {
+        expectThrows(IllegalArgumentException.class, () -> JsonPathExpression.compile("data.find { it.id == 7 }"));
+        expectThrows(IllegalArgumentException.class, () -> JsonPathExpression.compile("data[*].id"));
+    }
+
+    @Test(description = "A large body is streamed and only the needed parts are built")
+    public void checksLargeBodies() {
+        StringBuilder body = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 100_000; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"id\":").append(i)
+                    .append(",\"payload\":{\"text\":\"lorem ipsum dolor sit amet\",\"values\":[1,2,3]}}");
+        }
+        body.append("],\"count\":100000}");
+        JsonExpectations.builder()
+                .expect("count", is(100_000))
+                .expect("items[99999].id", is(99_999))
+                .expect("items[0].payload.values", contains(1, 2, 3))
+                .build()
+                .verify(body.toString());
+    }
+}
@@ -0,0 +1,111 @@
+package userManagement;
+
+import core.history.HistoryStore;
+import core.history.Regression;
+import core.history.RegressionDetector;
+import core.history.RunId;
+import core.history.Series;
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LatencyHistoryTest {
+
+    private static final String USERS = "GET reqres.in/api/users";
+    private static final String USER = "GET reqres.in/api/users/{id}";
+    private static final String TEST = "userManagement.getUsers#getUserData";
+
+    @Test(description = "Run ids sort by start time and give the start time back")
+    public void runIdsSortByTime() {
+        Instant start = Instant.parse("2024-09-28T04:58:19Z");
+        List<String> ids = new ArrayList<>();
+        for (int i = 11; i >= 0; i--) {
+            ids.add(RunId.of(start.plusSeconds(i * 3600L)));
+        }
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        Collections.reverse(ids);
+        assertEquals(sorted, ids);
+        assertTrue(ids.get(0).startsWith("20240928T045819Z-"), ids.get(0));
+        assertEquals(RunId.instant(ids.get(0)), start);
+    }
+
+    @Test(description = "A shifted endpoint distribution and a slower test are flagged, an unchanged endpoint is not")
+    public void slowerSeriesAreFlagged() throws Exception {
+        HistoryStore store = new HistoryStore(Files.createTempDirectory("history").resolve("latency-history.jsonl"));
+        Random random = new Random(7);
+        Instant start = Instant.parse("2024-09-28T04:58:19Z");
+        for (int run = 0; run < 12; run++) {
+            String runId = RunId.of(start.plusSeconds(run * 600L));
+            Map<String, Histogram> endpoints = new TreeMap<>();
+            endpoints.put(USERS, sample(random, 120, 50));
+            endpoints.put(USER, sample(random, 80, 50));
+            store.append(runId, Series.ENDPOINT, endpoints);
+            store.append(runId, Series.TEST, Collections.singletonMap(TEST, sample(random, 900, 1)));
+        }
+        //a crashed run leaves half a line behind
+        Files.write(store.file(), "{\"run\":\"2024".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        String current = RunId.of(start.plusSeconds(12 * 600L));
+        Map<String, Histogram> endpoints = new TreeMap<>();
+        endpoints.put(USERS, sample(random, 120 * 1.6, 50));
+        endpoints.put(USER, sample(random, 80, 50));
+        store.append(current, Series.ENDPOINT, endpoints);
+        store.append(current, Series.TEST, Collections.singletonMap(TEST, sample(random, 3000, 1)));
+
+        List<Regression> regressions = new RegressionDetector(10, 3, 20, 0.01, 1.2).detect(store, current);
+        assertEquals(regressions.size(), 2, regressions.toString());
+        Regression endpoint = regressions.get(0);
+        assertEquals(endpoint.kind, Series.ENDPOINT);
+        assertEquals(endpoint.key, USERS);
+        assertEquals(endpoint.baselineRuns, 10);
+        assertEquals(endpoint.baselineCount, 500);
+        assertTrue(endpoint.distance > endpoint.criticalDistance, endpoint.toString());
+        Regression test = regressions.get(1);
+        assertEquals(test.kind, Series.TEST);
+        assertEquals(test.key, TEST);
+        assertTrue(Double.isNaN(test.distance));
+
+        //older runs are checked against the runs before them only
+        assertTrue(new RegressionDetector(10, 3, 20, 0.01, 1.2)
+                .detect(store, RunId.of(start.plusSeconds(11 * 600L)).substring(0, 16) + "ffff").isEmpty());
+        assertEquals(store.runs().size(), 13);
+    }
+
+    @Test(description = "Series with too few earlier runs are never flagged")
+    public void newSeriesAreNotFlagged() throws Exception {
+        HistoryStore store = new HistoryStore(Files.createTempDirectory("history").resolve("latency-history.jsonl"));
+        Random random = new Random(11);
+        Instant start = Instant.parse("2024-09-28T04:58:19Z");
+        for (int run = 0; run < 2; run++) {
+            store.append(RunId.of(start.plusSeconds(run)), Series.ENDPOINT,
+                    Collections.singletonMap(USERS, sample(random, 100, 50)));
+        }
+        String current = RunId.of(start.plusSeconds(2));
+        store.append(current, Series.ENDPOINT, Collections.singletonMap(USERS, sample(random, 1000, 50)));
+        assertTrue(new RegressionDetector(10, 3, 20, 0.01, 1.2).detect(store, current).isEmpty());
+    }
+
+    //count values around median milliseconds with a long right tail, recorded in microseconds
+    private static Histogram sample(Random random, double median, int count) {
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < count; i++) {
+            histogram.recordValue((long) (median * 1000 * Math.exp(random.nextGaussian() * 0.25)));
+        }
+        return histogram;
+    }
+}
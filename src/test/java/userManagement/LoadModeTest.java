@@ -0,0 +1,101 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.load.LoadResult;
+import core.load.LoadRunner;
+import core.load.LoadScenario;
+import core.load.ScenarioResult;
+import core.stub.EchoHandler;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import io.restassured.RestAssured;
+import io.restassured.filter.Filter;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class LoadModeTest {
+
+    @Test(description = "Run the POST pojo flow as a load scenario against the local stub server")
+    public void validatePostWithPojoUnderLoad() throws Exception {
+        LoadResult result = LoadRunner.builder()
+                .scenario(LoadScenario.of(postUsers.class, "validatePostWithPojo", 40))
+                .rampUp(Duration.ofSeconds(1))
+                .steadyState(Duration.ofSeconds(2))
+                .stub(new EchoHandler())
+                .build()
+                .run();
+        System.out.println(result);
+
+        ScenarioResult scenario = result.scenario("postUsers.validatePostWithPojo");
+        assertEquals(scenario.errors, 0);
+        //20 arrivals while ramping and 80 in the steady state
+        assertEquals(scenario.iterations, 100);
+        assertEquals(scenario.histogram.getTotalCount(), 80);
+        assertTrue(scenario.p99Millis <= scenario.maxMillis);
+    }
+
+    @Test(description = "A stubbed load run gives back the catch-all route it replaced, e.g. the one of a replay")
+    public void stubRunRestoresTheCatchAllRoute() throws Exception {
+        try (StubServer replay = StubServer.start(0, request -> StubResponse.json(200, "{\"from\":\"replay\"}"))) {
+            Runnable restore = HostRoutes.routeAll("localhost", replay.port());
+            try {
+                LoadRunner.builder()
+                        .scenario(LoadScenario.of(postUsers.class, "validatePostWithPojo", 10))
+                        .rampUp(Duration.ZERO)
+                        .steadyState(Duration.ofMillis(500))
+                        .stub(new EchoHandler())
+                        .build()
+                        .run();
+
+                assertEquals(given().get("http://any.host.test/api/users").jsonPath().getString("from"), "replay");
+            } finally {
+                restore.run();
+            }
+        }
+    }
+
+    @Test(description = "The stub route and the filters of a load run only reach the scenario's own requests")
+    public void stubAndFiltersStayOnTheIterations() throws Exception {
+        AtomicInteger filtered = new AtomicInteger();
+        Filter counting = (request, response, ctx) -> {
+            filtered.incrementAndGet();
+            return ctx.next(request, response);
+        };
+        try (StubServer other = StubServer.start(0, request -> StubResponse.json(200, "{\"from\":\"other\"}"))) {
+            HostRoutes.route("load.other.test", "localhost", other.port());
+            Thread outside = new Thread(() -> {
+                for (int i = 0; i < 5; i++) {
+                    given().get("http://load.other.test/api/users");
+                }
+            });
+            try {
+                LoadRunner runner = LoadRunner.builder()
+                        .scenario(LoadScenario.of(postUsers.class, "validatePostWithPojo", 10))
+                        .rampUp(Duration.ZERO)
+                        .steadyState(Duration.ofMillis(500))
+                        .stub(new EchoHandler())
+                        .filter(counting)
+                        .build();
+                outside.start();
+                LoadResult result = runner.run();
+                outside.join();
+
+                ScenarioResult scenario = result.scenario("postUsers.validatePostWithPojo");
+                assertEquals(scenario.errors, 0);
+                //only the iterations went through the run's filter
+                assertEquals(filtered.get(), scenario.iterations);
+                assertFalse(RestAssured.filters().contains(counting));
+                assertEquals(given().get("http://load.other.test/api/users").jsonPath().getString("from"), "other");
+            } finally {
+                HostRoutes.remove("load.other.test");
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package userManagement;
+
+import com.relevantcodes.extentreports.LogStatus;
+import org.testng.annotations.Test;
+import utils.ExtentReport;
+import utils.ReportSession;
+import utils.ReportRenderer;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ParallelReportTest {
+
+    private static final int THREADS = 32;
+    private static final int TESTS_PER_THREAD = 10;
+    private static final int STEPS = 20;
+
+    @Test(description = "Tests logging from many threads at once end up in their own report entries")
+    public void reportStaysConsistentUnderParallelLogging() throws Exception {
+        Path folder = Files.createTempDirectory("report");
+        //a session of its own, the suite's report stays open for the other tests
+        ReportSession report = ReportSession.open(folder.resolve("parallel.html"));
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int n = 0; n < TESTS_PER_THREAD; n++) {
+                    String id = thread + "-" + n;
+                    report.startTest("parallel-test-" + id, "thread " + thread);
+                    for (int step = 0; step < STEPS; step++) {
+                        report.log(LogStatus.INFO, "test " + id + " step " + step + ";");
+                    }
+                    report.log(LogStatus.PASS, "test " + id + " done;");
+                    report.endTest();
+                }
+            });
+            threads.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : threads) {
+            worker.join();
+        }
+        report.close();
+
+        //320 tests are split over two pages
+        assertTrue(Files.exists(folder.resolve("parallel-2.html")));
+        String html = readHtml(folder);
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int n = 0; n < TESTS_PER_THREAD; n++) {
+                String id = thread + "-" + n;
+                assertTrue(Pattern.compile("parallel-test-" + id + "\\s*<").matcher(html).find(),
+                        "missing entry of test " + id);
+                assertTrue(html.contains("test " + id + " step " + (STEPS - 1) + ";"));
+                assertTrue(html.contains("test " + id + " done;"));
+            }
+        }
+        assertEquals(occurrences(html, "test \\d+-\\d+ step \\d+;"), THREADS * TESTS_PER_THREAD * STEPS);
+    }
+
+    @Test(description = "The event log of a run that died still renders, unfinished tests are marked")
+    public void partialEventLogRendersIncompleteTests() throws Exception {
+        Path folder = Files.createTempDirectory("crashed");
+        Files.write(folder.resolve(ExtentReport.EVENT_LOG), Arrays.asList(
+                "{\"e\":\"info\",\"k\":\"Environment\",\"v\":\"QA\"}",
+                "{\"e\":\"start\",\"id\":1,\"ts\":1700000000000,\"name\":\"finished\",\"desc\":\"\",\"thread\":\"main\"}",
+                "{\"e\":\"log\",\"id\":1,\"ts\":1700000000001,\"s\":\"PASS\",\"m\":\"ok\"}",
+                "{\"e\":\"end\",\"id\":1,\"ts\":1700000000002}",
+                "{\"e\":\"start\",\"id\":2,\"ts\":1700000000003,\"name\":\"running\",\"desc\":\"\",\"thread\":\"main\"}",
+                "{\"e\":\"log\",\"id\":2,\"ts\":1700000000004,\"s\":\"INFO\",\"m\":\"half way\"}",
+                "{\"e\":\"log\",\"id\":2,\"ts\":17000000"), StandardCharsets.UTF_8);
+
+        Path html = folder.resolve("API_Execution_Automation.html");
+        ReportRenderer.render(folder.resolve(ExtentReport.EVENT_LOG), html, new File("resources/extent-config.xml"));
+
+        String index = new String(Files.readAllBytes(html), StandardCharsets.UTF_8);
+        assertTrue(index.contains("<td class='INCOMPLETE'>INCOMPLETE</td><td>1</td>"));
+        assertTrue(index.contains("<td class='PASS'>PASS</td><td>1</td>"));
+        String page = new String(Files.readAllBytes(folder.resolve("API_Execution_Automation-1.html")),
+                StandardCharsets.UTF_8);
+        assertTrue(page.contains("half way"));
+    }
+
+    @Test(description = "Null details and system info render as empty text instead of breaking the report")
+    public void nullDetailsRender() throws Exception {
+        Path folder = Files.createTempDirectory("nulls");
+        ReportSession report = ReportSession.open(folder.resolve("nulls.html"));
+        report.addSystemInfo("Build", null);
+        report.startTest("logs null", null);
+        report.log(LogStatus.INFO, null);
+        report.log(LogStatus.PASS, "after the null");
+        report.endTest();
+        report.close();
+
+        String page = new String(Files.readAllBytes(folder.resolve("nulls-1.html")), StandardCharsets.UTF_8);
+        assertTrue(page.contains("after the null"));
+
+        //logs written before null became an empty string
+        Path old = Files.createTempDirectory("old-nulls");
+        Files.write(old.resolve(ExtentReport.EVENT_LOG), Arrays.asList(
+                "{\"e\":\"info\",\"k\":\"Build\",\"v\":null}",
+                "{\"e\":\"start\",\"id\":1,\"ts\":1700000000000,\"name\":\"old\",\"desc\":null,\"thread\":\"main\"}",
+                "{\"e\":\"log\",\"id\":1,\"ts\":1700000000001,\"s\":\"INFO\",\"m\":null}",
+                "{\"e\":\"end\",\"id\":1,\"ts\":1700000000002}"), StandardCharsets.UTF_8);
+        Path html = old.resolve("API_Execution_Automation.html");
+        ReportRenderer.render(old.resolve(ExtentReport.EVENT_LOG), html, new File("resources/extent-config.xml"));
+        assertTrue(Files.exists(html));
+        String oldPage = new String(Files.readAllBytes(old.resolve("API_Execution_Automation-1.html")),
+                StandardCharsets.UTF_8);
+        assertTrue(oldPage.contains("old"), oldPage);
+    }
+
+    private static String readHtml(Path folder) throws Exception {
+        StringBuilder html = new StringBuilder();
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".html"))::iterator) {
+                html.append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        return html.toString();
+    }
+
+    private static int occurrences(String text, String regex) {
+        int count = 0;
+        for (Matcher matcher = Pattern.compile(regex).matcher(text); matcher.find(); ) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.testng.annotations.Test;
+import utils.ConfigRegistry;
+import utils.Payload;
+import utils.PayloadTemplate;
+import utils.Payloads;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class PayloadsTest {
+
+    @Test(description = "A payload file is loaded once and callers only get copies of its bytes")
+    public void payloadIsLoadedOnce() throws Exception {
+        Payload post = Payloads.get("postRequestBody.json");
+        assertSame(Payloads.get("postRequestBody.json"), post);
+        assertNotSame(post.bytes(), post.bytes());
+        post.bytes()[0] = 'x';
+        assertFalse(post.isMapped());
+        assertEquals(post.bytes(), Files.readAllBytes(post.path()));
+        assertTrue(post.asString().contains("morpheus"));
+    }
+
+    @Test(description = "Large payloads stay memory mapped and read the same bytes")
+    public void largePayloadIsMapped() throws Exception {
+        System.setProperty("payload.mmapThresholdBytes", "1024");
+        ConfigRegistry.get().reload();
+        try {
+            byte[] content = new byte[64 * 1024];
+            Arrays.fill(content, (byte) 'x');
+            Path file = Files.createTempFile("large", ".json");
+            Files.write(file, content);
+            Payload large = Payloads.get(file.toString());
+            assertTrue(large.isMapped());
+            assertEquals(large.size(), content.length);
+            assertEquals(large.bytes(), content);
+            byte[] streamed = new byte[content.length];
+            assertEquals(large.stream().read(streamed), content.length);
+            assertEquals(streamed, content);
+
+            AtomicReference<byte[]> received = new AtomicReference<>();
+            try (StubServer stub = StubServer.start(0, request -> {
+                received.set(request.body());
+                return StubResponse.json(201, "{}");
+            })) {
+                HostRoutes.route("payload.test", "localhost", stub.port());
+                assertEquals(large.applyTo(given()).post("http://payload.test/api/users").getStatusCode(), 201);
+            } finally {
+                HostRoutes.remove("payload.test");
+            }
+            assertEquals(received.get(), content);
+        } finally {
+            System.clearProperty("payload.mmapThresholdBytes");
+            ConfigRegistry.get().reload();
+        }
+    }
+
+    @Test(description = "Templates render placeholders and escape values inside json strings")
+    public void templateRendersValues() {
+        PayloadTemplate template = Payloads.template("postUserTemplate.json");
+        assertEquals(template.names(), Arrays.asList("name", "job"));
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "morpheus \"the\" captain");
+        values.put("job", "leader");
+        String body = template.renderToString(values);
+        assertEquals(body, "{\n  \"name\": \"morpheus \\\"the\\\" captain\",\n  \"job\": \"leader\"\n}");
+
+        PayloadTemplate numbers = PayloadTemplate.compile("{\"id\": ${id}, \"note\": \"a \\\" ${id}\"}", true);
+        values.put("id", 7);
+        assertEquals(new String(numbers.render(values), StandardCharsets.UTF_8), "{\"id\": 7, \"note\": \"a \\\" 7\"}");
+    }
+
+    @Test(description = "A missing value fails with the name of the placeholder", expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = ".*\\$\\{job\\}.*")
+    public void missingValueFails() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "neo");
+        Payloads.template("postUserTemplate.json").render(values);
+    }
+}
@@ -0,0 +1,127 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.replay.ExchangeStore;
+import core.replay.LatencyProfile;
+import core.replay.RecordedExchange;
+import core.replay.ServerMode;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class RecordReplayTest {
+
+    private static final List<String> MATCH_HEADERS = Arrays.asList("Content-Type", "Authorization");
+
+    @Test(description = "Exchanges recorded from a service are replayed in order without it")
+    public void replaysRecordedExchanges() throws Exception {
+        Path folder = Files.createTempDirectory("recordings");
+        AtomicInteger gets = new AtomicInteger();
+        try (StubServer service = StubServer.start(0, request -> {
+            if (request.method().equals("POST")) {
+                return StubResponse.json(201, "{\"echo\":" + request.bodyAsString() + "}");
+            }
+            return StubResponse.json(200, "{\"call\":" + gets.incrementAndGet() + "}").withHeader("X-Service", "real");
+        })) {
+            HostRoutes.route("replay.test", "localhost", service.port());
+            ServerMode.record(folder, MATCH_HEADERS);
+            given().get("https://replay.test/api/users?page=2&per_page=3").then().statusCode(200);
+            given().contentType("application/json").body("{\"name\":\"morpheus\"}")
+                    .post("https://replay.test/api/users").then().statusCode(201);
+            given().get("https://replay.test/api/users?page=2&per_page=3").then().statusCode(200);
+        } finally {
+            ServerMode.stop();
+            HostRoutes.remove("replay.test");
+        }
+        assertEquals(ExchangeStore.open(folder).size(), 3);
+
+        try {
+            ServerMode.replay(folder, MATCH_HEADERS, LatencyProfile.NONE);
+            //query parameters in another order are the same request
+            Response first = given().get("https://replay.test/api/users?per_page=3&page=2");
+            assertEquals(first.getStatusCode(), 200);
+            assertEquals(first.jsonPath().getInt("call"), 1);
+            assertEquals(first.getHeader("X-Service"), "real");
+
+            Response post = given().contentType("application/json").body("{\"name\":\"morpheus\"}")
+                    .post("https://replay.test/api/users");
+            assertEquals(post.getStatusCode(), 201);
+            assertEquals(post.jsonPath().getString("echo.name"), "morpheus");
+
+            assertEquals(given().get("https://replay.test/api/users?page=2&per_page=3").jsonPath().getInt("call"), 2);
+            //the last answer repeats
+            assertEquals(given().get("https://replay.test/api/users?page=2&per_page=3").jsonPath().getInt("call"), 2);
+
+            //another body was never recorded
+            Response miss = given().contentType("application/json").body("{\"name\":\"neo\"}")
+                    .post("https://replay.test/api/users");
+            assertEquals(miss.getStatusCode(), 404);
+            assertEquals(miss.getHeader("X-Replay-Miss"), "true");
+            assertTrue(ServerMode.summary().endsWith("4 served, 1 not recorded (POST replay.test/api/users)"),
+                    ServerMode.summary());
+        } finally {
+            ServerMode.stop();
+        }
+    }
+
+    @Test(description = "A record more than 2 GB into the data file is still replayed")
+    public void replaysPastTwoGigabytes() throws Exception {
+        Path folder = Files.createTempDirectory("recordings");
+        byte[] first = new byte[32];
+        byte[] second = new byte[32];
+        Arrays.fill(first, (byte) 1);
+        Arrays.fill(second, (byte) 2);
+        try (ExchangeStore store = ExchangeStore.create(folder)) {
+            store.append(first, exchange("{\"record\":1}"));
+            store.append(second, exchange("{\"record\":2}"));
+        }
+        //move the second record to 3 GB, the gap stays a hole of the sparse file
+        Path data = folder.resolve(ExchangeStore.DATA_FILE);
+        Path index = folder.resolve(ExchangeStore.INDEX_FILE);
+        byte[] records = Files.readAllBytes(data);
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(index));
+        int secondStart = (int) entries.getLong(32 + 8 + 32);
+        long farOffset = 3L << 30;
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(records, secondStart, records.length - secondStart), farOffset);
+        }
+        entries.putLong(32 + 8 + 32, farOffset);
+        Files.write(index, entries.array());
+        try (ExchangeStore store = ExchangeStore.open(folder)) {
+            assertEquals(new String(store.next(first).body, StandardCharsets.UTF_8), "{\"record\":1}");
+            assertEquals(new String(store.next(second).body, StandardCharsets.UTF_8), "{\"record\":2}");
+        } finally {
+            Files.delete(data);
+            Files.delete(index);
+        }
+    }
+
+    private static RecordedExchange exchange(String body) {
+        return new RecordedExchange("GET", "https://replay.test/api/users", 200, 0, Collections.emptyList(),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test(description = "Latency profiles hold back replayed responses")
+    public void latencyProfiles() {
+        assertEquals(LatencyProfile.parse("none").delayMillis(120), 0);
+        assertEquals(LatencyProfile.parse("recorded").delayMillis(120), 120);
+        assertEquals(LatencyProfile.parse("scaled:0.5").delayMillis(120), 60);
+        assertEquals(LatencyProfile.parse("fixed:50").delayMillis(120), 50);
+    }
+}
@@ -0,0 +1,149 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.cache.ResponseCacheFilter;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import io.restassured.response.Response;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+public class ResponseCacheTest {
+
+    private static final String USERS = "http://cache.test/api/users?page=2";
+
+    @AfterMethod(alwaysRun = true)
+    public void removeRoutes() {
+        HostRoutes.remove("cache.test");
+    }
+
+    @Test(description = "A fresh response is answered from the cache without a request")
+    public void freshResponseIsServedFromCache() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        ResponseCacheFilter cache = new ResponseCacheFilter(1024 * 1024, null, 0);
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(200,
+                "{\"page\":2,\"call\":" + requests.incrementAndGet() + "}").withHeader("Cache-Control", "max-age=60"))) {
+            HostRoutes.route("cache.test", "localhost", stub.port());
+            for (int i = 0; i < 4; i++) {
+                Response response = given().filter(cache).get(USERS);
+                response.then().statusCode(200);
+                assertEquals(response.jsonPath().getInt("call"), 1);
+            }
+            assertNotNull(given().filter(cache).get(USERS).getHeader("Age"));
+            assertEquals(requests.get(), 1);
+            assertEquals(cache.hits(), 4);
+            assertEquals(cache.misses(), 1);
+        }
+    }
+
+    @Test(description = "A stale response with an ETag is revalidated and a 304 reuses the stored body")
+    public void staleResponseIsRevalidated() throws IOException {
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger conditional = new AtomicInteger();
+        ResponseCacheFilter cache = new ResponseCacheFilter(1024 * 1024, null, 0);
+        try (StubServer stub = StubServer.start(0, request -> {
+            if ("\"v1\"".equals(request.header("If-None-Match"))) {
+                conditional.incrementAndGet();
+                return StubResponse.status(304).withHeader("ETag", "\"v1\"");
+            }
+            full.incrementAndGet();
+            return StubResponse.json(200, "{\"page\":2}").withHeader("ETag", "\"v1\"")
+                    .withHeader("Cache-Control", "no-cache");
+        })) {
+            HostRoutes.route("cache.test", "localhost", stub.port());
+            for (int i = 0; i < 3; i++) {
+                Response response = given().filter(cache).get(USERS);
+                assertEquals(response.getStatusCode(), 200);
+                assertEquals(response.jsonPath().getInt("page"), 2);
+            }
+            assertEquals(full.get(), 1);
+            assertEquals(conditional.get(), 2);
+            assertEquals(cache.revalidations(), 2);
+        }
+    }
+
+    @Test(description = "no-store is never cached and a POST drops the stored response of its url")
+    public void noStoreAndUnsafeMethods() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        ResponseCacheFilter cache = new ResponseCacheFilter(1024 * 1024, null, 0);
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            if (request.path().endsWith("/secret")) {
+                return StubResponse.json(200, "{}").withHeader("Cache-Control", "no-store");
+            }
+            return StubResponse.json(request.method().equals("POST") ? 201 : 200, "{}")
+                    .withHeader("Cache-Control", "max-age=60");
+        })) {
+            HostRoutes.route("cache.test", "localhost", stub.port());
+            given().filter(cache).get("http://cache.test/api/secret");
+            given().filter(cache).get("http://cache.test/api/secret");
+            assertEquals(requests.get(), 2);
+
+            given().filter(cache).get("http://cache.test/api/users");
+            given().filter(cache).body("{}").post("http://cache.test/api/users").then().statusCode(201);
+            given().filter(cache).get("http://cache.test/api/users");
+            assertEquals(requests.get(), 5);
+            assertEquals(cache.hits(), 0);
+        }
+    }
+
+    @Test(description = "Requests with different credentials never share a stored response")
+    public void credentialsArePartOfTheKey() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        ResponseCacheFilter cache = new ResponseCacheFilter(1024 * 1024, null, 0);
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            String user = request.header("Authorization") != null ? request.header("Authorization")
+                    : String.valueOf(request.header("Cookie"));
+            return StubResponse.json(request.method().equals("POST") ? 201 : 200, "{\"user\":\"" + user + "\"}")
+                    .withHeader("Cache-Control", "max-age=60");
+        })) {
+            HostRoutes.route("cache.test", "localhost", stub.port());
+            for (int i = 0; i < 2; i++) {
+                assertEquals(given().filter(cache).header("Authorization", "Bearer alice").get(USERS)
+                        .jsonPath().getString("user"), "Bearer alice");
+                assertEquals(given().filter(cache).header("Authorization", "Bearer bob").get(USERS)
+                        .jsonPath().getString("user"), "Bearer bob");
+                assertEquals(given().filter(cache).header("Cookie", "session=carol").get(USERS)
+                        .jsonPath().getString("user"), "session=carol");
+            }
+            assertEquals(requests.get(), 3);
+            assertEquals(cache.hits(), 3);
+
+            //an update drops the entries of every user
+            given().filter(cache).body("{}").post(USERS).then().statusCode(201);
+            given().filter(cache).header("Authorization", "Bearer alice").get(USERS);
+            given().filter(cache).header("Authorization", "Bearer bob").get(USERS);
+            assertEquals(requests.get(), 6);
+        }
+    }
+
+    @Test(description = "Entries pushed out of memory are kept on disk and served from there")
+    public void evictedEntriesOverflowToDisk() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        //room for about one response in memory
+        ResponseCacheFilter cache = new ResponseCacheFilter(600, Files.createTempDirectory("http-cache"), 1024 * 1024);
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            return StubResponse.json(200, "{\"path\":\"" + request.path() + "\"}").withHeader("Cache-Control", "max-age=60");
+        })) {
+            HostRoutes.route("cache.test", "localhost", stub.port());
+            for (int round = 0; round < 2; round++) {
+                for (int user = 1; user <= 3; user++) {
+                    Response response = given().filter(cache).get("http://cache.test/api/users/" + user);
+                    assertEquals(response.jsonPath().getString("path"), "/api/users/" + user);
+                }
+            }
+            assertEquals(requests.get(), 3);
+            assertEquals(cache.hits(), 3);
+        }
+    }
+}
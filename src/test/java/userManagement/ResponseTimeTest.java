@@ -0,0 +1,97 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.StatusCode;
+import core.sla.LatencyBudget;
+import core.sla.LatencyResult;
+import core.sla.ResponseTime;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.testng.annotations.Test;
+import utils.ConfigRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class ResponseTimeTest {
+
+    @Test(description = "A fast endpoint passes its budget, warm-up calls are made but not measured")
+    public void fastEndpointPasses() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            return StubResponse.json(200, "{\"page\":2}");
+        })) {
+            HostRoutes.route("sla.test", "localhost", stub.port());
+            LatencyResult result = ResponseTime.of(() -> given().get("http://sla.test/api/users?page=2"))
+                    .as("GET /api/users")
+                    .expect(StatusCode.SUCCESS)
+                    .within(LatencyBudget.inline().p95(2000).max(5000).samples(20).warmup(5))
+                    .verify();
+
+            assertTrue(result.passed());
+            assertEquals(requests.get(), 25);
+            assertEquals(result.histogram().getTotalCount(), 20);
+            assertEquals(result.statuses().get(200), Long.valueOf(20));
+        } finally {
+            HostRoutes.remove("sla.test");
+        }
+    }
+
+    @Test(description = "A slow endpoint fails with the broken percentile and a histogram of the calls")
+    public void slowEndpointFailsWithSummary() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(201, "{}").withDelay(60))) {
+            HostRoutes.route("sla.test", "localhost", stub.port());
+            ResponseTime check = ResponseTime.of(() -> given().body("{}").post("http://sla.test/api/users"))
+                    .as("POST /api/users")
+                    .expect(StatusCode.SUCCESS)
+                    .within(LatencyBudget.inline().p95(30).samples(5).warmup(1));
+            try {
+                check.verify();
+                fail("the budget was breached");
+            } catch (AssertionError e) {
+                String summary = e.getMessage();
+                assertTrue(summary.startsWith("POST /api/users breached its latency budget"), summary);
+                assertTrue(summary.contains("p95 ") && summary.contains(" ms > 30.0 ms"), summary);
+                assertTrue(summary.contains("status 201 in 5 of 5 calls, expected 200"), summary);
+                assertTrue(summary.contains("status 201 x5"), summary);
+                assertTrue(summary.contains("|#"), summary);
+            }
+        } finally {
+            HostRoutes.remove("sla.test");
+        }
+    }
+
+    @Test(description = "A named budget takes its limits and sample counts from the config, over the inline ones")
+    public void namedBudgetFromConfig() throws Exception {
+        System.setProperty("sla.users.single.p99", "0.001");
+        System.setProperty("sla.users.single.samples", "4");
+        System.setProperty("sla.users.single.warmup", "0");
+        ConfigRegistry.get().reload();
+        AtomicInteger requests = new AtomicInteger();
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            return StubResponse.json(200, "{\"id\":2}");
+        })) {
+            HostRoutes.route("sla.test", "localhost", stub.port());
+            LatencyResult result = ResponseTime.of(() -> given().get("http://sla.test/api/users/2"))
+                    .within(LatencyBudget.named("users.single").p95(2000).samples(50))
+                    .measure();
+
+            assertEquals(requests.get(), 4);
+            assertEquals(result.breaches().size(), 1, result.breaches().toString());
+            assertTrue(result.breaches().get(0).startsWith("p99 "), result.breaches().toString());
+            assertTrue(result.summary().startsWith("users.single breached"), result.summary());
+        } finally {
+            System.clearProperty("sla.users.single.p99");
+            System.clearProperty("sla.users.single.samples");
+            System.clearProperty("sla.users.single.warmup");
+            ConfigRegistry.get().reload();
+            HostRoutes.remove("sla.test");
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import utils.ConfigRegistry;
+import utils.FailureCategory;
+import utils.RetryListener;
+import utils.RetryPolicy;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+
+public class RetryPolicyTest {
+
+    @Test(description = "Failures are sorted by their exception chain")
+    public void classifiesExceptions() {
+        assertEquals(RetryPolicy.classify(new RuntimeException(new SocketTimeoutException("Read timed out"))),
+                FailureCategory.READ_TIMEOUT);
+        assertEquals(RetryPolicy.classify(new ConnectTimeoutException("Connect to reqres.in timed out")),
+                FailureCategory.CONNECT_TIMEOUT);
+        assertEquals(RetryPolicy.classify(new AssertionError("expected [200] but found [201]")),
+                FailureCategory.ASSERTION);
+        assertEquals(RetryPolicy.classify(new IllegalStateException()), FailureCategory.OTHER);
+    }
+
+    @Test(description = "Only the transient failure is retried, the assertion failure runs once")
+    public void retriesOnlyTransientFailures() {
+        System.setProperty("retry.baseDelayMillis", "5");
+        ConfigRegistry.get().reload();
+        AtomicInteger calls = new AtomicInteger();
+        try (StubServer stub = StubServer.start(0, request -> request.path().endsWith("/flaky")
+                && calls.incrementAndGet() == 1 ? StubResponse.status(503) : StubResponse.json(200, "{}"))) {
+            HostRoutes.route("reqres.in", "localhost", stub.port());
+            TestNG testng = new TestNG(false);
+            testng.setTestClasses(new Class<?>[]{RetriedTests.class});
+            testng.addListener(new RetryListener());
+            testng.setVerbose(0);
+            TestListenerAdapter results = new TestListenerAdapter();
+            testng.addListener(results);
+            RetriedTests.enabled = true;
+            testng.run();
+
+            assertEquals(calls.get(), 2);
+            assertEquals(RetriedTests.assertionRuns.get(), 1);
+            assertEquals(results.getPassedTests().size(), 1);
+            assertEquals(results.getFailedTests().size(), 1);
+            assertEquals(RetryPolicy.retries(), 1);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            RetriedTests.enabled = false;
+            HostRoutes.remove("reqres.in");
+            System.clearProperty("retry.baseDelayMillis");
+            ConfigRegistry.get().reload();
+        }
+    }
+
+    //only talks to the stub inside the nested run above, surefire also picks it up on its own
+    public static class RetriedTests {
+
+        static volatile boolean enabled;
+        static final AtomicInteger assertionRuns = new AtomicInteger();
+
+        @Test
+        public void flakyEndpoint() {
+            if (enabled) {
+                given().get("https://reqres.in/api/flaky").then().statusCode(200);
+            }
+        }
+
+        @Test
+        public void wrongExpectation() {
+            if (enabled) {
+                assertionRuns.incrementAndGet();
+                given().get("https://reqres.in/api/users").then().statusCode(201);
+            }
+        }
+    }
+}
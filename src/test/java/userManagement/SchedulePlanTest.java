@@ -0,0 +1,168 @@
+package userManagement;
+
+import core.schedule.MethodHistory;
+import core.schedule.SchedulePlan;
+import core.schedule.TestMethod;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import utils.ConfigRegistry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SchedulePlanTest {
+
+    @Test(description = "The pool is the smallest one that gets close to the best predicted suite time")
+    public void sizesPoolFromHistory() throws Exception {
+        MethodHistory history = history(PackedTests.class, "a", 4000, "b", 3000, "c", 2000, "d", 1000, "e", 1000,
+                "f", 1000);
+        SchedulePlan plan = SchedulePlan.of(TestMethod.of(PackedTests.class), history, 32, 1000);
+
+        //a alone takes 4 s, three workers already finish everything in that time
+        assertEquals(plan.workers(), 3);
+        assertEquals(plan.predictedMillis(), 4000);
+    }
+
+    @Test(description = "A method with a long chain behind it starts before a longer method without one")
+    public void dependencyChainsGoFirst() throws Exception {
+        MethodHistory history = history(ChainedTests.class, "first", 1000, "second", 1000, "third", 1000,
+                "alone", 2000);
+        SchedulePlan plan = SchedulePlan.of(TestMethod.of(ChainedTests.class), history, 32, 1000);
+
+        assertEquals(plan.priority(TestMethod.key(ChainedTests.class, "first")), 3000);
+        assertEquals(plan.priority(TestMethod.key(ChainedTests.class, "alone")), 2000);
+        assertEquals(plan.priority(TestMethod.key(ChainedTests.class, "third")), 1000);
+        assertEquals(plan.predictedMillis(), 3000);
+    }
+
+    @Test(description = "A suite run through the listener is merged, parallel by method and feeds the history")
+    public void listenerRecordsDurations() throws Exception {
+        Path file = Files.createTempDirectory("schedule").resolve("durations.json");
+        System.setProperty("schedule.historyFile", file.toString());
+        ConfigRegistry.get().reload();
+        try {
+            XmlSuite suite = suite(XmlSuite.ParallelMode.METHODS);
+            run(suite);
+
+            assertEquals(suite.getTests().size(), 1);
+            assertEquals(suite.getParallel(), XmlSuite.ParallelMode.METHODS);
+            MethodHistory recorded = MethodHistory.load(file);
+            assertEquals(recorded.size(), 10);
+            assertTrue(recorded.millis(TestMethod.key(ChainedTests.class, "third")) >= 0);
+        } finally {
+            System.clearProperty("schedule.historyFile");
+            ConfigRegistry.get().reload();
+        }
+    }
+
+    @Test(description = "A suite declared parallel by tests keeps its mode and tests, only the thread count changes")
+    public void keepsDeclaredParallelMode() throws Exception {
+        Path file = Files.createTempDirectory("schedule").resolve("durations.json");
+        System.setProperty("schedule.historyFile", file.toString());
+        ConfigRegistry.get().reload();
+        try {
+            XmlSuite byTests = suite(XmlSuite.ParallelMode.TESTS);
+            byTests.setThreadCount(8);
+            run(byTests);
+            assertEquals(byTests.getTests().size(), 2);
+            assertEquals(byTests.getParallel(), XmlSuite.ParallelMode.TESTS);
+            assertTrue(byTests.getThreadCount() <= 2);
+
+            XmlSuite sequential = suite(null);
+            run(sequential);
+            assertEquals(sequential.getTests().size(), 2);
+            assertEquals(sequential.getParallel(), XmlSuite.ParallelMode.NONE);
+        } finally {
+            System.clearProperty("schedule.historyFile");
+            ConfigRegistry.get().reload();
+        }
+    }
+
+    private static XmlSuite suite(XmlSuite.ParallelMode parallel) {
+        XmlSuite suite = new XmlSuite();
+        suite.setName("scheduled");
+        suite.addListener("core.schedule.ScheduleListener");
+        if (parallel != null) {
+            suite.setParallel(parallel);
+        }
+        for (Class<?> testClass : Arrays.asList(PackedTests.class, ChainedTests.class)) {
+            XmlTest test = new XmlTest(suite);
+            test.setName(testClass.getSimpleName());
+            test.setXmlClasses(Collections.singletonList(new XmlClass(testClass)));
+        }
+        return suite;
+    }
+
+    private static void run(XmlSuite suite) {
+        TestNG testng = new TestNG(false);
+        testng.setXmlSuites(Collections.singletonList(suite));
+        testng.setVerbose(0);
+        testng.run();
+    }
+
+    private static MethodHistory history(Class<?> testClass, Object... durations) throws Exception {
+        Map<String, Long> millis = new HashMap<>();
+        for (int i = 0; i < durations.length; i += 2) {
+            millis.put(TestMethod.key(testClass, (String) durations[i]), ((Integer) durations[i + 1]).longValue());
+        }
+        MethodHistory history = MethodHistory.load(Files.createTempFile("durations", ".json"));
+        history.record(millis);
+        return history;
+    }
+
+    public static class PackedTests {
+
+        @Test
+        public void a() {
+        }
+
+        @Test
+        public void b() {
+        }
+
+        @Test
+        public void c() {
+        }
+
+        @Test
+        public void d() {
+        }
+
+        @Test
+        public void e() {
+        }
+
+        @Test
+        public void f() {
+        }
+    }
+
+    public static class ChainedTests {
+
+        @Test
+        public void first() {
+        }
+
+        @Test(dependsOnMethods = "first")
+        public void second() {
+        }
+
+        @Test(dependsOnMethods = "second")
+        public void third() {
+        }
+
+        @Test
+        public void alone() {
+        }
+    }
+}
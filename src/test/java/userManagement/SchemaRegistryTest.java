@@ -0,0 +1,74 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.json.SchemaFilter;
+import core.json.SchemaRegistry;
+import core.json.SchemaResult;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import org.testng.annotations.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class SchemaRegistryTest {
+
+    private static final String SCHEMA = "ExpectedSchema.json";
+    private static final String USER = "{\"id\":7,\"email\":\"michael.lawson@reqres.in\",\"first_name\":\"Michael\","
+            + "\"last_name\":\"Lawson\",\"avatar\":\"https://reqres.in/img/faces/7-image.jpg\"}";
+    private static final String PAGE = "{\"page\":2,\"per_page\":6,\"total\":12,\"total_pages\":2,\"data\":["
+            + USER + "," + USER + "],\"support\":{\"url\":\"https://reqres.in/#support-heading\",\"text\":\"free\"}}";
+
+    @Test(description = "Schemas compile once and repeated bodies are answered from the cache")
+    public void cachesResultsByBodyHash() throws Exception {
+        SchemaRegistry registry = SchemaRegistry.get();
+        assertSame(registry.schema(SCHEMA), registry.schema(SCHEMA));
+
+        long validations = registry.validations();
+        long hits = registry.cacheHits();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(registry.validate(SCHEMA, PAGE).valid);
+        }
+        //a file stream fails reads after close, unlike a byte array stream
+        Path file = Files.write(Files.createTempFile("page", ".json"), PAGE.getBytes(StandardCharsets.UTF_8));
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            assertTrue(registry.validate(SCHEMA, in).valid);
+        }
+        assertEquals(registry.validations() - validations, 1);
+        assertEquals(registry.cacheHits() - hits, 10);
+
+        SchemaResult invalid = registry.validate(SCHEMA, PAGE.replace("\"page\":2", "\"page\":\"two\""));
+        assertFalse(invalid.valid);
+        assertTrue(invalid.message.contains("page"), invalid.message);
+        assertFalse(registry.validate(SCHEMA, "{not json").valid);
+    }
+
+    @Test(description = "The schema filter validates every response and fails invalid ones")
+    public void filterValidatesResponses() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> request.path().endsWith("/broken")
+                ? StubResponse.json(200, "{\"page\":\"two\"}")
+                : StubResponse.json(200, PAGE))) {
+            HostRoutes.route("reqres.in", "localhost", stub.port());
+            SchemaFilter filter = SchemaFilter.forPath("/api/users", SCHEMA);
+            for (int i = 0; i < 5; i++) {
+                given().filter(filter).get("https://reqres.in/api/users?page=2").then().statusCode(200);
+            }
+            given().get("https://reqres.in/api/users?page=2")
+                    .then().body(SchemaRegistry.get().matchesSchema(SCHEMA));
+            expectThrows(AssertionError.class,
+                    () -> given().filter(filter).get("https://reqres.in/api/users/broken"));
+        } finally {
+            HostRoutes.remove("reqres.in");
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.coalesce.SingleFlightFilter;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+
+public class SingleFlightTest {
+
+    private static final int THREADS = 16;
+
+    @Test(description = "Concurrent identical GETs make one request and every caller gets its own response")
+    public void identicalGetsShareOneRequest() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            return StubResponse.json(200, "{\"page\":2}").withDelay(1000);
+        })) {
+            HostRoutes.route("coalesce.test", "localhost", stub.port());
+            long savedBefore = SingleFlightFilter.INSTANCE.saved();
+            List<Response> responses = run(THREADS, n -> given().filter(SingleFlightFilter.INSTANCE)
+                    .get(n % 2 == 0 ? "http://coalesce.test/api/users?page=2&per_page=6"
+                            : "http://COALESCE.test:80/api/users?per_page=6&page=2"));
+
+            assertEquals(requests.get(), 1);
+            assertEquals(SingleFlightFilter.INSTANCE.saved() - savedBefore, THREADS - 1);
+            for (Response response : responses) {
+                assertEquals(response.getStatusCode(), 200);
+                assertEquals(response.jsonPath().getInt("page"), 2);
+            }
+            assertNotSame(responses.get(0), responses.get(1));
+        } finally {
+            HostRoutes.remove("coalesce.test");
+        }
+    }
+
+    @Test(description = "POSTs and requests with other headers are never coalesced")
+    public void otherRequestsGoOutOnTheirOwn() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (StubServer stub = StubServer.start(0, request -> {
+            requests.incrementAndGet();
+            return StubResponse.json(request.method().equals("POST") ? 201 : 200, "{}").withDelay(200);
+        })) {
+            HostRoutes.route("coalesce.test", "localhost", stub.port());
+            run(4, n -> given().filter(SingleFlightFilter.INSTANCE).body("{}").post("http://coalesce.test/api/users"));
+            assertEquals(requests.get(), 4);
+            run(4, n -> given().filter(SingleFlightFilter.INSTANCE).header("X-Caller", String.valueOf(n))
+                    .get("http://coalesce.test/api/users"));
+            assertEquals(requests.get(), 8);
+        } finally {
+            HostRoutes.remove("coalesce.test");
+        }
+    }
+
+    @Test(description = "A GET sent after a PUT to the same url does not join a GET sent before it")
+    public void writeEndsSharing() throws Exception {
+        AtomicInteger gets = new AtomicInteger();
+        CountDownLatch firstGet = new CountDownLatch(1);
+        try (StubServer stub = StubServer.start(0, request -> {
+            if (request.method().equals("PUT")) {
+                return StubResponse.json(200, "{}");
+            }
+            gets.incrementAndGet();
+            firstGet.countDown();
+            return StubResponse.json(200, "{}").withDelay(1000);
+        })) {
+            HostRoutes.route("coalesce.test", "localhost", stub.port());
+            Thread before = new Thread(() -> given().filter(SingleFlightFilter.INSTANCE)
+                    .get("http://coalesce.test/api/users/2"));
+            before.start();
+            firstGet.await();
+            given().filter(SingleFlightFilter.INSTANCE).body("{\"name\":\"neo\"}").put("http://coalesce.test/api/users/2");
+            given().filter(SingleFlightFilter.INSTANCE).get("http://coalesce.test/api/users/2");
+            before.join();
+            assertEquals(gets.get(), 2);
+        } finally {
+            HostRoutes.remove("coalesce.test");
+        }
+    }
+
+    private interface Call {
+        Response send(int n);
+    }
+
+    private static List<Response> run(int threads, Call call) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Response> responses = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int n = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Response response = call.send(n);
+                synchronized (responses) {
+                    responses.add(response);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(responses.size() == threads, responses.size() + " of " + threads + " calls returned");
+        return responses;
+    }
+}
@@ -0,0 +1,138 @@
+package userManagement;
+
+import core.HostRoutes;
+import core.stub.StubResponse;
+import core.stub.StubServer;
+import io.restassured.response.Response;
+import org.testng.ITestResult;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import utils.ConfigRegistry;
+import utils.SoftAssertionUtil;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static core.ApiClient.given;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class SoftAssertionTest {
+
+    @Test(description = "Messages are built only for failed checks and assertAll reports every failure")
+    public void collectsFailuresLazily() {
+        AtomicInteger built = new AtomicInteger();
+        SoftAssertionUtil.assertTrue(true, () -> "never built " + built.incrementAndGet());
+        SoftAssertionUtil.assertEquals(201, 201, () -> "never built " + built.incrementAndGet());
+        SoftAssertionUtil.assertEquals(2L, 2, "numbers compare by value");
+        assertEquals(built.get(), 0);
+
+        SoftAssertionUtil.assertEquals(404, 200, () -> "status of GET users");
+        SoftAssertionUtil.assertFalse(true, "second failure");
+        AssertionError error = expectThrows(AssertionError.class, SoftAssertionUtil::assertAll);
+        assertTrue(error.getMessage().contains("status of GET users expected [200] but found [404]"));
+        assertTrue(error.getMessage().contains("second failure"));
+        //assertAll starts over
+        assertFalse(SoftAssertionUtil.collector().hasFailures());
+    }
+
+    @Test(description = "Failures of one thread are not seen by another")
+    public void collectorsAreThreadConfined() throws Exception {
+        AtomicReference<Integer> otherThreadFailures = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            SoftAssertionUtil.fail("failure on the other thread");
+            otherThreadFailures.set(SoftAssertionUtil.collector().failureCount());
+        });
+        other.start();
+        other.join();
+        assertEquals(otherThreadFailures.get(), Integer.valueOf(1));
+        assertEquals(SoftAssertionUtil.collector().failureCount(), 0);
+    }
+
+    @Test(description = "Many fields of one response are checked in one pass")
+    public void checksResponseFieldsInBulk() throws Exception {
+        try (StubServer stub = StubServer.start(0, request -> StubResponse.json(200,
+                "{\"data\":{\"id\":2,\"email\":\"janet.weaver@reqres.in\",\"first_name\":\"Janet\"},"
+                        + "\"support\":{\"url\":\"https://reqres.in/#support-heading\"}}"))) {
+            HostRoutes.route("reqres.in", "localhost", stub.port());
+            Response response = given().get("https://reqres.in/api/users/2");
+
+            SoftAssertionUtil.fields(response)
+                    .statusCode(200)
+                    .field("data.id", 2L)
+                    .field("data.first_name", "Janet")
+                    .notNull("support.url");
+            assertFalse(SoftAssertionUtil.collector().hasFailures());
+
+            SoftAssertionUtil.fields(response)
+                    .statusCode(201)
+                    .field("data.email", "emma.wong@reqres.in")
+                    .notNull("data.last_name");
+            assertEquals(SoftAssertionUtil.collector().failureCount(), 3);
+            SoftAssertionUtil.collector().reset();
+        } finally {
+            HostRoutes.remove("reqres.in");
+        }
+    }
+
+    @Test(description = "By default the listener only resets, a test that forgot assertAll still passes")
+    public void listenerResetsForTheNextTest() {
+        TestListenerAdapter results = runForgetsAssertAll();
+        assertEquals(results.getFailedTests().size(), 0);
+        assertEquals(results.getPassedTests().size(), 2);
+    }
+
+    @Test(description = "With softAssert.failUnasserted the listener fails a test that forgot assertAll")
+    public void listenerFailsTestsWithUnreportedFailures() {
+        System.setProperty("softAssert.failUnasserted", "true");
+        ConfigRegistry.get().reload();
+        TestListenerAdapter results;
+        try {
+            results = runForgetsAssertAll();
+        } finally {
+            System.clearProperty("softAssert.failUnasserted");
+            ConfigRegistry.get().reload();
+        }
+
+        assertEquals(results.getFailedTests().size(), 1);
+        ITestResult failed = results.getFailedTests().get(0);
+        assertEquals(failed.getName(), "a_collectsWithoutAssertAll");
+        assertEquals(results.getPassedTests().size(), 1);
+    }
+
+    private static TestListenerAdapter runForgetsAssertAll() {
+        TestNG testng = new TestNG(false);
+        testng.setTestClasses(new Class<?>[]{ForgetsAssertAll.class});
+        testng.setVerbose(0);
+        TestListenerAdapter results = new TestListenerAdapter();
+        testng.addListener(results);
+        ForgetsAssertAll.enabled = true;
+        try {
+            testng.run();
+        } finally {
+            ForgetsAssertAll.enabled = false;
+        }
+        return results;
+    }
+
+    //only misbehaves inside the nested run above, surefire also picks it up on its own
+    public static class ForgetsAssertAll {
+
+        static volatile boolean enabled;
+
+        @Test
+        public void a_collectsWithoutAssertAll() {
+            if (enabled) {
+                SoftAssertionUtil.fail("left behind");
+            }
+        }
+
+        @Test(dependsOnMethods = "a_collectsWithoutAssertAll", alwaysRun = true)
+        public void b_startsClean() {
+            SoftAssertionUtil.assertAll();
+        }
+    }
+}
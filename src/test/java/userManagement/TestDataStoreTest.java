@@ -0,0 +1,49 @@
+package userManagement;
+
+import org.testng.annotations.Test;
+import utils.TestDataStore;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDataStoreTest {
+
+    @Test(description = "Keys with / and ~ are escaped as RFC 6901 pointers")
+    public void escapesPointers() throws Exception {
+        Path file = write("{\"a/b\":1,\"m~n\":{\"c/d~e\":\"deep\"},\"list\":[{\"x\":true}]}");
+        TestDataStore store = TestDataStore.forFile(file.toString());
+
+        assertEquals(store.getInt("a/b"), 1);
+        assertEquals(store.getInt("/a~1b"), 1);
+        assertEquals(store.getString("/m~0n/c~1d~0e"), "deep");
+        assertTrue(store.getBoolean("/list/0/x"));
+        //an unescaped slash is a path, not part of the key
+        assertFalse(store.contains("/a/b"));
+    }
+
+    @Test(description = "The file is parsed again once its modification time changes")
+    public void reloadsWhenModified() throws Exception {
+        Path file = write("{\"name\":\"morpheus\"}");
+        TestDataStore store = TestDataStore.forFile(file.toString());
+        assertEquals(store.getString("name"), "morpheus");
+
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.write(file, "{\"name\":\"neo\"}".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 5000));
+        //the modification time is checked at most every 500 ms
+        Thread.sleep(600);
+        assertEquals(store.getString("name"), "neo");
+    }
+
+    private static Path write(String json) throws Exception {
+        Path file = Files.createTempFile("testdata", ".json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
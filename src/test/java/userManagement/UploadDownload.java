@@ -5,7 +5,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 
-import static io.restassured.RestAssured.given;
+import static core.ApiClient.given;
 
 public class UploadDownload {
 
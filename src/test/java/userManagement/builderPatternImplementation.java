@@ -1,6 +1,5 @@
 package userManagement;
 
-import io.restassured.RestAssured;
 import io.restassured.builder.ResponseSpecBuilder;
 import io.restassured.http.ContentType;
 import io.restassured.specification.ResponseSpecification;
@@ -8,7 +7,7 @@ import org.testng.annotations.Test;
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.specification.RequestSpecification;
 
-import static io.restassured.RestAssured.given;
+import static core.ApiClient.given;
 
 public class builderPatternImplementation {
 
@@ -17,9 +16,7 @@ public class builderPatternImplementation {
 
     @Test
     public void testRestAssuredNormalApproach() {
-        RestAssured.baseURI = "https://jsonplaceholder.typicode.com";
-
-        given()
+        given().baseUri("https://jsonplaceholder.typicode.com")
                 .contentType(ContentType.JSON)
                 .queryParam("userId", "1")
                 .when()
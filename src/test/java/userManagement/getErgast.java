@@ -7,7 +7,7 @@ import org.testng.annotations.Test;
 import utils.ExtentReport;
 
 
-import static io.restassured.RestAssured.given;
+import static core.ApiClient.given;
 import static org.testng.Assert.assertEquals;
 
 public class getErgast extends BaseTest {
@@ -27,9 +27,7 @@ public class getErgast extends BaseTest {
     //groups suite
     @Test(description = "Validate the status code for GET users endpoint", groups = "RegressionSuite")
     public void validateResponseBodyGetPathParam1() {
-        ExtentReport.extentlog =
-                ExtentReport.extentreport.
-                        startTest("validateResponseBodyGetPathParam1", "Validate 200 Status Code for GET Ergast");
+        ExtentReport.startTest("validateResponseBodyGetPathParam1", "Validate 200 Status Code for GET Ergast");
         Response resp = given()
                 .pathParam("raceSeason", 2016)
                 .when()
@@ -8,7 +8,7 @@ import utils.JsonReader;
 
 import java.io.IOException;
 
-import static io.restassured.RestAssured.given;
+import static core.ApiClient.given;
 import static org.testng.Assert.assertEquals;
 
 public class getPostmanEcho {
@@ -2,7 +2,9 @@ package userManagement;
 
 import core.BaseTest;
 import core.StatusCode;
-import io.restassured.RestAssured;
+import core.json.JsonExpectations;
+import core.sla.LatencyBudget;
+import core.sla.ResponseTime;
 import io.restassured.http.Cookie;
 import io.restassured.http.Cookies;
 import io.restassured.http.Header;
@@ -22,7 +24,7 @@ import utils.SoftAssertionUtil;
 import java.io.IOException;
 import java.util.*;
 
-import static io.restassured.RestAssured.given;
+import static core.ApiClient.given;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.testng.AssertJUnit.assertEquals;
@@ -39,10 +41,18 @@ public class getUsers extends BaseTest {
 
     }
 
+    @Test(description = "The users page answers 200 within the users.list latency budget")
+    public void getUserDataWithinBudget() {
+        ResponseTime.of(() -> given().get("https://reqres.in/api/users?page=2"))
+                .as("GET /api/users")
+                .expect(StatusCode.SUCCESS)
+                .within(LatencyBudget.named("users.list"))
+                .verify();
+    }
+
     @Test
     public void validateGetResponseBody() {
-        RestAssured.baseURI = "https://jsonplaceholder.typicode.com";
-        given()
+        given().baseUri("https://jsonplaceholder.typicode.com")
                 .when()
                 .get("/todos/1")
                 .then()
@@ -55,11 +65,8 @@ public class getUsers extends BaseTest {
 
     @Test
     public void validateResponseHasItems() {
-        // Set base URI for the API
-        RestAssured.baseURI = "https://jsonplaceholder.typicode.com";
-
         // Send a GET request and store the response in a variable
-        Response response = given()
+        Response response = given().baseUri("https://jsonplaceholder.typicode.com")
                 .when()
                 .get("/posts")
                 .then()
@@ -67,16 +74,16 @@ public class getUsers extends BaseTest {
                 .response();
 
         // Use Hamcrest to check that the response body contains specific items
-        assertThat(response.jsonPath().getList("title"), hasItems("sunt aut facere repellat provident occaecati excepturi optio reprehenderit", "qui est esse"));
+        JsonExpectations.builder()
+                .expect("title", hasItems("sunt aut facere repellat provident occaecati excepturi optio reprehenderit", "qui est esse"))
+                .build()
+                .verify(response);
     }
 
     @Test
     public void validateResponseHasSize() {
-        // Set base URI for the API
-        RestAssured.baseURI = "https://jsonplaceholder.typicode.com";
-
         // Send a GET request and store the response in a variable
-        Response response = given()
+        Response response = given().baseUri("https://jsonplaceholder.typicode.com")
                 .when()
                 .get("/comments")
                 .then()
@@ -84,16 +91,13 @@ public class getUsers extends BaseTest {
                 .response();
 
         // Use Hamcrest to check that the response body has a specific size
-        assertThat(response.jsonPath().getList(""), hasSize(500));
+        JsonExpectations.builder().expect("", hasSize(500)).build().verify(response);
     }
 
     @Test
     public void validateListContainsInOrder() {
-        // Set base URI for the API
-        RestAssured.baseURI = "https://jsonplaceholder.typicode.com";
-
         // Send a GET request and store the response in a variable
-        Response response = given()
+        Response response = given().baseUri("https://jsonplaceholder.typicode.com")
                 .when()
                 .get("/comments?postId=1")
                 .then()
@@ -102,7 +106,10 @@ public class getUsers extends BaseTest {
 
         // Use Hamcrest to check that the response body contains specific items in a specific order
         List<String> expectedEmails = Arrays.asList("Eliseo@gardner.biz", "Jayne_Kuhic@sydney.com", "Nikita@garfield.biz", "Lew@alysha.tv", "Hayden@althea.biz");
-        assertThat(response.jsonPath().getList("email"), contains(expectedEmails.toArray(new String[0])));
+        JsonExpectations.builder()
+                .expect("email", contains(expectedEmails.toArray(new String[0])))
+                .build()
+                .verify(response);
     }
 
     @Test
@@ -116,15 +123,17 @@ public class getUsers extends BaseTest {
                 .extract()
                 .response();
 
-        // Assert that the response contains 6 users
-        response.then().body("data", hasSize(6));
-
-        // Assert that the first user in the list has the correct values
-        response.then().body("data[0].id", is(7));
-        response.then().body("data[0].email", is("michael.lawson@reqres.in"));
-        response.then().body("data[0].first_name", is("Michael"));
-        response.then().body("data[0].last_name", is("Lawson"));
-        response.then().body("data[0].avatar", is("https://reqres.in/img/faces/7-image.jpg"));
+        // Assert that the response contains 6 users and the first user has the correct values,
+        // all checked against one parse of the body
+        JsonExpectations.builder()
+                .expect("data", hasSize(6))
+                .expect("data[0].id", is(7))
+                .expect("data[0].email", is("michael.lawson@reqres.in"))
+                .expect("data[0].first_name", is("Michael"))
+                .expect("data[0].last_name", is("Lawson"))
+                .expect("data[0].avatar", is("https://reqres.in/img/faces/7-image.jpg"))
+                .build()
+                .verify(response);
     }
 
     @Test(description = "Validate the status code for GET users endpoint")
@@ -156,15 +165,17 @@ public class getUsers extends BaseTest {
                         .extract()
                         .response();
 
-        // Assert that the response contains 6 users
-        response.then().body("data", hasSize(3));
-
-        // Assert that the first user in the list has the correct values
-        response.then().body("data[0].id", is(4));
-        response.then().body("data[0].email", is("eve.holt@reqres.in"));
-        response.then().body("data[0].first_name", is("Eve"));
-        response.then().body("data[0].last_name", is("Holt"));
-        response.then().body("data[0].avatar", is("https://reqres.in/img/faces/4-image.jpg"));
+        // Assert that the response contains 3 users and the first user has the correct values,
+        // all checked against one parse of the body
+        JsonExpectations.builder()
+                .expect("data", hasSize(3))
+                .expect("data[0].id", is(4))
+                .expect("data[0].email", is("eve.holt@reqres.in"))
+                .expect("data[0].first_name", is("Eve"))
+                .expect("data[0].last_name", is("Holt"))
+                .expect("data[0].avatar", is("https://reqres.in/img/faces/4-image.jpg"))
+                .build()
+                .verify(response);
     }
 
     @Test(description = "Validate the status code for GET users endpoint")
@@ -227,9 +238,6 @@ public class getUsers extends BaseTest {
 
     @Test
     public void testGetUserList() {
-        // Set base URI for the API
-        RestAssured.baseURI = "https://reqres.in/api";
-
         // Create a Map to hold headers
         Map<String, String> headers = new HashMap<>();
         headers.put("Content-Type", "application/json");
@@ -444,8 +452,7 @@ public class getUsers extends BaseTest {
     @Test
 
     public void validateWithSoftAssertUtil() {
-        RestAssured.baseURI = "https://reqres.in/api";
-        Response response = given()
+        Response response = given().baseUri("https://reqres.in/api")
                 .queryParam("page", 2)
                 .when()
                 .get("/users")
@@ -483,9 +490,7 @@ public class getUsers extends BaseTest {
     //groups smoke suite
     @Test(groups = {"SmokeSuite", "RegressionSuite"})
     public void verifyStatusCodeDelete1() {
-        ExtentReport.extentlog =
-                ExtentReport.extentreport.
-                        startTest("verifyStatusCodeDelete", "Validate 204 status code for DELETE Method");
+        ExtentReport.startTest("verifyStatusCodeDelete", "Validate 204 status code for DELETE Method");
 
         Response resp = given().delete("https://reqres.in/api/users/2");
         // assertEquals(resp.getStatusCode(),204);
@@ -498,9 +503,7 @@ public class getUsers extends BaseTest {
     //groups smoke suite
     @Test(groups = "RegressionSuite")
     public void validateDataFromPropertiesFile1() throws IOException, ParseException {
-        ExtentReport.extentlog =
-                ExtentReport.extentreport.
-                        startTest("validateWithDataFromPropertiesFile1", "Validate 200 Status Code for GET method");
+        ExtentReport.startTest("validateWithDataFromPropertiesFile1", "Validate 200 Status Code for GET method");
         String serverAddress = PropertyReader.propertyReader("config.properties", "server");
 
         System.out.println("server address  is : " + serverAddress);
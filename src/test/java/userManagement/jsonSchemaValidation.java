@@ -1,23 +1,21 @@
 package userManagement;
 
-import io.restassured.module.jsv.JsonSchemaValidator;
+import core.json.SchemaRegistry;
 import org.testng.annotations.Test;
 
-import java.io.File;
-
-import static io.restassured.RestAssured.given;
+import static core.ApiClient.given;
 
 public class jsonSchemaValidation {
 
     @Test
     public void jsonSchemaValidation() {
-        File schema = new File("resources/ExpectedSchema.json");
+        //compiled once per run and shared, bodies seen before are not validated again
         given()
                 .when()
                 .get("https://reqres.in/api/users?page=234")
                 .then()
                 .assertThat()
                 .statusCode(200)
-                .body(JsonSchemaValidator.matchesJsonSchema(schema));
+                .body(SchemaRegistry.get().matchesSchema("ExpectedSchema.json"));
     }
 }
\ No newline at end of file
@@ -2,33 +2,21 @@ package userManagement;
 
 import core.StatusCode;
 import io.restassured.response.Response;
-import org.apache.commons.io.IOUtils;
 import org.testng.annotations.Test;
 import pojo.cityRequest;
 import pojo.postRequestBody;
+import utils.Payloads;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import static io.restassured.RestAssured.given;
+import static core.ApiClient.given;
 import static org.testng.AssertJUnit.assertEquals;
 
 public class postUsers {
-    private static FileInputStream fileInputStream;
-
-    private static FileInputStream fileInputStreamMethod(String requestBodyFileName) {
-        try {
-            fileInputStream = new FileInputStream(
-                    new File(System.getProperty("user.dir") + "/resources/TestData/" + requestBodyFileName));
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-        return fileInputStream;
-    }
 
     @Test
     public void validatePostWithString() {
@@ -68,11 +56,10 @@ public class postUsers {
     }
 
     @Test
-    public void validatePostWithJsonFile() throws IOException {
+    public void validatePostWithJsonFile() {
 
-        Response response = given()
-                .header("Content-Type", "application/json")
-                .body(IOUtils.toString(fileInputStreamMethod("postRequestBody.json")))
+        Response response = Payloads.get("postRequestBody.json")
+                .applyTo(given().header("Content-Type", "application/json"))
                 .when()
                 .post("https://reqres.in/api/users");
         assertEquals(response.getStatusCode(), StatusCode.CREATED.code);
@@ -81,11 +68,10 @@ public class postUsers {
     }
 
     @Test
-    public void validatePatchWithJsonFile() throws IOException {
+    public void validatePatchWithJsonFile() {
 
-        Response response = given()
-                .header("Content-Type", "application/json")
-                .body(IOUtils.toString(fileInputStreamMethod("patchRequestBody.json")))
+        Response response = Payloads.get("patchRequestBody.json")
+                .applyTo(given().header("Content-Type", "application/json"))
                 .when()
                 .patch("https://reqres.in/api/users/2");
         assertEquals(response.getStatusCode(), StatusCode.SUCCESS.code);
@@ -94,11 +80,10 @@ public class postUsers {
     }
 
     @Test
-    public void validatePutWithJsonFile() throws IOException {
+    public void validatePutWithJsonFile() {
 
-        Response response = given()
-                .header("Content-Type", "application/json")
-                .body(IOUtils.toString(fileInputStreamMethod("putRequestBody.json")))
+        Response response = Payloads.get("putRequestBody.json")
+                .applyTo(given().header("Content-Type", "application/json"))
                 .when()
                 .put("https://reqres.in/api/users/2");
         assertEquals(response.getStatusCode(), StatusCode.SUCCESS.code);
@@ -106,6 +91,22 @@ public class postUsers {
         System.out.println(response.getBody().asString());
     }
 
+    @Test
+    public void validatePostWithTemplate() {
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "morpheus");
+        values.put("job", "leader");
+        Response response = given()
+                .header("Content-Type", "application/json")
+                .body(Payloads.template("postUserTemplate.json").render(values))
+                .when()
+                .post("https://reqres.in/api/users");
+        assertEquals(response.getStatusCode(), StatusCode.CREATED.code);
+        assertEquals(response.jsonPath().getString("name"), "morpheus");
+        System.out.println("validatePostWithTemplate executed successfully");
+    }
+
     @Test
     public void validatePostWithPojo() {
 
@@ -0,0 +1,67 @@
+package utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/*
+ * In utils so it can build snapshots with an environment of its own, the real one is read only
+ */
+public class ConfigRegistryTest {
+
+    @Test(description = "A system property wins over the environment, the environment over the file")
+    public void precedence() {
+        Map<String, String> file = new HashMap<>();
+        file.put("server", "https://file.test");
+        file.put("http.pool.maxTotal", "200");
+        file.put("retry.maxRetries", "2");
+        Map<String, String> environment = new HashMap<>();
+        environment.put("SERVER", "https://env.test");
+        environment.put("HTTP_POOL_MAXTOTAL", "50");
+        Map<String, String> system = Collections.singletonMap("server", "https://system.test");
+
+        ConfigRegistry.Snapshot snapshot = new ConfigRegistry.Snapshot(0, file, system, environment);
+        assertEquals(snapshot.get("server"), "https://system.test");
+        assertEquals(snapshot.getInt("http.pool.maxTotal", 0), 50);
+        assertEquals(snapshot.getInt("retry.maxRetries", 0), 2);
+        assertEquals(snapshot.asMap().get("server"), "https://system.test");
+        //keys missing from the file still resolve through the other layers
+        assertEquals(new ConfigRegistry.Snapshot(0, Collections.emptyMap(), Collections.emptyMap(), environment)
+                .get("server"), "https://env.test");
+        assertNull(snapshot.get("missing.key"));
+        assertEquals(snapshot.get("missing.key", "fallback"), "fallback");
+    }
+
+    @Test(description = "Keys map to upper case environment names with . and - as _")
+    public void environmentNames() {
+        assertEquals(ConfigRegistry.environmentName("http.pool.maxTotal"), "HTTP_POOL_MAXTOTAL");
+        assertEquals(ConfigRegistry.environmentName("server"), "SERVER");
+        assertEquals(ConfigRegistry.environmentName("limit.reqres-in.rps"), "LIMIT_REQRES_IN_RPS");
+    }
+
+    @Test(description = "A system property set after loading is picked up by reload")
+    public void reloadSeesSystemProperties() throws Exception {
+        Path file = Files.createTempFile("config", ".properties");
+        Files.write(file, "config.test.value = file\n".getBytes(StandardCharsets.UTF_8));
+        ConfigRegistry registry = ConfigRegistry.forFile(file.toString());
+        assertEquals(registry.get("config.test.value"), "file");
+
+        System.setProperty("config.test.value", "system");
+        try {
+            registry.reload();
+            assertEquals(registry.get("config.test.value"), "system");
+        } finally {
+            System.clearProperty("config.test.value");
+        }
+        registry.reload();
+        assertEquals(registry.get("config.test.value"), "file");
+    }
+}